@@ -1,12 +1,12 @@
 package com.vast;
 
 import com.vast.internal.VastExceptions;
+import com.vast.vm.ExecutionMode;
+import com.vast.vm.ScriptImage;
 import com.vast.vm.VastVM;
 
 import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.List;
 
 public class Vast {
     // Vast 脚本执行入口
@@ -23,15 +23,63 @@ public class Vast {
 
     public static class Builder {
         private boolean debug = false;
+        private ExecutionMode executionMode = null;
+        private Boolean jit = null;
+        private Boolean allocationFree = null;
+        private Boolean optimize = null;
+        private Boolean streaming = null;
 
         public Builder debug(boolean debug) {
             this.debug = debug;
             return this;
         }
 
+        public Builder executionMode(ExecutionMode executionMode) {
+            this.executionMode = executionMode;
+            return this;
+        }
+
+        public Builder jit(boolean jit) {
+            this.jit = jit;
+            return this;
+        }
+
+        public Builder allocationFree(boolean allocationFree) {
+            this.allocationFree = allocationFree;
+            return this;
+        }
+
+        public Builder optimize(boolean optimize) {
+            this.optimize = optimize;
+            return this;
+        }
+
+        /**
+         * 边解析边执行脚本文件（超过 vast.stream.threshold 的文件总是流式执行）
+         */
+        public Builder streaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
         public VastVM build() {
             VastVM vm = new VastVM();
             vm.setDebugMode(debug);
+            if (executionMode != null) {
+                vm.setExecutionMode(executionMode);
+            }
+            if (jit != null) {
+                vm.setJitEnabled(jit);
+            }
+            if (allocationFree != null) {
+                vm.setAllocationFree(allocationFree);
+            }
+            if (optimize != null) {
+                vm.getOptimizer().setEnabled(optimize);
+            }
+            if (streaming != null) {
+                vm.setStreaming(streaming);
+            }
             return vm;
         }
 
@@ -39,8 +87,7 @@ public class Vast {
             validateScriptFile(scriptPath);
             VastVM vm = build();
             try {
-                List<String> lines = Files.readAllLines(Paths.get(scriptPath));
-                vm.execute(lines);
+                vm.executeFile(Paths.get(scriptPath));
             } catch (Exception e) {
                 throw new VastException("Failed to execute script: " + e.getMessage(), e);
             }
@@ -50,12 +97,32 @@ public class Vast {
             validateScriptFile(scriptPath);
             VastVM vm = build();
             try {
-                List<String> lines = Files.readAllLines(Paths.get(scriptPath));
-                return vm.executeWithResult(lines);
+                return vm.executeFile(Paths.get(scriptPath));
             } catch (Exception e) {
                 throw new VastException("Failed to execute script: " + e.getMessage(), e);
             }
         }
+
+        /**
+         * 把脚本编译为同目录下的预编译脚本（.vastc），返回其路径
+         */
+        public String compile(String scriptPath) {
+            return compile(scriptPath, ScriptImage.imagePath(Paths.get(scriptPath)).toString());
+        }
+
+        public String compile(String scriptPath, String outputPath) {
+            validateScriptFile(scriptPath);
+            if (!scriptPath.endsWith(".vast")) {
+                throw new VastException("Only .vast files can be compiled: " + scriptPath);
+            }
+            VastVM vm = build();
+            try {
+                vm.compileFile(Paths.get(scriptPath), Paths.get(outputPath));
+                return outputPath;
+            } catch (Exception e) {
+                throw new VastException("Failed to compile script: " + e.getMessage(), e);
+            }
+        }
     }
 
     public static Builder builder() {
@@ -87,8 +154,8 @@ public class Vast {
         if (!file.exists()) {
             throw new VastException("Script file not found: " + scriptPath);
         }
-        if (!scriptPath.endsWith(".vast")) {
-            throw new VastException("Only .vast files are supported: " + scriptPath);
+        if (!scriptPath.endsWith(".vast") && !scriptPath.endsWith(ScriptImage.EXTENSION)) {
+            throw new VastException("Only .vast and " + ScriptImage.EXTENSION + " files are supported: " + scriptPath);
         }
     }
 
@@ -1,18 +1,27 @@
 package com.vast;
 
 import com.vast.internal.VastExceptions;
+import com.vast.vm.ExecutionMode;
 import com.vast.vm.VastVM;
 
 import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 public class VastCLI {
     static String ver = "0.1.2(hotfix-10)"; //版本信息
     private static LibraryManager libraryManager;
+    private static final long WATCH_SETTLE_MILLIS = 100;// watch 模式下文件停止变化多久后重新执行
 
     public static void main(String[] args) {
         VastVM tempVM = new VastVM();
@@ -48,6 +57,15 @@ public class VastCLI {
                 case "info":
                     handleInfoCommand(args);
                     break;
+                case "disasm":
+                    handleDisasmCommand(args);
+                    break;
+                case "compile":
+                    handleCompileCommand(args);
+                    break;
+                case "watch":
+                    handleWatchCommand(args);
+                    break;
                 default:
                     System.out.println("Unknown command: " + command);
                     printUsage();
@@ -64,18 +82,29 @@ public class VastCLI {
 
     private static void handleRunCommand(String[] args) {
         if (args.length < 2) {
-            println("Usage: run <script.vast> [--debug]");
+            println("Usage: run <script.vast|script.vastc> [--debug] [--mode=closure|ast|bytecode] [--no-jit] [--no-opt] [--stream]");
             return;
         }
 
         String scriptPath = args[1];
         boolean debugMode = false;
+        ExecutionMode executionMode = null;
+        Boolean jit = null;
+        Boolean optimize = null;
+        Boolean streaming = null;
 
-        // 检查--debug参数
+        // 检查--debug、--mode、--no-jit、--no-opt和--stream参数
         for (String arg : args) {
             if ("--debug".equals(arg)) {
                 debugMode = true;
-                break;
+            } else if (arg.startsWith("--mode=")) {
+                executionMode = ExecutionMode.fromOption(arg.substring("--mode=".length()));
+            } else if ("--no-jit".equals(arg)) {
+                jit = false;
+            } else if ("--no-opt".equals(arg)) {
+                optimize = false;
+            } else if ("--stream".equals(arg)) {
+                streaming = true;
             }
         }
 
@@ -87,9 +116,19 @@ public class VastCLI {
             }
             println("=".repeat(50));
 
-            Vast.builder()
+            Vast.Builder builder = Vast.builder()
                     .debug(debugMode)
-                    .run(scriptPath);
+                    .executionMode(executionMode);
+            if (jit != null) {
+                builder.jit(jit);
+            }
+            if (optimize != null) {
+                builder.optimize(optimize);
+            }
+            if (streaming != null) {
+                builder.streaming(streaming);
+            }
+            builder.run(scriptPath);
 
             long endTime = System.currentTimeMillis();
             println("=".repeat(50));
@@ -117,6 +156,7 @@ public class VastCLI {
         // 创建单个 VM 实例，在整个 shell 会话中保持
         VastVM vm = new VastVM();
         vm.setDebugMode(debugMode);
+        Path loaded = null;// load 载入的脚本，reload 时只重新分析其中修改过的语句
 
         while (true) {
             System.out.print("vast> ");
@@ -141,6 +181,23 @@ public class VastCLI {
                 continue;
             }
 
+            if (input.startsWith("load ") || input.equalsIgnoreCase("reload")) {
+                if (input.startsWith("load ")) {
+                    loaded = Paths.get(input.substring(5).trim());
+                } else if (loaded == null) {
+                    println("@ Nothing loaded yet: use 'load <script.vast>'");
+                    continue;
+                }
+                try {
+                    vm.executeIncremental(Files.readString(loaded));
+                } catch (IOException e) {
+                    println("Cannot read script: " + e.getMessage());
+                } catch (Exception e) {
+                    System.err.println("Error: " + e.getMessage());
+                }
+                continue;
+            }
+
             // 处理调试模式切换
             if (input.startsWith("debug ")) {
                 String mode = input.substring(6).toLowerCase();
@@ -240,12 +297,19 @@ public class VastCLI {
         println("Usage: vast <command> [arguments]");
         println();
         println("Commands:");
-        println("  run <script.vast> [--debug]    Execute a script file");
+        println("  run <script.vast> [--debug]        Execute a script file (or a compiled .vastc file)");
+        println("      [--mode=closure|ast|bytecode]  Choose execution tier (default: closure)");
+        println("      [--no-jit]                     Disable bytecode compilation of hot loops");
+        println("      [--no-opt]                     Disable AST optimization passes");
+        println("      [--stream]                     Execute statements while the file is still being parsed");
         println("  shell                Start interactive shell");
         println("  help [topic]         Show help information");
         println("  version              Show version info");
         println("  list                 List built-in features");
         println("  info <script.vast>   Show script statistics");
+        println("  disasm <script.vast> Show the register bytecode of a script [--no-opt]");
+        println("  compile <script.vast> Write the parsed program to script.vastc [--output=file] [--no-opt]");
+        println("  watch <script.vast>  Run a script again whenever it is saved [--mode=...] [--no-jit] [--no-opt]");
         println("  lib <command>        Manage external libraries");
         println();
         println("Library Commands:");
@@ -256,6 +320,8 @@ public class VastCLI {
         println();
         println("Examples:");
         println("  vast run script.vast");
+        println("  vast disasm script.vast");
+        println("  vast compile script.vast && vast run script.vastc");
         println("  vast lib create MyMath");
         println("  vast lib list");
     }
@@ -394,6 +460,8 @@ public class VastCLI {
         println("  clear       - Clear screen");
         println("  reset       - Reset VM state (variables, imports, etc.)");
         println("  debug on/off - Toggle stack traces");
+        println("  load <file> - Execute a script file in this session");
+        println("  reload      - Execute the loaded file again, re-parsing only the edited statements");
         println();
         println("You can type any Vast code directly:");
         println("  var x = 10");
@@ -440,6 +508,111 @@ public class VastCLI {
         println("  use(Time.wait(1000))");
     }
 
+    private static void handleDisasmCommand(String[] args) {
+        if (args.length < 2) {
+            println("Usage: disasm <script.vast> [--no-opt]");
+            return;
+        }
+
+        String scriptPath = args[1];
+        try {
+            List<String> lines = Files.readAllLines(Paths.get(scriptPath));
+            VastVM vm = new VastVM();
+            if (Arrays.asList(args).contains("--no-opt")) {
+                vm.getOptimizer().setEnabled(false);
+            }
+            println("? Bytecode: " + scriptPath);
+            System.out.print(vm.disassemble(lines));
+        } catch (IOException e) {
+            println("Cannot read script: " + e.getMessage());
+        }
+    }
+
+    private static void handleCompileCommand(String[] args) {
+        if (args.length < 2) {
+            println("Usage: compile <script.vast> [--output=file.vastc] [--no-opt]");
+            return;
+        }
+
+        String scriptPath = args[1];
+        String outputPath = null;
+        Vast.Builder builder = Vast.builder();
+        for (String arg : args) {
+            if (arg.startsWith("--output=")) {
+                outputPath = arg.substring("--output=".length());
+            } else if ("--no-opt".equals(arg)) {
+                builder.optimize(false);
+            }
+        }
+
+        try {
+            String written = outputPath != null ? builder.compile(scriptPath, outputPath) : builder.compile(scriptPath);
+            println("@ Compiled " + scriptPath + " -> " + written);
+        } catch (Vast.VastException e) {
+            System.err.println("[FAILURE] " + e.getMessage());
+        }
+    }
+
+    /**
+     * 监视脚本文件，每次保存后在重置的 VM 中重新执行；只重新分析修改过的语句
+     */
+    private static void handleWatchCommand(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            println("Usage: watch <script.vast> [--mode=closure|ast|bytecode] [--no-jit] [--no-opt]");
+            return;
+        }
+
+        Path script = Paths.get(args[1]).toAbsolutePath();
+        Vast.Builder builder = Vast.builder();
+        for (String arg : args) {
+            if (arg.startsWith("--mode=")) {
+                builder.executionMode(ExecutionMode.fromOption(arg.substring("--mode=".length())));
+            } else if ("--no-jit".equals(arg)) {
+                builder.jit(false);
+            } else if ("--no-opt".equals(arg)) {
+                builder.optimize(false);
+            }
+        }
+        VastVM vm = builder.build();
+
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            // 编辑器保存时可能先写临时文件再改名，同时监视创建和修改
+            script.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            println("@ Watching " + script + " (Ctrl+C to stop)");
+            String previous = null;
+            while (true) {
+                String source = Files.isRegularFile(script) ? Files.readString(script) : null;
+                if (source != null && !source.equals(previous)) {
+                    previous = source;
+                    println("=".repeat(50));
+                    long startTime = System.currentTimeMillis();
+                    try {
+                        vm.reset();
+                        vm.executeIncremental(source);
+                        println("[SUCCESS] Script completed in " + (System.currentTimeMillis() - startTime) + "ms");
+                    } catch (Exception e) {
+                        System.err.println("[FAILURE] Script execution failed: " + e.getMessage());
+                    }
+                }
+
+                // 等待脚本所在目录中该文件的变化，保存通常产生多个事件（截断、写入），等事件停止后再读取
+                boolean changed = false;
+                WatchKey key = watcher.take();
+                while (key != null || !changed) {
+                    if (key == null) {
+                        key = watcher.take();
+                    }
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= script.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                    key = watcher.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
     private static void handleLibCreateCommand(String[] args) {
         if (args.length < 3) {
             println("Usage: vast lib create <library-name>");
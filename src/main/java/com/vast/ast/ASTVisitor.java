@@ -25,6 +25,8 @@ public interface ASTVisitor<T> {
     T visitExpressionStatement(ExpressionStatement stmt);
     T visitImportStatement(ImportStatement stmt);
     T visitLoopStatement(LoopStatement stmt);
+    T visitWhileStatement(WhileStatement stmt);
+    T visitForStatement(ForStatement stmt);
     T visitUseStatement(UseStatement stmt);
     T visitSwapStatement(SwapStatement stmt);
     T visitInlineTypeCastStatement(InlineTypeCastStatement stmt);
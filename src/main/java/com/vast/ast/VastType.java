@@ -0,0 +1,280 @@
+package com.vast.ast;
+
+import com.vast.internal.Decimal;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * 类型描述符
+ * 每个类型名只有一个实例（可以直接用 == 比较），语法分析时解析一次并保存在 AST 节点中。
+ * 描述符带有预先构建的兼容性检查和隐式转换函数，强类型赋值不再按类型名分派
+ */
+public final class VastType {
+
+    /**
+     * 显式类型转换的目标类别
+     */
+    public enum Cast {
+        INT, BOOLEAN, STRING, DOUBLE, CHAR, DECIMAL,
+        NONE// 不支持显式转换的类型，转换时保留原值
+    }
+
+    private static final Map<String, VastType> TYPES = new ConcurrentHashMap<>();
+
+    static {
+        Predicate<Object> isInt = value -> value instanceof Integer ||
+                (value instanceof String && isIntegerText((String) value, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        Predicate<Object> isByte = value -> value instanceof Byte ||
+                (value instanceof Integer && inRange((Integer) value, Byte.MIN_VALUE, Byte.MAX_VALUE)) ||
+                (value instanceof String && isIntegerText((String) value, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        Predicate<Object> isShort = value -> value instanceof Short ||
+                (value instanceof Integer && inRange((Integer) value, Short.MIN_VALUE, Short.MAX_VALUE)) ||
+                (value instanceof String && isIntegerText((String) value, Short.MIN_VALUE, Short.MAX_VALUE));
+        Predicate<Object> isLong = value -> value instanceof Long || value instanceof Integer ||
+                (value instanceof String && isIntegerText((String) value, Long.MIN_VALUE, Long.MAX_VALUE));
+        Predicate<Object> isBool = value -> value instanceof Boolean ||
+                (value instanceof String && isBooleanText((String) value));
+
+        // 每个类型后两个参数为：所有值都能直接接受（无需转换）的类，以及部分值可能被接受的类
+        register(Cast.INT, isInt, VastType::toInt,
+                Set.of(Integer.class), Set.of(Integer.class, String.class), "int", "int32");
+        register(Cast.NONE, isByte, UnaryOperator.identity(),
+                Set.of(Byte.class), Set.of(Byte.class, Integer.class, String.class), "int8", "byte");
+        register(Cast.NONE, isShort, UnaryOperator.identity(),
+                Set.of(Short.class), Set.of(Short.class, Integer.class, String.class), "int16", "short");
+        register(Cast.NONE, isLong, UnaryOperator.identity(),
+                Set.of(Long.class, Integer.class), Set.of(Long.class, Integer.class, String.class), "int64", "long");
+        register(Cast.DOUBLE, value -> value instanceof Double || value instanceof Integer ||
+                (value instanceof String && isDoubleText((String) value)), VastType::toDouble,
+                Set.of(Double.class), Set.of(Double.class, Integer.class, String.class), "double");
+        register(Cast.NONE, value -> value instanceof Float || value instanceof Integer || value instanceof Double ||
+                (value instanceof String && isDoubleText((String) value)), UnaryOperator.identity(),
+                Set.of(Float.class, Integer.class, Double.class),
+                Set.of(Float.class, Integer.class, Double.class, String.class), "float");
+        register(Cast.BOOLEAN, isBool, VastType::toBoolean,
+                Set.of(Boolean.class), Set.of(Boolean.class, String.class), "bool", "boolean");
+        // 任何类型都可以隐式转换为字符串
+        register(Cast.STRING, value -> true, UnaryOperator.identity(), null, null, "string");
+        register(Cast.CHAR, value -> value instanceof Character ||
+                (value instanceof String && ((String) value).length() == 1) ||
+                (value instanceof Integer && inRange((Integer) value, Character.MIN_VALUE, Character.MAX_VALUE)),
+                UnaryOperator.identity(),
+                Set.of(Character.class), Set.of(Character.class, String.class, Integer.class), "char");
+        // large 可以接受任何整数或可解析为整数的字符串
+        register(Cast.NONE, value -> value instanceof Integer || value instanceof Long || value instanceof BigInteger ||
+                (value instanceof String && isIntegerText((String) value)), UnaryOperator.identity(),
+                Set.of(Integer.class, Long.class, BigInteger.class),
+                Set.of(Integer.class, Long.class, BigInteger.class, String.class), "large");
+        // decimal 接受任何整数、有限的 double 和十进制文本，统一转换为定点十进制数
+        register(Cast.DECIMAL, value -> value instanceof Decimal || value instanceof Integer || value instanceof Long ||
+                        value instanceof BigInteger || value instanceof Double && Double.isFinite((Double) value) ||
+                        (value instanceof String && Decimal.isDecimalText((String) value)), VastType::toDecimal,
+                Set.of(Decimal.class),
+                Set.of(Decimal.class, Integer.class, Long.class, BigInteger.class, Double.class, String.class), "decimal");
+    }
+
+    private final String name;
+    private final boolean builtin;
+    private final Cast cast;
+    private final Predicate<Object> checker;
+    private final UnaryOperator<Object> converter;
+    private final Set<Class<?>> exactClasses;// null 表示接受任何值且不转换
+    private final Set<Class<?>> candidateClasses;
+
+    private VastType(String name, boolean builtin, Cast cast, Predicate<Object> checker, UnaryOperator<Object> converter,
+                     Set<Class<?>> exactClasses, Set<Class<?>> candidateClasses) {
+        this.name = name;
+        this.builtin = builtin;
+        this.cast = cast;
+        this.checker = checker;
+        this.converter = converter;
+        this.exactClasses = exactClasses;
+        this.candidateClasses = candidateClasses;
+    }
+
+    private static void register(Cast cast, Predicate<Object> checker, UnaryOperator<Object> converter,
+                                 Set<Class<?>> exactClasses, Set<Class<?>> candidateClasses, String... names) {
+        for (String name : names) {
+            TYPES.put(name, new VastType(name, true, cast, checker, converter, exactClasses, candidateClasses));
+        }
+    }
+
+    /**
+     * 获取类型名对应的描述符；未知类型名得到允许任何赋值、不做转换的描述符
+     */
+    public static VastType of(String name) {
+        if (name == null) {
+            return null;
+        }
+        VastType type = TYPES.get(name);
+        if (type != null) {
+            return type;
+        }
+        return TYPES.computeIfAbsent(name, n -> new VastType(n, false, Cast.NONE, value -> true, UnaryOperator.identity(),
+                null, null));
+    }
+
+    /**
+     * 是否是语言内置的类型名
+     */
+    public static boolean isBuiltin(String name) {
+        VastType type = TYPES.get(name);
+        return type != null && type.builtin;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Cast getCast() {
+        return cast;
+    }
+
+    /**
+     * 值能否赋给该类型的变量（null 可以赋给任何类型）
+     */
+    public boolean accepts(Object value) {
+        return value == null || checker.test(value);
+    }
+
+    /**
+     * 对已通过 accepts 检查的值做隐式转换，不需要转换时返回原值
+     */
+    public Object convert(Object value) {
+        return value == null ? null : converter.apply(value);
+    }
+
+    /**
+     * 该类的每个值都能直接赋给此类型，且 convert 原样返回（静态类型推断据此省略运行时检查）
+     */
+    public boolean acceptsAll(Class<?> valueClass) {
+        return exactClasses == null || exactClasses.contains(valueClass);
+    }
+
+    /**
+     * 该类是否有值可能赋给此类型；返回 false 时该类的任何值都会被拒绝
+     */
+    public boolean mayAccept(Class<?> valueClass) {
+        return candidateClasses == null || candidateClasses.contains(valueClass);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    // ====== 隐式转换 ======
+
+    private static Object toInt(Object value) {
+        if (value instanceof String) {
+            return Integer.parseInt((String) value);// 已经在 accepts 中检查过
+        }
+        return value;
+    }
+
+    private static Object toDouble(Object value) {
+        if (value instanceof String) {
+            return Double.parseDouble((String) value);
+        }
+        if (value instanceof Integer) {
+            return ((Integer) value).doubleValue();
+        }
+        return value;
+    }
+
+    private static Object toDecimal(Object value) {
+        if (value instanceof Decimal) {
+            return value;
+        }
+        if (value instanceof String) {
+            return Decimal.parse((String) value);
+        }
+        if (value instanceof Double) {
+            return Decimal.valueOf((Double) value);
+        }
+        if (value instanceof BigInteger) {
+            return Decimal.valueOf((BigInteger) value);
+        }
+        return Decimal.valueOf(((Number) value).longValue());
+    }
+
+    private static Object toBoolean(Object value) {
+        if (value instanceof String) {
+            String str = ((String) value).toLowerCase();
+            return str.equals("true") || str.equals("1");
+        }
+        if (value instanceof Integer) {
+            return ((Integer) value) != 0;
+        }
+        return value;
+    }
+
+    // ====== 字符串检查（与对应的 parse 方法接受的格式一致） ======
+
+    private static boolean inRange(int value, int min, int max) {
+        return value >= min && value <= max;
+    }
+
+    /**
+     * 是否是可选符号加十进制数字的整数，且在 [min, max] 范围内。
+     * 逐位检查而不是通过 parse 抛出的异常判断；与 Long.parseLong 一样按负数累加，可以表示 Long.MIN_VALUE
+     */
+    private static boolean isIntegerText(String text, long min, long max) {
+        int length = text.length();
+        boolean negative = length > 0 && text.charAt(0) == '-';
+        int start = negative || length > 0 && text.charAt(0) == '+' ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        long limit = negative ? min : -max;
+        long result = 0;
+        for (int i = start; i < length; i++) {
+            int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0 || result < limit / 10) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        return true;
+    }
+
+    /**
+     * 是否是可选符号加十进制数字的任意大小整数（与 new BigInteger(String) 一致）
+     */
+    private static boolean isIntegerText(String text) {
+        int length = text.length();
+        int start = length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+') ? 1 : 0;
+        if (start == length) {
+            return false;
+        }
+        for (int i = start; i < length; i++) {
+            if (Character.digit(text.charAt(i), 10) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBooleanText(String text) {
+        String lower = text.toLowerCase();
+        return lower.equals("true") || lower.equals("false") || lower.equals("1") || lower.equals("0");
+    }
+
+    private static boolean isDoubleText(String text) {
+        try {
+            Double.parseDouble(text);// 浮点数格式（指数、十六进制、NaN 等）较复杂，直接交给 parseDouble
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
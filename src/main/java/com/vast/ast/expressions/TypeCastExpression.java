@@ -2,16 +2,17 @@ package com.vast.ast.expressions;
 
 import com.vast.ast.Expression;
 import com.vast.ast.ASTVisitor;
+import com.vast.ast.VastType;
 
 /**
  * 类型转换表达式
  */
 public class TypeCastExpression extends Expression {
     private final Expression expression;
-    private final String targetType;
+    private final VastType targetType;
     private final boolean isExplicit;
 
-    public TypeCastExpression(Expression expression, String targetType,
+    public TypeCastExpression(Expression expression, VastType targetType,
                               int lineNumber, int columnNumber) {
         super(lineNumber, columnNumber);
         this.expression = expression;
@@ -19,7 +20,7 @@ public class TypeCastExpression extends Expression {
         this.isExplicit = true;
     }
 
-    public TypeCastExpression(Expression expression, String targetType,
+    public TypeCastExpression(Expression expression, VastType targetType,
                               boolean isExplicit, int lineNumber, int columnNumber) {
         super(lineNumber, columnNumber);
         this.expression = expression;
@@ -28,7 +29,7 @@ public class TypeCastExpression extends Expression {
     }
 
     public Expression getExpression() { return expression; }
-    public String getTargetType() { return targetType; }
+    public VastType getTargetType() { return targetType; }
     public boolean isExplicit() { return isExplicit; }
 
     @Override
@@ -3,6 +3,7 @@ package com.vast.ast.statements;
 import com.vast.ast.Statement;
 import com.vast.ast.Expression;
 import com.vast.ast.ASTVisitor;
+import com.vast.ast.VastType;
 
 /**
  * 赋值语句
@@ -10,10 +11,10 @@ import com.vast.ast.ASTVisitor;
 public class AssignmentStatement extends Statement {
     private final String variableName;
     private final Expression value;
-    private final String typeHint; // 类型提示，null表示自由类型
+    private final VastType typeHint; // 类型提示，null表示自由类型
 
     public AssignmentStatement(String variableName, Expression value,
-                               String typeHint, int lineNumber, int columnNumber) {
+                               VastType typeHint, int lineNumber, int columnNumber) {
         super(lineNumber, columnNumber);
         this.variableName = variableName;
         this.value = value;
@@ -22,7 +23,7 @@ public class AssignmentStatement extends Statement {
 
     public String getVariableName() { return variableName; }
     public Expression getValue() { return value; }
-    public String getTypeHint() { return typeHint; }
+    public VastType getTypeHint() { return typeHint; }
     public boolean isStrongTyped() { return typeHint != null; }
 
     @Override
@@ -0,0 +1,40 @@
+package com.vast.ast.statements;
+
+import com.vast.ast.Statement;
+import com.vast.ast.Expression;
+import com.vast.ast.ASTVisitor;
+import java.util.List;
+
+/**
+ * 计数循环语句 for i in a..b:，范围为 [a, b)，两端只在进入循环时求值一次
+ */
+public class ForStatement extends Statement {
+    private final String variableName;
+    private final Expression start;
+    private final Expression end;
+    private final List<Statement> body;
+
+    public ForStatement(String variableName, Expression start, Expression end, List<Statement> body,
+                        int lineNumber, int columnNumber) {
+        super(lineNumber, columnNumber);
+        this.variableName = variableName;
+        this.start = start;
+        this.end = end;
+        this.body = body;
+    }
+
+    public String getVariableName() { return variableName; }
+    public Expression getStart() { return start; }
+    public Expression getEnd() { return end; }
+    public List<Statement> getBody() { return body; }
+
+    @Override
+    public <T> T accept(ASTVisitor<T> visitor) {
+        return visitor.visitForStatement(this);
+    }
+
+    @Override
+    public String toString() {
+        return "for " + variableName + " in " + start + ".." + end + ": ...";
+    }
+}
@@ -3,6 +3,7 @@ package com.vast.ast.statements;
 import com.vast.ast.Statement;
 import com.vast.ast.expressions.TypeCastExpression;
 import com.vast.ast.ASTVisitor;
+import com.vast.ast.VastType;
 
 /**
  * 内联类型转换语句：type(variableName)
@@ -18,7 +19,7 @@ public class InlineTypeCastStatement extends Statement {
     }
 
     public TypeCastExpression getTypeCastExpression() { return typeCastExpression; }
-    public String getTargetType() { return typeCastExpression.getTargetType(); }
+    public VastType getTargetType() { return typeCastExpression.getTargetType(); }
 
     @Override
     public <T> T accept(ASTVisitor<T> visitor) {
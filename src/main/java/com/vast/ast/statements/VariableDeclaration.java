@@ -3,14 +3,15 @@ package com.vast.ast.statements;
 import com.vast.ast.ASTVisitor;
 import com.vast.ast.Expression;
 import com.vast.ast.Statement;
+import com.vast.ast.VastType;
 
 public class VariableDeclaration extends Statement {
     private final String variableName;
-    private final String typeHint; // 存储类型信息
+    private final VastType typeHint; // 存储类型信息
     private final Expression initialValue;
     private final boolean isTypeCast; // 是否是类型转换声明
 
-    public VariableDeclaration(String variableName, String typeHint,
+    public VariableDeclaration(String variableName, VastType typeHint,
                                Expression initialValue, boolean isTypeCast,
                                int lineNumber, int columnNumber) {
         super(lineNumber, columnNumber);
@@ -21,7 +22,7 @@ public class VariableDeclaration extends Statement {
     }
 
     public String getVariableName() { return variableName; }
-    public String getTypeHint() { return typeHint; }
+    public VastType getTypeHint() { return typeHint; }
     public Expression getInitialValue() { return initialValue; }
     public boolean isTypeCast() { return isTypeCast; }
 
@@ -0,0 +1,34 @@
+package com.vast.ast.statements;
+
+import com.vast.ast.Statement;
+import com.vast.ast.Expression;
+import com.vast.ast.ASTVisitor;
+import java.util.List;
+
+/**
+ * 条件循环语句 while(cond):，每次迭代前重新求值条件
+ */
+public class WhileStatement extends Statement {
+    private final Expression condition;
+    private final List<Statement> body;
+
+    public WhileStatement(Expression condition, List<Statement> body,
+                          int lineNumber, int columnNumber) {
+        super(lineNumber, columnNumber);
+        this.condition = condition;
+        this.body = body;
+    }
+
+    public Expression getCondition() { return condition; }
+    public List<Statement> getBody() { return body; }
+
+    @Override
+    public <T> T accept(ASTVisitor<T> visitor) {
+        return visitor.visitWhileStatement(this);
+    }
+
+    @Override
+    public String toString() {
+        return "while(" + condition + "): ...";
+    }
+}
@@ -0,0 +1,94 @@
+package com.vast.internal;
+
+/**
+ * 数组批量运算的内核
+ * 以 vector profile 构建（mvn -Pvector）且运行时包含 jdk.incubator.vector 模块（以 --add-modules jdk.incubator.vector
+ * 启动）时使用 Vector API 实现，否则使用标量循环。可以用 -Dvast.array.simd=false 强制使用标量实现。
+ * 内核只做纯计算，溢出范围检查、空数组等由 ArrayUtil 在调用前处理
+ */
+abstract class ArrayKernels {
+
+    static final ArrayKernels INSTANCE = select();
+
+    private static ArrayKernels select() {
+        if (!"false".equalsIgnoreCase(System.getProperty("vast.array.simd")) &&
+                ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // 通过反射加载，未启用模块时不会解析到 Vector API 的类
+                return (ArrayKernels) Class.forName("com.vast.internal.VectorArrayKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                Debugger.getInstance().debug("Vector API unavailable, using scalar array kernels: " + e);
+            }
+        }
+        return new ScalarArrayKernels();
+    }
+
+    /**
+     * 内核名称（用于调试输出）
+     */
+    abstract String name();
+
+    abstract void fill(int[] a, int value);
+
+    abstract void fill(long[] a, long value);
+
+    abstract void fill(double[] a, double value);
+
+    /**
+     * int 元素之和按 long 累加，元素个数不超过 2^31 时不会溢出
+     */
+    abstract long sum(int[] a);
+
+    /**
+     * 调用方保证结果不超出 long 范围
+     */
+    abstract long sum(long[] a);
+
+    /**
+     * 浮点数的累加顺序因实现而异，结果可能与逐个累加在最后几位上不同
+     */
+    abstract double sum(double[] a);
+
+    abstract int min(int[] a);
+
+    abstract int max(int[] a);
+
+    abstract long min(long[] a);
+
+    abstract long max(long[] a);
+
+    /**
+     * 与 Math.min 相同：含 NaN 时结果为 NaN
+     */
+    abstract double min(double[] a);
+
+    abstract double max(double[] a);
+
+    /**
+     * 原地乘以系数，调用方保证乘积不溢出
+     */
+    abstract void scale(int[] a, int factor);
+
+    abstract void scale(long[] a, long factor);
+
+    abstract void scale(double[] a, double factor);
+
+    /**
+     * 两个等长数组的点积，调用方保证结果不超出 long 范围
+     */
+    abstract long dot(int[] a, int[] b);
+
+    abstract long dot(long[] a, long[] b);
+
+    abstract double dot(double[] a, double[] b);
+
+    abstract int indexOf(int[] a, int value);
+
+    abstract int indexOf(long[] a, long value);
+
+    /**
+     * 与 Double.equals 相同：NaN 与 NaN 相等，0.0 与 -0.0 不相等
+     */
+    abstract int indexOf(double[] a, double value);
+}
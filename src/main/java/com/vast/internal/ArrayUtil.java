@@ -0,0 +1,300 @@
+package com.vast.internal;
+
+import java.math.BigInteger;
+
+/**
+ * 数组内置库（脚本中以 Array 使用）
+ * 数组按元素类型用 int[]、long[]、double[] 连续存储（见 VastArray），批量运算不逐个装箱，
+ * 由 ArrayKernels 在可用时使用 Vector API 执行。
+ * 整数结果与整数塔一致：求和、点积先检查范围，可能超出 long 时按 BigInteger 精确计算
+ */
+public class ArrayUtil {
+    private static final ArrayKernels KERNELS = ArrayKernels.INSTANCE;
+    // 估算的结果绝对值小于此值时用 long 通道计算（留出浮点估算误差的余量）
+    private static final double LONG_SAFE_BOUND = 0x1p62;
+
+    // ====== 创建 ======
+
+    /**
+     * 创建元素全为 0 的 int 数组
+     */
+    public static VastArray create(int length) {
+        return create(length, "int");
+    }
+
+    /**
+     * 创建指定元素类型（int、long 或 double）的数组
+     */
+    public static VastArray create(int length, String type) {
+        VastArray.ElementType elementType = VastArray.ElementType.of(type);
+        if (elementType == null) {
+            throw new VastExceptions.PassParameterException("Array.create",
+                    "unsupported element type '" + type + "', expected int, long or double");
+        }
+        checkLength("Array.create", length);
+        return VastArray.create(elementType, length);
+    }
+
+    /**
+     * 由给定的值创建数组：全为 int 时为 int 数组，全为整数时为 long 数组，否则为 double 数组
+     */
+    public static VastArray of(Object... values) {
+        VastArray.ElementType elementType = VastArray.ElementType.INT;
+        for (Object value : values) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                continue;
+            }
+            if (value instanceof Long || value instanceof BigInteger) {
+                if (elementType == VastArray.ElementType.INT) {
+                    elementType = VastArray.ElementType.LONG;
+                }
+            } else if (value instanceof Number) {
+                elementType = VastArray.ElementType.DOUBLE;
+            } else {
+                break;// 非数值交给 set 报告
+            }
+        }
+        VastArray array = VastArray.create(elementType, values.length);
+        for (int i = 0; i < values.length; i++) {
+            array.set(i, values[i]);
+        }
+        return array;
+    }
+
+    /**
+     * 创建元素为 0, 1, ..., length - 1 的 int 数组
+     */
+    public static VastArray range(int length) {
+        checkLength("Array.range", length);
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return VastArray.of(values);
+    }
+
+    public static VastArray copy(VastArray array) {
+        return array.copy();
+    }
+
+    // ====== 元素访问 ======
+
+    public static int length(VastArray array) {
+        return array.length();
+    }
+
+    public static String type(VastArray array) {
+        return array.getElementType().getTypeName();
+    }
+
+    public static Object get(VastArray array, int index) {
+        return array.get(index);
+    }
+
+    public static void set(VastArray array, int index, Object value) {
+        array.set(index, value);
+    }
+
+    // ====== 批量运算 ======
+
+    public static void fill(VastArray array, Object value) {
+        switch (array.getElementType()) {
+            case INT:
+                KERNELS.fill(array.ints, array.toInt(value));
+                break;
+            case LONG:
+                KERNELS.fill(array.longs, array.toLong(value));
+                break;
+            default:
+                KERNELS.fill(array.doubles, array.toDouble(value));
+                break;
+        }
+    }
+
+    public static Object sum(VastArray array) {
+        switch (array.getElementType()) {
+            case INT:
+                return narrow(KERNELS.sum(array.ints));
+            case LONG:
+                long[] longs = array.longs;
+                if (maxAbs(longs) * longs.length < LONG_SAFE_BOUND) {
+                    return narrow(KERNELS.sum(longs));
+                }
+                BigInteger sum = BigInteger.ZERO;
+                for (long value : longs) {
+                    sum = sum.add(BigInteger.valueOf(value));
+                }
+                return narrow(sum);
+            default:
+                return KERNELS.sum(array.doubles);
+        }
+    }
+
+    public static Object min(VastArray array) {
+        checkNotEmpty("Array.min", array);
+        switch (array.getElementType()) {
+            case INT:
+                return KERNELS.min(array.ints);
+            case LONG:
+                return narrow(KERNELS.min(array.longs));
+            default:
+                return KERNELS.min(array.doubles);
+        }
+    }
+
+    public static Object max(VastArray array) {
+        checkNotEmpty("Array.max", array);
+        switch (array.getElementType()) {
+            case INT:
+                return KERNELS.max(array.ints);
+            case LONG:
+                return narrow(KERNELS.max(array.longs));
+            default:
+                return KERNELS.max(array.doubles);
+        }
+    }
+
+    /**
+     * 每个元素原地乘以系数；整数数组的乘积放不进元素类型时报告溢出，不修改数组
+     */
+    public static void scale(VastArray array, Object factor) {
+        switch (array.getElementType()) {
+            case INT: {
+                int f = array.toInt(integerFactor(array, factor));
+                int[] ints = array.ints;
+                if (ints.length > 0) {
+                    long low = (long) KERNELS.min(ints) * f;
+                    long high = (long) KERNELS.max(ints) * f;
+                    if (low != (int) low || high != (int) high) {
+                        throw VastExceptions.MathError.overflow("Array.scale");
+                    }
+                }
+                KERNELS.scale(ints, f);
+                break;
+            }
+            case LONG: {
+                long f = array.toLong(integerFactor(array, factor));
+                long[] longs = array.longs;
+                if (longs.length > 0) {
+                    try {
+                        Math.multiplyExact(KERNELS.min(longs), f);
+                        Math.multiplyExact(KERNELS.max(longs), f);
+                    } catch (ArithmeticException e) {
+                        throw VastExceptions.MathError.overflow("Array.scale");
+                    }
+                }
+                KERNELS.scale(longs, f);
+                break;
+            }
+            default:
+                KERNELS.scale(array.doubles, array.toDouble(factor));
+                break;
+        }
+    }
+
+    /**
+     * 两个等长数组的点积；有 double 数组时按 double 计算
+     */
+    public static Object dot(VastArray a, VastArray b) {
+        if (a.length() != b.length()) {
+            throw new VastExceptions.PassParameterException("Array.dot",
+                    "length mismatch: " + a.length() + " and " + b.length());
+        }
+        if (a.getElementType() == VastArray.ElementType.DOUBLE || b.getElementType() == VastArray.ElementType.DOUBLE) {
+            return KERNELS.dot(a.toDoubles(), b.toDoubles());
+        }
+        if (a.getElementType() == VastArray.ElementType.INT && b.getElementType() == VastArray.ElementType.INT) {
+            if (maxAbs(a.ints) * maxAbs(b.ints) * a.length() < LONG_SAFE_BOUND) {
+                return narrow(KERNELS.dot(a.ints, b.ints));
+            }
+        }
+        long[] left = a.toLongs();
+        long[] right = b.toLongs();
+        if (maxAbs(left) * maxAbs(right) * left.length < LONG_SAFE_BOUND) {
+            return narrow(KERNELS.dot(left, right));
+        }
+        BigInteger sum = BigInteger.ZERO;
+        for (int i = 0; i < left.length; i++) {
+            sum = sum.add(BigInteger.valueOf(left[i]).multiply(BigInteger.valueOf(right[i])));
+        }
+        return narrow(sum);
+    }
+
+    /**
+     * 与 == 的比较规则一致：整数数组只包含整数，double 数组只包含 double
+     */
+    public static boolean contains(VastArray array, Object value) {
+        return indexOf(array, value) >= 0;
+    }
+
+    public static int indexOf(VastArray array, Object value) {
+        switch (array.getElementType()) {
+            case INT:
+                if (isInteger(value) && ((Number) value).longValue() == ((Number) value).intValue()) {
+                    return KERNELS.indexOf(array.ints, ((Number) value).intValue());
+                }
+                return -1;
+            case LONG:
+                if (isInteger(value)) {
+                    return KERNELS.indexOf(array.longs, ((Number) value).longValue());
+                }
+                return -1;
+            default:
+                if (value instanceof Double) {
+                    return KERNELS.indexOf(array.doubles, (Double) value);
+                }
+                return -1;
+        }
+    }
+
+    /**
+     * 当前使用的批量运算实现（scalar 或 vector-位宽）
+     */
+    public static String backend() {
+        return KERNELS.name();
+    }
+
+    // ====== 辅助方法 ======
+
+    private static boolean isInteger(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    private static Object integerFactor(VastArray array, Object factor) {
+        if (!isInteger(factor)) {
+            throw new VastExceptions.PassParameterException("Array.scale",
+                    "cannot scale " + type(array) + " array by " + factor);
+        }
+        return factor;
+    }
+
+    private static double maxAbs(int[] values) {
+        return values.length == 0 ? 0 : Math.max(Math.abs((double) KERNELS.min(values)),
+                Math.abs((double) KERNELS.max(values)));
+    }
+
+    private static double maxAbs(long[] values) {
+        return values.length == 0 ? 0 : Math.max(Math.abs((double) KERNELS.min(values)),
+                Math.abs((double) KERNELS.max(values)));
+    }
+
+    private static void checkLength(String operation, int length) {
+        if (length < 0) {
+            throw new VastExceptions.PassParameterException(operation, "negative length " + length);
+        }
+    }
+
+    private static void checkNotEmpty(String operation, VastArray array) {
+        if (array.length() == 0) {
+            throw new VastExceptions.PassParameterException(operation, "array is empty");
+        }
+    }
+
+    private static Object narrow(long value) {
+        return value == (int) value ? (Object) (int) value : (Object) value;
+    }
+
+    private static Object narrow(BigInteger value) {
+        return value.bitLength() < 64 ? narrow(value.longValue()) : value;
+    }
+}
@@ -1,11 +1,39 @@
 package com.vast.internal;
 
+import java.util.Locale;
+import java.util.function.Supplier;
+
 /**
- * 简化的调试器类 - 只控制是否显示堆栈追踪
+ * 简化的调试器类 - 控制是否显示堆栈追踪与调试日志
+ * 调试日志按分类和级别过滤；带 Supplier 的重载只在日志实际输出时才构建消息
  */
 public class Debugger {
+    /**
+     * 调试日志总开关（vast.debug.enabled=false 时关闭）
+     * 为 static final，关闭后 JIT 可以把所有调试分支当作死代码消除
+     */
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("vast.debug.enabled"));
+
+    /**
+     * 日志分类
+     */
+    public enum Category {
+        VM, LEXER, PARSER, OPTIMIZER, INTERPRETER, LIBRARY, JIT
+    }
+
+    /**
+     * 日志级别：TRACE 用于每次求值、每次调用都会产生的消息
+     */
+    public enum Level {
+        DEBUG, TRACE
+    }
+
+    private static final int ALL_CATEGORIES = (1 << Category.values().length) - 1;
+
     private static Debugger instance;
     private boolean showStackTrace = false;
+    private int categoryMask = parseCategories(System.getProperty("vast.debug.categories"));// 启用的分类（按位）
+    private Level level = parseLevel(System.getProperty("vast.debug.level"));// 输出的最高级别
 
     private Debugger() {
         // 私有构造函数
@@ -29,6 +57,37 @@ public class Debugger {
         return showStackTrace;
     }
 
+    /**
+     * 设置启用的分类，为空时启用全部分类
+     */
+    public void setCategories(Category... categories) {
+        int mask = 0;
+        for (Category category : categories) {
+            mask |= 1 << category.ordinal();
+        }
+        this.categoryMask = mask != 0 ? mask : ALL_CATEGORIES;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isDebugEnabled() {
+        return ENABLED && showStackTrace;
+    }
+
+    public boolean isDebugEnabled(Category category) {
+        return ENABLED && showStackTrace && (categoryMask & (1 << category.ordinal())) != 0;
+    }
+
+    public boolean isTraceEnabled(Category category) {
+        return isDebugEnabled(category) && level == Level.TRACE;
+    }
+
     // 基本日志输出 - 总是显示
     public void log(String message) {
         System.out.println(message);
@@ -36,11 +95,36 @@ public class Debugger {
 
     // 调试输出 - 只在调试模式下显示
     public void debug(String message) {
-        if (showStackTrace) {
+        if (isDebugEnabled()) {
             System.out.println("@ " + message);
         }
     }
 
+    public void debug(Category category, String message) {
+        if (isDebugEnabled(category)) {
+            System.out.println("@ " + message);
+        }
+    }
+
+    // 消息由 Supplier 延迟构建，调试关闭时不会执行
+    public void debug(Category category, Supplier<String> message) {
+        if (isDebugEnabled(category)) {
+            System.out.println("@ " + message.get());
+        }
+    }
+
+    public void trace(Category category, String message) {
+        if (isTraceEnabled(category)) {
+            System.out.println("@ " + message);
+        }
+    }
+
+    public void trace(Category category, Supplier<String> message) {
+        if (isTraceEnabled(category)) {
+            System.out.println("@ " + message.get());
+        }
+    }
+
     // 错误输出 - 总是显示
     public void error(String message) {
         System.err.println("[ERROR] " + message);
@@ -59,8 +143,34 @@ public class Debugger {
         System.out.println("@ [WARNING] " + message);
     }
 
+    /**
+     * 解析逗号分隔的分类名（如 "parser,jit"），为空或无法识别时启用全部分类
+     */
+    private static int parseCategories(String option) {
+        if (option == null || option.isBlank()) {
+            return ALL_CATEGORIES;
+        }
+        int mask = 0;
+        for (String name : option.split(",")) {
+            for (Category category : Category.values()) {
+                if (category.name().equalsIgnoreCase(name.trim())) {
+                    mask |= 1 << category.ordinal();
+                }
+            }
+        }
+        return mask != 0 ? mask : ALL_CATEGORIES;
+    }
+
+    // 默认输出全部级别，与原来 --debug 的输出一致
+    private static Level parseLevel(String option) {
+        if (option != null && option.trim().toLowerCase(Locale.ROOT).equals("debug")) {
+            return Level.DEBUG;
+        }
+        return Level.TRACE;
+    }
+
     @Override
     public String toString() {
         return "Debugger{showStackTrace=" + showStackTrace + "}";
     }
-}
\ No newline at end of file
+}
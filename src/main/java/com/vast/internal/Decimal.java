@@ -0,0 +1,409 @@
+package com.vast.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * 定点十进制数（decimal 类型的值）
+ * 值为 unscaled × 10^-scale，默认用 long 保存未缩放的值、scale 在 0 到 18 之间；
+ * 加、减、乘、比较直接在 long 上计算，溢出（Math.*Exact 检测）或小数位过多时改用 BigDecimal，
+ * 结果重新落入 long 范围后自动降级。与 BigDecimal 一样保留小数位数（1.50 显示为 1.50），但相等比较按数值进行
+ */
+public final class Decimal extends Number implements Comparable<Decimal> {
+    private static final long serialVersionUID = 1L;
+    // long 表示允许的最大小数位数（10^18 是 long 能表示的最大的 10 的幂）
+    private static final int MAX_SCALE = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+    // 除法无法整除时保留的有效数字
+    private static final MathContext DIVISION_CONTEXT = MathContext.DECIMAL128;
+    // 整数次幂结果的最大位数，超过时报错而不是耗尽内存
+    private static final long MAX_POWER_DIGITS = 1 << 20;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    public static final Decimal ZERO = new Decimal(0, 0, null);
+
+    private final long unscaled;
+    private final int scale;
+    private final BigDecimal big;// 超出 long 表示范围时使用，否则为 null
+
+    private Decimal(long unscaled, int scale, BigDecimal big) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.big = big;
+    }
+
+    // ====== 创建 ======
+
+    public static Decimal valueOf(long value) {
+        return new Decimal(value, 0, null);
+    }
+
+    /**
+     * unscaled × 10^-scale，scale 超出 long 表示的范围时使用 BigDecimal
+     */
+    public static Decimal valueOf(long unscaled, int scale) {
+        if (scale >= 0 && scale <= MAX_SCALE) {
+            return new Decimal(unscaled, scale, null);
+        }
+        return valueOf(BigDecimal.valueOf(unscaled, scale));
+    }
+
+    /**
+     * 由 BigDecimal 创建，能放进 long 表示时降级；负的 scale（如 1E+3）展开为整数
+     */
+    public static Decimal valueOf(BigDecimal value) {
+        if (value.scale() < 0) {
+            value = value.setScale(0);
+        }
+        BigInteger unscaledValue = value.unscaledValue();
+        if (value.scale() <= MAX_SCALE && unscaledValue.bitLength() < 64) {
+            return new Decimal(unscaledValue.longValue(), value.scale(), null);
+        }
+        return new Decimal(0, 0, value);
+    }
+
+    public static Decimal valueOf(BigInteger value) {
+        return value.bitLength() < 64 ? valueOf(value.longValue()) : valueOf(new BigDecimal(value));
+    }
+
+    /**
+     * 由 double 创建：使用能唯一确定该 double 的最短十进制表示（0.1 得到 0.1 而不是二进制误差展开）
+     */
+    public static Decimal valueOf(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new NumberFormatException("Cannot convert " + value + " to decimal");
+        }
+        return valueOf(BigDecimal.valueOf(value));
+    }
+
+    /**
+     * 解析十进制文本（与 new BigDecimal(String) 接受的格式一致），格式错误时抛出 NumberFormatException
+     */
+    public static Decimal parse(String text) {
+        return valueOf(new BigDecimal(text.trim()));
+    }
+
+    /**
+     * 文本能否解析为 decimal
+     */
+    public static boolean isDecimalText(String text) {
+        try {
+            new BigDecimal(text.trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 分数转换为 decimal：有限小数精确转换，否则按 34 位有效数字舍入
+     */
+    public static Decimal valueOf(Fraction fraction) {
+        BigDecimal numerator = new BigDecimal(fraction.getBigNumerator());
+        BigDecimal denominator = new BigDecimal(fraction.getBigDenominator());
+        return quotient(numerator, denominator);
+    }
+
+    // ====== 运算 ======
+
+    public Decimal add(Decimal other) {
+        if (big == null && other.big == null) {
+            try {
+                if (scale == other.scale) {
+                    return new Decimal(Math.addExact(unscaled, other.unscaled), scale, null);
+                }
+                int common = Math.max(scale, other.scale);
+                return new Decimal(Math.addExact(rescale(common), other.rescale(common)), common, null);
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigDecimal
+            }
+        }
+        return valueOf(toBigDecimal().add(other.toBigDecimal()));
+    }
+
+    public Decimal subtract(Decimal other) {
+        if (big == null && other.big == null) {
+            try {
+                if (scale == other.scale) {
+                    return new Decimal(Math.subtractExact(unscaled, other.unscaled), scale, null);
+                }
+                int common = Math.max(scale, other.scale);
+                return new Decimal(Math.subtractExact(rescale(common), other.rescale(common)), common, null);
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigDecimal
+            }
+        }
+        return valueOf(toBigDecimal().subtract(other.toBigDecimal()));
+    }
+
+    public Decimal multiply(Decimal other) {
+        if (big == null && other.big == null && scale + other.scale <= MAX_SCALE) {
+            try {
+                return new Decimal(Math.multiplyExact(unscaled, other.unscaled), scale + other.scale, null);
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigDecimal
+            }
+        }
+        return valueOf(toBigDecimal().multiply(other.toBigDecimal()));
+    }
+
+    /**
+     * 除法：能整除（商是有限小数）时结果精确，否则按 34 位有效数字四舍六入五成双。
+     * 除数为零时抛出 ArithmeticException，调用方应先检查
+     */
+    public Decimal divide(Decimal other) {
+        if (big == null && other.big == null && other.unscaled != 0 && scale == other.scale &&
+                unscaled % other.unscaled == 0 && (unscaled != Long.MIN_VALUE || other.unscaled != -1)) {
+            return new Decimal(unscaled / other.unscaled, 0, null);// 常见的整数倍情况
+        }
+        return quotient(toBigDecimal(), other.toBigDecimal());
+    }
+
+    private static Decimal quotient(BigDecimal dividend, BigDecimal divisor) {
+        try {
+            return valueOf(dividend.divide(divisor));
+        } catch (ArithmeticException e) {
+            if (divisor.signum() == 0) {
+                throw e;
+            }
+            // 无限小数，舍入后去掉末尾的零
+            return valueOf(dividend.divide(divisor, DIVISION_CONTEXT).stripTrailingZeros());
+        }
+    }
+
+    /**
+     * 余数，符号与被除数相同（与整数的 % 一致）
+     */
+    public Decimal remainder(Decimal other) {
+        if (big == null && other.big == null) {
+            try {
+                int common = Math.max(scale, other.scale);
+                return new Decimal(rescale(common) % other.rescale(common), common, null);
+            } catch (ArithmeticException e) {
+                // 对齐小数位时溢出，改用 BigDecimal
+            }
+        }
+        return valueOf(toBigDecimal().remainder(other.toBigDecimal()));
+    }
+
+    /**
+     * 地板除，结果为整数（Long 或 BigInteger）
+     */
+    public Number floorDivide(Decimal other) {
+        if (big == null && other.big == null) {
+            try {
+                int common = Math.max(scale, other.scale);
+                long a = rescale(common);
+                long b = other.rescale(common);
+                if (a != Long.MIN_VALUE || b != -1) {
+                    return Math.floorDiv(a, b);
+                }
+            } catch (ArithmeticException e) {
+                // 对齐小数位时溢出，改用 BigDecimal
+            }
+        }
+        return toBigDecimal().divide(other.toBigDecimal(), 0, RoundingMode.FLOOR).toBigIntegerExact();
+    }
+
+    /**
+     * 非负整数次幂（精确）
+     */
+    public Decimal pow(int exponent) {
+        if (exponent < 0) {
+            throw new ArithmeticException("Negative exponent");
+        }
+        BigDecimal base = toBigDecimal();
+        if ((long) exponent * Math.max(1, base.precision() + Math.abs(base.scale())) > MAX_POWER_DIGITS) {
+            throw new ArithmeticException("Decimal power result is too large");
+        }
+        return valueOf(base.pow(exponent));
+    }
+
+    public Decimal negate() {
+        if (big == null && unscaled != Long.MIN_VALUE) {
+            return new Decimal(-unscaled, scale, null);
+        }
+        return valueOf(toBigDecimal().negate());
+    }
+
+    /**
+     * 按四舍五入（HALF_UP）保留 newScale 位小数
+     */
+    public Decimal round(int newScale) {
+        if (big == null && newScale >= 0 && newScale <= MAX_SCALE) {
+            if (newScale < scale) {
+                long divisor = POWERS_OF_TEN[scale - newScale];
+                long quotient = unscaled / divisor;
+                long remainder = unscaled % divisor;
+                if (Math.abs(remainder) * 2 >= divisor) {
+                    quotient += Long.signum(unscaled);// 不会溢出：商的绝对值远小于 Long.MAX_VALUE
+                }
+                return new Decimal(quotient, newScale, null);
+            }
+            try {
+                return new Decimal(Math.multiplyExact(unscaled, POWERS_OF_TEN[newScale - scale]), newScale, null);
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigDecimal
+            }
+        }
+        return valueOf(toBigDecimal().setScale(newScale, RoundingMode.HALF_UP));
+    }
+
+    public int signum() {
+        return big == null ? Long.signum(unscaled) : big.signum();
+    }
+
+    public boolean isZero() {
+        return signum() == 0;
+    }
+
+    /**
+     * 小数位数
+     */
+    public int scale() {
+        return big == null ? scale : big.scale();
+    }
+
+    /**
+     * 对齐到更多的小数位，溢出时抛出 ArithmeticException
+     */
+    private long rescale(int newScale) {
+        return newScale == scale ? unscaled : Math.multiplyExact(unscaled, POWERS_OF_TEN[newScale - scale]);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return big != null ? big : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * 转换为分数（精确）
+     */
+    public Fraction toFraction() {
+        if (big == null) {
+            return Fraction.of(unscaled, POWERS_OF_TEN[scale]);
+        }
+        BigDecimal value = big;
+        return Fraction.of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()));
+    }
+
+    // ====== 比较 ======
+
+    @Override
+    public int compareTo(Decimal other) {
+        if (big == null && other.big == null) {
+            if (scale == other.scale) {
+                return Long.compare(unscaled, other.unscaled);
+            }
+            try {
+                int common = Math.max(scale, other.scale);
+                return Long.compare(rescale(common), other.rescale(common));
+            } catch (ArithmeticException e) {
+                // 使用下面的 BigDecimal 比较
+            }
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    /**
+     * 按数值比较：1.5 与 1.50 相等
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof Decimal && compareTo((Decimal) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        if (big == null) {
+            return hash(unscaled, scale);
+        }
+        BigDecimal normalized = big.stripTrailingZeros();
+        if (normalized.scale() < 0) {
+            normalized = normalized.setScale(0);
+        }
+        if (normalized.scale() <= MAX_SCALE && normalized.unscaledValue().bitLength() < 64) {
+            return hash(normalized.unscaledValue().longValue(), normalized.scale());
+        }
+        return normalized.hashCode();
+    }
+
+    /**
+     * 去掉末尾的零后计算哈希，保证数值相等的值哈希相同
+     */
+    private static int hash(long unscaled, int scale) {
+        while (scale > 0 && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        return 31 * Long.hashCode(unscaled) + scale;
+    }
+
+    // ====== Number ======
+
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    /**
+     * 截断小数部分
+     */
+    @Override
+    public long longValue() {
+        return big == null ? unscaled / POWERS_OF_TEN[scale] : big.longValue();
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        // 未缩放值和 10 的幂都能精确表示为 double 时，一次除法得到正确舍入的结果
+        if (big == null && Math.abs(unscaled) < (1L << 53)) {
+            return unscaled / (double) POWERS_OF_TEN[scale];
+        }
+        return toBigDecimal().doubleValue();
+    }
+
+    /**
+     * 普通记数法，保留全部小数位（不使用科学记数法）
+     */
+    @Override
+    public String toString() {
+        if (big != null) {
+            return big.toPlainString();
+        }
+        if (scale == 0) {
+            return Long.toString(unscaled);
+        }
+        String digits = Long.toString(unscaled);
+        if (unscaled < 0) {
+            digits = digits.substring(1);// Long.MIN_VALUE 没有对应的正数，直接去掉符号
+        }
+        StringBuilder builder = new StringBuilder(digits.length() + scale + 3);
+        if (unscaled < 0) {
+            builder.append('-');
+        }
+        int integerDigits = digits.length() - scale;
+        if (integerDigits > 0) {
+            builder.append(digits, 0, integerDigits).append('.').append(digits, integerDigits, digits.length());
+        } else {
+            builder.append("0.");
+            for (int i = integerDigits; i < 0; i++) {
+                builder.append('0');
+            }
+            builder.append(digits);
+        }
+        return builder.toString();
+    }
+}
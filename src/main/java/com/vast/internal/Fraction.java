@@ -1,38 +1,102 @@
 package com.vast.internal;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
 /**
  * 分数类，用于表示分数运算的结果
+ * 分子分母默认以 long 保存，运算溢出时（Math.*Exact 检测）提升为 BigInteger，结果重新落入 long 范围后自动降级。
+ * 分数始终是最简形式且分母为正，因此同一个值只有一种表示
  */
-public class Fraction {
-    private final int numerator;
-    private final int denominator;
+public class Fraction implements Comparable<Fraction> {
+    private final long numerator;
+    private final long denominator;
+    private final BigInteger bigNumerator;// 超出 long 范围时使用，否则为 null
+    private final BigInteger bigDenominator;
     private boolean isPermanent;
 
     public Fraction(int numerator, int denominator) {
+        this((long) numerator, (long) denominator);
+    }
+
+    public Fraction(long numerator, long denominator) {
+        this(of(numerator, denominator));
+    }
+
+    private Fraction(Fraction reduced) {
+        this(reduced.numerator, reduced.denominator, reduced.bigNumerator, reduced.bigDenominator);
+    }
+
+    /**
+     * 直接使用已经约分并规范化的值
+     */
+    private Fraction(long numerator, long denominator, BigInteger bigNumerator, BigInteger bigDenominator) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.bigNumerator = bigNumerator;
+        this.bigDenominator = bigDenominator;
+    }
+
+    /**
+     * 创建约分后的分数
+     */
+    public static Fraction of(long numerator, long denominator) {
         if (denominator == 0) {
             throw new IllegalArgumentException("Denominator cannot be zero");
         }
+        // Long.MIN_VALUE 取反会溢出，交给 BigInteger 处理
+        if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+            return of(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+        }
+        long gcd = gcd(Math.abs(numerator), Math.abs(denominator));
+        if (denominator < 0) {
+            gcd = -gcd;
+        }
+        return new Fraction(quotient(numerator, gcd), quotient(denominator, gcd), null, null);
+    }
 
-        // 使用局部变量进行计算
-        int gcd = gcd(Math.abs(numerator), Math.abs(denominator));
-        int simplifiedNumerator = numerator / gcd;
-        int simplifiedDenominator = denominator / gcd;
+    public static Fraction of(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new IllegalArgumentException("Denominator cannot be zero");
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        if (denominator.signum() < 0) {
+            gcd = gcd.negate();
+        }
+        return reduced(numerator.divide(gcd), denominator.divide(gcd));
+    }
 
-        // 确保分母为正
-        if (simplifiedDenominator < 0) {
-            simplifiedNumerator = -simplifiedNumerator;
-            simplifiedDenominator = -simplifiedDenominator;
+    /**
+     * 由已约分的 BigInteger 分子分母创建分数，能放进 long 时使用 long 保存
+     */
+    static Fraction reduced(BigInteger numerator, BigInteger denominator) {
+        if (fitsLong(numerator) && fitsLong(denominator)) {
+            return new Fraction(numerator.longValue(), denominator.longValue(), null, null);
         }
+        return new Fraction(0, 1, numerator, denominator);
+    }
+
+    /**
+     * 由已约分的 long 分子分母创建分数（分母为正，分子不是 Long.MIN_VALUE）
+     */
+    static Fraction reduced(long numerator, long denominator) {
+        return new Fraction(numerator, denominator, null, null);
+    }
 
-        // 一次性赋值给 final 字段
-        this.numerator = simplifiedNumerator;
-        this.denominator = simplifiedDenominator;
+    /**
+     * long 保存的值不使用 Long.MIN_VALUE，保证取绝对值和取反不会溢出
+     */
+    static boolean fitsLong(BigInteger value) {
+        return value.bitLength() < 64 && value.longValue() != Long.MIN_VALUE;
     }
 
     // 从数值创建分数
     public static Fraction fromNumber(Object number) {
-        if (number instanceof Integer) {
-            return new Fraction((Integer) number, 1);
+        if (number instanceof Integer || number instanceof Long) {
+            return of(((Number) number).longValue(), 1);
+        } else if (number instanceof BigInteger) {
+            return of((BigInteger) number, BigInteger.ONE);
         } else if (number instanceof Double) {
             // 将浮点数转换为分数（近似）
             double value = (Double) number;
@@ -42,75 +106,263 @@ public class Fraction {
         }
     }
 
-    // 最大公约数
-    private static int gcd(int a, int b) {
-        while (b != 0) {
-            int temp = b;
-            b = a % b;
-            a = temp;
+    /**
+     * 最大公约数（二进制 Stein 算法，参数为非负数）
+     * 只用移位和减法，避免欧几里得算法中的除法
+     */
+    static long gcd(long a, long b) {
+        if (a == 0) return b;
+        if (b == 0) return a;
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long temp = b;
+                b = a;
+                a = temp;
+            }
+            b -= a;
+        } while (b != 0);
+        return a << shift;
+    }
+
+    /**
+     * 两个数都在 int 范围内时用 32 位除法，比 64 位除法快得多。
+     * 除数为 -1 时 Integer.MIN_VALUE / -1 在 32 位下溢出，改用 64 位；64 位溢出时抛出 ArithmeticException
+     */
+    static long quotient(long a, long b) {
+        if (a == (int) a && b == (int) b && b != -1) {
+            return (int) a / (int) b;
         }
-        return a;
+        return Math.divideExact(a, b);
     }
 
     // 将浮点数近似为分数
     private static Fraction approximateFraction(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Cannot convert " + value + " to fraction");
+        }
         final double EPSILON = 1e-6;
         int sign = value < 0 ? -1 : 1;
         value = Math.abs(value);
 
+        // 这么大的 double 一定是整数，用 BigDecimal 精确转换
+        if (value >= 0x1p52) {
+            return of(new BigDecimal(sign * value).toBigInteger(), BigInteger.ONE);
+        }
+
         // 处理整数情况
         if (Math.abs(value - Math.round(value)) < EPSILON) {
-            return new Fraction(sign * (int) Math.round(value), 1);
+            return of(sign * Math.round(value), 1);
         }
 
-        // 连分数展开
-        int n0 = 0, d0 = 1;
-        int n1 = 1, d1 = 0;
+        // 连分数展开，渐近分数溢出 long 时停止
+        long n0 = 0, d0 = 1;
+        long n1 = 1, d1 = 0;
         double x = value;
 
-        while (true) {
-            int a = (int) Math.floor(x);
-            int n2 = a * n1 + n0;
-            int d2 = a * d1 + d0;
+        try {
+            while (true) {
+                long a = (long) Math.floor(x);
+                long n2 = Math.addExact(Math.multiplyExact(a, n1), n0);
+                long d2 = Math.addExact(Math.multiplyExact(a, d1), d0);
 
-            if (d2 == 0) break;
+                if (d2 == 0) break;
 
-            double approx = (double) n2 / d2;
-            if (Math.abs(approx - value) < EPSILON) {
-                return new Fraction(sign * n2, d2);
-            }
+                double approx = (double) n2 / d2;
+                if (Math.abs(approx - value) < EPSILON) {
+                    return of(sign * n2, d2);
+                }
 
-            n0 = n1; d0 = d1;
-            n1 = n2; d1 = d2;
+                n0 = n1; d0 = d1;
+                n1 = n2; d1 = d2;
 
-            if (x - a < EPSILON) break;
-            x = 1.0 / (x - a);
+                if (x - a < EPSILON) break;
+                x = 1.0 / (x - a);
+            }
+        } catch (ArithmeticException e) {
+            // 使用下面的定点近似
         }
 
         // 如果无法精确表示，返回最接近的分数
-        return new Fraction(sign * (int) Math.round(value * 1000000), 1000000);
+        return of(sign * Math.round(value * 1000000), 1000000);
+    }
+
+    /**
+     * 分子分母是否超出 long 范围
+     */
+    public boolean isLarge() { return bigNumerator != null; }
+
+    /**
+     * long 范围内的分子，超出范围时抛出 ArithmeticException
+     */
+    public long getNumerator() {
+        return bigNumerator == null ? numerator : bigNumerator.longValueExact();
+    }
+
+    public long getDenominator() {
+        return bigDenominator == null ? denominator : bigDenominator.longValueExact();
+    }
+
+    public BigInteger getBigNumerator() {
+        return bigNumerator == null ? BigInteger.valueOf(numerator) : bigNumerator;
+    }
+
+    public BigInteger getBigDenominator() {
+        return bigDenominator == null ? BigInteger.valueOf(denominator) : bigDenominator;
+    }
+
+    /**
+     * 分子的最窄数值表示：Integer、Long 或 BigInteger
+     */
+    public Number numeratorValue() {
+        return bigNumerator == null ? narrow(numerator) : bigNumerator;
+    }
+
+    public Number denominatorValue() {
+        return bigDenominator == null ? narrow(denominator) : bigDenominator;
+    }
+
+    private static Number narrow(long value) {
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    // 包内的累加器直接读取 long 字段
+    long numeratorLong() { return numerator; }
+    long denominatorLong() { return denominator; }
+
+    public boolean isZero() {
+        return bigNumerator == null ? numerator == 0 : bigNumerator.signum() == 0;
     }
 
-    public int getNumerator() { return numerator; }
-    public int getDenominator() { return denominator; }
     public boolean isPermanent() { return isPermanent; }
     public void setPermanent(boolean permanent) { this.isPermanent = permanent; }
 
+    /**
+     * 返回带有指定永久性标记的分数，标记不同时复制一份而不修改当前分数（分数可能被常量或多个变量共享）
+     */
+    public Fraction withPermanent(boolean permanent) {
+        if (permanent == isPermanent) {
+            return this;
+        }
+        Fraction copy = new Fraction(numerator, denominator, bigNumerator, bigDenominator);
+        copy.isPermanent = permanent;
+        return copy;
+    }
+
+    // 四则运算：分子分母都在 long 范围内时直接计算，溢出时交给 FractionAccumulator 的 BigInteger 路径
+
+    public Fraction add(Fraction other) {
+        if (bigNumerator == null && other.bigNumerator == null) {
+            try {
+                return of(Math.addExact(Math.multiplyExact(numerator, other.denominator),
+                        Math.multiplyExact(other.numerator, denominator)), Math.multiplyExact(denominator, other.denominator));
+            } catch (ArithmeticException e) {
+                // 溢出
+            }
+        }
+        return new FractionAccumulator(this).add(other).toFraction();
+    }
+
+    public Fraction subtract(Fraction other) {
+        if (bigNumerator == null && other.bigNumerator == null) {
+            try {
+                return of(Math.subtractExact(Math.multiplyExact(numerator, other.denominator),
+                        Math.multiplyExact(other.numerator, denominator)), Math.multiplyExact(denominator, other.denominator));
+            } catch (ArithmeticException e) {
+                // 溢出
+            }
+        }
+        return new FractionAccumulator(this).subtract(other).toFraction();
+    }
+
+    public Fraction multiply(Fraction other) {
+        if (bigNumerator == null && other.bigNumerator == null) {
+            try {
+                return product(numerator, denominator, other.numerator, other.denominator);
+            } catch (ArithmeticException e) {
+                // 溢出
+            }
+        }
+        return new FractionAccumulator(this).multiply(other).toFraction();
+    }
+
+    /**
+     * 除以另一个分数，除数为零时抛出 IllegalArgumentException
+     */
+    public Fraction divide(Fraction other) {
+        if (other.isZero()) {
+            throw new IllegalArgumentException("Denominator cannot be zero");
+        }
+        if (bigNumerator == null && other.bigNumerator == null) {
+            try {
+                return other.numerator > 0 ?
+                        product(numerator, denominator, other.denominator, other.numerator) :
+                        product(numerator, denominator, -other.denominator, -other.numerator);
+            } catch (ArithmeticException e) {
+                // 溢出
+            }
+        }
+        return new FractionAccumulator(this).divide(other).toFraction();
+    }
+
+    /**
+     * (a/b) * (c/d)，先交叉约分再相乘，乘积即为最简形式（b、d 为正）
+     */
+    private static Fraction product(long a, long b, long c, long d) {
+        if (a == 0 || c == 0) {
+            return new Fraction(0, 1, null, null);
+        }
+        long g1 = gcd(Math.abs(a), d);
+        long g2 = gcd(Math.abs(c), b);
+        long n = Math.multiplyExact(quotient(a, g1), quotient(c, g2));
+        if (n == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        return new Fraction(n, Math.multiplyExact(quotient(b, g2), quotient(d, g1)), null, null);
+    }
+
+    /**
+     * 精确比较两个分数的大小（交叉相乘，溢出时用 BigInteger）
+     */
+    @Override
+    public int compareTo(Fraction other) {
+        if (bigNumerator == null && other.bigNumerator == null) {
+            try {
+                return Long.compare(Math.multiplyExact(numerator, other.denominator),
+                        Math.multiplyExact(other.numerator, denominator));
+            } catch (ArithmeticException e) {
+                // 使用下面的 BigInteger 比较
+            }
+        }
+        return getBigNumerator().multiply(other.getBigDenominator())
+                .compareTo(other.getBigNumerator().multiply(getBigDenominator()));
+    }
+
     public double toDouble() {
-        return (double) numerator / denominator;
+        if (bigNumerator == null) {
+            return (double) numerator / denominator;
+        }
+        return new BigDecimal(bigNumerator).divide(new BigDecimal(bigDenominator), MathContext.DECIMAL64).doubleValue();
     }
 
     public int toInt() {
-        return numerator / denominator;
+        if (bigNumerator == null) {
+            return (int) (numerator / denominator);
+        }
+        return bigNumerator.divide(bigDenominator).intValue();
     }
 
     @Override
     public String toString() {
-        if (denominator == 1) {
-            return String.valueOf(numerator);
-        } else {
-            return numerator + "/" + denominator;
+        if (bigNumerator == null) {
+            return denominator == 1 ? String.valueOf(numerator) : numerator + "/" + denominator;
         }
+        return BigInteger.ONE.equals(bigDenominator) ? bigNumerator.toString() : bigNumerator + "/" + bigDenominator;
     }
 
     @Override
@@ -118,11 +370,18 @@ public class Fraction {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Fraction fraction = (Fraction) obj;
-        return numerator == fraction.numerator && denominator == fraction.denominator;
+        if (bigNumerator == null || fraction.bigNumerator == null) {
+            return bigNumerator == fraction.bigNumerator &&
+                    numerator == fraction.numerator && denominator == fraction.denominator;
+        }
+        return bigNumerator.equals(fraction.bigNumerator) && bigDenominator.equals(fraction.bigDenominator);
     }
 
     @Override
     public int hashCode() {
-        return 31 * numerator + denominator;
+        if (bigNumerator == null) {
+            return 31 * Long.hashCode(numerator) + Long.hashCode(denominator);
+        }
+        return 31 * bigNumerator.hashCode() + bigDenominator.hashCode();
     }
-}
\ No newline at end of file
+}
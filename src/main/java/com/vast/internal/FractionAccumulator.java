@@ -0,0 +1,280 @@
+package com.vast.internal;
+
+import java.math.BigInteger;
+
+/**
+ * 可变的分数累加器
+ * 连续的分数运算（如 $$ 永久分数链、循环中反复更新的分数）在同一个累加器上原地计算，
+ * 只在需要结果时生成一个 Fraction，中间结果不分配对象。
+ * 与 Fraction 一样先用 long 计算：加减法先约去分母的公约数，乘除法先交叉约分再相乘，
+ * Math.*Exact 检测到溢出时改用 BigInteger，结果回到 long 范围后自动降级
+ */
+public final class FractionAccumulator {
+    private long numerator;
+    private long denominator = 1;
+    private BigInteger bigNumerator;// 非 null 时使用 BigInteger 保存
+    private BigInteger bigDenominator;
+
+    public FractionAccumulator() {
+    }
+
+    public FractionAccumulator(Fraction initial) {
+        set(initial);
+    }
+
+    public FractionAccumulator set(Fraction value) {
+        if (value.isLarge()) {
+            bigNumerator = value.getBigNumerator();
+            bigDenominator = value.getBigDenominator();
+        } else {
+            numerator = value.numeratorLong();
+            denominator = value.denominatorLong();
+            bigNumerator = null;
+            bigDenominator = null;
+        }
+        return this;
+    }
+
+    public FractionAccumulator set(long value) {
+        if (value == Long.MIN_VALUE) {
+            return setBig(BigInteger.valueOf(value), BigInteger.ONE);
+        }
+        numerator = value;
+        denominator = 1;
+        bigNumerator = null;
+        bigDenominator = null;
+        return this;
+    }
+
+    public boolean isZero() {
+        return bigNumerator == null ? numerator == 0 : bigNumerator.signum() == 0;
+    }
+
+    public FractionAccumulator add(Fraction other) {
+        if (bigNumerator == null && !other.isLarge()) {
+            try {
+                addLong(other.numeratorLong(), other.denominatorLong());
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return addBig(other.getBigNumerator(), other.getBigDenominator());
+    }
+
+    public FractionAccumulator add(long value) {
+        if (bigNumerator == null) {
+            try {
+                addLong(value, 1);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return addBig(BigInteger.valueOf(value), BigInteger.ONE);
+    }
+
+    public FractionAccumulator subtract(Fraction other) {
+        if (bigNumerator == null && !other.isLarge()) {
+            try {
+                addLong(Math.negateExact(other.numeratorLong()), other.denominatorLong());
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return addBig(other.getBigNumerator().negate(), other.getBigDenominator());
+    }
+
+    public FractionAccumulator subtract(long value) {
+        if (bigNumerator == null) {
+            try {
+                addLong(Math.negateExact(value), 1);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return addBig(BigInteger.valueOf(value).negate(), BigInteger.ONE);
+    }
+
+    public FractionAccumulator multiply(Fraction other) {
+        if (bigNumerator == null && !other.isLarge()) {
+            try {
+                multiplyLong(other.numeratorLong(), other.denominatorLong());
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return multiplyBig(other.getBigNumerator(), other.getBigDenominator());
+    }
+
+    public FractionAccumulator multiply(long value) {
+        if (bigNumerator == null) {
+            try {
+                multiplyLong(value, 1);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return multiplyBig(BigInteger.valueOf(value), BigInteger.ONE);
+    }
+
+    /**
+     * 除以一个分数，除数为零时抛出 IllegalArgumentException
+     */
+    public FractionAccumulator divide(Fraction other) {
+        if (other.isZero()) {
+            throw new IllegalArgumentException("Denominator cannot be zero");
+        }
+        if (bigNumerator == null && !other.isLarge()) {
+            try {
+                divideLong(other.numeratorLong(), other.denominatorLong());
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return multiplyBig(other.getBigDenominator(), other.getBigNumerator());
+    }
+
+    public FractionAccumulator divide(long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("Denominator cannot be zero");
+        }
+        if (bigNumerator == null) {
+            try {
+                divideLong(value, 1);
+                return this;
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        return multiplyBig(BigInteger.ONE, BigInteger.valueOf(value));
+    }
+
+    /**
+     * 生成当前值的分数
+     */
+    public Fraction toFraction() {
+        if (bigNumerator == null) {
+            return Fraction.reduced(numerator, denominator);
+        }
+        return Fraction.reduced(bigNumerator, bigDenominator);
+    }
+
+    @Override
+    public String toString() {
+        return toFraction().toString();
+    }
+
+    // long 运算：溢出时抛出 ArithmeticException，且不修改当前值
+
+    private void addLong(long c, long d) {
+        long a = numerator;
+        long b = denominator;
+        long n;
+        long den;
+        try {
+            // 分子分母通常很小，直接交叉相乘再约分最快
+            n = Math.addExact(Math.multiplyExact(a, d), Math.multiplyExact(c, b));
+            den = Math.multiplyExact(b, d);
+        } catch (ArithmeticException e) {
+            addReduced(a, b, c, d);
+            return;
+        }
+        long g = Fraction.gcd(Math.absExact(n), den);
+        store(Fraction.quotient(n, g), Fraction.quotient(den, g));
+    }
+
+    /**
+     * 交叉相乘溢出时先约去分母的公约数：a/b + c/d = (a*(d/g) + c*(b/g)) / (b/g*d)，
+     * 中间结果更小，结果能放进 long 时仍不需要 BigInteger
+     */
+    private void addReduced(long a, long b, long c, long d) {
+        long g = Fraction.gcd(b, d);
+        long s = Fraction.quotient(b, g);
+        long t = Math.addExact(Math.multiplyExact(a, Fraction.quotient(d, g)), Math.multiplyExact(c, s));
+        long g2 = Fraction.gcd(Math.absExact(t), g);
+        store(Fraction.quotient(t, g2), Math.multiplyExact(s, Fraction.quotient(d, g2)));
+    }
+
+    private void multiplyLong(long c, long d) {
+        long a = numerator;
+        long b = denominator;
+        if (a == 0 || c == 0) {
+            store(0, 1);
+            return;
+        }
+        // 先交叉约分，乘积即为最简形式
+        long g1 = Fraction.gcd(Math.absExact(a), d);
+        long g2 = Fraction.gcd(Math.absExact(c), b);
+        store(Math.multiplyExact(Fraction.quotient(a, g1), Fraction.quotient(c, g2)),
+                Math.multiplyExact(Fraction.quotient(b, g2), Fraction.quotient(d, g1)));
+    }
+
+    private void divideLong(long c, long d) {
+        if (c < 0) {
+            multiplyLong(Math.negateExact(d), Math.negateExact(c));
+        } else {
+            multiplyLong(d, c);
+        }
+    }
+
+    private void store(long n, long d) {
+        if (n == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        numerator = n;
+        denominator = n == 0 ? 1 : d;
+    }
+
+    // BigInteger 运算
+
+    private FractionAccumulator addBig(BigInteger c, BigInteger d) {
+        BigInteger a = bigNumerator();
+        BigInteger b = bigDenominator();
+        return setBig(a.multiply(d).add(c.multiply(b)), b.multiply(d));
+    }
+
+    private FractionAccumulator multiplyBig(BigInteger c, BigInteger d) {
+        return setBig(bigNumerator().multiply(c), bigDenominator().multiply(d));
+    }
+
+    private BigInteger bigNumerator() {
+        return bigNumerator == null ? BigInteger.valueOf(numerator) : bigNumerator;
+    }
+
+    private BigInteger bigDenominator() {
+        return bigDenominator == null ? BigInteger.valueOf(denominator) : bigDenominator;
+    }
+
+    /**
+     * 约分并规范符号，能放进 long 时降级
+     */
+    private FractionAccumulator setBig(BigInteger n, BigInteger d) {
+        BigInteger gcd = n.gcd(d);
+        if (d.signum() < 0) {
+            gcd = gcd.negate();
+        }
+        if (gcd.signum() != 0 && !BigInteger.ONE.equals(gcd)) {
+            n = n.divide(gcd);
+            d = d.divide(gcd);
+        }
+        if (n.signum() == 0) {
+            d = BigInteger.ONE;
+        }
+        if (Fraction.fitsLong(n) && Fraction.fitsLong(d)) {
+            numerator = n.longValue();
+            denominator = d.longValue();
+            bigNumerator = null;
+            bigDenominator = null;
+        } else {
+            bigNumerator = n;
+            bigDenominator = d;
+        }
+        return this;
+    }
+}
@@ -0,0 +1,20 @@
+package com.vast.internal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记宿主方法的延迟求值参数
+ * 参数类型须为 java.util.function.Supplier（或 Object）。调用时这个位置的参数表达式不预先求值，
+ * 方法收到一个 Supplier，第一次 get() 时才求值并缓存结果，从不调用时表达式不执行。
+ * 同名、参数个数相同的重载都在这个位置标记时才延迟求值；参数表达式中有赋值或自增自减时在调用前求值，
+ * 方法仍收到 Supplier
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Lazy {
+}
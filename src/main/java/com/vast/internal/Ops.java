@@ -12,11 +12,7 @@ public class Ops {
     public static String concat(String a, String b) { return a + b; }
 
     public static String repeat(String str, int times) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < times; i++) {
-            sb.append(str);
-        }
-        return sb.toString();
+        return str.repeat(Math.max(0, times));
     }
 
     public static boolean equals(Object a, Object b) {
@@ -26,4 +22,4 @@ public class Ops {
     public static boolean notEquals(Object a, Object b) {
         return !equals(a, b);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
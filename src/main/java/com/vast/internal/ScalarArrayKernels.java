@@ -0,0 +1,189 @@
+package com.vast.internal;
+
+import java.util.Arrays;
+
+/**
+ * 标量循环实现的数组内核（未启用 Vector API 时使用，简单循环仍可能被 JIT 自动向量化）
+ */
+final class ScalarArrayKernels extends ArrayKernels {
+
+    @Override
+    String name() {
+        return "scalar";
+    }
+
+    @Override
+    void fill(int[] a, int value) {
+        Arrays.fill(a, value);
+    }
+
+    @Override
+    void fill(long[] a, long value) {
+        Arrays.fill(a, value);
+    }
+
+    @Override
+    void fill(double[] a, double value) {
+        Arrays.fill(a, value);
+    }
+
+    @Override
+    long sum(int[] a) {
+        long sum = 0;
+        for (int value : a) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Override
+    long sum(long[] a) {
+        long sum = 0;
+        for (long value : a) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Override
+    double sum(double[] a) {
+        double sum = 0;
+        for (double value : a) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Override
+    int min(int[] a) {
+        int min = Integer.MAX_VALUE;
+        for (int value : a) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    @Override
+    int max(int[] a) {
+        int max = Integer.MIN_VALUE;
+        for (int value : a) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    @Override
+    long min(long[] a) {
+        long min = Long.MAX_VALUE;
+        for (long value : a) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    @Override
+    long max(long[] a) {
+        long max = Long.MIN_VALUE;
+        for (long value : a) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    @Override
+    double min(double[] a) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : a) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    @Override
+    double max(double[] a) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : a) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    @Override
+    void scale(int[] a, int factor) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    void scale(long[] a, long factor) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    void scale(double[] a, double factor) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    long dot(int[] a, int[] b) {
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += (long) a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    long dot(long[] a, long[] b) {
+        long sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    int indexOf(int[] a, int value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int indexOf(long[] a, long value) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int indexOf(double[] a, double value) {
+        long bits = Double.doubleToLongBits(value);
+        for (int i = 0; i < a.length; i++) {
+            if (Double.doubleToLongBits(a[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -6,6 +6,8 @@ import com.vast.ast.expressions.VariableExpression;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static com.vast.internal.Debugger.Category.VM;
+
 public class SmartErrorSuggestor {// 更加优雅的错误建议系统，借鉴于linux的命令行建议系统
     private final VastVM vm;
     private final Debugger debugger;
@@ -32,6 +34,9 @@ public class SmartErrorSuggestor {// 更加优雅的错误建议系统，借鉴
         if (vm.getLocalVariables() != null) {
             candidates.addAll(vm.getLocalVariables().keySet());
         }
+        if (vm.getInterpreter() != null) {
+            candidates.addAll(vm.getInterpreter().getFrame().snapshot().keySet());
+        }
 
         // 2. 收集内置关键字
         candidates.addAll(BUILTIN_KEYWORDS);
@@ -68,7 +73,7 @@ public class SmartErrorSuggestor {// 更加优雅的错误建议系统，借鉴
                         .forEach(method -> candidates.add(method.getName()));
             }
         } catch (Exception e) {
-            debugger.debug("Failed to collect methods from class: " + className);
+            debugger.debug(VM, () -> "Failed to collect methods from class: " + className);
         }
 
         // 查找相似的候选
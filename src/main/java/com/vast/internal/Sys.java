@@ -3,10 +3,13 @@ package com.vast.internal;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
+import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.text.Format;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -59,6 +62,7 @@ public class Sys {
 
     /**
      * 格式化文本，支持C#风格的索引：{0} {1} {2}
+     * decimal 参数在 {0} 中原样显示全部小数位，在 {0,number,#,##0.00} 等数字格式中按 BigDecimal 精确格式化
      */
     private static String formatText(String format, Object[] args) {
         if (format == null || args == null || args.length == 0) {
@@ -66,11 +70,13 @@ public class Sys {
         }
 
         try {
-            // 处理参数中的 Fraction 对象
-            Object[] processedArgs = processFractionArgs(args);
-
             // 使用 MessageFormat 进行 C# 风格格式化
-            return MessageFormat.format(format, processedArgs);
+            MessageFormat messageFormat = new MessageFormat(format);
+
+            // 处理参数中的 Fraction、Decimal 对象
+            Object[] processedArgs = processFractionArgs(args, messageFormat.getFormatsByArgumentIndex());
+
+            return messageFormat.format(processedArgs);
 
         } catch (Exception e) {
             // 如果格式化失败，回退到简单拼接
@@ -79,28 +85,33 @@ public class Sys {
     }
 
     /**
-     * 处理参数中的 Fraction 对象，转换为合适的显示格式
+     * 处理参数中的 Fraction、Decimal 对象，转换为合适的显示格式
      */
-    private static Object[] processFractionArgs(Object[] args) {
+    private static Object[] processFractionArgs(Object[] args, Format[] formats) {
         if (args == null || args.length == 0) {
             return args;
         }
 
         Object[] processed = new Object[args.length];
         for (int i = 0; i < args.length; i++) {
-            processed[i] = processFractionArg(args[i]);
+            processed[i] = processFractionArg(args[i], i < formats.length ? formats[i] : null);
         }
         return processed;
     }
 
     /**
-     * 处理单个 Fraction 参数
+     * 处理单个 Fraction、Decimal 参数
      */
-    private static Object processFractionArg(Object arg) {
+    private static Object processFractionArg(Object arg, Format format) {
         if (arg instanceof Fraction) {
             Fraction fraction = (Fraction) arg;
             return fraction.toString();
         }
+        if (arg instanceof Decimal) {
+            // 没有指定格式时 MessageFormat 会按 double 显示（最多三位小数），这里保留原样
+            Decimal decimal = (Decimal) arg;
+            return format != null ? decimal.toBigDecimal() : decimal.toString();
+        }
         return arg;
     }
 
@@ -155,6 +166,20 @@ public class Sys {
         err.println("[ERROR] " + text);
     }
 
+    // 断言 - 条件为假时报错，消息参数只在失败时求值
+    public static void check(boolean condition, @Lazy Supplier<Object> message) {
+        if (!condition) {
+            throw new VastExceptions.VastRuntimeException("Check failed: " + formatObject(message.get()));
+        }
+    }
+
+    // 条件输出 - 条件为假时不求值要输出的内容
+    public static void printlIf(boolean condition, @Lazy Supplier<Object> message) {
+        if (condition) {
+            out.println(formatObject(message.get()));
+        }
+    }
+
     // 其他方法保持不变...
     public static void sleep(int ms) {
         try {
@@ -265,10 +290,10 @@ public class Sys {
         return parts.toArray(new String[0]);
     }
 
-    // Fraction 相关的方法保持不变...
+    // 分数相关的方法，运算由 Fraction 完成（long 溢出时自动使用 BigInteger）
     public static Fraction parseFraction(String str) {
         if (str == null || str.trim().isEmpty()) {
-            return new Fraction(0, 1);
+            return Fraction.of(0, 1);
         }
 
         try {
@@ -276,14 +301,12 @@ public class Sys {
             if (str.contains("/")) {
                 String[] parts = str.split("/");
                 if (parts.length == 2) {
-                    int numerator = Integer.parseInt(parts[0].trim());
-                    int denominator = Integer.parseInt(parts[1].trim());
-                    return new Fraction(numerator, denominator);
+                    return Fraction.of(new BigInteger(parts[0].trim()), new BigInteger(parts[1].trim()));
                 }
             }
 
             // 处理整数
-            return new Fraction(Integer.parseInt(str.trim()), 1);
+            return Fraction.of(new BigInteger(str.trim()), BigInteger.ONE);
         } catch (NumberFormatException e) {
             // 处理小数
             try {
@@ -299,12 +322,13 @@ public class Sys {
         return obj instanceof Fraction;
     }
 
-    public static int getFractionNumerator(Fraction fraction) {
-        return fraction.getNumerator();
+    // 分子分母按大小返回 int、long 或 large
+    public static Number getFractionNumerator(Fraction fraction) {
+        return fraction.numeratorValue();
     }
 
-    public static int getFractionDenominator(Fraction fraction) {
-        return fraction.getDenominator();
+    public static Number getFractionDenominator(Fraction fraction) {
+        return fraction.denominatorValue();
     }
 
     public static double fractionToDouble(Fraction fraction) {
@@ -316,40 +340,62 @@ public class Sys {
     }
 
     public static Fraction simplifyFraction(int numerator, int denominator) {
-        return new Fraction(numerator, denominator);
+        return Fraction.of(numerator, denominator);
+    }
+
+    public static Fraction simplifyFraction(long numerator, long denominator) {
+        return Fraction.of(numerator, denominator);
     }
 
     public static Fraction createFraction(int numerator, int denominator) {
-        return new Fraction(numerator, denominator);
+        return Fraction.of(numerator, denominator);
+    }
+
+    public static Fraction createFraction(long numerator, long denominator) {
+        return Fraction.of(numerator, denominator);
     }
 
     public static Fraction fractionAdd(Fraction a, Fraction b) {
-        int numerator = a.getNumerator() * b.getDenominator() + b.getNumerator() * a.getDenominator();
-        int denominator = a.getDenominator() * b.getDenominator();
-        return new Fraction(numerator, denominator);
+        return a.add(b);
     }
 
     public static Fraction fractionSubtract(Fraction a, Fraction b) {
-        int numerator = a.getNumerator() * b.getDenominator() - b.getNumerator() * a.getDenominator();
-        int denominator = a.getDenominator() * b.getDenominator();
-        return new Fraction(numerator, denominator);
+        return a.subtract(b);
     }
 
     public static Fraction fractionMultiply(Fraction a, Fraction b) {
-        int numerator = a.getNumerator() * b.getNumerator();
-        int denominator = a.getDenominator() * b.getDenominator();
-        return new Fraction(numerator, denominator);
+        return a.multiply(b);
     }
 
     public static Fraction fractionDivide(Fraction a, Fraction b) {
-        int numerator = a.getNumerator() * b.getDenominator();
-        int denominator = a.getDenominator() * b.getNumerator();
-        return new Fraction(numerator, denominator);
+        return a.divide(b);
     }
 
     public static int fractionCompare(Fraction a, Fraction b) {
-        double valueA = a.toDouble();
-        double valueB = b.toDouble();
-        return Double.compare(valueA, valueB);
+        return a.compareTo(b);
+    }
+
+    // decimal 相关的方法，运算由 Decimal 完成（long 溢出时自动使用 BigDecimal）
+    public static boolean isDecimal(Object obj) {
+        return obj instanceof Decimal;
+    }
+
+    public static Decimal parseDecimal(String str) {
+        try {
+            return Decimal.parse(str);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cannot parse decimal from: " + str);
+        }
+    }
+
+    /**
+     * 按四舍五入保留指定位数的小数
+     */
+    public static Decimal decimalRound(Decimal value, int scale) {
+        return value.round(scale);
+    }
+
+    public static int decimalScale(Decimal value) {
+        return value.scale();
     }
 }
\ No newline at end of file
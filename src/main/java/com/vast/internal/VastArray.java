@@ -0,0 +1,227 @@
+package com.vast.internal;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * 定长的原始类型数组
+ * 元素类型在创建时确定，分别用 int[]、long[]、double[] 连续存储，元素不装箱；
+ * 写入时按元素类型检查和转换（与强类型变量的赋值规则一致），读取时才装箱
+ */
+public final class VastArray {
+
+    /**
+     * 元素类型
+     */
+    public enum ElementType {
+        INT("int"), LONG("long"), DOUBLE("double");
+
+        private final String typeName;
+
+        ElementType(String typeName) {
+            this.typeName = typeName;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        /**
+         * 按类型名查找元素类型，不支持的类型名返回 null
+         */
+        public static ElementType of(String name) {
+            switch (name) {
+                case "int":
+                case "int32":
+                    return INT;
+                case "long":
+                case "int64":
+                    return LONG;
+                case "double":
+                case "float":
+                    return DOUBLE;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private final ElementType elementType;
+    // 只有与元素类型对应的一个存储数组不为 null
+    final int[] ints;
+    final long[] longs;
+    final double[] doubles;
+
+    private VastArray(ElementType elementType, int[] ints, long[] longs, double[] doubles) {
+        this.elementType = elementType;
+        this.ints = ints;
+        this.longs = longs;
+        this.doubles = doubles;
+    }
+
+    public static VastArray of(int[] values) {
+        return new VastArray(ElementType.INT, values, null, null);
+    }
+
+    public static VastArray of(long[] values) {
+        return new VastArray(ElementType.LONG, null, values, null);
+    }
+
+    public static VastArray of(double[] values) {
+        return new VastArray(ElementType.DOUBLE, null, null, values);
+    }
+
+    /**
+     * 创建元素全为零的数组
+     */
+    public static VastArray create(ElementType elementType, int length) {
+        switch (elementType) {
+            case INT:
+                return of(new int[length]);
+            case LONG:
+                return of(new long[length]);
+            default:
+                return of(new double[length]);
+        }
+    }
+
+    public ElementType getElementType() {
+        return elementType;
+    }
+
+    public int length() {
+        switch (elementType) {
+            case INT:
+                return ints.length;
+            case LONG:
+                return longs.length;
+            default:
+                return doubles.length;
+        }
+    }
+
+    /**
+     * 读取元素；整数按整数塔用能容纳它的最窄类型表示
+     */
+    public Object get(int index) {
+        checkIndex(index);
+        switch (elementType) {
+            case INT:
+                return ints[index];
+            case LONG:
+                long value = longs[index];
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            default:
+                return doubles[index];
+        }
+    }
+
+    public void set(int index, Object value) {
+        checkIndex(index);
+        switch (elementType) {
+            case INT:
+                ints[index] = toInt(value);
+                break;
+            case LONG:
+                longs[index] = toLong(value);
+                break;
+            default:
+                doubles[index] = toDouble(value);
+                break;
+        }
+    }
+
+    public VastArray copy() {
+        switch (elementType) {
+            case INT:
+                return of(ints.clone());
+            case LONG:
+                return of(longs.clone());
+            default:
+                return of(doubles.clone());
+        }
+    }
+
+    /**
+     * 转换为 long 元素的副本（混合类型运算时使用）
+     */
+    long[] toLongs() {
+        if (elementType == ElementType.LONG) {
+            return longs;
+        }
+        long[] result = new long[ints.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ints[i];
+        }
+        return result;
+    }
+
+    /**
+     * 转换为 double 元素的副本（混合类型运算时使用）
+     */
+    double[] toDoubles() {
+        switch (elementType) {
+            case DOUBLE:
+                return doubles;
+            case INT:
+                return Arrays.stream(ints).asDoubleStream().toArray();
+            default:
+                return Arrays.stream(longs).asDoubleStream().toArray();
+        }
+    }
+
+    // ====== 元素转换：拒绝无法放入元素类型的值 ======
+
+    int toInt(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Long && (Long) value == ((Long) value).intValue()) {
+            return ((Long) value).intValue();
+        }
+        throw rejected(value);
+    }
+
+    long toLong(Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            return ((BigInteger) value).longValue();
+        }
+        throw rejected(value);
+    }
+
+    double toDouble(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        throw rejected(value);
+    }
+
+    private VastExceptions.PassParameterException rejected(Object value) {
+        String actual = value == null ? "null" : value + " (" + value.getClass().getSimpleName() + ")";
+        return new VastExceptions.PassParameterException("Array",
+                "cannot store " + actual + " in " + elementType.getTypeName() + " array");
+    }
+
+    private void checkIndex(int index) {
+        int length = length();
+        if (index < 0 || index >= length) {
+            throw new VastExceptions.PassParameterException("Array",
+                    "index " + index + " out of bounds for length " + length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (elementType) {
+            case INT:
+                return Arrays.toString(ints);
+            case LONG:
+                return Arrays.toString(longs);
+            default:
+                return Arrays.toString(doubles);
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.vast.internal;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * 基于 Vector API（jdk.incubator.vector）的数组内核
+ * 每次处理一个平台首选宽度的向量，剩余不足一个向量的元素用标量循环处理。
+ * 只能通过 ArrayKernels 反射加载，未启用模块时这个类不会被解析
+ */
+final class VectorArrayKernels extends ArrayKernels {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    String name() {
+        return "vector-" + INTS.vectorBitSize();
+    }
+
+    @Override
+    void fill(int[] a, int value) {
+        IntVector vector = IntVector.broadcast(INTS, value);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            vector.intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] = value;
+        }
+    }
+
+    @Override
+    void fill(long[] a, long value) {
+        LongVector vector = LongVector.broadcast(LONGS, value);
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            vector.intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] = value;
+        }
+    }
+
+    @Override
+    void fill(double[] a, double value) {
+        DoubleVector vector = DoubleVector.broadcast(DOUBLES, value);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            vector.intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] = value;
+        }
+    }
+
+    @Override
+    long sum(int[] a) {
+        // 在 long 通道中累加，避免 int 通道溢出
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            LongVector pairs = IntVector.fromArray(INTS, a, i).reinterpretAsLongs();
+            acc = acc.add(high(pairs)).add(low(pairs));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Override
+    long sum(long[] a) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            acc = acc.add(LongVector.fromArray(LONGS, a, i));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Override
+    double sum(double[] a) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Override
+    int min(int[] a) {
+        IntVector acc = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            acc = acc.min(IntVector.fromArray(INTS, a, i));
+        }
+        int min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    @Override
+    int max(int[] a) {
+        IntVector acc = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            acc = acc.max(IntVector.fromArray(INTS, a, i));
+        }
+        int max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    @Override
+    long min(long[] a) {
+        LongVector acc = LongVector.broadcast(LONGS, Long.MAX_VALUE);
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            acc = acc.min(LongVector.fromArray(LONGS, a, i));
+        }
+        long min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    @Override
+    long max(long[] a) {
+        LongVector acc = LongVector.broadcast(LONGS, Long.MIN_VALUE);
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            acc = acc.max(LongVector.fromArray(LONGS, a, i));
+        }
+        long max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    @Override
+    double min(double[] a) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            acc = acc.min(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double min = acc.reduceLanes(VectorOperators.MIN);
+        for (; i < a.length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    @Override
+    double max(double[] a) {
+        DoubleVector acc = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            acc = acc.max(DoubleVector.fromArray(DOUBLES, a, i));
+        }
+        double max = acc.reduceLanes(VectorOperators.MAX);
+        for (; i < a.length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+
+    @Override
+    void scale(int[] a, int factor) {
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            IntVector.fromArray(INTS, a, i).mul(factor).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    void scale(long[] a, long factor) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            LongVector.fromArray(LONGS, a, i).mul(factor).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    void scale(double[] a, double factor) {
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, a, i).mul(factor).intoArray(a, i);
+        }
+        for (; i < a.length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    long dot(int[] a, int[] b) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            LongVector pa = IntVector.fromArray(INTS, a, i).reinterpretAsLongs();
+            LongVector pb = IntVector.fromArray(INTS, b, i).reinterpretAsLongs();
+            acc = acc.add(high(pa).mul(high(pb))).add(low(pa).mul(low(pb)));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += (long) a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    long dot(long[] a, long[] b) {
+        LongVector acc = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            acc = acc.add(LongVector.fromArray(LONGS, a, i).mul(LongVector.fromArray(LONGS, b, i)));
+        }
+        long sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    double dot(double[] a, double[] b) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            acc = acc.add(DoubleVector.fromArray(DOUBLES, a, i).mul(DoubleVector.fromArray(DOUBLES, b, i)));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    int indexOf(int[] a, int value) {
+        int i = 0;
+        for (int bound = INTS.loopBound(a.length); i < bound; i += INTS.length()) {
+            VectorMask<Integer> found = IntVector.fromArray(INTS, a, i).eq(value);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int indexOf(long[] a, long value) {
+        int i = 0;
+        for (int bound = LONGS.loopBound(a.length); i < bound; i += LONGS.length()) {
+            VectorMask<Long> found = LongVector.fromArray(LONGS, a, i).eq(value);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < a.length; i++) {
+            if (a[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    int indexOf(double[] a, double value) {
+        if (Double.isNaN(value)) {
+            // NaN 有多种位模式，逐个判断
+            for (int i = 0; i < a.length; i++) {
+                if (Double.isNaN(a[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        // 按位比较，区分 0.0 与 -0.0
+        long bits = Double.doubleToRawLongBits(value);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(a.length); i < bound; i += DOUBLES.length()) {
+            VectorMask<Long> found = DoubleVector.fromArray(DOUBLES, a, i).viewAsIntegralLanes().eq(bits);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < a.length; i++) {
+            if (Double.doubleToRawLongBits(a[i]) == bits) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 把 int 向量按位重新解释为 long 向量后，每个 long 通道含两个相邻的 int，
+    // 用算术移位分别取出并符号扩展，比逐段 convertShape 快得多
+    private static LongVector high(LongVector pairs) {
+        return pairs.lanewise(VectorOperators.ASHR, 32);
+    }
+
+    private static LongVector low(LongVector pairs) {
+        return pairs.lanewise(VectorOperators.LSHL, 32).lanewise(VectorOperators.ASHR, 32);
+    }
+}
@@ -0,0 +1,58 @@
+package com.vast.interpreter;
+
+import java.util.Arrays;
+
+/**
+ * 按参数个数复用的参数数组
+ * 每个参数个数对应一个栈，嵌套调用按后进先出的顺序取用和归还，
+ * 稳定运行后宿主方法调用不再为参数分配新数组
+ */
+final class ArgumentBuffers {
+    // 超过此参数个数的调用直接新建数组
+    private static final int MAX_ARITY = 16;
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Object[][][] stacks = new Object[MAX_ARITY + 1][][];
+    private final int[] depths = new int[MAX_ARITY + 1];
+
+    Object[] acquire(int arity) {
+        if (arity == 0) {
+            return EMPTY;
+        }
+        if (arity > MAX_ARITY) {
+            return new Object[arity];
+        }
+        Object[][] stack = stacks[arity];
+        int depth = depths[arity];
+        if (stack == null) {
+            stack = new Object[4][];
+            stacks[arity] = stack;
+        } else if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            stacks[arity] = stack;
+        }
+        Object[] buffer = stack[depth];
+        if (buffer == null) {
+            buffer = new Object[arity];
+            stack[depth] = buffer;
+        }
+        depths[arity] = depth + 1;
+        return buffer;
+    }
+
+    /**
+     * 归还数组并清空内容，避免缓冲区持有脚本对象
+     */
+    void release(Object[] buffer) {
+        int arity = buffer.length;
+        if (arity == 0 || arity > MAX_ARITY) {
+            return;
+        }
+        int depth = depths[arity];
+        // 只归还栈顶的数组，不是从这里取出的数组直接忽略
+        if (depth > 0 && stacks[arity][depth - 1] == buffer) {
+            Arrays.fill(buffer, null);
+            depths[arity] = depth - 1;
+        }
+    }
+}
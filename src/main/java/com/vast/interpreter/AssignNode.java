@@ -0,0 +1,142 @@
+package com.vast.interpreter;
+
+import com.vast.ast.ASTNode;
+import com.vast.ast.VastType;
+import com.vast.ast.expressions.AssignmentExpression;
+import com.vast.internal.Debugger;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
+
+/**
+ * 变量赋值节点
+ * 赋值表达式、自由类型赋值语句和强类型赋值语句共用。值为 int / double 时不装箱地写入槽位；
+ * 推测失败时先用已求出的值完成赋值，再把推测失败交给上层节点。
+ * 类型推断已证明兼容的赋值表达式不再读取类型表检查
+ */
+final class AssignNode implements EvalNode {
+
+    /**
+     * 赋值的类型检查方式
+     */
+    enum Mode {
+        EXPRESSION,// 赋值表达式：变量已有强类型时检查兼容性
+        FREE,// 自由类型赋值语句：覆盖原有的强类型
+        TYPED// 强类型赋值语句：严格检查并自动转换
+    }
+
+    private final Interpreter interpreter;
+    private final Debugger debugger;
+    private final Frame frame;
+    private final int slot;
+    private final String varName;
+    private final EvalNode value;
+    private final Mode mode;
+    private final VastType typeHint;
+    private final int line;
+    private final int column;
+    private final boolean proven;// 对象值总是兼容，不需要检查
+    private final boolean acceptsInt;// 目标变量接受任何 int 值
+    private final boolean acceptsDouble;// 目标变量接受任何 double 值
+
+    AssignNode(Interpreter interpreter, Frame frame, int slot, String varName, EvalNode value,
+               Mode mode, VastType typeHint, ASTNode site) {
+        this.interpreter = interpreter;
+        this.debugger = interpreter.debugger();
+        this.frame = frame;
+        this.slot = slot;
+        this.varName = varName;
+        this.value = value;
+        this.mode = mode;
+        this.typeHint = typeHint;
+        this.line = site.getLineNumber();
+        this.column = site.getColumnNumber();
+        boolean expression = mode == Mode.EXPRESSION;
+        this.proven = expression && interpreter.typeProven(site);
+        this.acceptsInt = expression && interpreter.typeAccepts((AssignmentExpression) site, Integer.class);
+        this.acceptsDouble = expression && interpreter.typeAccepts((AssignmentExpression) site, Double.class);
+    }
+
+    @Override
+    public Object eval() {
+        return store(value.eval());
+    }
+
+    @Override
+    public int evalInt() {
+        if (mode == Mode.TYPED && typeHint.getCast() != VastType.Cast.INT) {
+            return EvalNode.expectInt(eval());
+        }
+        int result;
+        try {
+            result = value.evalInt();
+        } catch (UnexpectedResultException e) {
+            return EvalNode.expectInt(store(e.getResult()));
+        }
+        if (mode == Mode.TYPED) {
+            frame.setType(slot, typeHint);
+        } else if (!acceptsInt && frame.hasTypedSlots() && frame.typeOf(slot) != null) {
+            return EvalNode.expectInt(store(result));
+        }
+        frame.storeInt(slot, result);
+        if (mode == Mode.FREE && debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Var assigned: " + varName + " = " + result);
+        }
+        return result;
+    }
+
+    @Override
+    public double evalDouble() {
+        if (mode == Mode.TYPED && typeHint.getCast() != VastType.Cast.DOUBLE) {
+            return EvalNode.expectDouble(eval());
+        }
+        double result;
+        try {
+            result = value.evalDouble();
+        } catch (UnexpectedResultException e) {
+            // 强类型 double 变量接受 int 值，转换后仍然得到 double
+            return EvalNode.expectDouble(store(e.getResult()));
+        }
+        if (mode == Mode.TYPED) {
+            frame.setType(slot, typeHint);
+        } else if (!acceptsDouble && frame.hasTypedSlots() && frame.typeOf(slot) != null) {
+            return EvalNode.expectDouble(store(result));
+        }
+        frame.storeDouble(slot, result);
+        if (mode == Mode.FREE && debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Var assigned: " + varName + " = " + result);
+        }
+        return result;
+    }
+
+    /**
+     * 对象路径的赋值，返回实际写入的值（强类型赋值时为转换后的值）
+     */
+    private Object store(Object result) {
+        switch (mode) {
+            case TYPED:
+                // 强类型赋值 - 严格类型检查，支持隐式转换
+                result = Operations.convertTyped(typeHint, result, varName, line, column);
+                frame.setType(slot, typeHint);
+                frame.store(slot, result);
+                return result;
+            case FREE:
+                // 自由类型赋值 - 不进行类型检查，但会覆盖原有的强类型
+                if (frame.hasTypedSlots() && frame.typeOf(slot) != null) {
+                    debugger.warning("Warning: free type assignment to strongly typed variable " + varName);
+                    frame.setType(slot, null);
+                }
+                frame.store(slot, result);
+                if (debugger.isDebugEnabled(INTERPRETER)) {
+                    debugger.debug(INTERPRETER, "Var assigned: " + varName + " = " + result);
+                }
+                return result;
+            default:
+                VastType expectedType = proven ? null : frame.typeOf(slot);
+                if (expectedType != null) {
+                    interpreter.validateTypeCompatibility(expectedType, result, varName, line, column);
+                }
+                frame.store(slot, result);
+                return result;
+        }
+    }
+}
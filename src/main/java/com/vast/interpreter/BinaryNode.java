@@ -0,0 +1,355 @@
+package com.vast.interpreter;
+
+import com.vast.internal.Fraction;
+import com.vast.internal.VastExceptions;
+
+/**
+ * 自特化的二元运算节点
+ * 第一次执行时记录操作数类型，特化为 int/int、double/double 或字符串快速路径；
+ * 之后遇到其他类型时退化为通用路径（Operations 中的完整类型判断），不再重新特化。
+ * 数值特化状态下通过 evalInt / evalDouble 读取操作数，算术结果也可以不装箱地返回给上层节点，
+ * 比较结果可以通过 evalBoolean 直接作为循环条件。
+ * int 运算在 long 中计算，结果超出 int 范围时提升为 long（evalInt 以 UnexpectedResultException 交给上层）
+ */
+final class BinaryNode implements EvalNode {
+    // 特化状态
+    private static final byte UNINITIALIZED = 0;
+    private static final byte INT_INT = 1;
+    private static final byte DOUBLE_DOUBLE = 2;
+    private static final byte STRING_ANY = 3;
+    private static final byte GENERIC = 4;
+
+    /**
+     * 支持特化的运算符
+     */
+    enum Operator {
+        ADD("+"), SUBTRACT("-"), MULTIPLY("*"), DIVIDE("/"), MODULO("%"),
+        EQUAL("=="), NOT_EQUAL("!="), GREATER(">"), LESS("<"), GREATER_EQUAL(">="), LESS_EQUAL("<=");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator of(String symbol) {
+            for (Operator operator : values()) {
+                if (operator.symbol.equals(symbol)) {
+                    return operator;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Operator operator;
+    private final EvalNode left;
+    private final EvalNode right;
+    private byte state = UNINITIALIZED;
+
+    BinaryNode(Operator operator, EvalNode left, EvalNode right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public Object eval() {
+        switch (state) {
+            case INT_INT: {
+                int a;
+                try {
+                    a = left.evalInt();
+                } catch (UnexpectedResultException e) {
+                    return deoptimize(e.getResult(), right.eval());
+                }
+                try {
+                    return ints(a, right.evalInt());
+                } catch (UnexpectedResultException e) {
+                    return deoptimize(a, e.getResult());
+                }
+            }
+            case DOUBLE_DOUBLE: {
+                double a;
+                try {
+                    a = left.evalDouble();
+                } catch (UnexpectedResultException e) {
+                    return deoptimize(e.getResult(), right.eval());
+                }
+                try {
+                    return doubles(a, right.evalDouble());
+                } catch (UnexpectedResultException e) {
+                    return deoptimize(a, e.getResult());
+                }
+            }
+            case STRING_ANY: {
+                Object l = left.eval();
+                Object r = right.eval();
+                return acceptsStrings(l, r) ? strings(l, r) : deoptimize(l, r);
+            }
+            case GENERIC:
+                return generic(left.eval(), right.eval());
+            default: {
+                Object l = left.eval();
+                Object r = right.eval();
+                state = classify(l, r);
+                return generic(l, r);
+            }
+        }
+    }
+
+    @Override
+    public int evalInt() {
+        if (state != INT_INT || !isArithmetic() || operator == Operator.DIVIDE) {
+            return EvalNode.expectInt(eval());
+        }
+        int a;
+        try {
+            a = left.evalInt();
+        } catch (UnexpectedResultException e) {
+            return EvalNode.expectInt(deoptimize(e.getResult(), right.eval()));
+        }
+        int b;
+        try {
+            b = right.evalInt();
+        } catch (UnexpectedResultException e) {
+            return EvalNode.expectInt(deoptimize(a, e.getResult()));
+        }
+        long result = intArithmetic(a, b);
+        if (result != (int) result) {
+            // 溢出，结果提升为 long
+            throw new UnexpectedResultException(result);
+        }
+        return (int) result;
+    }
+
+    @Override
+    public double evalDouble() {
+        if (state == INT_INT && operator == Operator.DIVIDE) {
+            // int 除法的结果为 double
+            int a;
+            try {
+                a = left.evalInt();
+            } catch (UnexpectedResultException e) {
+                return EvalNode.expectDouble(deoptimize(e.getResult(), right.eval()));
+            }
+            int b;
+            try {
+                b = right.evalInt();
+            } catch (UnexpectedResultException e) {
+                return EvalNode.expectDouble(deoptimize(a, e.getResult()));
+            }
+            return doubleArithmetic(a, b);
+        }
+        if (state != DOUBLE_DOUBLE || !isArithmetic()) {
+            return EvalNode.expectDouble(eval());
+        }
+        double a;
+        try {
+            a = left.evalDouble();
+        } catch (UnexpectedResultException e) {
+            return EvalNode.expectDouble(deoptimize(e.getResult(), right.eval()));
+        }
+        double b;
+        try {
+            b = right.evalDouble();
+        } catch (UnexpectedResultException e) {
+            return EvalNode.expectDouble(deoptimize(a, e.getResult()));
+        }
+        return doubleArithmetic(a, b);
+    }
+
+    @Override
+    public boolean evalBoolean() {
+        if (isArithmetic() || state != INT_INT && state != DOUBLE_DOUBLE) {
+            return Operations.toBoolean(eval());
+        }
+        if (state == INT_INT) {
+            int a;
+            try {
+                a = left.evalInt();
+            } catch (UnexpectedResultException e) {
+                return Operations.toBoolean(deoptimize(e.getResult(), right.eval()));
+            }
+            try {
+                return compare(a, right.evalInt());
+            } catch (UnexpectedResultException e) {
+                return Operations.toBoolean(deoptimize(a, e.getResult()));
+            }
+        }
+        double a;
+        try {
+            a = left.evalDouble();
+        } catch (UnexpectedResultException e) {
+            return Operations.toBoolean(deoptimize(e.getResult(), right.eval()));
+        }
+        try {
+            return compare(a, right.evalDouble());
+        } catch (UnexpectedResultException e) {
+            return Operations.toBoolean(deoptimize(a, e.getResult()));
+        }
+    }
+
+    /**
+     * 类型与特化时不同，永久退化为通用路径
+     */
+    private Object deoptimize(Object l, Object r) {
+        state = GENERIC;
+        return generic(l, r);
+    }
+
+    private boolean isArithmetic() {
+        switch (operator) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case MODULO:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private byte classify(Object l, Object r) {
+        if (l instanceof Integer && r instanceof Integer) {
+            return INT_INT;
+        }
+        if (l instanceof Double && r instanceof Double) {
+            return DOUBLE_DOUBLE;
+        }
+        if (acceptsStrings(l, r)) {
+            return STRING_ANY;
+        }
+        return GENERIC;
+    }
+
+    private Object ints(int a, int b) {
+        switch (operator) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case MODULO:
+                return Operations.narrow(intArithmetic(a, b));
+            case DIVIDE: return doubleArithmetic(a, b);
+            default: return compare(a, b);
+        }
+    }
+
+    private boolean compare(int a, int b) {
+        switch (operator) {
+            case EQUAL: return a == b;
+            case NOT_EQUAL: return a != b;
+            case GREATER: return a > b;
+            case LESS: return a < b;
+            case GREATER_EQUAL: return a >= b;
+            default: return a <= b;
+        }
+    }
+
+    /**
+     * int 的加、减、乘、取模，在 long 中计算不会溢出（int 除法的结果为 double，见 doubleArithmetic）
+     */
+    private long intArithmetic(int a, int b) {
+        switch (operator) {
+            case ADD: return (long) a + b;
+            case SUBTRACT: return (long) a - b;
+            case MULTIPLY: return (long) a * b;
+            default:
+                if (b == 0) {
+                    throw VastExceptions.MathError.divisionByZero();
+                }
+                return a % b;
+        }
+    }
+
+    private double doubleArithmetic(double a, double b) {
+        switch (operator) {
+            case ADD: return a + b;
+            case SUBTRACT: return a - b;
+            case MULTIPLY: return a * b;
+            case DIVIDE:
+                if (b == 0) {
+                    throw VastExceptions.MathError.divisionByZero();
+                }
+                return a / b;
+            default:
+                if (b == 0) {
+                    throw VastExceptions.MathError.divisionByZero();
+                }
+                return a % b;
+        }
+    }
+
+    private Object doubles(double a, double b) {
+        switch (operator) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case MODULO:
+                return doubleArithmetic(a, b);
+            default:
+                return compare(a, b);
+        }
+    }
+
+    private boolean compare(double a, double b) {
+        switch (operator) {
+            // 与 Double.equals 一致
+            case EQUAL: return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+            case NOT_EQUAL: return Double.doubleToLongBits(a) != Double.doubleToLongBits(b);
+            case GREATER: return Double.compare(a, b) > 0;
+            case LESS: return Double.compare(a, b) < 0;
+            case GREATER_EQUAL: return Double.compare(a, b) >= 0;
+            default: return Double.compare(a, b) <= 0;
+        }
+    }
+
+    /**
+     * 字符串快速路径：字符串拼接，或两个字符串比较（分数优先于字符串，需排除）
+     */
+    private boolean acceptsStrings(Object l, Object r) {
+        switch (operator) {
+            case ADD:
+                return (l instanceof String || r instanceof String) &&
+                        !(l instanceof Fraction) && !(r instanceof Fraction);
+            case GREATER:
+            case LESS:
+            case GREATER_EQUAL:
+            case LESS_EQUAL:
+                return l instanceof String && r instanceof String;
+            default:
+                return false;
+        }
+    }
+
+    private Object strings(Object l, Object r) {
+        if (operator == Operator.ADD) {
+            return Operations.stringify(l) + Operations.stringify(r);
+        }
+        int comparison = ((String) l).compareTo((String) r);
+        switch (operator) {
+            case GREATER: return comparison > 0;
+            case LESS: return comparison < 0;
+            case GREATER_EQUAL: return comparison >= 0;
+            default: return comparison <= 0;
+        }
+    }
+
+    private Object generic(Object l, Object r) {
+        switch (operator) {
+            case ADD: return Operations.add(l, r);
+            case SUBTRACT: return Operations.subtract(l, r);
+            case MULTIPLY: return Operations.multiply(l, r);
+            case DIVIDE: return Operations.divide(l, r);
+            case MODULO: return Operations.modulo(l, r);
+            case EQUAL: return Operations.equal(l, r);
+            case NOT_EQUAL: return !Operations.equal(l, r);
+            case GREATER: return Operations.compare(l, r) > 0;
+            case LESS: return Operations.compare(l, r) < 0;
+            case GREATER_EQUAL: return Operations.compare(l, r) >= 0;
+            default: return Operations.compare(l, r) <= 0;
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package com.vast.interpreter;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Debugger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
+
+/**
+ * 寄存器字节码编译器
+ * 把 AST 编译为扁平的 int[] 指令流：表达式的中间结果放在寄存器中，变量直接按槽位读写，
+ * 循环用计数器和跳转实现。名称解析规则与 ClosureCompiler 相同，运行语义与闭包节点保持一致。
+ * 解析器把 a += b 等复合赋值展开为 a = a + b，这里再识别出来融合为 COMPOUND / COMPOUND_K 超级指令；
+ * 可能是字符串的 s = s + a + b ... 融合为 APPEND，在槽位的缓冲区上原地追加
+ */
+final class BytecodeCompiler implements ASTVisitor<Void> {
+    private final Interpreter interpreter;
+    private final Debugger debugger;
+    private final Frame frame;
+    private final ClosureCompiler names;// 复用闭包编译器的编译期名称解析
+
+    private int[] code;
+    private int pc;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new HashMap<>();
+    private final List<ASTNode> sites = new ArrayList<>();
+    private final List<CallSiteCache> caches = new ArrayList<>();
+    private int[] lines;
+    private int lineCount;
+    private int nextRegister;
+    private int maxRegisters;
+    private int counters;
+    private int target;// 当前表达式结果要写入的寄存器
+
+    BytecodeCompiler(Interpreter interpreter, ClosureCompiler names) {
+        this.interpreter = interpreter;
+        this.debugger = interpreter.debugger();
+        this.frame = interpreter.getFrame();
+        this.names = names;
+    }
+
+    /**
+     * 编译整个程序（调用前变量槽位已由 SlotResolver 分配）
+     */
+    BytecodeProgram compile(Program program) {
+        code = new int[64];
+        pc = 0;
+        constants.clear();
+        constantIndex.clear();
+        sites.clear();
+        caches.clear();
+        lines = new int[16];
+        lineCount = 0;
+        nextRegister = 0;
+        maxRegisters = 0;
+        counters = 0;
+
+        statements(program.getStatements());
+        emit(Opcode.HALT);
+
+        BytecodeProgram result = new BytecodeProgram(Arrays.copyOf(code, pc), constants.toArray(),
+                sites.toArray(new ASTNode[0]), caches.toArray(new CallSiteCache[0]), maxRegisters, counters, Arrays.copyOf(lines, lineCount));
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Bytecode compiled: " + pc + " words, " + constants.size() +
+                    " constants, " + maxRegisters + " registers");
+        }
+        return result;
+    }
+
+    private void statements(List<Statement> statements) {
+        for (Statement stmt : statements) {
+            // 语句之间没有存活的临时值，寄存器从头分配
+            nextRegister = 0;
+            markLine(stmt.getLineNumber());
+            stmt.accept(this);
+        }
+    }
+
+    /**
+     * 编译表达式，结果写入指定寄存器
+     */
+    private void expression(Expression expr, int register) {
+        int saved = target;
+        target = register;
+        expr.accept(this);
+        target = saved;
+    }
+
+    private int allocate(int count) {
+        int register = nextRegister;
+        nextRegister += count;
+        maxRegisters = Math.max(maxRegisters, nextRegister);
+        return register;
+    }
+
+    private int allocate() {
+        return allocate(1);
+    }
+
+    // ==================== 指令输出 ====================
+
+    private void emit(int... words) {
+        if (pc + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, pc + words.length));
+        }
+        System.arraycopy(words, 0, code, pc, words.length);
+        pc += words.length;
+    }
+
+    private int constant(Object value) {
+        Integer index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        return index;
+    }
+
+    private int site(ASTNode node) {
+        sites.add(node);
+        return sites.size() - 1;
+    }
+
+    private int cache() {
+        caches.add(new CallSiteCache(interpreter));
+        return caches.size() - 1;
+    }
+
+    private void markLine(int line) {
+        if (lineCount > 0 && lines[lineCount - 1] == line) {
+            return;
+        }
+        if (lineCount + 2 > lines.length) {
+            lines = Arrays.copyOf(lines, lines.length * 2);
+        }
+        if (lineCount > 0 && lines[lineCount - 2] == pc) {
+            // 同一地址上只保留最后一个行号
+            lineCount -= 2;
+        }
+        lines[lineCount++] = pc;
+        lines[lineCount++] = line;
+    }
+
+    // ==================== 语句 ====================
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration stmt) {
+        int value = -1;
+        if (stmt.getInitialValue() != null) {
+            value = allocate();
+            expression(stmt.getInitialValue(), value);
+        }
+        // 类型推断已证明初始值总是兼容且无需转换时，不生成类型检查
+        int opcode = stmt.getTypeHint() != null && interpreter.typeProven(stmt) ? Opcode.DECLARE_FAST : Opcode.DECLARE;
+        emit(opcode, frame.declare(stmt.getVariableName()), value, site(stmt));
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentStatement(AssignmentStatement stmt) {
+        int slot = frame.declare(stmt.getVariableName());
+        if (stmt.getTypeHint() == null && compileCompound(stmt.getVariableName(), stmt.getValue(), slot, stmt)) {
+            return null;
+        }
+        int value = allocate();
+        expression(stmt.getValue(), value);
+        if (stmt.getTypeHint() != null) {
+            emit(Opcode.STORE_TYPED, slot, value, site(stmt));
+        } else {
+            emit(Opcode.STORE, slot, value);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(ExpressionStatement stmt) {
+        if (stmt.getExpression() instanceof AssignmentExpression) {
+            // a += b 由 parseAssignment 展开为赋值表达式 a = a + b
+            AssignmentExpression assignment = (AssignmentExpression) stmt.getExpression();
+            if (compileAppend(assignment)) {
+                return null;
+            }
+            if (compileCompound(assignment.getVariableName(), assignment.getValue(),
+                    frame.declare(assignment.getVariableName()), assignment)) {
+                return null;
+            }
+        }
+        int value = allocate();
+        expression(stmt.getExpression(), value);
+        emit(Opcode.RESULT, value);
+        return null;
+    }
+
+    /**
+     * 识别 a = a op b（复合赋值展开后的形式）并输出超级指令，site 为赋值语句或赋值表达式。
+     * 先读取变量再计算右侧，求值顺序与展开后的表达式一致
+     */
+    private boolean compileCompound(String varName, Expression value, int slot, ASTNode site) {
+        if (!(value instanceof BinaryExpression)) {
+            return false;
+        }
+        BinaryExpression binary = (BinaryExpression) value;
+        int operator = Opcode.ofOperator(binary.getOperator());
+        if (!Opcode.isCompoundOperator(operator) || !(binary.getLeft() instanceof VariableExpression)) {
+            return false;
+        }
+        VariableExpression variable = (VariableExpression) binary.getLeft();
+        if (!variable.getName().equals(varName) || names.resolveConstantName(variable) != null) {
+            return false;
+        }
+
+        if (binary.getRight() instanceof LiteralExpression) {
+            // 右侧为常量：读取、运算、写回融合为一条指令
+            Object constant = ((LiteralExpression) binary.getRight()).getValue();
+            emit(Opcode.COMPOUND_K, operator, slot, constant(constant), site(site));
+            return true;
+        }
+
+        int left = allocate();
+        emit(Opcode.LOAD, left, slot, site(variable));
+        int right = allocate();
+        expression(binary.getRight(), right);
+        emit(Opcode.COMPOUND, operator, slot, left, right, site(site));
+        return true;
+    }
+
+    /**
+     * 识别 s = s + e1 + ... + ek（各项没有副作用）并输出 APPEND，变量不是字符串时按普通加法和赋值执行
+     */
+    private boolean compileAppend(AssignmentExpression assignment) {
+        List<Expression> appended = StringAppendNode.appendedOperands(assignment);
+        if (appended == null || !interpreter.mayHoldString(assignment) ||
+                interpreter.binding(assignment.getVariableName()).isConstantName()) {
+            return false;
+        }
+        Expression variable = assignment.getValue();
+        while (variable instanceof BinaryExpression) {
+            variable = ((BinaryExpression) variable).getLeft();
+        }
+
+        int slot = frame.declare(assignment.getVariableName());
+        int left = allocate();
+        emit(Opcode.LOAD_APPEND, left, slot, site(variable));
+        int operands = arguments(appended);
+        emit(Opcode.APPEND, slot, left, operands, appended.size(), site(assignment));
+        return true;
+    }
+
+    @Override
+    public Void visitImportStatement(ImportStatement stmt) {
+        emit(Opcode.EXEC, site(stmt));
+        return null;
+    }
+
+    @Override
+    public Void visitLoopStatement(LoopStatement stmt) {
+        int condition = allocate();
+        expression(stmt.getCondition(), condition);
+        int counter = counters;
+        counters += 2;
+
+        emit(Opcode.LOOP_ENTER, condition, counter, 0);
+        int exitOperand = pc - 1;
+        int bodyStart = pc;
+        statements(stmt.getBody());
+        emit(Opcode.LOOP_NEXT, counter, bodyStart);
+        code[exitOperand] = pc;
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStatement(WhileStatement stmt) {
+        int top = pc;
+        int exitOperand = jumpUnless(stmt.getCondition());
+        statements(stmt.getBody());
+        emit(Opcode.JUMP, top);
+        code[exitOperand] = pc;
+        return null;
+    }
+
+    /**
+     * 条件为假时跳转，返回待回填的跳转地址的位置；比较运算融合为 JUMP_UNLESS_CMP
+     */
+    private int jumpUnless(Expression condition) {
+        if (condition instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) condition;
+            int opcode = Opcode.ofOperator(binary.getOperator());
+            if (opcode >= Opcode.EQ && opcode <= Opcode.LE) {
+                int left = allocate();
+                expression(binary.getLeft(), left);
+                int right = allocate();
+                expression(binary.getRight(), right);
+                emit(Opcode.JUMP_UNLESS_CMP, opcode, left, right, 0);
+                return pc - 1;
+            }
+        }
+        int value = allocate();
+        expression(condition, value);
+        emit(Opcode.JUMP_UNLESS, value, 0);
+        return pc - 1;
+    }
+
+    @Override
+    public Void visitForStatement(ForStatement stmt) {
+        int start = allocate();
+        expression(stmt.getStart(), start);
+        int end = allocate();
+        expression(stmt.getEnd(), end);
+        int counter = counters;
+        counters += 2;
+        int slot = frame.declare(stmt.getVariableName());
+        int site = site(stmt);
+
+        emit(Opcode.FOR_ENTER, start, end, counter, slot, site, 0);
+        int exitOperand = pc - 1;
+        int bodyStart = pc;
+        statements(stmt.getBody());
+        emit(Opcode.FOR_NEXT, counter, slot, site, bodyStart);
+        code[exitOperand] = pc;
+        return null;
+    }
+
+    @Override
+    public Void visitUseStatement(UseStatement stmt) {
+        int value = allocate();
+        expression(stmt.getMethodCall(), value);
+        emit(Opcode.RESULT, value);
+        return null;
+    }
+
+    @Override
+    public Void visitSwapStatement(SwapStatement stmt) {
+        emit(Opcode.SWAP, frame.declare(stmt.getVarA().getName()), frame.declare(stmt.getVarB().getName()));
+        return null;
+    }
+
+    @Override
+    public Void visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        emit(Opcode.EXEC, site(stmt));
+        return null;
+    }
+
+    // ==================== 表达式 ====================
+
+    @Override
+    public Void visitLiteralExpression(LiteralExpression expr) {
+        emit(Opcode.CONST, target, constant(expr.getValue()));
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpression(VariableExpression expr) {
+        String constantName = names.resolveConstantName(expr);
+        if (constantName != null) {
+            // 类名或静态方法名，求值结果为名称本身
+            emit(Opcode.CONST, target, constant(constantName));
+        } else {
+            emit(Opcode.LOAD, target, frame.declare(expr.getName()), site(expr));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpression(BinaryExpression expr) {
+        int result = target;
+        expression(expr.getLeft(), result);
+
+        // 逻辑与、或短路求值：左侧已经决定结果时跳过右侧，否则结果为右侧的真值
+        boolean and = expr.getOperator().equals("AND");
+        if (and || expr.getOperator().equals("OR")) {
+            emit(and ? Opcode.JUMP_FALSE : Opcode.JUMP_TRUE, result, 0);
+            int exitOperand = pc - 1;
+            int right = allocate();
+            expression(expr.getRight(), right);
+            emit(and ? Opcode.AND : Opcode.OR, result, result, right);
+            code[exitOperand] = pc;
+            return null;
+        }
+
+        int right = allocate();
+        expression(expr.getRight(), right);
+
+        int operator = Opcode.ofOperator(expr.getOperator());
+        if (operator == Opcode.BINARY) {
+            emit(Opcode.BINARY, result, result, right, site(expr));
+        } else {
+            emit(operator, result, result, right);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpression(UnaryExpression expr) {
+        int result = target;
+        expression(expr.getRight(), result);
+
+        switch (expr.getOperator()) {
+            case "++": return increment(expr, 1, false);
+            case "--": return increment(expr, -1, false);
+            case "++_POSTFIX": return increment(expr, 1, true);
+            case "--_POSTFIX": return increment(expr, -1, true);
+            case "-":
+                emit(Opcode.NEG, result, result);
+                return null;
+            case "NOT":
+                emit(Opcode.NOT, result, result);
+                return null;
+            default:
+                emit(Opcode.FAIL, constant("Unknown unary operator: " + expr.getOperator()),
+                        expr.getLineNumber(), expr.getColumnNumber());
+                return null;
+        }
+    }
+
+    /**
+     * 自增/自减：操作数已在目标寄存器中求值（与闭包节点一样先读取一次变量）
+     */
+    private Void increment(UnaryExpression expr, int delta, boolean postfix) {
+        Expression operand = expr.getRight();
+        if (!(operand instanceof VariableExpression)) {
+            emit(Opcode.FAIL, constant("Increment/decrement operand must be a variable"),
+                    operand.getLineNumber(), operand.getColumnNumber());
+            return null;
+        }
+        emit(Opcode.INC, target, frame.declare(((VariableExpression) operand).getName()), delta, postfix ? 1 : 0);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentExpression(AssignmentExpression expr) {
+        expression(expr.getValue(), target);
+        if (interpreter.typeProven(expr)) {
+            emit(Opcode.ASSIGN_FAST, target, frame.declare(expr.getVariableName()));
+        } else {
+            emit(Opcode.ASSIGN, target, frame.declare(expr.getVariableName()), site(expr));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitMemberAccessExpression(MemberAccessExpression expr) {
+        if (expr.getObject() instanceof VariableExpression) {
+            String className = names.resolveConstantName((VariableExpression) expr.getObject());
+            if (className != null) {
+                emit(Opcode.CONST, target, constant(interpreter.methodReference(className, expr.getMemberName())));
+                return null;
+            }
+        }
+        expression(expr.getObject(), target);
+        emit(Opcode.MEMBER, target, target, site(expr));
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionCallExpression(FunctionCallExpression expr) {
+        String[] resolved = names.resolveCallTarget(expr);
+        if (resolved != null) {
+            return call(expr, resolved[0], resolved[1], expr.getArguments());
+        }
+
+        // 调用目标需要在运行时确定：先求值调用目标，再求值参数
+        int result = target;
+        int site = site(expr);
+        int cache = cache();
+        expression(expr.getCallee(), result);
+        int lazyExit = -1;
+        if (!expr.getArguments().isEmpty()) {
+            emit(Opcode.LAZY_CALL_DYNAMIC, result, site, cache, 0);
+            lazyExit = pc - 1;
+        }
+        int arguments = arguments(expr.getArguments());
+        emit(Opcode.CALL_DYNAMIC, result, result, arguments, expr.getArguments().size(), site, cache);
+        if (lazyExit >= 0) {
+            code[lazyExit] = pc;
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitMethodCallExpression(MethodCallExpression expr) {
+        return call(expr, expr.getClassName().getName(), expr.getMethodName(), expr.getArguments());
+    }
+
+    /**
+     * 调用目标在编译时确定的宿主方法调用；有参数时先检查目标方法的 @Lazy 参数，有则由 LAZY_CALL 完成调用
+     */
+    private Void call(Expression expr, String className, String methodName, List<Expression> arguments) {
+        int result = target;
+        int cache = cache();
+        int lazyExit = -1;
+        if (!arguments.isEmpty()) {
+            emit(Opcode.LAZY_CALL, result, constant(className), constant(methodName), site(expr), cache, 0);
+            lazyExit = pc - 1;
+        }
+        int first = arguments(arguments);
+        emit(Opcode.CALL, result, constant(className), constant(methodName), first, arguments.size(), cache);
+        if (lazyExit >= 0) {
+            code[lazyExit] = pc;
+        }
+        return null;
+    }
+
+    /**
+     * 把参数依次求值到连续的寄存器中，返回第一个寄存器
+     */
+    private int arguments(List<Expression> arguments) {
+        int first = allocate(arguments.size());
+        for (int i = 0; i < arguments.size(); i++) {
+            expression(arguments.get(i), first + i);
+        }
+        return first;
+    }
+
+    @Override
+    public Void visitTypeCastExpression(TypeCastExpression expr) {
+        expression(expr.getExpression(), target);
+        emit(Opcode.CAST, target, target, site(expr));
+        return null;
+    }
+
+    @Override
+    public Void visitFractionExpression(FractionExpression expr) {
+        expression(expr.getExpression(), target);
+        emit(Opcode.FRACTION, target, target, site(expr));
+        return null;
+    }
+}
@@ -0,0 +1,585 @@
+package com.vast.interpreter;
+
+import com.vast.ast.ASTNode;
+import com.vast.ast.Expression;
+import com.vast.ast.Statement;
+import com.vast.ast.VastType;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.AssignmentStatement;
+import com.vast.ast.statements.ForStatement;
+import com.vast.ast.statements.VariableDeclaration;
+import com.vast.internal.Debugger;
+import com.vast.internal.Fraction;
+import com.vast.internal.VastExceptions;
+
+import java.util.List;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
+
+/**
+ * 寄存器字节码解释器
+ * 单个 switch 分派循环执行 BytecodeProgram，寄存器和循环计数器是每次执行时分配的两个数组。
+ * 各指令的语义与 ClosureCompiler 生成的节点一致
+ */
+final class BytecodeInterpreter {
+    // LOAD_APPEND 读取追加中的字符串时放入寄存器的标记
+    private static final Object APPENDING = new Object();
+
+    private final Interpreter interpreter;
+    private final Debugger debugger;
+    private final Frame frame;
+
+    BytecodeInterpreter(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.debugger = interpreter.debugger();
+        this.frame = interpreter.getFrame();
+    }
+
+    void execute(BytecodeProgram program) {
+        final int[] code = program.code;
+        final Object[] constants = program.constants;
+        final ASTNode[] sites = program.sites;
+        final CallSiteCache[] caches = program.caches;
+        final Object[] r = new Object[program.registers];
+        final int[] counters = new int[program.counters];
+        int pc = 0;
+
+        for (;;) {
+            switch (code[pc]) {
+                case Opcode.HALT:
+                    return;
+                case Opcode.CONST:
+                    r[code[pc + 1]] = constants[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.LOAD:
+                    r[code[pc + 1]] = load(code[pc + 2], sites[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.LOAD_APPEND: {
+                    int slot = code[pc + 2];
+                    r[code[pc + 1]] = frame.tagOf(slot) == Frame.STRING ? APPENDING : load(slot, sites[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                }
+                case Opcode.ADD:
+                    r[code[pc + 1]] = Operations.add(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.SUB:
+                    r[code[pc + 1]] = Operations.subtract(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.MUL:
+                    r[code[pc + 1]] = Operations.multiply(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.DIV:
+                    r[code[pc + 1]] = Operations.divide(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.MOD:
+                    r[code[pc + 1]] = Operations.modulo(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.POW:
+                    r[code[pc + 1]] = Operations.power(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.IDIV:
+                    r[code[pc + 1]] = Operations.integerDivide(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.CONCAT:
+                    r[code[pc + 1]] = Operations.numberConcatenation(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.EQ:
+                    r[code[pc + 1]] = Operations.equal(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.NE:
+                    r[code[pc + 1]] = !Operations.equal(r[code[pc + 2]], r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.GT:
+                    r[code[pc + 1]] = Operations.compare(r[code[pc + 2]], r[code[pc + 3]]) > 0;
+                    pc += 4;
+                    break;
+                case Opcode.LT:
+                    r[code[pc + 1]] = Operations.compare(r[code[pc + 2]], r[code[pc + 3]]) < 0;
+                    pc += 4;
+                    break;
+                case Opcode.GE:
+                    r[code[pc + 1]] = Operations.compare(r[code[pc + 2]], r[code[pc + 3]]) >= 0;
+                    pc += 4;
+                    break;
+                case Opcode.LE:
+                    r[code[pc + 1]] = Operations.compare(r[code[pc + 2]], r[code[pc + 3]]) <= 0;
+                    pc += 4;
+                    break;
+                case Opcode.AND:
+                    r[code[pc + 1]] = Operations.toBoolean(r[code[pc + 2]]) & Operations.toBoolean(r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.OR:
+                    r[code[pc + 1]] = Operations.toBoolean(r[code[pc + 2]]) | Operations.toBoolean(r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.XOR:
+                    r[code[pc + 1]] = Operations.toBoolean(r[code[pc + 2]]) ^ Operations.toBoolean(r[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.BINARY: {
+                    BinaryExpression expr = (BinaryExpression) sites[code[pc + 4]];
+                    r[code[pc + 1]] = Operations.binary(expr.getOperator(), r[code[pc + 2]], r[code[pc + 3]],
+                            expr.getLineNumber(), expr.getColumnNumber());
+                    pc += 5;
+                    break;
+                }
+                case Opcode.NEG:
+                    r[code[pc + 1]] = Operations.negate(r[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case Opcode.NOT:
+                    r[code[pc + 1]] = !Operations.toBoolean(r[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case Opcode.INC:
+                    r[code[pc + 1]] = increment(code[pc + 2], code[pc + 3], code[pc + 4] != 0);
+                    pc += 5;
+                    break;
+                case Opcode.FAIL:
+                    throw new VastExceptions.NotGrammarException((String) constants[code[pc + 1]],
+                            code[pc + 2], code[pc + 3]);
+                case Opcode.ASSIGN:
+                    assign(r[code[pc + 1]], code[pc + 2], (AssignmentExpression) sites[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.ASSIGN_FAST:
+                    frame.store(code[pc + 2], r[code[pc + 1]]);
+                    pc += 3;
+                    break;
+                case Opcode.MEMBER:
+                    r[code[pc + 1]] = member(r[code[pc + 2]], (MemberAccessExpression) sites[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.CALL:
+                    r[code[pc + 1]] = call(caches[code[pc + 6]], (String) constants[code[pc + 2]],
+                            (String) constants[code[pc + 3]], r, code[pc + 4], code[pc + 5]);
+                    pc += 7;
+                    break;
+                case Opcode.LAZY_CALL: {
+                    CallSiteCache cache = caches[code[pc + 5]];
+                    String className = (String) constants[code[pc + 2]];
+                    String methodName = (String) constants[code[pc + 3]];
+                    List<Expression> arguments = arguments(sites[code[pc + 4]]);
+                    boolean[] lazy = cache.lazyParameters(className, methodName, arguments.size());
+                    if (lazy == null) {
+                        pc += 7;
+                        break;
+                    }
+                    r[code[pc + 1]] = interpreter.callLazy(cache, className, methodName, arguments, lazy);
+                    pc = code[pc + 6];
+                    break;
+                }
+                case Opcode.LAZY_CALL_DYNAMIC: {
+                    CallSiteCache cache = caches[code[pc + 3]];
+                    String[] target = interpreter.hostTarget(r[code[pc + 1]]);
+                    List<Expression> arguments = ((FunctionCallExpression) sites[code[pc + 2]]).getArguments();
+                    boolean[] lazy = target == null ? null : cache.lazyParameters(target[0], target[1], arguments.size());
+                    if (lazy == null) {
+                        pc += 5;
+                        break;
+                    }
+                    r[code[pc + 1]] = interpreter.callLazy(cache, target[0], target[1], arguments, lazy);
+                    pc = code[pc + 4];
+                    break;
+                }
+                case Opcode.CALL_DYNAMIC:
+                    r[code[pc + 1]] = callDynamic(caches[code[pc + 6]], r[code[pc + 2]], r, code[pc + 3], code[pc + 4],
+                            (FunctionCallExpression) sites[code[pc + 5]]);
+                    pc += 7;
+                    break;
+                case Opcode.CAST: {
+                    TypeCastExpression expr = (TypeCastExpression) sites[code[pc + 3]];
+                    r[code[pc + 1]] = interpreter.performTypeCast(r[code[pc + 2]], expr.getTargetType(),
+                            expr.getLineNumber(), expr.getColumnNumber(), expr.isExplicit());
+                    pc += 4;
+                    break;
+                }
+                case Opcode.FRACTION: {
+                    FractionExpression expr = (FractionExpression) sites[code[pc + 3]];
+                    r[code[pc + 1]] = Operations.createFraction(r[code[pc + 2]], expr.isPermanent(),
+                            expr.getLineNumber(), expr.getColumnNumber());
+                    pc += 4;
+                    break;
+                }
+                case Opcode.DECLARE:
+                    declare(code[pc + 1], code[pc + 2] < 0 ? null : r[code[pc + 2]],
+                            (VariableDeclaration) sites[code[pc + 3]], true);
+                    pc += 4;
+                    break;
+                case Opcode.DECLARE_FAST:
+                    declare(code[pc + 1], code[pc + 2] < 0 ? null : r[code[pc + 2]],
+                            (VariableDeclaration) sites[code[pc + 3]], false);
+                    pc += 4;
+                    break;
+                case Opcode.STORE:
+                    store(code[pc + 1], r[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case Opcode.STORE_TYPED:
+                    storeTyped(code[pc + 1], r[code[pc + 2]], (AssignmentStatement) sites[code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.RESULT:
+                    interpreter.setLastResult(r[code[pc + 1]]);
+                    pc += 2;
+                    break;
+                case Opcode.SWAP:
+                    swap(code[pc + 1], code[pc + 2]);
+                    pc += 3;
+                    break;
+                case Opcode.EXEC:
+                    ((Statement) sites[code[pc + 1]]).accept(interpreter);
+                    pc += 2;
+                    break;
+                case Opcode.LOOP_ENTER: {
+                    Object value = r[code[pc + 1]];
+                    int counter = code[pc + 2];
+                    int count;
+                    if (value instanceof Number) {
+                        // 处理数字类型的循环条件（如 loop(10):）
+                        count = ((Number) value).intValue();
+                    } else {
+                        // 布尔条件为真或非空条件时执行一次
+                        count = (value instanceof Boolean ? (Boolean) value : value != null) ? 1 : 0;
+                    }
+                    if (count <= 0) {
+                        pc = code[pc + 3];
+                        break;
+                    }
+                    counters[counter] = 0;
+                    counters[counter + 1] = count;
+                    pc += 4;
+                    break;
+                }
+                case Opcode.JUMP_FALSE:
+                    if (!Operations.toBoolean(r[code[pc + 1]])) {
+                        r[code[pc + 1]] = false;
+                        pc = code[pc + 2];
+                    } else {
+                        pc += 3;
+                    }
+                    break;
+                case Opcode.JUMP_TRUE:
+                    if (Operations.toBoolean(r[code[pc + 1]])) {
+                        r[code[pc + 1]] = true;
+                        pc = code[pc + 2];
+                    } else {
+                        pc += 3;
+                    }
+                    break;
+                case Opcode.LOOP_NEXT: {
+                    int counter = code[pc + 1];
+                    pc = ++counters[counter] < counters[counter + 1] ? code[pc + 2] : pc + 3;
+                    break;
+                }
+                case Opcode.JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case Opcode.JUMP_UNLESS:
+                    pc = Operations.toBoolean(r[code[pc + 1]]) ? pc + 3 : code[pc + 2];
+                    break;
+                case Opcode.JUMP_UNLESS_CMP: {
+                    Object a = r[code[pc + 2]];
+                    Object b = r[code[pc + 3]];
+                    boolean holds = a instanceof Integer && b instanceof Integer ?
+                            compare(code[pc + 1], Integer.compare((Integer) a, (Integer) b)) :
+                            test(code[pc + 1], a, b);
+                    pc = holds ? pc + 5 : code[pc + 4];
+                    break;
+                }
+                case Opcode.FOR_ENTER: {
+                    ForStatement stmt = (ForStatement) sites[code[pc + 5]];
+                    int start = interpreter.forBound(r[code[pc + 1]], stmt);
+                    int end = interpreter.forBound(r[code[pc + 2]], stmt);
+                    if (start >= end) {
+                        pc = code[pc + 6];
+                        break;
+                    }
+                    interpreter.forVariable(stmt);
+                    int counter = code[pc + 3];
+                    counters[counter] = start;
+                    counters[counter + 1] = end;
+                    frame.storeInt(code[pc + 4], start);
+                    pc += 7;
+                    break;
+                }
+                case Opcode.FOR_NEXT: {
+                    int counter = code[pc + 1];
+                    if (++counters[counter] < counters[counter + 1]) {
+                        int slot = code[pc + 2];
+                        if (frame.typeOf(slot) != null) {
+                            // 循环体给变量加上了强类型约束
+                            interpreter.forVariable((ForStatement) sites[code[pc + 3]]);
+                        }
+                        frame.storeInt(slot, counters[counter]);
+                        pc = code[pc + 4];
+                    } else {
+                        pc += 5;
+                    }
+                    break;
+                }
+                case Opcode.COMPOUND: {
+                    Object value = arithmetic(code[pc + 1], r[code[pc + 3]], r[code[pc + 4]]);
+                    compoundStore(code[pc + 2], value, sites[code[pc + 5]]);
+                    pc += 6;
+                    break;
+                }
+                case Opcode.COMPOUND_K: {
+                    int slot = code[pc + 2];
+                    ASTNode site = sites[code[pc + 4]];
+                    Object current = frame.load(slot);
+                    if (current == Frame.UNDEFINED) {
+                        current = interpreter.evaluate(compoundOperand(site));
+                    }
+                    compoundStore(slot, arithmetic(code[pc + 1], current, constants[code[pc + 3]]), site);
+                    pc += 5;
+                    break;
+                }
+                case Opcode.APPEND:
+                    append(code[pc + 1], r[code[pc + 2]], r, code[pc + 3], code[pc + 4],
+                            (AssignmentExpression) sites[code[pc + 5]]);
+                    pc += 6;
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+
+    // ==================== 指令实现 ====================
+
+    private Object load(int slot, ASTNode site) {
+        Object value = frame.load(slot);
+        if (value != Frame.UNDEFINED) {
+            return value;
+        }
+        // 变量不存在时回退到访问者（可能是运行中新导入的类，或给出错误建议）
+        return interpreter.evaluate((Expression) site);
+    }
+
+    /**
+     * 复合赋值超级指令中的运算
+     */
+    /**
+     * 比较运算的结果（与 EQ .. LE 指令相同）
+     */
+    private static boolean test(int opcode, Object a, Object b) {
+        switch (opcode) {
+            case Opcode.EQ: return Operations.equal(a, b);
+            case Opcode.NE: return !Operations.equal(a, b);
+            default: return compare(opcode, Operations.compare(a, b));
+        }
+    }
+
+    private static boolean compare(int opcode, int comparison) {
+        switch (opcode) {
+            case Opcode.EQ: return comparison == 0;
+            case Opcode.NE: return comparison != 0;
+            case Opcode.GT: return comparison > 0;
+            case Opcode.LT: return comparison < 0;
+            case Opcode.GE: return comparison >= 0;
+            default: return comparison <= 0;
+        }
+    }
+
+    private static Object arithmetic(int opcode, Object a, Object b) {
+        switch (opcode) {
+            case Opcode.ADD: return Operations.add(a, b);
+            case Opcode.SUB: return Operations.subtract(a, b);
+            case Opcode.MUL: return Operations.multiply(a, b);
+            case Opcode.DIV: return Operations.divide(a, b);
+            case Opcode.MOD: return Operations.modulo(a, b);
+            default: return Operations.integerDivide(a, b);
+        }
+    }
+
+    /**
+     * 复合赋值的写回：赋值语句按自由类型赋值处理，赋值表达式检查已有的强类型（与展开后的节点一致）
+     */
+    private void compoundStore(int slot, Object value, ASTNode site) {
+        if (site instanceof AssignmentExpression) {
+            assign(value, slot, (AssignmentExpression) site);
+            interpreter.setLastResult(value);
+        } else {
+            store(slot, value);
+        }
+    }
+
+    /**
+     * 字符串追加：变量是字符串且各项都不是分数时追加到槽位的缓冲区（与 StringAppendNode 一致），
+     * 否则逐项相加后按赋值表达式写回
+     */
+    private void append(int slot, Object left, Object[] r, int first, int count, AssignmentExpression site) {
+        VastType type = frame.typeOf(slot);
+        boolean appendable = (left == APPENDING || left instanceof String && frame.holdsString(slot)) &&
+                (type == null || type.acceptsAll(String.class));
+        for (int i = 0; appendable && i < count; i++) {
+            appendable = !(r[first + i] instanceof Fraction);
+        }
+        if (appendable) {
+            StringBuilder builder = null;
+            for (int i = 0; i < count; i++) {
+                builder = frame.append(slot, Operations.stringify(r[first + i]));
+            }
+            interpreter.setLastResultString(builder);
+            return;
+        }
+        Object value = left == APPENDING ? frame.load(slot) : left;
+        for (int i = 0; i < count; i++) {
+            value = Operations.add(value, r[first + i]);
+        }
+        compoundStore(slot, value, site);
+    }
+
+    /**
+     * 复合赋值中被读取的变量（a = a op b 的左操作数）
+     */
+    private static Expression compoundOperand(ASTNode site) {
+        Expression value = site instanceof AssignmentExpression ?
+                ((AssignmentExpression) site).getValue() : ((AssignmentStatement) site).getValue();
+        return ((BinaryExpression) value).getLeft();
+    }
+
+    private Object increment(int slot, int delta, boolean postfix) {
+        Object currentValue = frame.load(slot);
+        if (currentValue == null || currentValue == Frame.UNDEFINED) {
+            throw VastExceptions.NonExistentObject.variableNotFound(frame.nameOf(slot));
+        }
+        Object newValue = Operations.increment(currentValue, delta);
+        frame.store(slot, newValue);
+        return postfix ? currentValue : newValue;
+    }
+
+    private void assign(Object value, int slot, AssignmentExpression expr) {
+        VastType expectedType = frame.typeOf(slot);
+        // 复合赋值超级指令也经过这里，只有目标有类型约束时才查询类型推断的结果
+        if (expectedType != null && !interpreter.typeProven(expr)) {
+            interpreter.validateTypeCompatibility(expectedType, value, expr.getVariableName(),
+                    expr.getLineNumber(), expr.getColumnNumber());
+        }
+        frame.store(slot, value);
+    }
+
+    private Object member(Object object, MemberAccessExpression expr) {
+        if (object instanceof String) {
+            return interpreter.methodReference((String) object, expr.getMemberName());
+        }
+        throw new VastExceptions.NotGrammarException(
+                "Unsupported member access: " + expr,
+                expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    /**
+     * 通过调用点的内联缓存调用宿主方法，参数从连续的寄存器复制到参数数组（免分配模式下来自解释器的缓冲区）
+     */
+    private Object call(CallSiteCache cache, String className, String methodName,
+                        Object[] registers, int first, int count) {
+        Object[] args = interpreter.acquireArguments(count);
+        try {
+            System.arraycopy(registers, first, args, 0, count);
+            return cache.invoke(className, methodName, args);
+        } finally {
+            interpreter.releaseArguments(args);
+        }
+    }
+
+    /**
+     * 调用表达式（函数调用或方法调用）的参数
+     */
+    private static List<Expression> arguments(ASTNode call) {
+        return call instanceof MethodCallExpression ? ((MethodCallExpression) call).getArguments() :
+                ((FunctionCallExpression) call).getArguments();
+    }
+
+    private Object callDynamic(CallSiteCache cache, Object target, Object[] registers, int first, int count,
+                               FunctionCallExpression expr) {
+        if (target instanceof Interpreter.StaticMethodReference) {
+            Interpreter.StaticMethodReference methodRef = (Interpreter.StaticMethodReference) target;
+            return call(cache, methodRef.getClassName(), methodRef.getMethodName(), registers, first, count);
+        }
+        if (target instanceof String) {
+            String methodName = (String) target;
+            String className = interpreter.resolveClassNameForMethod(methodName,
+                    expr.getLineNumber(), expr.getColumnNumber());
+            if (className != null) {
+                return call(cache, className, methodName, registers, first, count);
+            }
+        }
+        throw new VastExceptions.NotGrammarException(
+                "Unsupported function call: " + expr,
+                expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    private void declare(int slot, Object value, VariableDeclaration stmt, boolean checked) {
+        VastType typeHint = stmt.getTypeHint();
+        if (typeHint != null) {
+            frame.setType(slot, typeHint);
+
+            // 严格验证初始值的类型，支持隐式转换
+            if (value != null && checked) {
+                value = Operations.convertTyped(typeHint, value, stmt.getVariableName(),
+                        stmt.getLineNumber(), stmt.getColumnNumber());
+            }
+        }
+
+        frame.store(slot, value);
+        interpreter.setLastResult(value);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Var declared: " + stmt.getVariableName() + " = " + value +
+                    (typeHint != null ? " (type: " + typeHint + ")" : ""));
+        }
+    }
+
+    /**
+     * 自由类型赋值 - 不进行类型检查，但会覆盖原有的强类型
+     */
+    private void store(int slot, Object value) {
+        if (frame.hasTypedSlots() && frame.typeOf(slot) != null) {
+            debugger.warning("Warning: free type assignment to strongly typed variable " + frame.nameOf(slot));
+            frame.setType(slot, null);
+        }
+        frame.store(slot, value);
+        interpreter.setLastResult(value);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Var assigned: " + frame.nameOf(slot) + " = " + value);
+        }
+    }
+
+    /**
+     * 强类型赋值 - 严格类型检查，支持隐式转换
+     */
+    private void storeTyped(int slot, Object value, AssignmentStatement stmt) {
+        VastType typeHint = stmt.getTypeHint();
+        value = Operations.convertTyped(typeHint, value, stmt.getVariableName(),
+                stmt.getLineNumber(), stmt.getColumnNumber());
+        frame.setType(slot, typeHint);
+        frame.store(slot, value);
+        interpreter.setLastResult(value);
+    }
+
+    private void swap(int slotA, int slotB) {
+        if (!frame.isDefined(slotA)) {
+            throw VastExceptions.NonExistentObject.variableNotFound(frame.nameOf(slotA));
+        }
+        if (!frame.isDefined(slotB)) {
+            throw VastExceptions.NonExistentObject.variableNotFound(frame.nameOf(slotB));
+        }
+        Object valueA = frame.load(slotA);
+        frame.store(slotA, frame.load(slotB));
+        frame.store(slotB, valueA);
+    }
+}
@@ -0,0 +1,112 @@
+package com.vast.interpreter;
+
+import com.vast.ast.ASTNode;
+
+/**
+ * 编译后的寄存器字节码程序
+ * 指令流是连续的 int[]，常量和运行时需要的 AST 节点（错误位置、回退求值）分别放在常量池和位置表中
+ */
+final class BytecodeProgram {
+    final int[] code;
+    final Object[] constants;
+    final ASTNode[] sites;
+    final CallSiteCache[] caches;// 每个调用点一个内联缓存
+    final int registers;// 临时寄存器数量
+    final int counters;// 循环计数器数量（每个循环占两个：当前次数和总次数）
+    final int[] lines;// 行号表：{指令地址, 源码行号} 成对排列
+
+    BytecodeProgram(int[] code, Object[] constants, ASTNode[] sites, CallSiteCache[] caches,
+                    int registers, int counters, int[] lines) {
+        this.code = code;
+        this.constants = constants;
+        this.sites = sites;
+        this.caches = caches;
+        this.registers = registers;
+        this.counters = counters;
+        this.lines = lines;
+    }
+
+    /**
+     * 生成可读的反汇编文本
+     */
+    String disassemble(Frame frame) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("; ").append(code.length).append(" words, ")
+                .append(constants.length).append(" constants, ")
+                .append(registers).append(" registers, ")
+                .append(caches.length).append(" call sites, ")
+                .append(counters / 2).append(" loops\n");
+
+        if (constants.length > 0) {
+            sb.append("Constants:\n");
+            for (int i = 0; i < constants.length; i++) {
+                sb.append(String.format("  #%-4d %s%n", i, describe(constants[i])));
+            }
+        }
+
+        sb.append("Code:\n");
+        int line = 0;
+        int pc = 0;
+        while (pc < code.length) {
+            while (line < lines.length && lines[line] == pc) {
+                sb.append("  ; line ").append(lines[line + 1]).append('\n');
+                line += 2;
+            }
+            int opcode = code[pc];
+            String format = Opcode.format(opcode);
+            sb.append(String.format("  %04d  %-13s", pc, Opcode.name(opcode)));
+            StringBuilder comment = new StringBuilder();
+            for (int i = 0; i < format.length(); i++) {
+                int operand = code[pc + 1 + i];
+                sb.append(i == 0 ? "" : ", ");
+                switch (format.charAt(i)) {
+                    case 'R':
+                        sb.append(operand < 0 ? "-" : "r" + operand);
+                        break;
+                    case 'S':
+                        sb.append('$').append(operand);
+                        comment.append(comment.length() == 0 ? "" : " ").append(frame.nameOf(operand));
+                        break;
+                    case 'K':
+                        sb.append('#').append(operand);
+                        comment.append(comment.length() == 0 ? "" : " ").append(describe(constants[operand]));
+                        break;
+                    case 'N':
+                        sb.append('@').append(operand);
+                        break;
+                    case 'Q':
+                        sb.append("ic").append(operand);
+                        break;
+                    case 'C':
+                        sb.append('c').append(operand / 2);
+                        break;
+                    case 'L':
+                        sb.append(String.format("%04d", operand));
+                        break;
+                    case 'O':
+                        sb.append(Opcode.name(operand));
+                        break;
+                    default:
+                        sb.append(operand);
+                        break;
+                }
+            }
+            if (comment.length() > 0) {
+                sb.append("    ; ").append(comment);
+            }
+            sb.append('\n');
+            pc += Opcode.length(opcode);
+        }
+        return sb.toString();
+    }
+
+    private static String describe(Object value) {
+        if (value instanceof String) {
+            return "\"" + value + "\"";
+        }
+        if (value instanceof Interpreter.StaticMethodReference) {
+            return value.toString();
+        }
+        return value + (value != null ? " (" + Operations.typeName(value) + ")" : "");
+    }
+}
@@ -0,0 +1,154 @@
+package com.vast.interpreter;
+
+import com.vast.internal.Debugger;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
+
+/**
+ * 宿主方法调用点的内联缓存
+ * 以类名、方法名和参数的运行时类型为键，缓存已经选好重载并适配为 (Object[])Object 的方法句柄，
+ * 命中时跳过 findClass / findBestMethod 和反射调用。一个调用点最多缓存 MAX_ENTRIES 种组合（多态），
+ * 超过后退化为每次走 callInternalMethod（超多态）。导入语句或库重新加载后缓存整体失效
+ */
+final class CallSiteCache {
+    static final int MAX_ENTRIES = 4;
+    // 设置 vast.ic=false 时所有调用都走反射路径
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("vast.ic"));
+
+    private final Interpreter interpreter;
+    private final Debugger debugger;
+    private final Entry[] entries = new Entry[MAX_ENTRIES];
+    private int size;
+    private int epoch = -1;
+    private boolean megamorphic;
+    // 最近一次查询的 @Lazy 参数位置
+    private String lazyClassName;
+    private String lazyMethodName;
+    private int lazyEpoch = -1;
+    private boolean[] lazy;
+
+    CallSiteCache(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.debugger = interpreter.debugger();
+    }
+
+    /**
+     * 通过缓存调用宿主方法，语义与 Interpreter.callInternalMethod 相同
+     */
+    Object invoke(String className, String methodName, Object[] args) {
+        if (!ENABLED) {
+            return interpreter.callInternalMethod(className, methodName, args);
+        }
+
+        int current = interpreter.linkEpoch();
+        if (current != epoch) {
+            Arrays.fill(entries, null);
+            size = 0;
+            megamorphic = false;
+            epoch = current;
+        }
+        if (megamorphic) {
+            return interpreter.callInternalMethod(className, methodName, args);
+        }
+
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries[i];
+            if (entry.matches(className, methodName, args)) {
+                interpreter.recordInlineCacheHit();
+                return call(entry.target, className, methodName, args);
+            }
+        }
+
+        interpreter.recordInlineCacheMiss();
+        if (size == MAX_ENTRIES) {
+            megamorphic = true;
+            if (debugger.isDebugEnabled(INTERPRETER)) {
+                debugger.debug(INTERPRETER, "Call site " + className + "." + methodName + " became megamorphic");
+            }
+            return interpreter.callInternalMethod(className, methodName, args);
+        }
+        MethodHandle target = interpreter.linkHostMethod(className, methodName, args);
+        entries[size++] = new Entry(className, methodName, argumentTypes(args), target);
+        return call(target, className, methodName, args);
+    }
+
+    /**
+     * 调用目标在各参数位置是否延迟求值（见 Interpreter.lazyParameters），按类名、方法名和链接版本缓存
+     */
+    boolean[] lazyParameters(String className, String methodName, int argCount) {
+        if (argCount == 0) {
+            return null;
+        }
+        int current = interpreter.linkEpoch();
+        if (current != lazyEpoch || !className.equals(lazyClassName) || !methodName.equals(lazyMethodName)) {
+            lazy = interpreter.lazyParameters(className, methodName, argCount);
+            lazyClassName = className;
+            lazyMethodName = methodName;
+            lazyEpoch = current;
+        }
+        return lazy;
+    }
+
+    private Object call(MethodHandle target, String className, String methodName, Object[] args) {
+        if (target == null) {
+            // 这组参数类型无法预先适配（如需要按值解析字符串），仍走反射路径
+            return interpreter.callInternalMethod(className, methodName, args);
+        }
+        if (debugger.isTraceEnabled(INTERPRETER)) {
+            debugger.trace(INTERPRETER, "Calling internal method: " + className + "." + methodName +
+                    " with " + args.length + " arguments");
+        }
+        Object result;
+        try {
+            result = (Object) target.invokeExact(args);
+        } catch (Throwable failure) {
+            throw LoopRuntime.hostFailure(failure, className, methodName);
+        }
+        if (debugger.isTraceEnabled(INTERPRETER)) {
+            debugger.trace(INTERPRETER, "Method call result: " + result);
+        }
+        return result;
+    }
+
+    private static Class<?>[] argumentTypes(Object[] args) {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i] != null ? args[i].getClass() : null;
+        }
+        return types;
+    }
+
+    /**
+     * 缓存项：调用目标和参数类型（null 参数记为 null）
+     */
+    private static final class Entry {
+        final String className;
+        final String methodName;
+        final Class<?>[] types;
+        final MethodHandle target;// 为 null 时表示这组类型走反射路径
+
+        Entry(String className, String methodName, Class<?>[] types, MethodHandle target) {
+            this.className = className;
+            this.methodName = methodName;
+            this.types = types;
+            this.target = target;
+        }
+
+        boolean matches(String className, String methodName, Object[] args) {
+            if (args.length != types.length || !this.methodName.equals(methodName) ||
+                    !this.className.equals(className)) {
+                return false;
+            }
+            for (int i = 0; i < args.length; i++) {
+                Object arg = args[i];
+                if ((arg != null ? arg.getClass() : null) != types[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
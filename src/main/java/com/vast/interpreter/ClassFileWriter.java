@@ -0,0 +1,594 @@
+package com.vast.interpreter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 最小的 class 文件生成器
+ * 只覆盖循环编译层用到的常量类型和指令；生成 49 版本的 class 文件，
+ * 由类型推导校验器校验，因此不需要生成 StackMapTable
+ */
+final class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    // 指令
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_M1 = 0x02;
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3a;
+    static final int AASTORE = 0x53;
+    static final int POP = 0x57;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int DADD = 0x63;
+    static final int ISUB = 0x64;
+    static final int DSUB = 0x67;
+    static final int IMUL = 0x68;
+    static final int DMUL = 0x6b;
+    static final int INEG = 0x74;
+    static final int DNEG = 0x77;
+    static final int IINC = 0x84;
+    static final int I2L = 0x85;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int LRETURN = 0xad;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int GETFIELD = 0xb4;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int INVOKEINTERFACE = 0xb9;
+    static final int ANEWARRAY = 0xbd;
+    static final int ATHROW = 0xbf;
+    static final int CHECKCAST = 0xc0;
+    static final int INSTANCEOF = 0xc1;
+
+    private static final int CLASS_VERSION = 49;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    private final String className;
+    private final String superName;
+    private final String[] interfaces;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    ClassFileWriter(String className, String superName, String... interfaces) {
+        this.className = className;
+        this.superName = superName;
+        this.interfaces = interfaces;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    // ====== 常量池 ======
+
+    int utf8(String value) {
+        return constant("U" + value, 1, out -> out.writeUTF(value));
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return constant("C" + internalName, 7, out -> out.writeShort(name));
+    }
+
+    int string(String value) {
+        int utf = utf8(value);
+        return constant("S" + value, 8, out -> out.writeShort(utf));
+    }
+
+    int integer(int value) {
+        return constant("I" + value, 3, out -> out.writeInt(value));
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        String key = "D" + bits;
+        boolean added = !poolIndex.containsKey(key);
+        int index = constant(key, 6, out -> out.writeLong(bits));
+        if (added) {
+            // double 常量占用两个常量池项
+            poolCount++;
+        }
+        return index;
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        int nameAndType = constant("N" + name + ":" + descriptor, 12, out -> {
+            out.writeShort(nameIndex);
+            out.writeShort(descIndex);
+        });
+        return constant(tag + owner + "." + name + ":" + descriptor, tag, out -> {
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private interface PoolEntry {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int constant(String key, int tag, PoolEntry entry) {
+        Integer existing = poolIndex.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            poolOut.writeByte(tag);
+            entry.write(poolOut);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int index = poolCount++;
+        if (index > 0xffff) {
+            throw new IllegalStateException("Constant pool overflow");
+        }
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    // ====== 字段与方法 ======
+
+    void field(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    Code method(int access, String name, String descriptor, int parameterLocals) {
+        return new Code(access, name, descriptor, parameterLocals);
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            int thisIndex = classRef(className);
+            int superIndex = classRef(superName);
+            int[] interfaceIndexes = new int[interfaces.length];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaceIndexes[i] = classRef(interfaces[i]);
+            }
+            int codeName = utf8("Code");
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndexes.length);
+            for (int index : interfaceIndexes) {
+                out.writeShort(index);
+            }
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                // 在方法头之后写入属性数量和 Code 属性名
+                out.write(method, 0, 6);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.write(method, 6, method.length - 6);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 计算描述符中参数占用的槽位数
+     */
+    static int argumentSlots(String descriptor) {
+        int slots = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            if (c == 'J' || c == 'D') {
+                slots += 2;
+                i++;
+            } else {
+                slots++;
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+            }
+        }
+        return slots;
+    }
+
+    static int typeSlots(String descriptor) {
+        char c = descriptor.charAt(0);
+        return c == 'V' ? 0 : (c == 'J' || c == 'D') ? 2 : 1;
+    }
+
+    static int returnSlots(String methodDescriptor) {
+        return typeSlots(methodDescriptor.substring(methodDescriptor.indexOf(')') + 1));
+    }
+
+    /**
+     * 跳转标签，记录位置和到达时的操作数栈深度
+     */
+    static final class Label {
+        private int position = -1;
+        private int depth = -1;
+        private final List<int[]> fixups = new ArrayList<>();
+    }
+
+    /**
+     * 方法体生成器，跟踪操作数栈深度以计算 max_stack
+     */
+    final class Code {
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private byte[] code = new byte[256];
+        private int length = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int maxLocals;
+        private final List<int[]> exceptionTable = new ArrayList<>();
+        private final List<Label> handlerFor = new ArrayList<>();
+        private final List<Label> labels = new ArrayList<>();
+
+        private Code(int access, String name, String descriptor, int parameterLocals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = parameterLocals;
+        }
+
+        int pc() {
+            return length;
+        }
+
+        void useLocal(int index) {
+            maxLocals = Math.max(maxLocals, index + 1);
+        }
+
+        private void u1(int value) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[length++] = (byte) value;
+        }
+
+        private void u2(int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+
+        private void adjust(int delta) {
+            stack += delta;
+            if (stack < 0) {
+                throw new IllegalStateException("Operand stack underflow in " + name);
+            }
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        void op(int opcode, int delta) {
+            u1(opcode);
+            adjust(delta);
+        }
+
+        void aload(int index) {
+            useLocal(index);
+            u1(ALOAD);
+            u1(index);
+            adjust(1);
+        }
+
+        void astore(int index) {
+            useLocal(index);
+            u1(ASTORE);
+            u1(index);
+            adjust(-1);
+        }
+
+        void iload(int index) {
+            useLocal(index);
+            u1(ILOAD);
+            u1(index);
+            adjust(1);
+        }
+
+        void istore(int index) {
+            useLocal(index);
+            u1(ISTORE);
+            u1(index);
+            adjust(-1);
+        }
+
+        void dload(int index) {
+            useLocal(index + 1);
+            u1(DLOAD);
+            u1(index);
+            adjust(2);
+        }
+
+        void dstore(int index) {
+            useLocal(index + 1);
+            u1(DSTORE);
+            u1(index);
+            adjust(-2);
+        }
+
+        void iinc(int index, int delta) {
+            u1(IINC);
+            u1(index);
+            u1(delta);
+        }
+
+        void iconst(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(BIPUSH);
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(SIPUSH);
+                u2(value);
+            } else {
+                u1(LDC_W);
+                u2(integer(value));
+            }
+            adjust(1);
+        }
+
+        void dconst(double value) {
+            u1(LDC2_W);
+            u2(doubleConstant(value));
+            adjust(2);
+        }
+
+        void ldc(String value) {
+            u1(LDC_W);
+            u2(string(value));
+            adjust(1);
+        }
+
+        void getfield(String owner, String fieldName, String fieldDescriptor) {
+            u1(GETFIELD);
+            u2(fieldRef(owner, fieldName, fieldDescriptor));
+            adjust(typeSlots(fieldDescriptor) - 1);
+        }
+
+        void putfield(String owner, String fieldName, String fieldDescriptor) {
+            u1(PUTFIELD);
+            u2(fieldRef(owner, fieldName, fieldDescriptor));
+            adjust(-typeSlots(fieldDescriptor) - 1);
+        }
+
+        void getstatic(String owner, String fieldName, String fieldDescriptor) {
+            u1(GETSTATIC);
+            u2(fieldRef(owner, fieldName, fieldDescriptor));
+            adjust(typeSlots(fieldDescriptor));
+        }
+
+        void invokestatic(String owner, String methodName, String methodDescriptor) {
+            u1(INVOKESTATIC);
+            u2(methodRef(owner, methodName, methodDescriptor));
+            adjust(returnSlots(methodDescriptor) - argumentSlots(methodDescriptor));
+        }
+
+        void invokevirtual(String owner, String methodName, String methodDescriptor) {
+            invoke(INVOKEVIRTUAL, owner, methodName, methodDescriptor);
+        }
+
+        void invokespecial(String owner, String methodName, String methodDescriptor) {
+            invoke(INVOKESPECIAL, owner, methodName, methodDescriptor);
+        }
+
+        private void invoke(int opcode, String owner, String methodName, String methodDescriptor) {
+            u1(opcode);
+            u2(methodRef(owner, methodName, methodDescriptor));
+            adjust(returnSlots(methodDescriptor) - argumentSlots(methodDescriptor) - 1);
+        }
+
+        void invokeinterface(String owner, String methodName, String methodDescriptor) {
+            int arguments = argumentSlots(methodDescriptor);
+            u1(INVOKEINTERFACE);
+            u2(interfaceMethodRef(owner, methodName, methodDescriptor));
+            u1(arguments + 1);
+            u1(0);
+            adjust(returnSlots(methodDescriptor) - arguments - 1);
+        }
+
+        void type(int opcode, String internalName) {
+            u1(opcode);
+            u2(classRef(internalName));
+            // anewarray、checkcast、instanceof 都不改变栈深度
+        }
+
+        // ====== 跳转 ======
+
+        Label newLabel() {
+            Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        void jump(int opcode, Label target) {
+            int instruction = length;
+            u1(opcode);
+            if (opcode >= IF_ICMPEQ && opcode <= IF_ICMPLE) {
+                adjust(-2);
+            } else if (opcode >= IFEQ && opcode <= IFLE) {
+                adjust(-1);
+            }
+            recordDepth(target);
+            target.fixups.add(new int[]{instruction, length});
+            u2(0);
+            if (opcode == GOTO) {
+                stack = -1;
+            }
+        }
+
+        /**
+         * 标记不可达（return/athrow 之后），下一个标签恢复其记录的栈深度
+         */
+        void terminate(int opcode) {
+            op(opcode, 0);
+            stack = -1;
+        }
+
+        void place(Label label) {
+            label.position = length;
+            if (stack < 0) {
+                if (label.depth < 0) {
+                    throw new IllegalStateException("Unknown stack depth at label in " + name);
+                }
+                stack = label.depth;
+            } else {
+                recordDepth(label);
+            }
+        }
+
+        /**
+         * 放置异常处理器入口（栈上只有异常对象）
+         */
+        void placeHandler(Label label) {
+            label.depth = 1;
+            stack = -1;
+            place(label);
+            maxStack = Math.max(maxStack, 1);
+        }
+
+        private void recordDepth(Label label) {
+            if (label.depth < 0) {
+                label.depth = stack;
+            } else if (label.depth != stack) {
+                throw new IllegalStateException("Inconsistent stack depth at label in " + name);
+            }
+        }
+
+        void tryRange(int startPc, int endPc, Label handler) {
+            exceptionTable.add(new int[]{startPc, endPc, 0});
+            handlerFor.add(handler);
+        }
+
+        /**
+         * 只捕获指定类型（及其子类）异常的范围
+         */
+        void tryRange(int startPc, int endPc, Label handler, String exceptionClass) {
+            exceptionTable.add(new int[]{startPc, endPc, classRef(exceptionClass)});
+            handlerFor.add(handler);
+        }
+
+        /**
+         * 回填跳转偏移并写入方法
+         */
+        void end() {
+            for (Label label : labels) {
+                if (!label.fixups.isEmpty() && label.position < 0) {
+                    throw new IllegalStateException("Unplaced label in " + name);
+                }
+                for (int[] fixup : label.fixups) {
+                    int offset = label.position - fixup[0];
+                    if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                        throw new IllegalStateException("Branch offset too large in " + name);
+                    }
+                    code[fixup[1]] = (byte) (offset >> 8);
+                    code[fixup[1] + 1] = (byte) offset;
+                }
+            }
+            if (length > 0xffff) {
+                throw new IllegalStateException("Method too large: " + name);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeShort(access);
+                out.writeShort(utf8(name));
+                out.writeShort(utf8(descriptor));
+                // 属性数量和 Code 属性名在 toByteArray 中写入
+                int attributeLength = 2 + 2 + 4 + length + 2 + exceptionTable.size() * 8 + 2;
+                out.writeInt(attributeLength);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(length);
+                out.write(code, 0, length);
+                out.writeShort(exceptionTable.size());
+                for (int i = 0; i < exceptionTable.size(); i++) {
+                    int[] entry = exceptionTable.get(i);
+                    out.writeShort(entry[0]);
+                    out.writeShort(entry[1]);
+                    out.writeShort(handlerFor.get(i).position);
+                    out.writeShort(entry[2]);
+                }
+                out.writeShort(0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package com.vast.interpreter;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Debugger;
+import com.vast.internal.Fraction;
+import com.vast.internal.VastExceptions;
+
+import java.util.List;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
+
+/**
+ * 闭包编译器
+ * 在脚本加载时把 AST 转换为预解析的可执行节点树：运算符、字面量和调用目标只解析一次，
+ * 之后循环体的每次执行都直接调用节点，不再经过访问者分派和运算符字符串匹配。
+ * 节点的语义与 Interpreter 中的访问者实现保持一致，访问者作为 ExecutionMode.TREE_WALKER 保留。
+ */
+final class ClosureCompiler implements ASTVisitor<Object> {
+    private final Interpreter interpreter;
+    private final Debugger debugger;
+    private final Frame frame;
+
+    ClosureCompiler(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.debugger = interpreter.debugger();
+        this.frame = interpreter.getFrame();
+    }
+
+    /**
+     * 编译整个程序
+     */
+    CompiledProgram compile(Program program) {
+        List<Statement> statements = program.getStatements();
+        ExecNode[] nodes = compileStatements(statements);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Closure compiled " + nodes.length + " top-level statements");
+        }
+        return new CompiledProgram(nodes);
+    }
+
+    private ExecNode[] compileStatements(List<Statement> statements) {
+        ExecNode[] nodes = new ExecNode[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = statement(statements.get(i));
+        }
+        return nodes;
+    }
+
+    private ExecNode statement(Statement stmt) {
+        return (ExecNode) stmt.accept(this);
+    }
+
+    EvalNode expression(Expression expr) {
+        return (EvalNode) expr.accept(this);
+    }
+
+    private EvalNode[] expressions(List<Expression> exprs) {
+        EvalNode[] nodes = new EvalNode[exprs.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = expression(exprs.get(i));
+        }
+        return nodes;
+    }
+
+    /**
+     * 在编译时解析标识符：按链接器的绑定，内置类、导入类或唯一静态方法名解析为常量名称；
+     * 其他情况返回 null，按变量处理
+     */
+    String resolveConstantName(VariableExpression expr) {
+        String name = expr.getName();
+        return interpreter.binding(name).isConstantName() ? name : null;
+    }
+
+    // ==================== 语句 ====================
+
+    @Override
+    public Object visitVariableDeclaration(VariableDeclaration stmt) {
+        EvalNode initializer = stmt.getInitialValue() != null ? expression(stmt.getInitialValue()) : null;
+        String varName = stmt.getVariableName();
+        VastType typeHint = stmt.getTypeHint();
+        int slot = frame.declare(varName);
+        int line = stmt.getLineNumber();
+        int column = stmt.getColumnNumber();
+        // 类型推断已证明初始值总是兼容且无需转换时，只登记类型约束
+        boolean checked = !interpreter.typeProven(stmt);
+
+        return (ExecNode) () -> {
+            Object value = initializer != null ? initializer.eval() : null;
+
+            if (typeHint != null) {
+                frame.setType(slot, typeHint);
+
+                // 严格验证初始值的类型，支持隐式转换
+                if (value != null && checked) {
+                    value = Operations.convertTyped(typeHint, value, varName, line, column);
+                }
+            }
+
+            frame.store(slot, value);
+            interpreter.setLastResult(value);
+            if (debugger.isDebugEnabled(INTERPRETER)) {
+                debugger.debug(INTERPRETER, "Var declared: " + varName + " = " + value +
+                        (typeHint != null ? " (type: " + typeHint + ")" : ""));
+            }
+        };
+    }
+
+    @Override
+    public Object visitAssignmentStatement(AssignmentStatement stmt) {
+        EvalNode valueNode = expression(stmt.getValue());
+        String varName = stmt.getVariableName();
+        VastType typeHint = stmt.getTypeHint();
+        int slot = frame.declare(varName);
+
+        // 强类型赋值严格检查类型并自动转换；自由类型赋值不检查类型，但会覆盖原有的强类型
+        AssignNode.Mode mode = typeHint != null ? AssignNode.Mode.TYPED : AssignNode.Mode.FREE;
+        return new ResultNode(interpreter,
+                new AssignNode(interpreter, frame, slot, varName, valueNode, mode, typeHint, stmt));
+    }
+
+    @Override
+    public Object visitExpressionStatement(ExpressionStatement stmt) {
+        ResultNode result = new ResultNode(interpreter, expression(stmt.getExpression()));
+        // s = s + ... 形式的语句：变量为字符串时原地追加
+        if (stmt.getExpression() instanceof AssignmentExpression) {
+            AssignmentExpression assignment = (AssignmentExpression) stmt.getExpression();
+            List<Expression> appended = StringAppendNode.appendedOperands(assignment);
+            if (appended != null && interpreter.mayHoldString(assignment) &&
+                    !interpreter.binding(assignment.getVariableName()).isConstantName()) {
+                EvalNode[] operands = new EvalNode[appended.size()];
+                for (int i = 0; i < operands.length; i++) {
+                    operands[i] = expression(appended.get(i));
+                }
+                int slot = frame.declare(assignment.getVariableName());
+                return new StringAppendNode(interpreter, frame, slot, assignment, operands, result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object visitImportStatement(ImportStatement stmt) {
+        // 导入只执行一次，没有必要预编译，直接复用访问者实现
+        return (ExecNode) () -> interpreter.visitImportStatement(stmt);
+    }
+
+    @Override
+    public Object visitLoopStatement(LoopStatement stmt) {
+        EvalNode conditionNode = expression(stmt.getCondition());
+        ExecNode[] body = compileStatements(stmt.getBody());
+        return new LoopNode(stmt, conditionNode, body, interpreter.loopCompiler());
+    }
+
+    @Override
+    public Object visitWhileStatement(WhileStatement stmt) {
+        EvalNode conditionNode = expression(stmt.getCondition());
+        ExecNode[] body = compileStatements(stmt.getBody());
+        return new WhileNode(stmt, conditionNode, body, interpreter.loopCompiler());
+    }
+
+    @Override
+    public Object visitForStatement(ForStatement stmt) {
+        EvalNode start = expression(stmt.getStart());
+        EvalNode end = expression(stmt.getEnd());
+        frame.declare(stmt.getVariableName());
+        ExecNode[] body = compileStatements(stmt.getBody());
+        return new ForNode(interpreter, stmt, start, end, body, interpreter.loopCompiler());
+    }
+
+    @Override
+    public Object visitUseStatement(UseStatement stmt) {
+        return new ResultNode(interpreter, expression(stmt.getMethodCall()));
+    }
+
+    @Override
+    public Object visitSwapStatement(SwapStatement stmt) {
+        String varA = stmt.getVarA().getName();
+        String varB = stmt.getVarB().getName();
+        int slotA = frame.declare(varA);
+        int slotB = frame.declare(varB);
+
+        return (ExecNode) () -> {
+            if (!frame.isDefined(slotA)) {
+                throw VastExceptions.NonExistentObject.variableNotFound(varA);
+            }
+            if (!frame.isDefined(slotB)) {
+                throw VastExceptions.NonExistentObject.variableNotFound(varB);
+            }
+            Object valueA = frame.load(slotA);
+            frame.store(slotA, frame.load(slotB));
+            frame.store(slotB, valueA);
+        };
+    }
+
+    @Override
+    public Object visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        return (ExecNode) () -> interpreter.visitInlineTypeCastStatement(stmt);
+    }
+
+    // ==================== 表达式 ====================
+
+    @Override
+    public Object visitLiteralExpression(LiteralExpression expr) {
+        Object value = expr.getValue();
+        return (EvalNode) () -> value;
+    }
+
+    @Override
+    public Object visitVariableExpression(VariableExpression expr) {
+        String constantName = resolveConstantName(expr);
+        if (constantName != null) {
+            // 类名或静态方法名，求值结果为名称本身
+            return (EvalNode) () -> constantName;
+        }
+
+        return new SlotNode(interpreter, frame, frame.declare(expr.getName()), expr);
+    }
+
+    @Override
+    public Object visitBinaryExpression(BinaryExpression expr) {
+        // 含有分数字面量的四则运算链在累加器上原地计算
+        if (chainLength(expr) >= 2 && chainHasFraction(expr)) {
+            return fractionChain(expr, false);
+        }
+
+        EvalNode left = expression(expr.getLeft());
+        EvalNode right = expression(expr.getRight());
+        String operator = expr.getOperator();
+
+        // 算术和比较运算使用根据操作数类型自特化的节点
+        BinaryNode.Operator specializable = BinaryNode.Operator.of(operator);
+        if (specializable != null) {
+            return new BinaryNode(specializable, left, right);
+        }
+
+        switch (operator) {
+            case "**": return (EvalNode) () -> Operations.power(left.eval(), right.eval());
+            case "//": return (EvalNode) () -> Operations.integerDivide(left.eval(), right.eval());
+            case "++": return (EvalNode) () -> Operations.numberConcatenation(left.eval(), right.eval());
+            // 逻辑与、或短路求值：左侧已经决定结果时不求值右侧
+            case "AND": return (EvalNode) () -> Operations.toBoolean(left.eval()) && Operations.toBoolean(right.eval());
+            case "OR": return (EvalNode) () -> Operations.toBoolean(left.eval()) || Operations.toBoolean(right.eval());
+            case "XOR": return (EvalNode) () -> Operations.toBoolean(left.eval()) ^ Operations.toBoolean(right.eval());
+            default:
+                return (EvalNode) () -> Operations.binary(operator, left.eval(), right.eval(),
+                        expr.getLineNumber(), expr.getColumnNumber());
+        }
+    }
+
+    @Override
+    public Object visitUnaryExpression(UnaryExpression expr) {
+        EvalNode operand = expression(expr.getRight());
+        String operator = expr.getOperator();
+
+        switch (operator) {
+            case "++": return incrementNode(expr, operand, 1, false);
+            case "--": return incrementNode(expr, operand, -1, false);
+            case "++_POSTFIX": return incrementNode(expr, operand, 1, true);
+            case "--_POSTFIX": return incrementNode(expr, operand, -1, true);
+            case "-": return (EvalNode) () -> Operations.negate(operand.eval());
+            case "NOT": return (EvalNode) () -> !Operations.toBoolean(operand.eval());
+            default:
+                return (EvalNode) () -> {
+                    operand.eval();
+                    throw new VastExceptions.NotGrammarException(
+                            "Unknown unary operator: " + operator,
+                            expr.getLineNumber(), expr.getColumnNumber());
+                };
+        }
+    }
+
+    /**
+     * 自增/自减节点，前缀返回新值，后缀返回原始值
+     */
+    private EvalNode incrementNode(UnaryExpression expr, EvalNode operand, int increment, boolean postfix) {
+        Expression target = expr.getRight();
+        if (!(target instanceof VariableExpression)) {
+            return () -> {
+                operand.eval();
+                throw new VastExceptions.NotGrammarException(
+                        "Increment/decrement operand must be a variable",
+                        target.getLineNumber(), target.getColumnNumber());
+            };
+        }
+
+        String varName = ((VariableExpression) target).getName();
+        return new IncrementNode(frame, frame.declare(varName), varName, operand, increment, postfix);
+    }
+
+    @Override
+    public Object visitAssignmentExpression(AssignmentExpression expr) {
+        EvalNode valueNode = expression(expr.getValue());
+        String varName = expr.getVariableName();
+        int slot = frame.declare(varName);
+        return new AssignNode(interpreter, frame, slot, varName, valueNode, AssignNode.Mode.EXPRESSION, null, expr);
+    }
+
+    @Override
+    public Object visitMemberAccessExpression(MemberAccessExpression expr) {
+        String memberName = expr.getMemberName();
+
+        if (expr.getObject() instanceof VariableExpression) {
+            String className = resolveConstantName((VariableExpression) expr.getObject());
+            if (className != null) {
+                // 类名在编译时确定，直接复用同一个方法引用
+                Interpreter.StaticMethodReference reference = interpreter.methodReference(className, memberName);
+                return (EvalNode) () -> reference;
+            }
+        }
+
+        EvalNode object = expression(expr.getObject());
+        return (EvalNode) () -> {
+            Object left = object.eval();
+            if (left instanceof String) {
+                return interpreter.methodReference((String) left, memberName);
+            }
+            throw new VastExceptions.NotGrammarException(
+                    "Unsupported member access: " + expr,
+                    expr.getLineNumber(), expr.getColumnNumber());
+        };
+    }
+
+    @Override
+    public Object visitFunctionCallExpression(FunctionCallExpression expr) {
+        EvalNode[] arguments = expressions(expr.getArguments());
+        boolean[] deferrable = deferrable(expr.getArguments());
+        Expression callee = expr.getCallee();
+
+        // 调用目标在编译时可确定的情况
+        CallSiteCache cache = new CallSiteCache(interpreter);
+        String[] resolved = resolveCallTarget(expr);
+        if (resolved != null) {
+            String className = resolved[0];
+            String methodName = resolved[1];
+            return (EvalNode) () -> callHost(cache, className, methodName, arguments, deferrable);
+        }
+
+        // 调用目标需要在运行时确定
+        EvalNode calleeNode = expression(callee);
+        return (EvalNode) () -> {
+            Object target = calleeNode.eval();
+            String[] host = arguments.length == 0 ? null : interpreter.hostTarget(target);
+            if (host != null) {
+                boolean[] lazy = cache.lazyParameters(host[0], host[1], arguments.length);
+                if (lazy != null) {
+                    return cache.invoke(host[0], host[1], lazyArguments(arguments, deferrable, lazy));
+                }
+            }
+            Object[] args = interpreter.acquireArguments(arguments.length);
+            try {
+                evaluateArguments(arguments, args);
+
+                if (target instanceof Interpreter.StaticMethodReference) {
+                    Interpreter.StaticMethodReference methodRef = (Interpreter.StaticMethodReference) target;
+                    return cache.invoke(methodRef.getClassName(), methodRef.getMethodName(), args);
+                }
+                if (target instanceof String) {
+                    String methodName = (String) target;
+                    String className = interpreter.resolveClassNameForMethod(methodName,
+                            expr.getLineNumber(), expr.getColumnNumber());
+                    if (className != null) {
+                        return cache.invoke(className, methodName, args);
+                    }
+                }
+                throw new VastExceptions.NotGrammarException(
+                        "Unsupported function call: " + expr,
+                        expr.getLineNumber(), expr.getColumnNumber());
+            } finally {
+                interpreter.releaseArguments(args);
+            }
+        };
+    }
+
+    /**
+     * 在编译时解析函数调用的目标，返回 {类名, 方法名}；需要在运行时确定时返回 null
+     */
+    String[] resolveCallTarget(FunctionCallExpression expr) {
+        Expression callee = expr.getCallee();
+        if (callee instanceof MemberAccessExpression &&
+                ((MemberAccessExpression) callee).getObject() instanceof VariableExpression) {
+            MemberAccessExpression member = (MemberAccessExpression) callee;
+            String className = resolveConstantName((VariableExpression) member.getObject());
+            return className != null ? new String[]{className, member.getMemberName()} : null;
+        }
+        if (callee instanceof VariableExpression) {
+            Linker.Binding binding = interpreter.binding(((VariableExpression) callee).getName());
+            return binding.kind == Linker.Kind.STATIC_METHOD ? new String[]{binding.className, binding.name} : null;
+        }
+        return null;
+    }
+
+    @Override
+    public Object visitMethodCallExpression(MethodCallExpression expr) {
+        EvalNode[] arguments = expressions(expr.getArguments());
+        boolean[] deferrable = deferrable(expr.getArguments());
+        String className = expr.getClassName().getName();
+        String methodName = expr.getMethodName();
+        CallSiteCache cache = new CallSiteCache(interpreter);
+        return (EvalNode) () -> callHost(cache, className, methodName, arguments, deferrable);
+    }
+
+    /**
+     * 计算参数并通过调用点的内联缓存调用宿主方法；免分配模式下参数数组来自解释器的缓冲区
+     */
+    private Object callHost(CallSiteCache cache, String className, String methodName, EvalNode[] arguments,
+                            boolean[] deferrable) {
+        boolean[] lazy = cache.lazyParameters(className, methodName, arguments.length);
+        if (lazy != null) {
+            return cache.invoke(className, methodName, lazyArguments(arguments, deferrable, lazy));
+        }
+        Object[] args = interpreter.acquireArguments(arguments.length);
+        try {
+            evaluateArguments(arguments, args);
+            return cache.invoke(className, methodName, args);
+        } finally {
+            interpreter.releaseArguments(args);
+        }
+    }
+
+    private static void evaluateArguments(EvalNode[] arguments, Object[] args) {
+        for (int i = 0; i < arguments.length; i++) {
+            args[i] = arguments[i].eval();
+        }
+    }
+
+    /**
+     * 调用有 @Lazy 参数的宿主方法时的参数：延迟的参数包装为 LazyArgument，其余按顺序求值
+     */
+    private static Object[] lazyArguments(EvalNode[] arguments, boolean[] deferrable, boolean[] lazy) {
+        Object[] args = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            if (!lazy[i]) {
+                args[i] = arguments[i].eval();
+            } else {
+                args[i] = deferrable[i] ? new LazyArgument(arguments[i]) : LazyArgument.evaluated(arguments[i].eval());
+            }
+        }
+        return args;
+    }
+
+    /**
+     * 各参数求值时不会改变变量，可以延迟到宿主方法需要时再求值
+     */
+    private static boolean[] deferrable(List<Expression> arguments) {
+        boolean[] deferrable = new boolean[arguments.size()];
+        for (int i = 0; i < deferrable.length; i++) {
+            deferrable[i] = Purity.isPure(arguments.get(i));
+        }
+        return deferrable;
+    }
+
+    @Override
+    public Object visitTypeCastExpression(TypeCastExpression expr) {
+        EvalNode valueNode = expression(expr.getExpression());
+        VastType targetType = expr.getTargetType();
+        boolean explicit = expr.isExplicit();
+        int line = expr.getLineNumber();
+        int column = expr.getColumnNumber();
+        return (EvalNode) () -> interpreter.performTypeCast(valueNode.eval(), targetType, line, column, explicit);
+    }
+
+    @Override
+    public Object visitFractionExpression(FractionExpression expr) {
+        // $$ 永久分数中的运算链即使没有分数字面量也按分数链编译（操作数在运行时可能是分数变量）
+        Expression inner = expr.getExpression();
+        boolean permanent = expr.isPermanent();
+        EvalNode valueNode = permanent && chainLength(inner) >= 2 ?
+                fractionChain((BinaryExpression) inner, true) : expression(inner);
+        int line = expr.getLineNumber();
+        int column = expr.getColumnNumber();
+        return (EvalNode) () -> Operations.createFraction(valueNode.eval(), permanent, line, column);
+    }
+
+    /**
+     * 左结合的 + - * / 运算链中运算符的个数
+     */
+    private static int chainLength(Expression expr) {
+        int length = 0;
+        while (expr instanceof BinaryExpression &&
+                FractionChainNode.isChainOperator(((BinaryExpression) expr).getOperator())) {
+            length++;
+            expr = ((BinaryExpression) expr).getLeft();
+        }
+        return length;
+    }
+
+    private static boolean chainHasFraction(Expression expr) {
+        while (expr instanceof BinaryExpression &&
+                FractionChainNode.isChainOperator(((BinaryExpression) expr).getOperator())) {
+            if (isFraction(((BinaryExpression) expr).getRight())) {
+                return true;
+            }
+            expr = ((BinaryExpression) expr).getLeft();
+        }
+        return isFraction(expr);
+    }
+
+    /**
+     * 分数表达式，或常量折叠后的分数字面量
+     */
+    private static boolean isFraction(Expression expr) {
+        return expr instanceof FractionExpression ||
+                (expr instanceof LiteralExpression && ((LiteralExpression) expr).getValue() instanceof Fraction);
+    }
+
+    private EvalNode fractionChain(BinaryExpression expr, boolean permanent) {
+        int length = chainLength(expr);
+        EvalNode[] operands = new EvalNode[length + 1];
+        BinaryExpression[] sites = new BinaryExpression[length];
+        Expression current = expr;
+        for (int i = length - 1; i >= 0; i--) {
+            BinaryExpression binary = (BinaryExpression) current;
+            sites[i] = binary;
+            operands[i + 1] = expression(binary.getRight());
+            current = binary.getLeft();
+        }
+        operands[0] = expression(current);
+        return new FractionChainNode(operands, sites, permanent);
+    }
+}
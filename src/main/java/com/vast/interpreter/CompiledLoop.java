@@ -0,0 +1,24 @@
+package com.vast.interpreter;
+
+/**
+ * 编译后的循环体（由 LoopCompiler 生成的隐藏类实现）
+ */
+interface CompiledLoop {
+    // 所有迭代正常完成
+    long COMPLETED = -1L;
+
+    /**
+     * 执行第 start 到 count-1 次迭代（for 循环的迭代序号即循环变量的值；while 循环忽略 count，条件为假时完成）。
+     * 正常完成返回 COMPLETED；假设失效时返回恢复点（迭代序号与下一条语句序号），
+     * 由调用方在闭包执行层中继续执行
+     */
+    long run(int start, int count);
+
+    static int resumeIteration(long resumePoint) {
+        return (int) (resumePoint >>> 32);
+    }
+
+    static int resumeStatement(long resumePoint) {
+        return (int) resumePoint;
+    }
+}
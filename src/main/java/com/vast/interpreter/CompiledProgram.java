@@ -0,0 +1,22 @@
+package com.vast.interpreter;
+
+/**
+ * 编译后的程序：按顺序排列的顶层语句节点
+ */
+final class CompiledProgram {
+    private final ExecNode[] statements;
+
+    CompiledProgram(ExecNode[] statements) {
+        this.statements = statements;
+    }
+
+    void execute() {
+        for (ExecNode statement : statements) {
+            statement.execute();
+        }
+    }
+
+    int size() {
+        return statements.length;
+    }
+}
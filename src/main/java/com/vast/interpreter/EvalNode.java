@@ -0,0 +1,38 @@
+package com.vast.interpreter;
+
+/**
+ * 可求值表达式节点
+ * 运算符、字面量和调用目标在编译时已经确定，求值时直接计算。
+ * evalInt / evalDouble 是不装箱的求值路径：结果不是对应类型时抛出 UnexpectedResultException；
+ * evalBoolean 求条件的真值，特化的比较节点不生成 Boolean
+ */
+@FunctionalInterface
+interface EvalNode {
+    Object eval();
+
+    default int evalInt() {
+        return expectInt(eval());
+    }
+
+    default double evalDouble() {
+        return expectDouble(eval());
+    }
+
+    default boolean evalBoolean() {
+        return Operations.toBoolean(eval());
+    }
+
+    static int expectInt(Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+
+    static double expectDouble(Object value) {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        throw new UnexpectedResultException(value);
+    }
+}
@@ -0,0 +1,10 @@
+package com.vast.interpreter;
+
+/**
+ * 可执行语句节点
+ * 由 ClosureCompiler 在脚本加载时生成，执行时不再经过访问者分派
+ */
+@FunctionalInterface
+interface ExecNode {
+    void execute();
+}
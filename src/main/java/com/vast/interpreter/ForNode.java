@@ -0,0 +1,97 @@
+package com.vast.interpreter;
+
+import com.vast.ast.statements.ForStatement;
+
+/**
+ * for 计数循环节点
+ * 范围两端在进入循环时求值一次，循环变量由 int 计数器以不装箱的形式写入槽位，
+ * 循环体对变量的修改不影响迭代。与 LoopNode 相同，超过阈值后交给 LoopCompiler 编译
+ */
+final class ForNode implements ExecNode {
+    // 去优化次数超过此值后不再尝试编译该循环
+    private static final int MAX_DEOPTIMIZATIONS = 3;
+
+    private final Interpreter interpreter;
+    private final Frame frame;
+    private final ForStatement statement;
+    private final EvalNode start;
+    private final EvalNode end;
+    private final ExecNode[] body;
+    private final LoopCompiler compiler;
+
+    private CompiledLoop compiled;
+    private long iterations;
+    private int deoptimizations;
+    private boolean giveUp;
+
+    ForNode(Interpreter interpreter, ForStatement statement, EvalNode start, EvalNode end,
+            ExecNode[] body, LoopCompiler compiler) {
+        this.interpreter = interpreter;
+        this.frame = interpreter.getFrame();
+        this.statement = statement;
+        this.start = start;
+        this.end = end;
+        this.body = body;
+        this.compiler = compiler;
+    }
+
+    @Override
+    public void execute() {
+        int i = interpreter.forBound(start.eval(), statement);
+        int count = interpreter.forBound(end.eval(), statement);
+        if (i >= count) {
+            return;
+        }
+        int slot = interpreter.forVariable(statement);
+        // 类型表变化后（循环体声明了强类型）重新检查循环变量的类型约束
+        int typeEpoch = frame.typeEpoch();
+
+        while (i < count) {
+            int from = 0;
+            if (compiled != null) {
+                long result = compiled.run(i, count);
+                if (result == CompiledLoop.COMPLETED) {
+                    return;
+                }
+                // 假设失效：在闭包节点中完成当前迭代
+                i = CompiledLoop.resumeIteration(result);
+                from = CompiledLoop.resumeStatement(result);
+                deoptimize();
+            }
+
+            if (from == 0) {
+                if (frame.typeEpoch() != typeEpoch) {
+                    interpreter.forVariable(statement);
+                    typeEpoch = frame.typeEpoch();
+                }
+                frame.storeInt(slot, i);
+            }
+            runBody(from);
+            i++;
+
+            // 编译后的代码不检查循环变量的类型约束，只在类型表与检查时相同时编译
+            if (compiled == null && ++iterations >= compiler.threshold() && !giveUp && compiler.isEnabled() &&
+                    frame.typeEpoch() == typeEpoch) {
+                compiled = compiler.compileFor(statement, slot, body);
+                if (compiled == null) {
+                    giveUp = true;
+                }
+            }
+        }
+    }
+
+    private void runBody(int from) {
+        for (int k = from; k < body.length; k++) {
+            body[k].execute();
+        }
+    }
+
+    private void deoptimize() {
+        compiled = null;
+        iterations = 0;
+        compiler.recordDeoptimization(statement);
+        if (++deoptimizations >= MAX_DEOPTIMIZATIONS) {
+            giveUp = true;
+        }
+    }
+}
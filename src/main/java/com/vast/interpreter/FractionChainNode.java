@@ -0,0 +1,115 @@
+package com.vast.interpreter;
+
+import com.vast.ast.expressions.BinaryExpression;
+import com.vast.internal.Fraction;
+import com.vast.internal.FractionAccumulator;
+import com.vast.internal.VastExceptions;
+
+import java.math.BigInteger;
+
+/**
+ * 分数运算链节点
+ * 左结合的 + - * / 链（如 $$($(1/2) + $(1/3) + $(1/6))）出现分数后，后续运算在节点自带的累加器上原地进行，
+ * 整条链只在结束时生成一个 Fraction。遇到字符串等非数值操作数时先生成分数，再按 Operations 的通用规则计算，
+ * 结果与逐个二元运算完全相同
+ */
+final class FractionChainNode implements EvalNode {
+    private final EvalNode[] operands;// operands[0] 为最左侧的操作数，operands[i + 1] 为第 i 个运算的右操作数
+    private final BinaryExpression[] sites;// 第 i 个运算的原表达式（运算符和错误位置）
+    private final char[] operators;// 第 i 个运算的运算符：+ - * /
+    private final boolean permanent;// 链位于 $$ 中时，生成的分数直接带有永久标记
+    private final FractionAccumulator accumulator = new FractionAccumulator();
+
+    FractionChainNode(EvalNode[] operands, BinaryExpression[] sites, boolean permanent) {
+        this.operands = operands;
+        this.sites = sites;
+        this.permanent = permanent;
+        this.operators = new char[sites.length];
+        for (int i = 0; i < sites.length; i++) {
+            operators[i] = sites[i].getOperator().charAt(0);
+        }
+    }
+
+    /**
+     * 可以组成运算链的运算符
+     */
+    static boolean isChainOperator(String operator) {
+        return operator.equals("+") || operator.equals("-") || operator.equals("*") || operator.equals("/");
+    }
+
+    @Override
+    public Object eval() {
+        Object value = operands[0].eval();
+        boolean accumulating = false;
+        for (int i = 0; i < sites.length; i++) {
+            Object operand = operands[i + 1].eval();
+            if (!accumulating && (value instanceof Fraction || operand instanceof Fraction) &&
+                    isRational(value) && isRational(operand)) {
+                load(value);
+                accumulating = true;
+            }
+            if (accumulating) {
+                if (isRational(operand)) {
+                    accumulate(operators[i], operand);
+                    continue;
+                }
+                value = accumulator.toFraction();
+                accumulating = false;
+            }
+            BinaryExpression site = sites[i];
+            value = Operations.binary(site.getOperator(), value, operand, site.getLineNumber(), site.getColumnNumber());
+        }
+        return accumulating ? result() : value;
+    }
+
+    private Fraction result() {
+        Fraction fraction = accumulator.toFraction();
+        fraction.setPermanent(permanent);
+        return fraction;
+    }
+
+    private static boolean isRational(Object value) {
+        return value instanceof Fraction || value instanceof Integer || value instanceof Long ||
+                value instanceof Double || value instanceof BigInteger;
+    }
+
+    private void load(Object value) {
+        if (value instanceof Fraction) {
+            accumulator.set((Fraction) value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            accumulator.set(((Number) value).longValue());
+        } else {
+            accumulator.set(Fraction.fromNumber(value));
+        }
+    }
+
+    private void accumulate(char operator, Object operand) {
+        if (operand instanceof Integer || operand instanceof Long) {
+            long value = ((Number) operand).longValue();
+            switch (operator) {
+                case '+': accumulator.add(value); break;
+                case '-': accumulator.subtract(value); break;
+                case '*': accumulator.multiply(value); break;
+                default:
+                    if (value == 0) {
+                        throw VastExceptions.MathError.divisionByZero();
+                    }
+                    accumulator.divide(value);
+                    break;
+            }
+            return;
+        }
+        Fraction fraction = operand instanceof Fraction ? (Fraction) operand : Fraction.fromNumber(operand);
+        switch (operator) {
+            case '+': accumulator.add(fraction); break;
+            case '-': accumulator.subtract(fraction); break;
+            case '*': accumulator.multiply(fraction); break;
+            default:
+                if (fraction.isZero()) {
+                    throw VastExceptions.MathError.divisionByZero();
+                }
+                accumulator.divide(fraction);
+                break;
+        }
+    }
+}
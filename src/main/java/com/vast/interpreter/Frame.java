@@ -0,0 +1,275 @@
+package com.vast.interpreter;
+
+import com.vast.ast.VastType;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 变量帧
+ * 每个脚本变量在解析阶段分配一个固定的槽位，变量读写变为数组下标访问；
+ * 强类型变量的类型名保存在与值数组平行的类型数组中。
+ * int 和 double 值可以不装箱保存在平行的 long 数组中（按标记区分），只有按对象读取时才生成包装对象；
+ * 反复追加的字符串保存在槽位独占的 StringBuilder 中，同样只有按对象读取时才生成 String
+ */
+public final class Frame {
+    // 槽位已分配但尚未赋值（与值为 null 的变量区分）
+    static final Object UNDEFINED = new Object() {
+        @Override
+        public String toString() {
+            return "<undefined>";
+        }
+    };
+
+    // 值的存储方式：对象，不装箱的 int / double，或追加中的字符串
+    static final byte BOXED = 0;
+    static final byte INT = 1;
+    static final byte DOUBLE = 2;
+    static final byte STRING = 3;
+
+    // 不装箱的值尚未生成包装对象（或追加后尚未生成 String）
+    private static final Object UNBOXED = new Object();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private String[] names = new String[16];
+    private Object[] values = new Object[16];
+    private VastType[] types = new VastType[16];
+    private long[] primitives = new long[16];// int 值或 double 的位模式
+    private byte[] tags = new byte[16];
+    private StringBuilder[] builders = new StringBuilder[16];// 存储方式为 STRING 的槽位的缓冲区
+    private int size = 0;
+    private int typedCount = 0;
+    private int typeEpoch = 0;// 类型表每次变化时递增，供已编译循环检查类型假设
+
+    public Frame() {
+        Arrays.fill(values, UNDEFINED);
+    }
+
+    /**
+     * 将全局变量绑定到固定槽位
+     */
+    public void bindGlobals(Map<String, Object> globals) {
+        for (Map.Entry<String, Object> entry : globals.entrySet()) {
+            store(declare(entry.getKey()), entry.getValue());
+        }
+    }
+
+    /**
+     * 查找变量槽位，未分配时返回 -1
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * 为变量分配槽位（已分配时返回原槽位）
+     */
+    public int declare(String name) {
+        Integer existing = slots.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == values.length) {
+            int capacity = values.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            tags = Arrays.copyOf(tags, capacity);
+            builders = Arrays.copyOf(builders, capacity);
+            Arrays.fill(values, size, capacity, UNDEFINED);
+        }
+
+        int slot = size++;
+        names[slot] = name;
+        slots.put(name, slot);
+        return slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String nameOf(int slot) {
+        return names[slot];
+    }
+
+    // ====== 槽位访问（闭包执行层使用） ======
+
+    /**
+     * 读取槽位原始内容，未赋值时返回 UNDEFINED；不装箱的值在第一次读取时装箱并保留包装对象
+     */
+    Object load(int slot) {
+        Object value = values[slot];
+        return value != UNBOXED ? value : box(slot);
+    }
+
+    private Object box(int slot) {
+        Object value;
+        if (tags[slot] == INT) {
+            value = (int) primitives[slot];
+        } else if (tags[slot] == DOUBLE) {
+            value = Double.longBitsToDouble(primitives[slot]);
+        } else {
+            value = builders[slot].toString();// 保留缓冲区，之后仍可继续追加
+        }
+        values[slot] = value;
+        return value;
+    }
+
+    void store(int slot, Object value) {
+        release(slot);
+        values[slot] = value;
+        tags[slot] = BOXED;
+    }
+
+    /**
+     * 槽位的值是否为字符串（不生成 String）
+     */
+    boolean holdsString(int slot) {
+        return tags[slot] == STRING || values[slot] instanceof String;
+    }
+
+    /**
+     * 在字符串槽位（调用方已通过 holdsString 确认）末尾追加文本，返回槽位的缓冲区。
+     * 缓冲区只追加不截断，变量被重新赋值后丢弃而不复用，因此缓冲区和当时的长度可以作为字符串的快照
+     */
+    StringBuilder append(int slot, String text) {
+        StringBuilder builder;
+        if (tags[slot] == STRING) {
+            builder = builders[slot];
+        } else {
+            String current = (String) values[slot];
+            builder = new StringBuilder(Math.max(16, 2 * (current.length() + text.length())));
+            builder.append(current);
+            builders[slot] = builder;
+            tags[slot] = STRING;
+        }
+        builder.append(text);
+        values[slot] = UNBOXED;
+        return builder;
+    }
+
+    private void release(int slot) {
+        if (tags[slot] == STRING) {
+            builders[slot] = null;
+        }
+    }
+
+    /**
+     * 槽位的存储方式，为 INT 或 DOUBLE 时可以用 loadInt / loadDouble 直接读取（STRING 按对象读取）
+     */
+    byte tagOf(int slot) {
+        return tags[slot];
+    }
+
+    int loadInt(int slot) {
+        return (int) primitives[slot];
+    }
+
+    double loadDouble(int slot) {
+        return Double.longBitsToDouble(primitives[slot]);
+    }
+
+    void storeInt(int slot, int value) {
+        release(slot);
+        primitives[slot] = value;
+        tags[slot] = INT;
+        values[slot] = UNBOXED;
+    }
+
+    void storeDouble(int slot, double value) {
+        release(slot);
+        primitives[slot] = Double.doubleToRawLongBits(value);
+        tags[slot] = DOUBLE;
+        values[slot] = UNBOXED;
+    }
+
+    boolean isDefined(int slot) {
+        return values[slot] != UNDEFINED;
+    }
+
+    VastType typeOf(int slot) {
+        return types[slot];
+    }
+
+    void setType(int slot, VastType type) {
+        if (types[slot] == null && type != null) {
+            typedCount++;
+        } else if (types[slot] != null && type == null) {
+            typedCount--;
+        }
+        if (types[slot] != type) {
+            typeEpoch++;
+        }
+        types[slot] = type;
+    }
+
+    /**
+     * 是否存在任何强类型变量（没有时自由赋值可跳过类型表检查）
+     */
+    boolean hasTypedSlots() {
+        return typedCount > 0;
+    }
+
+    int typeEpoch() {
+        return typeEpoch;
+    }
+
+    // ====== 按名称访问（树遍历解释器使用） ======
+
+    public boolean isDefined(String name) {
+        int slot = slotOf(name);
+        return slot >= 0 && values[slot] != UNDEFINED;
+    }
+
+    public Object get(String name) {
+        int slot = slotOf(name);
+        if (slot < 0) {
+            return null;
+        }
+        Object value = load(slot);
+        return value != UNDEFINED ? value : null;
+    }
+
+    public void set(String name, Object value) {
+        store(declare(name), value);
+    }
+
+    public VastType getType(String name) {
+        int slot = slotOf(name);
+        return slot >= 0 ? types[slot] : null;
+    }
+
+    public void setType(String name, VastType type) {
+        setType(declare(name), type);
+    }
+
+    public VastType removeType(String name) {
+        int slot = slotOf(name);
+        if (slot < 0) {
+            return null;
+        }
+        VastType previous = types[slot];
+        setType(slot, null);
+        return previous;
+    }
+
+    /**
+     * 导出当前已赋值变量的快照（用于调试和状态展示）
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (values[i] != UNDEFINED) {
+                result.put(names[i], load(i));
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,71 @@
+package com.vast.interpreter;
+
+import com.vast.internal.VastExceptions;
+
+/**
+ * 变量自增/自减节点，前缀返回新值，后缀返回原始值
+ * 槽位中是不装箱的 int / double 时直接在原始值上计算，int 溢出时回到对象路径提升为 long
+ */
+final class IncrementNode implements EvalNode {
+    private final Frame frame;
+    private final int slot;
+    private final String varName;
+    private final EvalNode operand;
+    private final int increment;
+    private final boolean postfix;
+
+    IncrementNode(Frame frame, int slot, String varName, EvalNode operand, int increment, boolean postfix) {
+        this.frame = frame;
+        this.slot = slot;
+        this.varName = varName;
+        this.operand = operand;
+        this.increment = increment;
+        this.postfix = postfix;
+    }
+
+    @Override
+    public Object eval() {
+        operand.eval();
+        Object currentValue = frame.load(slot);
+        if (currentValue == null || currentValue == Frame.UNDEFINED) {
+            throw VastExceptions.NonExistentObject.variableNotFound(varName);
+        }
+        Object newValue = Operations.increment(currentValue, increment);
+        frame.store(slot, newValue);
+        return postfix ? currentValue : newValue;
+    }
+
+    @Override
+    public int evalInt() {
+        int current;
+        if (frame.tagOf(slot) == Frame.INT) {
+            current = frame.loadInt(slot);
+        } else if (frame.load(slot) instanceof Integer) {
+            current = (Integer) frame.load(slot);
+        } else {
+            return EvalNode.expectInt(eval());
+        }
+        long next = (long) current + increment;
+        if (next != (int) next) {
+            // 溢出，由对象路径提升为 long
+            return EvalNode.expectInt(eval());
+        }
+        frame.storeInt(slot, (int) next);
+        return postfix ? current : (int) next;
+    }
+
+    @Override
+    public double evalDouble() {
+        double current;
+        if (frame.tagOf(slot) == Frame.DOUBLE) {
+            current = frame.loadDouble(slot);
+        } else if (frame.load(slot) instanceof Double) {
+            current = (Double) frame.load(slot);
+        } else {
+            return EvalNode.expectDouble(eval());
+        }
+        double next = current + increment;
+        frame.storeDouble(slot, next);
+        return postfix ? current : next;
+    }
+}
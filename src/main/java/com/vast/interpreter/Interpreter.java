@@ -4,139 +4,180 @@ import com.vast.ast.*;
 import com.vast.ast.expressions.*;
 import com.vast.ast.statements.*;
 import com.vast.internal.Debugger;
+import com.vast.internal.Decimal;
 import com.vast.internal.Fraction;
+import com.vast.internal.Lazy;
 import com.vast.internal.SmartErrorSuggestor;
-import com.vast.internal.Sys;
+import com.vast.vm.ExecutionMode;
 import com.vast.vm.VastLibraryLoader;
 import com.vast.vm.VastVM;
 import com.vast.internal.VastExceptions;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
 import java.util.*;
+import java.util.function.Supplier;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
 
 // 解释器类，负责执行AST节点
 public class Interpreter implements ASTVisitor<Void> {
-    private final Map<String, Object> variables = new HashMap<>();
-    private final Map<String, String> variableTypes = new HashMap<>();//变量存储类型
+    private final Frame frame = new Frame();//变量帧（槽位存储变量值与类型）
     private Object lastResult = null;
+    // 最后结果为不装箱的 int / double 时保存在 lastResultBits 中；
+    // 为追加中的字符串时 lastResult 是缓冲区，lastResultBits 是当时的长度
+    private byte lastResultTag = Frame.BOXED;
+    private long lastResultBits;
     private final Map<String, Class<?>> importedClasses = new HashMap<>();
     private final VastVM vm;
     private final Debugger debugger;
-    private final Map<String, String> staticMethodToClass = new HashMap<>();//静态方法名到类名的映射
-    private final Map<String, Set<String>> methodConflicts = new HashMap<>();//方法名冲突记录
 
     private final SmartErrorSuggestor errorSuggestor;
+    private final ClosureCompiler closureCompiler;//闭包执行层编译器
+    private final SlotResolver slotResolver;//变量槽位解析器
+    private final Linker linker;//标识符链接器（名称到类、静态方法或变量的符号表）
+    private final TypeInferencer typeInferencer;//静态类型推断（省略可证明兼容的赋值检查）
+    private final LoopCompiler loopCompiler;//热循环字节码编译器
+    private final BytecodeCompiler bytecodeCompiler;//寄存器字节码编译器
+    private final BytecodeInterpreter bytecodeInterpreter;//寄存器字节码分派循环
+    private final ExpressionEvaluator evaluator = new ExpressionEvaluator();//表达式求值器（无状态，复用同一实例）
+    private final ArgumentBuffers argumentBuffers = new ArgumentBuffers();//免分配模式下复用的参数数组
+    private final Map<String, Map<String, StaticMethodReference>> methodReferences = new HashMap<>();//预建的静态方法引用
+    private final Map<Class<?>, Map<String, HostMethod[]>> hostMethodCache = new HashMap<>();//按类和方法名缓存的候选方法
+    private int importEpoch = 0;//每次导入递增，导入可能改变名称解析，使已编译循环的假设失效
+    private final Map<Expression, CallSiteCache> callSiteCaches = new IdentityHashMap<>();//树遍历模式下各调用表达式的内联缓存
+    private long inlineCacheHits = 0;
+    private long inlineCacheMisses = 0;
 
     public Interpreter(VastVM vm) {
         this.vm = vm;
         this.debugger = vm.getDebugger();
         this.errorSuggestor = vm.getErrorSuggestor(); // 初始化错误提示器
+        this.closureCompiler = new ClosureCompiler(this);
+        this.loopCompiler = new LoopCompiler(this, closureCompiler);
+        this.slotResolver = new SlotResolver(frame, importedClasses);
+        this.bytecodeCompiler = new BytecodeCompiler(this, closureCompiler);
+        this.bytecodeInterpreter = new BytecodeInterpreter(this);
+
+        // 全局变量（PI、E 等）绑定到固定槽位
+        frame.bindGlobals(VastVM.getGlobalVariables());
 
         // 初始化日志
-        if (debugger.isShowStackTrace()) {
-            debugger.debug("Type checking system initialized");
-            debugger.debug("Static method mapping initialized");
-        }
+        debugger.debug(INTERPRETER, "Type checking system initialized");
 
         // 复制已导入的类
         if (vm != null && vm.getImportedClasses() != null) {
             this.importedClasses.putAll(vm.getImportedClasses());
         }
 
-        initializeStaticMethodMapping();//初始化静态方法映射
+        this.linker = new Linker(this, frame, importedClasses);
+        this.typeInferencer = new TypeInferencer(this);
     }
 
     /**
-     * 初始化静态方法映射，检查方法名冲突
+     * 解析省略类名的静态方法调用（如 printl()）对应的类名，不是唯一静态方法时返回 null
      */
-    private void initializeStaticMethodMapping() {
-        // 如果已经初始化过，跳过
-        if (!staticMethodToClass.isEmpty() || !methodConflicts.isEmpty()) {
-            debugger.debug("Static method mapping already initialized, skipping");
-            return;
-        }
-
-        // 收集所有类的静态方法
-        Map<String, Set<String>> methodToClasses = new HashMap<>();
-
-        // 1. 内置类的静态方法
-        for (Map.Entry<String, Class<?>> entry : VastVM.getBuiltinClasses().entrySet()) {
-            collectStaticMethods(entry.getKey(), entry.getValue(), methodToClasses);
-        }
-
-        // 2. 已导入类的静态方法
-        for (Map.Entry<String, Class<?>> entry : importedClasses.entrySet()) {
-            collectStaticMethods(entry.getKey(), entry.getValue(), methodToClasses);
+    String resolveClassNameForMethod(String methodName, int lineNumber, int columnNumber) {
+        Linker.Binding binding = linker.bind(methodName);
+        if (binding.kind == Linker.Kind.AMBIGUOUS) {
+            throw binding.ambiguity(lineNumber, columnNumber);
         }
-
-        // 构建唯一方法名映射并记录冲突
-        for (Map.Entry<String, Set<String>> entry : methodToClasses.entrySet()) {
-            String methodName = entry.getKey();
-            Set<String> classes = entry.getValue();
-
-            if (classes.size() == 1) {
-                // 方法名唯一，添加到映射
-                staticMethodToClass.put(methodName, classes.iterator().next());
-                debugger.debug("Static method '" + methodName + "' uniquely mapped to class: " + classes.iterator().next());
-            } else {
-                // 方法名冲突，记录冲突信息
-                methodConflicts.put(methodName, classes);
-                debugger.warning("Method name conflict: '" + methodName + "' exists in multiple classes: " + classes);
-            }
-        }
-
-        debugger.debug("Static method mapping initialized with " + staticMethodToClass.size() + " unique methods");
+        return binding.kind == Linker.Kind.STATIC_METHOD ? binding.className : null;
     }
 
     /**
-     * 收集类的静态方法
+     * 标识符在符号表中的绑定
      */
-    private void collectStaticMethods(String className, Class<?> clazz, Map<String, Set<String>> methodToClasses) {
-        try {
-            java.lang.reflect.Method[] methods = clazz.getMethods();
-            for (java.lang.reflect.Method method : methods) {
-                if (java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
-                    String methodName = method.getName();
-                    methodToClasses.computeIfAbsent(methodName, k -> new HashSet<>()).add(className);
-                }
-            }
-        } catch (Exception e) {
-            debugger.warning("Failed to collect static methods from class: " + className);
-        }
+    Linker.Binding binding(String name) {
+        return linker.bind(name);
     }
 
     /**
-     * 检查方法名是否唯一
+     * 类型推断已证明声明或赋值总是兼容且无需转换
      */
-    private String resolveClassNameForMethod(String methodName, int lineNumber, int columnNumber) {
-        String className = vm.resolveMethodClass(methodName);
+    boolean typeProven(ASTNode site) {
+        return typeInferencer.isProven(site);
+    }
 
-        if (className != null) {
-            debugger.debug("Resolved method '" + methodName + "' to class: " + className);
-            return className;
-        }
+    /**
+     * 类型推断已证明赋值表达式的目标变量接受该类的任何值
+     */
+    boolean typeAccepts(AssignmentExpression site, Class<?> valueClass) {
+        return typeInferencer.accepts(site, valueClass);
+    }
 
-        // 检查是否有冲突
-        debugger.debug("Method '" + methodName + "' not found in static method mapping");
-        return null;
+    /**
+     * 赋值表达式执行前，目标变量可能是字符串（类型推断无法排除）
+     */
+    boolean mayHoldString(AssignmentExpression site) {
+        return typeInferencer.mayHoldString(site);
     }
 
     public void interpret(Program program) {
         try {
-            debugger.debug("Starting program interpretation");
+            debugger.debug(INTERPRETER, "Starting program interpretation");
+            // 之前程序的调用点不会再执行（流式执行时逐批解释），释放它们的内联缓存
+            callSiteCaches.clear();
 
-            // 初始化静态方法映射（如果需要）
-            initializeStaticMethodMapping();
+            // 执行前一次性绑定所有标识符，不存在或有歧义的名称在产生副作用之前报错
+            link(program);
+            inferTypes(program);
 
-            program.accept(this);
-            debugger.debug("Program interpretation completed");
+            ExecutionMode mode = vm.getExecutionMode();
+            if (mode == ExecutionMode.TREE_WALKER) {
+                program.accept(this);
+            } else {
+                // 先为变量分配槽位，再一次性编译为闭包节点树或寄存器字节码后执行
+                resolveSlots(program);
+                if (mode == ExecutionMode.BYTECODE) {
+                    bytecodeInterpreter.execute(bytecodeCompiler.compile(program));
+                } else {
+                    closureCompiler.compile(program).execute();
+                }
+            }
+            debugger.debug(INTERPRETER, "Program interpretation completed");
         } catch (VastExceptions.VastRuntimeException error) {
             debugger.error("Runtime error: " + error.getUserFriendlyMessage());
             throw error;
         }
     }
 
+    private void link(Program program) {
+        int linked = linker.link(program);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Linked " + linked + " identifier references");
+        }
+    }
+
+    private void inferTypes(Program program) {
+        int elided = typeInferencer.infer(program);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Type inference: " + elided + " assignments need no runtime type check");
+        }
+    }
+
+    private void resolveSlots(Program program) {
+        int newSlots = slotResolver.resolve(program);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Slot resolution: " + newSlots + " new slots, " + frame.size() + " total");
+        }
+    }
+
+    /**
+     * 把程序编译为寄存器字节码并返回反汇编文本（不执行）
+     */
+    public String disassemble(Program program) {
+        link(program);
+        inferTypes(program);
+        resolveSlots(program);
+        return bytecodeCompiler.compile(program).disassemble(frame);
+    }
+
     @Override
     public Void visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
         TypeCastExpression castExpr = stmt.getTypeCastExpression();
@@ -153,22 +194,22 @@ public class Interpreter implements ASTVisitor<Void> {
         String varName = ((VariableExpression) sourceExpr).getName();
 
         // 检查变量是否存在
-        if (!variables.containsKey(varName)) {
+        if (!frame.isDefined(varName)) {
             throw VastExceptions.NonExistentObject.variableNotFound(varName);
         }
 
-        Object currentValue = variables.get(varName);
-        String targetType = castExpr.getTargetType();
+        Object currentValue = frame.get(varName);
+        VastType targetType = castExpr.getTargetType();
 
         // 执行类型转换
         Object newValue = performTypeCast(currentValue, targetType,
                 stmt.getLineNumber(), stmt.getColumnNumber(), true);
 
         // 更新变量值和类型
-        variables.put(varName, newValue);
-        variableTypes.put(varName, targetType); // 更新为强类型
+        frame.set(varName, newValue);
+        frame.setType(varName, targetType); // 更新为强类型
 
-        debugger.debug("Inline type cast: " + varName + " -> " + targetType + " = " + newValue);
+        debugger.debug(INTERPRETER, () -> "Inline type cast: " + varName + " -> " + targetType + " = " + newValue);
 
         return null;
     }
@@ -199,16 +240,16 @@ public class Interpreter implements ASTVisitor<Void> {
         Object value = evaluate(expr.getValue());
         String varName = expr.getVariableName();
 
-        debugger.debug("Assignment expression: " + varName + " = " + value);
+        debugger.debug(INTERPRETER, () -> "Assignment expression: " + varName + " = " + value);
 
-        // 严格的类型检查
-        if (variableTypes.containsKey(varName)) {
-            String expectedType = variableTypes.get(varName);
+        // 严格的类型检查（类型推断已证明兼容时跳过）
+        if (!typeInferencer.isProven(expr) && frame.getType(varName) != null) {
+            VastType expectedType = frame.getType(varName);
             validateTypeCompatibility(expectedType, value, varName,
                     expr.getLineNumber(), expr.getColumnNumber());
         }
 
-        variables.put(varName, value);
+        frame.set(varName, value);
         return null;
     }
 
@@ -225,9 +266,9 @@ public class Interpreter implements ASTVisitor<Void> {
     @Override
     public Void visitMethodCallExpression(MethodCallExpression expr) {
         Object result = evaluate(expr);
-        this.lastResult = result;
-        if (result != null) {
-            debugger.debug("Method call result: " + result);
+        setLastResult(result);
+        if (result != null && debugger.isTraceEnabled(INTERPRETER)) {
+            debugger.trace(INTERPRETER, "Method call result: " + result);
         }
         return null;
     }
@@ -241,38 +282,32 @@ public class Interpreter implements ASTVisitor<Void> {
         }
 
         String varName = stmt.getVariableName();
-        String typeHint = stmt.getTypeHint();
+        VastType typeHint = stmt.getTypeHint();
 
-        debugger.debug("Variable declaration: " + varName +
-                ", type: " + typeHint + ", initial value: " + value +
-                (stmt.isTypeCast() ? " (type cast)" : ""));
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Variable declaration: " + varName +
+                    ", type: " + typeHint + ", initial value: " + value +
+                    (stmt.isTypeCast() ? " (type cast)" : ""));
+        }
 
         // 强类型变量声明
         if (typeHint != null) {
-            variableTypes.put(varName, typeHint);
-            debugger.debug("Registered type constraint: " + varName + " -> " + typeHint);
-
-            // 严格验证初始值的类型，支持隐式转换
-            if (value != null) {
-                if (!isTypeCompatible(typeHint, value)) {
-                    String errorMsg = "Type mismatch: cannot assign " + getValueType(value) +
-                            " to variable '" + varName + "' of type " + typeHint;
-                    debugger.log(errorMsg);
-                    throw new VastExceptions.NotGrammarException(
-                            errorMsg, stmt.getLineNumber(), stmt.getColumnNumber()
-                    );
-                }
+            frame.setType(varName, typeHint);
+            debugger.debug(INTERPRETER, () -> "Registered type constraint: " + varName + " -> " + typeHint);
 
-                // 如果类型兼容但需要转换，进行自动类型转换
-                value = performAutoConversion(value, typeHint,
+            // 严格验证初始值的类型，支持隐式转换（类型推断已证明兼容且无需转换时跳过）
+            if (value != null && !typeInferencer.isProven(stmt)) {
+                value = Operations.convertTyped(typeHint, value, varName,
                         stmt.getLineNumber(), stmt.getColumnNumber());
             }
         }
 
-        variables.put(varName, value);
-        this.lastResult = value;
-        debugger.debug("Var declared: " + varName + " = " + value +
-                (typeHint != null ? " (type: " + typeHint + ")" : ""));
+        frame.set(varName, value);
+        setLastResult(value);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Var declared: " + varName + " = " + value +
+                    (typeHint != null ? " (type: " + typeHint + ")" : ""));
+        }
         return null;
     }
 
@@ -280,41 +315,35 @@ public class Interpreter implements ASTVisitor<Void> {
     public Void visitAssignmentStatement(AssignmentStatement stmt) {
         Object value = evaluate(stmt.getValue());
         String varName = stmt.getVariableName();
-        String typeHint = stmt.getTypeHint();
+        VastType typeHint = stmt.getTypeHint();
 
-        debugger.debug("Assignment: " + varName + " = " + value +
-                (typeHint != null ? " (strong type: " + typeHint + ")" : " (free type)"));
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Assignment: " + varName + " = " + value +
+                    (typeHint != null ? " (strong type: " + typeHint + ")" : " (free type)"));
+        }
 
         if (typeHint != null) {
             // 强类型赋值 - 严格类型检查，支持隐式转换
-            if (!isTypeCompatible(typeHint, value)) {
-                String errorMsg = "Type mismatch: cannot assign " + getValueType(value) +
-                        " to variable '" + varName + "' of type " + typeHint;
-                debugger.log(errorMsg);
-                throw new VastExceptions.NotGrammarException(
-                        errorMsg, stmt.getLineNumber(), stmt.getColumnNumber()
-                );
-            }
-
-            // 如果类型兼容但需要转换，进行自动类型转换
-            value = performAutoConversion(value, typeHint,
+            value = Operations.convertTyped(typeHint, value, varName,
                     stmt.getLineNumber(), stmt.getColumnNumber());
 
-            variableTypes.put(varName, typeHint);
-            debugger.debug("Strong type assignment PASSED");
+            frame.setType(varName, typeHint);
+            debugger.debug(INTERPRETER, "Strong type assignment PASSED");
         } else {
             // 自由类型赋值 - 不进行类型检查
-            if (variableTypes.containsKey(varName)) {
+            if (frame.getType(varName) != null) {
                 debugger.warning("Warning: free type assignment to strongly typed variable " + varName);
                 // 自由类型赋值会覆盖原有的强类型，变为自由类型
-                variableTypes.remove(varName);
+                frame.removeType(varName);
             }
-            debugger.debug("Free type assignment - no type constraints");
+            debugger.debug(INTERPRETER, "Free type assignment - no type constraints");
         }
 
-        variables.put(varName, value);
-        this.lastResult = value;
-        debugger.debug("Var assigned: " + varName + " = " + value);
+        frame.set(varName, value);
+        setLastResult(value);
+        if (debugger.isDebugEnabled(INTERPRETER)) {
+            debugger.debug(INTERPRETER, "Var assigned: " + varName + " = " + value);
+        }
         return null;
     }
 
@@ -322,32 +351,23 @@ public class Interpreter implements ASTVisitor<Void> {
     /**
      * 检查类型兼容性，不兼容时抛出异常
      */
-    private void validateTypeCompatibility(String expectedType, Object value, String varName, int lineNumber, int columnNumber) {
+    void validateTypeCompatibility(VastType expectedType, Object value, String varName, int lineNumber, int columnNumber) {
         if (value == null) {
-            debugger.debug("Null value allowed for any type");
+            debugger.debug(INTERPRETER, "Null value allowed for any type");
             return; // null 可以赋值给任何类型
         }
 
-        String actualType = getValueType(value);
-        debugger.debug("Validating: " + expectedType + " <- " + actualType);
-
-        if (!isTypeCompatible(expectedType, value)) {
-            String errorMsg = "Type mismatch: cannot assign " + actualType +
-                    " to variable '" + varName + "' of type " + expectedType;
-            debugger.log(errorMsg);
-            throw new VastExceptions.NotGrammarException(
-                    errorMsg, lineNumber, columnNumber
-            );
-        }
-        debugger.debug("Type compatibility OK");
+        debugger.debug(INTERPRETER, () -> "Validating: " + expectedType + " <- " + getValueType(value));
+        Operations.checkAssignable(expectedType, value, varName, lineNumber, columnNumber);
+        debugger.debug(INTERPRETER, "Type compatibility OK");
     }
 
     @Override
     public Void visitExpressionStatement(ExpressionStatement stmt) {
         Object result = evaluate(stmt.getExpression());
-        this.lastResult = result;
-        if (result != null) {
-            debugger.debug("Expression result: " + result);
+        setLastResult(result);
+        if (result != null && debugger.isTraceEnabled(INTERPRETER)) {
+            debugger.trace(INTERPRETER, "Expression result: " + result);
         }
         return null;
     }
@@ -355,7 +375,8 @@ public class Interpreter implements ASTVisitor<Void> {
     @Override
     public Void visitImportStatement(ImportStatement stmt) {
         String importPath = stmt.getClassName();
-        debugger.debug("Import: " + importPath);
+        debugger.debug(INTERPRETER, () -> "Import: " + importPath);
+        importEpoch++;
 
         try {
             // 首先尝试作为外置库导入
@@ -363,7 +384,7 @@ public class Interpreter implements ASTVisitor<Void> {
             boolean libraryLoaded = loader.loadLibraryFromImport(importPath, this.vm);
 
             if (libraryLoaded) {
-                debugger.debug("External library loaded: " + importPath);
+                debugger.debug(INTERPRETER, () -> "External library loaded: " + importPath);
                 return null;
             }
 
@@ -376,14 +397,14 @@ public class Interpreter implements ASTVisitor<Void> {
                 vm.getImportedClasses().put(importPath, clazz);
             }
 
-            debugger.debug("Class imported: " + importPath);
+            debugger.debug(INTERPRETER, () -> "Class imported: " + importPath);
 
         } catch (ClassNotFoundException e) {
             // 静默处理类未找到异常，不抛出错误
-            debugger.debug("Class not found: " + importPath);
+            debugger.debug(INTERPRETER, () -> "Class not found: " + importPath);
         } catch (Exception e) {
             // 静默处理其他异常
-            debugger.debug("Import failed: " + importPath);
+            debugger.debug(INTERPRETER, () -> "Import failed: " + importPath);
         }
         return null;
     }
@@ -392,17 +413,19 @@ public class Interpreter implements ASTVisitor<Void> {
     public Void visitLoopStatement(LoopStatement stmt) {
         Object condition = evaluate(stmt.getCondition());
 
-        debugger.debug("Loop condition: " + condition + " (type: " +
+        debugger.debug(INTERPRETER, () -> "Loop condition: " + condition + " (type: " +
                 (condition != null ? condition.getClass().getSimpleName() : "null") + ")");
 
         // 处理数字类型的循环条件（如 loop(10):）
         if (condition instanceof Number) {
             int count = ((Number) condition).intValue();
 
-            debugger.debug("Loop count: " + count);
+            debugger.debug(INTERPRETER, () -> "Loop count: " + count);
 
             for (int i = 0; i < count; i++) {
-                debugger.debug("Loop iteration: " + (i + 1) + "/" + count);
+                if (debugger.isTraceEnabled(INTERPRETER)) {
+                    debugger.trace(INTERPRETER, "Loop iteration: " + (i + 1) + "/" + count);
+                }
 
                 // 执行循环体中的所有语句
                 for (Statement bodyStmt : stmt.getBody()) {
@@ -413,40 +436,96 @@ public class Interpreter implements ASTVisitor<Void> {
         // 处理布尔类型的循环条件（如 loop(true): 或 loop(a > b):）
         else if (condition instanceof Boolean) {
             if ((Boolean) condition) {
-                debugger.debug("Boolean condition is true, executing loop body");
+                debugger.debug(INTERPRETER, "Boolean condition is true, executing loop body");
                 for (Statement bodyStmt : stmt.getBody()) {
                     bodyStmt.accept(this);
                 }
             } else {
-                debugger.debug("Boolean condition is false, skipping loop");
+                debugger.debug(INTERPRETER, "Boolean condition is false, skipping loop");
             }
         }
         else {
             // 默认情况下，如果条件不是数字或布尔值，当作真值处理并执行一次
             if (condition != null) {
-                debugger.debug("Non-boolean condition, executing loop body once");
+                debugger.debug(INTERPRETER, "Non-boolean condition, executing loop body once");
                 for (Statement bodyStmt : stmt.getBody()) {
                     bodyStmt.accept(this);
                 }
             } else {
-                debugger.debug("Null condition, skipping loop");
+                debugger.debug(INTERPRETER, "Null condition, skipping loop");
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStatement(WhileStatement stmt) {
+        while (Operations.toBoolean(evaluate(stmt.getCondition()))) {
+            for (Statement bodyStmt : stmt.getBody()) {
+                bodyStmt.accept(this);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitForStatement(ForStatement stmt) {
+        int start = forBound(evaluate(stmt.getStart()), stmt);
+        int end = forBound(evaluate(stmt.getEnd()), stmt);
+        debugger.debug(INTERPRETER, () -> "For range: " + start + ".." + end);
+
+        for (int i = start; i < end; i++) {
+            // 循环变量由计数器赋值，循环体对它的修改不影响迭代次数
+            frame.storeInt(forVariable(stmt), i);
+            for (Statement bodyStmt : stmt.getBody()) {
+                bodyStmt.accept(this);
             }
         }
         return null;
     }
 
+    /**
+     * for 循环范围的一端，进入循环时求值一次，必须是 int
+     */
+    int forBound(Object value, ForStatement stmt) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        throw new VastExceptions.NotGrammarException(
+                "For range bound must be int, got " + getValueType(value) + ": " + value,
+                stmt.getLineNumber(), stmt.getColumnNumber()
+        );
+    }
+
+    /**
+     * for 循环变量的槽位。循环变量以不装箱的 int 保存，不做隐式转换，
+     * 因此变量已有的强类型约束必须直接接受 int
+     */
+    int forVariable(ForStatement stmt) {
+        int slot = frame.declare(stmt.getVariableName());
+        VastType type = frame.typeOf(slot);
+        if (type != null && !type.acceptsAll(Integer.class)) {
+            throw new VastExceptions.NotGrammarException(
+                    "Type mismatch: cannot assign int to loop variable '" + stmt.getVariableName() +
+                            "' of type " + type,
+                    stmt.getLineNumber(), stmt.getColumnNumber()
+            );
+        }
+        return slot;
+    }
+
     @Override
     public Void visitUseStatement(UseStatement stmt) {
         Expression methodCall = stmt.getMethodCall();
 
-        debugger.debug("Use statement executing method call");
+        debugger.debug(INTERPRETER, "Use statement executing method call");
 
         // 直接执行方法调用表达式
         Object result = evaluate(methodCall);
-        this.lastResult = result;
+        setLastResult(result);
 
         if (result != null) {
-            debugger.debug("Use statement result: " + result);
+            debugger.debug(INTERPRETER, () -> "Use statement result: " + result);
         }
 
         return null;
@@ -457,54 +536,77 @@ public class Interpreter implements ASTVisitor<Void> {
         String varA = stmt.getVarA().getName();
         String varB = stmt.getVarB().getName();
 
-        debugger.debug("Swap: " + varA + ", " + varB);
+        debugger.debug(INTERPRETER, () -> "Swap: " + varA + ", " + varB);
 
-        if (!variables.containsKey(varA)) {
+        if (!frame.isDefined(varA)) {
             throw VastExceptions.NonExistentObject.variableNotFound(varA);
         }
-        if (!variables.containsKey(varB)) {
+        if (!frame.isDefined(varB)) {
             throw VastExceptions.NonExistentObject.variableNotFound(varB);
         }
 
-        Object valueA = variables.get(varA);
-        Object valueB = variables.get(varB);
+        Object valueA = frame.get(varA);
+        Object valueB = frame.get(varB);
 
-        variables.put(varA, valueB);
-        variables.put(varB, valueA);
+        frame.set(varA, valueB);
+        frame.set(varB, valueA);
 
-        debugger.debug("Swapped: " + varA + " = " + variables.get(varA) + ", " + varB + " = " + variables.get(varB));
+        debugger.debug(INTERPRETER, () -> "Swapped: " + varA + " = " + frame.get(varA) + ", " + varB + " = " + frame.get(varB));
         return null;
     }
 
     /**
      * 调用内部库方法
      */
-    private Object callInternalMethod(String className, String methodName, Object[] args) {
+    Object callInternalMethod(String className, String methodName, Object[] args) {
         try {
-            debugger.debug("Calling internal method: " + className + "." + methodName + // 改为 debug
-                    " with " + args.length + " arguments");
+            if (debugger.isTraceEnabled(INTERPRETER)) {
+                debugger.trace(INTERPRETER, "Calling internal method: " + className + "." + methodName +
+                        " with " + args.length + " arguments");
+            }
 
             Class<?> clazz = findClass(className);
             if (clazz == null) {
                 throw VastExceptions.NonExistentObject.classNotFound(className);
             }
 
-            Method method = findBestMethod(clazz, methodName, args);
+            HostMethod method = findBestMethod(clazz, methodName, args);
             if (method == null) {
                 String suggestion = errorSuggestor.suggestForUnknownMethod(methodName, className);
                 throw new VastExceptions.NonExistentObject(suggestion);
             }
 
-            // 处理可变参数
-            Object[] convertedArgs = convertArgumentsForMethod(method, args);
+            if (!method.varArgs) {
+                // 参数数组由调用方新建或来自参数缓冲区，可以就地转换
+                convertArguments(method.parameterTypes, args);
+                Object result = method.method.invoke(null, args);
+                if (debugger.isTraceEnabled(INTERPRETER)) {
+                    debugger.trace(INTERPRETER, "Method call result: " + result);
+                }
+                return result;
+            }
 
-            Object result = method.invoke(null, convertedArgs);
-            debugger.debug("Method call result: " + result);
-            return result;
+            // 处理可变参数
+            boolean reuseBuffers = isAllocationFree();
+            Object[] convertedArgs = convertVarArgs(method, args, reuseBuffers);
+            try {
+                Object result = method.method.invoke(null, convertedArgs);
+                if (debugger.isTraceEnabled(INTERPRETER)) {
+                    debugger.trace(INTERPRETER, "Method call result: " + result);
+                }
+                return result;
+            } finally {
+                if (reuseBuffers) {
+                    releaseVarArgs(convertedArgs);
+                }
+            }
 
         } catch (VastExceptions.VastRuntimeException e) {
             throw e;
         } catch (Exception e) {
+            if (e.getCause() instanceof VastExceptions.VastRuntimeException) {
+                throw (VastExceptions.VastRuntimeException) e.getCause();// 内置库主动报告的错误原样抛出
+            }
             debugger.error("Failed to call method " + className + "." + methodName + ": " + e.getMessage());
             if (debugger.isShowStackTrace()) {
                 e.printStackTrace();
@@ -514,29 +616,29 @@ public class Interpreter implements ASTVisitor<Void> {
     }
 
     /**
-     * 转换参数以匹配方法签名
+     * 非可变参数方法：就地转换每个参数以匹配方法签名
      */
-    private Object[] convertArgumentsForMethod(Method method, Object[] args) {
-        Class<?>[] paramTypes = method.getParameterTypes();
-        boolean isVarArgs = method.isVarArgs();
+    private void convertArguments(Class<?>[] paramTypes, Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            args[i] = convertArgument(args[i], paramTypes[i]);
+        }
+    }
 
-        if (!isVarArgs) {
-            // 非可变参数方法，直接转换每个参数
-            Object[] converted = new Object[args.length];
-            for (int i = 0; i < args.length; i++) {
-                converted[i] = convertArgument(args[i], paramTypes[i]);
-            }
-            return converted;
-        } else {
-            // 可变参数方法
-            // 固定参数个数
-            int fixedParams = paramTypes.length - 1;
-            // 检查参数个数是否足够
-            if (args.length < fixedParams) {
-                throw new VastExceptions.NotGrammarException("Insufficient arguments for method: " + method.getName());
-            }
+    /**
+     * 可变参数方法：把参数打包为固定参数加可变参数数组。
+     * 免分配模式下 Object 元素的数组来自参数缓冲区，调用结束后归还
+     */
+    private Object[] convertVarArgs(HostMethod method, Object[] args, boolean reuseBuffers) {
+        Class<?>[] paramTypes = method.parameterTypes;
+        // 固定参数个数
+        int fixedParams = paramTypes.length - 1;
+        // 检查参数个数是否足够
+        if (args.length < fixedParams) {
+            throw new VastExceptions.NotGrammarException("Insufficient arguments for method: " + method.method.getName());
+        }
 
-            Object[] converted = new Object[paramTypes.length];
+        Object[] converted = reuseBuffers ? argumentBuffers.acquire(paramTypes.length) : new Object[paramTypes.length];
+        try {
             // 转换固定参数
             for (int i = 0; i < fixedParams; i++) {
                 converted[i] = convertArgument(args[i], paramTypes[i]);
@@ -545,14 +647,39 @@ public class Interpreter implements ASTVisitor<Void> {
             // 处理可变参数
             Class<?> varArgType = paramTypes[fixedParams].getComponentType();
             int varArgCount = args.length - fixedParams;
-            Object varArgsArray = Array.newInstance(varArgType, varArgCount);
-            for (int i = 0; i < varArgCount; i++) {
-                Array.set(varArgsArray, i, convertArgument(args[fixedParams + i], varArgType));
+            if (varArgType == Object.class) {
+                Object[] varArgsArray = reuseBuffers ? argumentBuffers.acquire(varArgCount) : new Object[varArgCount];
+                for (int i = 0; i < varArgCount; i++) {
+                    varArgsArray[i] = args[fixedParams + i];
+                }
+                converted[fixedParams] = varArgsArray;
+            } else {
+                Object varArgsArray = Array.newInstance(varArgType, varArgCount);
+                for (int i = 0; i < varArgCount; i++) {
+                    Array.set(varArgsArray, i, convertArgument(args[fixedParams + i], varArgType));
+                }
+                converted[fixedParams] = varArgsArray;
             }
-            converted[fixedParams] = varArgsArray;
+        } catch (RuntimeException e) {
+            // 转换失败时同样归还已取出的数组，否则缓冲区栈顶一直被占用
+            if (reuseBuffers) {
+                releaseVarArgs(converted);
+            }
+            throw e;
+        }
+
+        return converted;
+    }
 
-            return converted;
+    /**
+     * 归还 convertVarArgs 从参数缓冲区取出的数组：先归还可变参数数组，再归还参数数组
+     */
+    private void releaseVarArgs(Object[] converted) {
+        Object varArgsArray = converted[converted.length - 1];
+        if (varArgsArray instanceof Object[] && varArgsArray.getClass() == Object[].class) {
+            argumentBuffers.release((Object[]) varArgsArray);
         }
+        argumentBuffers.release(converted);
     }
 
     /**
@@ -572,6 +699,10 @@ public class Interpreter implements ASTVisitor<Void> {
             return arg.toString();
         }
 
+        if (targetType == BigDecimal.class && arg instanceof Decimal) {
+            return ((Decimal) arg).toBigDecimal();
+        }
+
         if (targetType == Integer.class || targetType == int.class) {
             if (arg instanceof Number) {
                 return ((Number) arg).intValue();
@@ -592,6 +723,162 @@ public class Interpreter implements ASTVisitor<Void> {
         return arg;
     }
 
+    /**
+     * 宿主方法各参数位置是否延迟求值：同名且接受这个参数个数的重载都在该位置声明了 @Lazy 才延迟。
+     * 没有延迟参数、或找不到类时返回 null（错误留给调用时报告）
+     */
+    boolean[] lazyParameters(String className, String methodName, int argCount) {
+        Class<?> clazz;
+        try {
+            clazz = findClass(className);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        boolean[] result = null;
+        for (HostMethod method : hostMethods(clazz, methodName)) {
+            int fixed = method.varArgs ? method.parameterTypes.length - 1 : method.parameterTypes.length;
+            if (method.varArgs ? argCount < fixed : argCount != fixed) {
+                continue;
+            }
+            if (method.lazy == null) {
+                return null;
+            }
+            if (result == null) {
+                result = Arrays.copyOf(method.lazy, argCount);
+            } else {
+                for (int i = 0; i < argCount; i++) {
+                    result[i] &= i < fixed && method.lazy[i];
+                }
+            }
+        }
+        if (result != null) {
+            for (boolean lazy : result) {
+                if (lazy) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 运行时确定的调用目标（静态方法引用或方法名）对应的 {类名, 方法名}，不能确定时返回 null
+     */
+    String[] hostTarget(Object callee) {
+        if (callee instanceof StaticMethodReference) {
+            StaticMethodReference methodRef = (StaticMethodReference) callee;
+            return new String[]{methodRef.getClassName(), methodRef.getMethodName()};
+        }
+        if (callee instanceof String) {
+            Linker.Binding binding = linker.bind((String) callee);
+            return binding.kind == Linker.Kind.STATIC_METHOD ? new String[]{binding.className, binding.name} : null;
+        }
+        return null;
+    }
+
+    /**
+     * 调用有 @Lazy 参数的宿主方法：延迟的参数包装为 LazyArgument，由访问者在方法需要时求值，其余参数按顺序求值；
+     * 会改变变量的参数表达式即使在 @Lazy 位置也在调用前求值
+     */
+    Object callLazy(CallSiteCache cache, String className, String methodName,
+                    List<Expression> arguments, boolean[] lazy) {
+        Object[] args = new Object[arguments.size()];
+        for (int i = 0; i < args.length; i++) {
+            Expression argument = arguments.get(i);
+            if (!lazy[i]) {
+                args[i] = evaluate(argument);
+            } else if (Purity.isPure(argument)) {
+                args[i] = new LazyArgument(() -> evaluate(argument));
+            } else {
+                args[i] = LazyArgument.evaluated(evaluate(argument));
+            }
+        }
+        return cache.invoke(className, methodName, args);
+    }
+
+    /**
+     * 为内联缓存链接宿主方法：按与 callInternalMethod 相同的规则选择重载，
+     * 返回适配为 (Object[])Object 的方法句柄。参数转换依赖具体的值（如字符串解析）、
+     * 或目标不是可访问的静态方法时返回 null，由调用点对这组参数类型继续使用反射调用
+     */
+    MethodHandle linkHostMethod(String className, String methodName, Object[] args) {
+        try {
+            Class<?> clazz = findClass(className);
+            HostMethod method = clazz != null ? findBestMethod(clazz, methodName, args) : null;
+            if (method == null || !Modifier.isStatic(method.method.getModifiers())) {
+                return null;
+            }
+            // 免分配模式下可变参数数组来自缓冲区，不能由方法句柄每次新建
+            if (method.varArgs && isAllocationFree()) {
+                return null;
+            }
+
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method.method);
+            Class<?>[] paramTypes = method.parameterTypes;
+            int fixed = method.varArgs ? paramTypes.length - 1 : paramTypes.length;
+            if (method.varArgs) {
+                handle = handle.asCollector(paramTypes[fixed], args.length - fixed);
+            }
+            for (int i = 0; i < args.length; i++) {
+                Class<?> type = i < fixed ? paramTypes[i] : paramTypes[fixed].getComponentType();
+                MethodHandle converter = argumentConverter(args[i], type);
+                if (converter == null) {
+                    return null;
+                }
+                handle = MethodHandles.filterArguments(handle, i, converter);
+            }
+            return handle.asSpreader(Object[].class, args.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (RuntimeException | ReflectiveOperationException e) {
+            // 找不到类或方法等错误留给反射路径按原方式报告
+            return null;
+        }
+    }
+
+    /**
+     * 与 convertArgument 对这个参数的处理相同的转换句柄，类型为 (Object)type；
+     * 转换结果取决于具体值时返回 null
+     */
+    private static MethodHandle argumentConverter(Object arg, Class<?> type) throws ReflectiveOperationException {
+        MethodHandle identity = MethodHandles.identity(Object.class);
+        if (arg == null) {
+            return type.isPrimitive() ? null : identity.asType(MethodType.methodType(type, Object.class));
+        }
+        if (MethodType.methodType(type).wrap().returnType().isInstance(arg)) {
+            return identity.asType(MethodType.methodType(type, Object.class));
+        }
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        if (type == String.class) {
+            return lookup.findVirtual(Object.class, "toString", MethodType.methodType(String.class))
+                    .asType(MethodType.methodType(String.class, Object.class));
+        }
+        if (type == BigDecimal.class && arg instanceof Decimal) {
+            return lookup.findVirtual(Decimal.class, "toBigDecimal", MethodType.methodType(BigDecimal.class))
+                    .asType(MethodType.methodType(BigDecimal.class, Object.class));
+        }
+        if ((type == Integer.class || type == int.class) && arg instanceof Number) {
+            return lookup.findVirtual(Number.class, "intValue", MethodType.methodType(int.class))
+                    .asType(MethodType.methodType(type, Object.class));
+        }
+        if ((type == Double.class || type == double.class) && arg instanceof Number) {
+            return lookup.findVirtual(Number.class, "doubleValue", MethodType.methodType(double.class))
+                    .asType(MethodType.methodType(type, Object.class));
+        }
+        return null;
+    }
+
+    /**
+     * 树遍历模式下调用表达式对应的内联缓存
+     */
+    private CallSiteCache callSiteCache(Expression expr) {
+        CallSiteCache cache = callSiteCaches.get(expr);
+        if (cache == null) {
+            cache = new CallSiteCache(this);
+            callSiteCaches.put(expr, cache);
+        }
+        return cache;
+    }
+
     /**
      * 查找类
      */
@@ -619,26 +906,19 @@ public class Interpreter implements ASTVisitor<Void> {
     /**
      * 查找最佳匹配方法
      */
-    private Method findBestMethod(Class<?> clazz, String methodName, Object[] args) {
-        Method[] methods = clazz.getMethods();
-        List<Method> candidateMethods = new ArrayList<>();
+    private HostMethod findBestMethod(Class<?> clazz, String methodName, Object[] args) {
+        // 第一步：取出所有同名方法（按类缓存，避免每次复制 getMethods 的结果）
+        HostMethod[] candidateMethods = hostMethods(clazz, methodName);
 
-        // 第一步：收集所有同名方法
-        for (Method method : methods) {
-            if (method.getName().equals(methodName)) {
-                candidateMethods.add(method);
-            }
-        }
-
-        if (candidateMethods.isEmpty()) {
+        if (candidateMethods.length == 0) {
             return null;
         }
 
         // 第二步：寻找最匹配的方法
-        Method bestMethod = null;
+        HostMethod bestMethod = null;
         int bestScore = Integer.MAX_VALUE;
 
-        for (Method method : candidateMethods) {
+        for (HostMethod method : candidateMethods) {
             int score = calculateMethodMatchScore(method, args);
             if (score >= 0 && score < bestScore) {
                 bestScore = score;
@@ -649,9 +929,26 @@ public class Interpreter implements ASTVisitor<Void> {
         return bestMethod;
     }
 
-    private int calculateMethodMatchScore(Method method, Object[] args) {
-        Class<?>[] paramTypes = method.getParameterTypes();
-        boolean isVarArgs = method.isVarArgs();
+    private HostMethod[] hostMethods(Class<?> clazz, String methodName) {
+        Map<String, HostMethod[]> byName = hostMethodCache.get(clazz);
+        if (byName == null) {
+            Map<String, List<HostMethod>> grouped = new LinkedHashMap<>();
+            for (Method method : clazz.getMethods()) {
+                grouped.computeIfAbsent(method.getName(), k -> new ArrayList<>()).add(new HostMethod(method));
+            }
+            byName = new HashMap<>();
+            for (Map.Entry<String, List<HostMethod>> entry : grouped.entrySet()) {
+                byName.put(entry.getKey(), entry.getValue().toArray(new HostMethod[0]));
+            }
+            hostMethodCache.put(clazz, byName);
+        }
+        HostMethod[] methods = byName.get(methodName);
+        return methods != null ? methods : HostMethod.NONE;
+    }
+
+    private int calculateMethodMatchScore(HostMethod method, Object[] args) {
+        Class<?>[] paramTypes = method.parameterTypes;
+        boolean isVarArgs = method.varArgs;
 
         // 如果不是可变参数方法，参数个数必须完全匹配
         if (!isVarArgs) {
@@ -725,106 +1022,36 @@ public class Interpreter implements ASTVisitor<Void> {
                     (paramType == short.class && arg instanceof Short);
         }
 
+        // decimal 只传给接受 Decimal / BigDecimal / Number 的参数，不隐式变为 double
+        if (arg instanceof Decimal) {
+            return paramType.isInstance(arg) || paramType == BigDecimal.class;
+        }
+
         return paramType.isInstance(arg) ||
                 (paramType == String.class && arg instanceof String) ||
                 (Number.class.isAssignableFrom(paramType) && arg instanceof Number);
     }
 
-    /**
-     * 检查值是否与声明的类型兼容
-     */
-    private boolean isTypeCompatible(String expectedType, Object value) {
-        if (value == null) return true; // null 可以赋值给任何类型
-
-        switch (expectedType) {
-            case "int":
-            case "int32":
-                return value instanceof Integer ||
-                        (value instanceof String && canParseAsInt((String) value));
-            case "int8":
-            case "byte":
-                if (value instanceof Byte) return true;
-                if (value instanceof Integer) {
-                    int intValue = (Integer) value;
-                    return intValue >= Byte.MIN_VALUE && intValue <= Byte.MAX_VALUE;
-                }
-                if (value instanceof String) {
-                    return canParseAsByte((String) value);
-                }
-                return false;
-            case "int16":
-            case "short":
-                if (value instanceof Short) return true;
-                if (value instanceof Integer) {
-                    int intValue = (Integer) value;
-                    return intValue >= Short.MIN_VALUE && intValue <= Short.MAX_VALUE;
-                }
-                if (value instanceof String) {
-                    return canParseAsShort((String) value);
-                }
-                return false;
-            case "int64":
-            case "long":
-                return value instanceof Long || value instanceof Integer ||
-                        (value instanceof String && canParseAsLong((String) value));
-            case "double":
-                return value instanceof Double || value instanceof Integer ||
-                        (value instanceof String && canParseAsDouble((String) value));
-            case "float":
-                return value instanceof Float || value instanceof Integer ||
-                        value instanceof Double || (value instanceof String && canParseAsFloat((String) value));
-            case "bool":
-            case "boolean":
-                return value instanceof Boolean ||
-                        (value instanceof String && canParseAsBoolean((String) value));
-            case "string":
-                return true; // 任何类型都可以隐式转换为字符串
-            case "char":
-                return value instanceof Character ||
-                        (value instanceof String && ((String) value).length() == 1) ||
-                        (value instanceof Integer && isValidCharCode((Integer) value));
-            case "large":
-                // large 可以接受任何数值类型或可解析为数字的字符串
-                return value instanceof Integer || value instanceof Long ||
-                        value instanceof java.math.BigInteger ||
-                        (value instanceof String && canParseAsBigInteger((String) value));
-            default:
-                // 未知类型，允许任何赋值
-                return true;
-        }
-    }
-
     /**
      * 获取值的类型描述
      */
-    private String getValueType(Object value) {
-        if (value == null) return "null";
-        if (value instanceof Integer) return "int";
-        if (value instanceof Double) return "double";
-        if (value instanceof Float) return "float";
-        if (value instanceof Boolean) return "boolean";
-        if (value instanceof String) return "string";
-        if (value instanceof Character) return "char";
-        if (value instanceof Byte) return "byte";
-        if (value instanceof Short) return "short";
-        if (value instanceof Long) return "long";
-        if (value instanceof java.math.BigInteger) return "large";
-        return value.getClass().getSimpleName();
+    String getValueType(Object value) {
+        return Operations.typeName(value);
     }
 
     /**
      * 计算表达式的值
      */
-    private Object evaluate(Expression expr) {
-        return expr.accept(new ExpressionEvaluator());
+    Object evaluate(Expression expr) {
+        return expr.accept(evaluator);
     }
 
     @Override
     public Void visitTypeCastExpression(TypeCastExpression expr) {
         Object result = evaluate(expr);
-        this.lastResult = result;
+        setLastResult(result);
         if (result != null) {
-            debugger.debug("Type cast expression result: " + result);
+            debugger.debug(INTERPRETER, () -> "Type cast expression result: " + result);
         }
         return null;
     }
@@ -832,9 +1059,9 @@ public class Interpreter implements ASTVisitor<Void> {
     @Override
     public Void visitFractionExpression(FractionExpression expr) {
         Object result = evaluate(expr);
-        this.lastResult = result;
+        setLastResult(result);
         if (result != null) {
-            debugger.debug("Fraction expression result: " + result);
+            debugger.debug(INTERPRETER, () -> "Fraction expression result: " + result);
         }
         return null;
     }
@@ -851,16 +1078,16 @@ public class Interpreter implements ASTVisitor<Void> {
         @Override
         public Object visitTypeCastExpression(TypeCastExpression expr) {
             Object value = evaluate(expr.getExpression());
-            String targetType = expr.getTargetType();
+            VastType targetType = expr.getTargetType();
 
-            debugger.debug("Casting " + value + " (" + getValueType(value) +
+            debugger.debug(INTERPRETER, () -> "Casting " + value + " (" + getValueType(value) +
                     ") to " + targetType);
 
             Object result = Interpreter.this.performTypeCast(value, targetType,
                     expr.getLineNumber(), expr.getColumnNumber(),
                     expr.isExplicit());
 
-            debugger.debug("Result: " + result + " (" + getValueType(result) + ")");
+            debugger.debug(INTERPRETER, () -> "Result: " + result + " (" + getValueType(result) + ")");
 
             return result;
         }
@@ -878,31 +1105,21 @@ public class Interpreter implements ASTVisitor<Void> {
         public Object visitVariableExpression(VariableExpression expr) {
             String name = expr.getName();
 
-            // 首先检查是否是内置类名
-            Map<String, Class<?>> builtinClasses = VastVM.getBuiltinClasses();
-            if (builtinClasses.containsKey(name)) {
-                // 返回类名字符串，这样在成员访问时能识别为类
+            // 类名和唯一的静态方法名返回名称本身，在成员访问和函数调用中处理
+            Linker.Binding binding = linker.bind(name);
+            if (binding.isConstantName()) {
                 return name;
             }
-
-            // 然后检查是否是导入的类名
-            if (importedClasses.containsKey(name)) {
-                return name;
-            }
-
-            // 检查是否是唯一的静态方法名
-            String className = resolveClassNameForMethod(name, expr.getLineNumber(), expr.getColumnNumber());
-            if (className != null) {
-                debugger.debug("Variable expression resolved as static method: " + name + " -> " + className); // 改为 debug
-                return name; // 返回方法名字符串，在函数调用中处理
+            if (binding.kind == Linker.Kind.AMBIGUOUS) {
+                throw binding.ambiguity(expr.getLineNumber(), expr.getColumnNumber());
             }
 
-            // 最后检查变量
-            if (!variables.containsKey(name)) {
+            // 变量
+            if (!frame.isDefined(name)) {
                 String suggestion = errorSuggestor.suggestForUnknownVariable(name);
                 throw new VastExceptions.NonExistentObject(suggestion);
             }
-            return variables.get(name);
+            return frame.get(name);
         }
 
         @Override
@@ -913,8 +1130,8 @@ public class Interpreter implements ASTVisitor<Void> {
             // 如果是变量访问类静态成员（如 Sys.printl）
             if (left instanceof String) {
                 String className = (String) left;
-                // 返回一个包装对象，包含类名和成员名
-                return new StaticMethodReference(className, memberName);
+                // 返回一个包装对象，包含类名和成员名（同一类名和成员名复用同一个引用）
+                return methodReference(className, memberName);
             }
 
             // 其他情况处理...
@@ -930,31 +1147,44 @@ public class Interpreter implements ASTVisitor<Void> {
             Object value = evaluate(expr.getExpression());
             boolean isPermanent = expr.isPermanent();
 
-            debugger.debug("Fraction expression: " + expr + ", value: " + value +
+            debugger.debug(INTERPRETER, () -> "Fraction expression: " + expr + ", value: " + value +
                     ", permanent: " + isPermanent);
 
             // 创建分数对象
-            Fraction fraction = createFraction(value,
+            return Operations.createFraction(value, isPermanent,
                     expr.getLineNumber(), expr.getColumnNumber());
-            fraction.setPermanent(isPermanent);
-
-            return fraction;
         }
 
         @Override
         public Object visitFunctionCallExpression(FunctionCallExpression expr) {
             Object callee = evaluate(expr.getCallee());
 
+            String[] target = expr.getArguments().isEmpty() ? null : hostTarget(callee);
+            if (target != null) {
+                CallSiteCache cache = callSiteCache(expr);
+                boolean[] lazy = cache.lazyParameters(target[0], target[1], expr.getArguments().size());
+                if (lazy != null) {
+                    return callLazy(cache, target[0], target[1], expr.getArguments(), lazy);
+                }
+            }
+
             // 计算所有参数
-            Object[] args = new Object[expr.getArguments().size()];
-            for (int i = 0; i < expr.getArguments().size(); i++) {
-                args[i] = evaluate(expr.getArguments().get(i));
+            Object[] args = acquireArguments(expr.getArguments().size());
+            try {
+                for (int i = 0; i < expr.getArguments().size(); i++) {
+                    args[i] = evaluate(expr.getArguments().get(i));
+                }
+                return callFunction(expr, callee, args);
+            } finally {
+                releaseArguments(args);
             }
+        }
 
+        private Object callFunction(FunctionCallExpression expr, Object callee, Object[] args) {
             // 处理静态方法调用（如 Sys.print）
             if (callee instanceof StaticMethodReference) {
                 StaticMethodReference methodRef = (StaticMethodReference) callee;
-                return callInternalMethod(methodRef.getClassName(), methodRef.getMethodName(), args);
+                return callSiteCache(expr).invoke(methodRef.getClassName(), methodRef.getMethodName(), args);
             }
 
             // 处理省略类名的静态方法调用（如 printl()）
@@ -964,8 +1194,10 @@ public class Interpreter implements ASTVisitor<Void> {
                         expr.getLineNumber(), expr.getColumnNumber());
 
                 if (className != null) {
-                    debugger.debug("Resolved method '" + methodName + "' to class: " + className); // 改为 debug
-                    return callInternalMethod(className, methodName, args);
+                    if (debugger.isTraceEnabled(INTERPRETER)) {
+                        debugger.trace(INTERPRETER, "Resolved method '" + methodName + "' to class: " + className);
+                    }
+                    return callSiteCache(expr).invoke(className, methodName, args);
                 }
             }
 
@@ -981,47 +1213,45 @@ public class Interpreter implements ASTVisitor<Void> {
         public Object visitMethodCallExpression(MethodCallExpression expr) {
             String className = expr.getClassName().getName();
             String methodName = expr.getMethodName();
+            CallSiteCache cache = callSiteCache(expr);
 
-            // 计算所有参数
-            Object[] args = new Object[expr.getArguments().size()];
-            for (int i = 0; i < expr.getArguments().size(); i++) {
-                args[i] = evaluate(expr.getArguments().get(i));
+            boolean[] lazy = cache.lazyParameters(className, methodName, expr.getArguments().size());
+            if (lazy != null) {
+                return callLazy(cache, className, methodName, expr.getArguments(), lazy);
             }
 
-            // 调用内部方法
-            return Interpreter.this.callInternalMethod(className, methodName, args);
+            // 计算所有参数
+            Object[] args = acquireArguments(expr.getArguments().size());
+            try {
+                for (int i = 0; i < expr.getArguments().size(); i++) {
+                    args[i] = evaluate(expr.getArguments().get(i));
+                }
+
+                // 调用内部方法
+                return cache.invoke(className, methodName, args);
+            } finally {
+                releaseArguments(args);
+            }
         }
 
         @Override
         public Object visitBinaryExpression(BinaryExpression expr) {
             Object left = evaluate(expr.getLeft());
-            Object right = evaluate(expr.getRight());
 
+            // 逻辑与、或短路求值：左侧已经决定结果时不求值右侧
             switch (expr.getOperator()) {
-                case "+": return performAddition(left, right);
-                case "-": return performSubtraction(left, right);
-                case "*": return performMultiplication(left, right);
-                case "/": return performDivision(left, right);
-                case "**": return performPower(left, right);
-                case "//": return performIntegerDivision(left, right);
-                case "%": return performModulo(left, right);
-                case "++": return performNumberConcatenation(left, right);
-                case "==": return left.equals(right);
-                case "!=": return !left.equals(right);
-                case ">": return compareValues(left, right) > 0;
-                case "<": return compareValues(left, right) < 0;
-                case ">=": return compareValues(left, right) >= 0;
-                case "<=": return compareValues(left, right) <= 0;
-                case "AND": return toBoolean(left) && toBoolean(right);
-                case "OR": return toBoolean(left) || toBoolean(right);
-                case "XOR": return toBoolean(left) ^ toBoolean(right);
+                case "AND":
+                    return Operations.toBoolean(left) && Operations.toBoolean(evaluate(expr.getRight()));
+                case "OR":
+                    return Operations.toBoolean(left) || Operations.toBoolean(evaluate(expr.getRight()));
                 default:
-                    throw new VastExceptions.NotGrammarException(
-                            "Unknown operator: " + expr.getOperator(),
-                            expr.getLineNumber(),
-                            expr.getColumnNumber()
-                    );
+                    break;
             }
+
+            Object right = evaluate(expr.getRight());
+
+            return Operations.binary(expr.getOperator(), left, right,
+                    expr.getLineNumber(), expr.getColumnNumber());
         }
 
         @Override
@@ -1038,14 +1268,9 @@ public class Interpreter implements ASTVisitor<Void> {
                 case "--_POSTFIX":  // 后缀自减
                     return handlePostfixIncrement(expr.getRight(), -1);
                 case "-":
-                    if (right instanceof Integer) return -(Integer) right;
-                    if (right instanceof Double) return -(Double) right;
-                    throw new VastExceptions.MathError(
-                            "Unary - requires numeric operand",
-                            "Operand type: " + (right != null ? right.getClass().getSimpleName() : "null")
-                    );
+                    return Operations.negate(right);
                 case "NOT":
-                    return !toBoolean(right);
+                    return !Operations.toBoolean(right);
                 default:
                     throw new VastExceptions.NotGrammarException(
                             "Unknown unary operator: " + expr.getOperator(),
@@ -1055,26 +1280,6 @@ public class Interpreter implements ASTVisitor<Void> {
             }
         }
 
-        /**
-         * 执行幂运算
-         */
-        private Object performPower(Object left, Object right) {
-            checkNumberOperands(left, right);
-            double base = toDouble(left);
-            double exponent = toDouble(right);
-            double result = Math.pow(base, exponent);
-
-            // 如果操作数都是整数且指数非负，尝试返回整数结果
-            if (left instanceof Integer && right instanceof Integer && exponent >= 0) {
-                // 检查结果是否在整数范围内且没有精度损失
-                if (result <= Integer.MAX_VALUE && result >= Integer.MIN_VALUE &&
-                        result == Math.floor(result)) {
-                    return (int) result;
-                }
-            }
-            return result;
-        }
-
         /**
          * 处理前缀自增/自减
          */
@@ -1087,14 +1292,14 @@ public class Interpreter implements ASTVisitor<Void> {
             }
 
             String varName = ((VariableExpression) expr).getName();
-            Object currentValue = variables.get(varName);
+            Object currentValue = frame.get(varName);
 
             if (currentValue == null) {
                 throw VastExceptions.NonExistentObject.variableNotFound(varName);
             }
 
-            Object newValue = performIncrement(currentValue, increment);
-            variables.put(varName, newValue);
+            Object newValue = Operations.increment(currentValue, increment);
+            frame.set(varName, newValue);
 
             return newValue;
         }
@@ -1111,62 +1316,40 @@ public class Interpreter implements ASTVisitor<Void> {
             }
 
             String varName = ((VariableExpression) expr).getName();
-            Object currentValue = variables.get(varName);
+            Object currentValue = frame.get(varName);
 
             if (currentValue == null) {
                 throw VastExceptions.NonExistentObject.variableNotFound(varName);
             }
 
-            Object newValue = performIncrement(currentValue, increment);
-            variables.put(varName, newValue);
+            Object newValue = Operations.increment(currentValue, increment);
+            frame.set(varName, newValue);
 
             // 后缀运算符返回原始值
             return currentValue;
         }
 
-        /**
-         * 执行实际的增量操作
-         */
-        private Object performIncrement(Object value, int increment) {
-            if (value instanceof Integer) {
-                return (Integer) value + increment;
-            }
-            if (value instanceof Double) {
-                return (Double) value + increment;
-            }
-            if (value instanceof Fraction) {
-                Fraction fraction = (Fraction) value;
-                return new Fraction(fraction.getNumerator() + increment * fraction.getDenominator(),
-                        fraction.getDenominator());
-            }
-
-            throw new VastExceptions.MathError(
-                    "Cannot increment/decrement non-numeric value: " + value,
-                    "Increment operation"
-            );
-        }
-
         @Override
         public Object visitAssignmentExpression(AssignmentExpression expr) {
             Object value = evaluate(expr.getValue());
             String varName = expr.getVariableName();
 
-            debugger.debug("Assignment expression: " + varName + " = " + value +
+            debugger.debug(INTERPRETER, () -> "Assignment expression: " + varName + " = " + value +
                     " (value type: " + getValueType(value) + ")");
 
-            // 严格的类型检查
-            if (Interpreter.this.variableTypes.containsKey(varName)) {
-                String expectedType = Interpreter.this.variableTypes.get(varName);
-                debugger.debug("Variable '" + varName + "' has type constraint: " + expectedType);
+            // 严格的类型检查（类型推断已证明兼容时跳过）
+            if (!typeInferencer.isProven(expr) && frame.getType(varName) != null) {
+                VastType expectedType = frame.getType(varName);
+                debugger.debug(INTERPRETER, () -> "Variable '" + varName + "' has type constraint: " + expectedType);
 
                 Interpreter.this.validateTypeCompatibility(expectedType, value, varName,
                         expr.getLineNumber(), expr.getColumnNumber());
-                debugger.debug("Type check PASSED for " + varName);
+                debugger.debug(INTERPRETER, () -> "Type check PASSED for " + varName);
             } else {
-                debugger.debug("No type constraint for " + varName + ", allowing assignment");
+                debugger.debug(INTERPRETER, () -> "No type constraint for " + varName + ", allowing assignment");
             }
 
-            variables.put(varName, value);
+            frame.set(varName, value);
             return value;
         }
 
@@ -1182,409 +1365,45 @@ public class Interpreter implements ASTVisitor<Void> {
         @Override
         public Void visitLoopStatement(LoopStatement stmt) { return null; }
         @Override
+        public Void visitWhileStatement(WhileStatement stmt) { return null; }
+        @Override
+        public Void visitForStatement(ForStatement stmt) { return null; }
+        @Override
         public Void visitUseStatement(UseStatement stmt) { return null; }
         @Override
         public Void visitSwapStatement(SwapStatement stmt) { return null; }
 
-
-        //====================辅助方法=====================
-
-        private Fraction createFraction(Object value, int lineNumber, int columnNumber) {
-            try {
-                if (value instanceof Integer) {
-                    return new Fraction((Integer) value, 1);
-                } else if (value instanceof Double) {
-                    return Fraction.fromNumber(value);
-                } else if (value instanceof Fraction) {
-                    return (Fraction) value;  // 已经是分数，直接返回
-                } else {
-                    throw new VastExceptions.MathError(
-                            "Cannot create fraction from " + getValueType(value),
-                            lineNumber, columnNumber
-                    );
-                }
-            } catch (Exception e) {
-                throw new VastExceptions.MathError(
-                        "Failed to create fraction: " + e.getMessage(),
-                        lineNumber, columnNumber
-                );
-            }
-        }
-
-        private Object performIntegerDivision(Object left, Object right) {
-            checkNumberOperands(left, right);
-
-            // 处理分数的情况
-            if (left instanceof Fraction || right instanceof Fraction) {
-                Fraction leftFraction = toFraction(left);
-                Fraction rightFraction = toFraction(right);
-
-                if (rightFraction.getNumerator() == 0) {
-                    throw VastExceptions.MathError.divisionByZero();
-                }
-
-                // 分数地板除：转换为浮点数除法后取整
-                double result = leftFraction.toDouble() / rightFraction.toDouble();
-                return (int) Math.floor(result);
-            }
-
-            // 常规地板除
-            if (toDouble(right) == 0) {
-                throw VastExceptions.MathError.divisionByZero();
-            }
-
-            double result = toDouble(left) / toDouble(right);
-            return (int) Math.floor(result);
-        }
-
-        private Object performNumberConcatenation(Object left, Object right) {
-            if (right == null || (right instanceof String && ((String) right).isEmpty())) {
-                if (left instanceof Integer) {
-                    return (Integer) left + 1;
-                } else if (left instanceof Double) {
-                    return (Double) left + 1.0;
-                } else {
-                    throw new VastExceptions.MathError(
-                            "Cannot increment non-numeric value: " + left,
-                            "Increment operation"
-                    );
-                }
-            }
-
-            if (left == null || (left instanceof String && ((String) left).isEmpty())) {
-                if (right instanceof Integer) {
-                    return (Integer) right + 1;
-                } else if (right instanceof Double) {
-                    return (Double) right + 1.0;
-                } else {
-                    throw new VastExceptions.MathError(
-                            "Cannot increment non-numeric value: " + right,
-                            "Increment operation"
-                    );
-                }
-            }
-
-            String leftStr = String.valueOf(left).replaceAll("\\.0*$", "").replaceAll("\\.", "");
-            String rightStr = String.valueOf(right).replaceAll("\\.0*$", "").replaceAll("\\.", "");
-
-            try {
-                return Integer.parseInt(leftStr + rightStr);
-            } catch (NumberFormatException e) {
-                try {
-                    return Long.parseLong(leftStr + rightStr);
-                } catch (NumberFormatException e2) {
-                    throw new VastExceptions.MathError(
-                            "Number concatenation result is too large: " + leftStr + rightStr,
-                            "Concatenation operation"
-                    );
-                }
-            }
-        }
-
-        private Object performModulo(Object left, Object right) {
-            checkNumberOperands(left, right);
-            if (toDouble(right) == 0) {
-                throw VastExceptions.MathError.divisionByZero();
-            }
-            if (left instanceof Double || right instanceof Double) {
-                return toDouble(left) % toDouble(right);
-            }
-            return toInt(left) % toInt(right);
-        }
-
-        private Object performStringMultiplication(Object left, Object right) {
-            if (left instanceof String && right instanceof Number) {
-                String str = (String) left;
-                int count = toInt(right);
-                StringBuilder result = new StringBuilder();
-                for (int i = 0; i < count; i++) {
-                    result.append(str);
-                }
-                return result.toString();
-            }
-
-            if (left instanceof Number && right instanceof String) {
-                return performStringMultiplication(right, left);
-            }
-
-            throw new VastExceptions.NotGrammarException(
-                    "String repetition operation",
-                    "requires string and number operands, but got: " + left + " * " + right
-            );
-        }
-
-        private Object performAddition(Object left, Object right) {
-            // 处理 Fraction 对象的加法
-            if (left instanceof Fraction || right instanceof Fraction) {
-                return performFractionAddition(left, right);
-            }
-
-            if (left instanceof Double && right instanceof Double) {
-                return (Double) left + (Double) right;
-            }
-            if (left instanceof Integer && right instanceof Integer) {
-                return (Integer) left + (Integer) right;
-            }
-            if (left instanceof String || right instanceof String) {
-                return stringify(left) + stringify(right);
-            }
-            throw new VastExceptions.MathError(
-                    "Operands must be two numbers or two strings",
-                    "Addition operation with operands: " + left + " + " + right
-            );
-        }
-
-        /**
-         * 处理 Fraction 对象的加法运算
-         */
-        private Object performFractionAddition(Object left, Object right) {
-            Fraction leftFraction = toFraction(left);
-            Fraction rightFraction = toFraction(right);
-
-            // 使用 Sys 类中的分数加法方法
-            return Sys.fractionAdd(leftFraction, rightFraction);
-        }
-
-        /**
-         * 将对象转换为 Fraction
-         */
-        private Fraction toFraction(Object obj) {
-            if (obj instanceof Fraction) {
-                return (Fraction) obj;
-            }
-            if (obj instanceof Integer) {
-                return new Fraction((Integer) obj, 1);
-            }
-            if (obj instanceof Double) {
-                return Fraction.fromNumber(obj);
-            }
-            if (obj instanceof String) {
-                return Sys.parseFraction((String) obj);
-            }
-            throw new VastExceptions.MathError(
-                    "Cannot convert to fraction: " + obj,
-                    "Type conversion"
-            );
-        }
-
-        private Object performSubtraction(Object left, Object right) {
-            // 处理 Fraction 对象的减法
-            if (left instanceof Fraction || right instanceof Fraction) {
-                Fraction leftFraction = toFraction(left);
-                Fraction rightFraction = toFraction(right);
-                return Sys.fractionSubtract(leftFraction, rightFraction);
-            }
-
-            checkNumberOperands(left, right);
-            if (left instanceof Double || right instanceof Double) {
-                return toDouble(left) - toDouble(right);
-            }
-            return toInt(left) - toInt(right);
-        }
-
-        private Object performMultiplication(Object left, Object right) {
-            // 处理字符串重复运算
-            if ((left instanceof String && right instanceof Number) ||
-                    (left instanceof Number && right instanceof String)) {
-                return performStringMultiplication(left, right);
-            }
-
-            // 处理 Fraction 对象的乘法
-            if (left instanceof Fraction || right instanceof Fraction) {
-                Fraction leftFraction = toFraction(left);
-                Fraction rightFraction = toFraction(right);
-                return Sys.fractionMultiply(leftFraction, rightFraction);
-            }
-
-            checkNumberOperands(left, right);
-            if (left instanceof Double || right instanceof Double) {
-                return toDouble(left) * toDouble(right);
-            }
-            return toInt(left) * toInt(right);
-        }
-
-        private Object performDivision(Object left, Object right) {
-            // 处理 Fraction 对象的除法
-            if (left instanceof Fraction || right instanceof Fraction) {
-                Fraction leftFraction = toFraction(left);
-                Fraction rightFraction = toFraction(right);
-                if (rightFraction.getNumerator() == 0) {
-                    throw VastExceptions.MathError.divisionByZero();
-                }
-                return Sys.fractionDivide(leftFraction, rightFraction);
-            }
-
-            checkNumberOperands(left, right);
-            if (toDouble(right) == 0) {
-                throw VastExceptions.MathError.divisionByZero();
-            }
-            return toDouble(left) / toDouble(right);
-        }
-
-        private int compareValues(Object left, Object right) {
-            // 处理 Fraction 对象的比较
-            if (left instanceof Fraction || right instanceof Fraction) {
-                Fraction leftFraction = toFraction(left);
-                Fraction rightFraction = toFraction(right);
-                return Sys.fractionCompare(leftFraction, rightFraction);
-            }
-
-            if (left instanceof Double && right instanceof Double) {
-                return Double.compare((Double) left, (Double) right);
-            }
-            if (left instanceof Integer && right instanceof Integer) {
-                return Integer.compare((Integer) left, (Integer) right);
-            }
-            if (left instanceof String && right instanceof String) {
-                return ((String) left).compareTo((String) right);
-            }
-            throw new VastExceptions.NotGrammarException(
-                    "Comparison operation",
-                    "Cannot compare values of different types: " + left + " and " + right
-            );
-        }
-
-        private void checkNumberOperands(Object left, Object right) {
-            if (!(left instanceof Number && right instanceof Number)) {
-                throw new VastExceptions.MathError(
-                        "Operands must be numbers",
-                        "Operation with operands: " + left + " and " + right
-                );
-            }
-        }
-
-        private double toDouble(Object obj) {
-            if (obj instanceof Integer) return ((Integer) obj).doubleValue();
-            if (obj instanceof Double) return (Double) obj;
-            throw new VastExceptions.MathError(
-                    "Cannot convert to double: " + obj,
-                    "Type conversion"
-            );
-        }
-
-        private int toInt(Object obj) {
-            if (obj instanceof Integer) return (Integer) obj;
-            if (obj instanceof Double) return ((Double) obj).intValue();
-            throw new VastExceptions.MathError(
-                    "Cannot convert to int: " + obj,
-                    "Type conversion"
-            );
-        }
-
-        private String stringify(Object object) {
-            if (object == null) return "null";
-            return object.toString();
-        }
-
-        private boolean toBoolean(Object obj) {
-            if (obj instanceof Boolean) return (Boolean) obj;
-            if (obj instanceof Number) return ((Number) obj).doubleValue() != 0;
-            if (obj instanceof String) return !((String) obj).isEmpty();
-            return obj != null;
-        }
-    }
-
-    private boolean canParseAsInt(String str) {
-        try {
-            Integer.parseInt(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean canParseAsByte(String str) {
-        try {
-            Byte.parseByte(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean canParseAsShort(String str) {
-        try {
-            Short.parseShort(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean canParseAsLong(String str) {
-        try {
-            Long.parseLong(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean canParseAsDouble(String str) {
-        try {
-            Double.parseDouble(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean canParseAsFloat(String str) {
-        try {
-            Float.parseFloat(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean canParseAsBoolean(String str) {
-        String lower = str.toLowerCase();
-        return lower.equals("true") || lower.equals("false") ||
-                lower.equals("1") || lower.equals("0");
-    }
-
-    private boolean canParseAsBigInteger(String str) {
-        try {
-            new java.math.BigInteger(str);
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-
-    private boolean isValidCharCode(int code) {
-        return code >= Character.MIN_VALUE && code <= Character.MAX_VALUE;
     }
 
     /**
      * 执行类型转换
      */
-    private Object performTypeCast(Object value, String targetType,
-                                   int lineNumber, int columnNumber, boolean isExplicit) {
+    public Object performTypeCast(Object value, VastType targetType,
+                                  int lineNumber, int columnNumber, boolean isExplicit) {
         if (value == null) {
             return null;
         }
 
         try {
-            switch (targetType) {
-                case "int":
-                case "int32":
+            switch (targetType.getCast()) {
+                case INT:
                     return castToInt(value, isExplicit, lineNumber, columnNumber);
 
-                case "bool":
-                case "boolean":
+                case BOOLEAN:
                     return castToBoolean(value, isExplicit, lineNumber, columnNumber);
 
-                case "string":
+                case STRING:
                     return castToString(value);
 
-                case "double":
+                case DOUBLE:
                     return castToDouble(value, isExplicit, lineNumber, columnNumber);
 
-                case "char":
+                case CHAR:
                     return castToChar(value, isExplicit, lineNumber, columnNumber);
 
+                case DECIMAL:
+                    return castToDecimal(value, lineNumber, columnNumber);
+
                 default:
                     // 未知类型，返回原值
                     if (!isExplicit) {
@@ -1602,62 +1421,30 @@ public class Interpreter implements ASTVisitor<Void> {
         }
     }
 
-    private Object performAutoConversion(Object value, String targetType,
-                                         int lineNumber, int columnNumber) {
-        if (value == null) return null;
-
-        String actualType = getValueType(value);
-        if (actualType.equals(targetType)) {
-            return value; // 类型相同，无需转换
-        }
-
-        // 处理常见的自动类型转换
-        switch (targetType) {
-            case "int":
-            case "int32":
-                if (value instanceof String) {
-                    try {
-                        return Integer.parseInt((String) value);
-                    } catch (NumberFormatException e) {
-                        // 这里不会发生，因为已经在 isTypeCompatible 中检查过
-                        return 0;
-                    }
-                }
-                break;
-            case "double":
-                if (value instanceof String) {
-                    try {
-                        return Double.parseDouble((String) value);
-                    } catch (NumberFormatException e) {
-                        return 0.0;
-                    }
-                }
-                if (value instanceof Integer) {
-                    return ((Integer) value).doubleValue();
-                }
-                break;
-            case "bool":
-            case "boolean":
-                if (value instanceof String) {
-                    String str = ((String) value).toLowerCase();
-                    return str.equals("true") || str.equals("1");
-                }
-                if (value instanceof Integer) {
-                    return ((Integer) value) != 0;
-                }
-                break;
-            // 可以添加更多自动转换规则...
-        }
-
-        return value; // 无法自动转换，返回原值
-    }
-
     /**
      * 转换为整数
      */
     private Object castToInt(Object value, boolean isExplicit, int lineNumber, int columnNumber) {
         if (value instanceof Integer) return value;
         if (value instanceof Double) return ((Double) value).intValue();
+        if (value instanceof Long || value instanceof java.math.BigInteger) {
+            Object narrowed = Operations.narrow(Operations.toBigInteger(value));
+            if (narrowed instanceof Integer) return narrowed;
+            // 超出 int 范围时报错，不静默截断
+            throw new VastExceptions.MathError(
+                    "Cannot convert " + getValueType(value) + " to int: " + value + " is out of int range",
+                    lineNumber, columnNumber
+            );
+        }
+        if (value instanceof Decimal) {
+            // 舍去小数部分，超出 int 范围时报错
+            java.math.BigInteger truncated = ((Decimal) value).toBigDecimal().toBigInteger();
+            if (truncated.bitLength() < 32) return truncated.intValue();
+            throw new VastExceptions.MathError(
+                    "Cannot convert decimal to int: " + value + " is out of int range",
+                    lineNumber, columnNumber
+            );
+        }
         if (value instanceof Boolean) return (Boolean) value ? 1 : 0;
         if (value instanceof String) {
             String str = (String) value;
@@ -1733,6 +1520,9 @@ public class Interpreter implements ASTVisitor<Void> {
     private Object castToDouble(Object value, boolean isExplicit, int lineNumber, int columnNumber) {
         if (value instanceof Double) return value;
         if (value instanceof Integer) return ((Integer) value).doubleValue();
+        if (value instanceof Long || value instanceof java.math.BigInteger || value instanceof Decimal) {
+            return ((Number) value).doubleValue();
+        }
         if (value instanceof String) {
             try {
                 return Double.parseDouble((String) value);
@@ -1749,6 +1539,29 @@ public class Interpreter implements ASTVisitor<Void> {
         );
     }
 
+    /**
+     * 转换为定点十进制数：整数精确转换，double 按最短十进制表示转换，分数按 34 位有效数字舍入
+     */
+    private Object castToDecimal(Object value, int lineNumber, int columnNumber) {
+        if (value instanceof Decimal) return value;
+        if (value instanceof Fraction) return Decimal.valueOf((Fraction) value);
+        if (Operations.isDecimalOperand(value)) return Operations.toDecimal(value);
+        if (value instanceof String) {
+            try {
+                return Decimal.parse((String) value);
+            } catch (NumberFormatException e) {
+                throw new VastExceptions.MathError(
+                        "Cannot convert string to decimal: '" + value + "' is not a decimal number",
+                        lineNumber, columnNumber
+                );
+            }
+        }
+        throw new VastExceptions.MathError(
+                "Cannot convert " + getValueType(value) + " to decimal",
+                lineNumber, columnNumber
+        );
+    }
+
     /**
      * 转换为字符
      */
@@ -1787,7 +1600,74 @@ public class Interpreter implements ASTVisitor<Void> {
     }
 
     // 静态方法引用辅助类
-    private static class StaticMethodReference {
+    /**
+     * 获取预建的静态方法引用，同一类名和成员名只创建一次
+     */
+    StaticMethodReference methodReference(String className, String memberName) {
+        Map<String, StaticMethodReference> members = methodReferences.get(className);
+        if (members == null) {
+            members = new HashMap<>();
+            methodReferences.put(className, members);
+        }
+        StaticMethodReference reference = members.get(memberName);
+        if (reference == null) {
+            reference = new StaticMethodReference(className, memberName);
+            members.put(memberName, reference);
+        }
+        return reference;
+    }
+
+    /**
+     * 免分配模式下从缓冲区取参数数组，否则新建
+     */
+    Object[] acquireArguments(int count) {
+        return isAllocationFree() ? argumentBuffers.acquire(count) : new Object[count];
+    }
+
+    void releaseArguments(Object[] args) {
+        if (isAllocationFree()) {
+            argumentBuffers.release(args);
+        }
+    }
+
+    private boolean isAllocationFree() {
+        return vm != null && vm.isAllocationFree();
+    }
+
+    /**
+     * 缓存的宿主方法信息（避免每次调用都复制参数类型数组）
+     */
+    private static final class HostMethod {
+        static final HostMethod[] NONE = new HostMethod[0];
+
+        final Method method;
+        final Class<?>[] parameterTypes;
+        final boolean varArgs;
+        final boolean[] lazy;// 各固定参数是否为 @Lazy 参数，没有时为 null
+
+        HostMethod(Method method) {
+            this.method = method;
+            this.parameterTypes = method.getParameterTypes();
+            this.varArgs = method.isVarArgs();
+            this.lazy = lazyParameters(method, varArgs ? parameterTypes.length - 1 : parameterTypes.length);
+        }
+
+        private static boolean[] lazyParameters(Method method, int fixed) {
+            boolean[] lazy = null;
+            for (int i = 0; i < fixed; i++) {
+                Class<?> type = method.getParameterTypes()[i];
+                if (method.getParameters()[i].isAnnotationPresent(Lazy.class) && type.isAssignableFrom(Supplier.class)) {
+                    if (lazy == null) {
+                        lazy = new boolean[fixed];
+                    }
+                    lazy[i] = true;
+                }
+            }
+            return lazy;
+        }
+    }
+
+    static class StaticMethodReference {
         private final String className;
         private final String methodName;
 
@@ -1808,6 +1688,108 @@ public class Interpreter implements ASTVisitor<Void> {
 
 
     public Object getLastResult() {
+        if (lastResultTag == Frame.INT) {
+            setLastResult((int) lastResultBits);
+        } else if (lastResultTag == Frame.DOUBLE) {
+            setLastResult(Double.longBitsToDouble(lastResultBits));
+        } else if (lastResultTag == Frame.STRING) {
+            setLastResult(((StringBuilder) lastResult).substring(0, (int) lastResultBits));
+        }
         return lastResult;
     }
+
+    public Frame getFrame() {
+        return frame;
+    }
+
+    public int getCompiledLoopCount() {
+        return loopCompiler.getCompiledLoops();
+    }
+
+    public int getDeoptimizationCount() {
+        return loopCompiler.getDeoptimizations();
+    }
+
+    // ====== 供闭包执行层访问的解释器状态 ======
+
+    Map<String, Class<?>> importedClasses() {
+        return importedClasses;
+    }
+
+    /**
+     * 当前导入的类（只读）
+     */
+    public Map<String, Class<?>> getImportedClasses() {
+        return Collections.unmodifiableMap(importedClasses);
+    }
+
+    Debugger debugger() {
+        return debugger;
+    }
+
+    SmartErrorSuggestor errorSuggestor() {
+        return errorSuggestor;
+    }
+
+    LoopCompiler loopCompiler() {
+        return loopCompiler;
+    }
+
+    VastVM vm() {
+        return vm;
+    }
+
+    int importEpoch() {
+        return importEpoch;
+    }
+
+    /**
+     * 宿主方法链接版本：导入语句或库加载、清理后改变，内联缓存据此失效
+     */
+    int linkEpoch() {
+        return importEpoch + VastLibraryLoader.getInstance().getGeneration();
+    }
+
+    void recordInlineCacheHit() {
+        inlineCacheHits++;
+    }
+
+    void recordInlineCacheMiss() {
+        inlineCacheMisses++;
+    }
+
+    public long getInlineCacheHits() {
+        return inlineCacheHits;
+    }
+
+    public long getInlineCacheMisses() {
+        return inlineCacheMisses;
+    }
+
+    void setLastResult(Object lastResult) {
+        this.lastResult = lastResult;
+        this.lastResultTag = Frame.BOXED;
+    }
+
+    /**
+     * 记录不装箱的结果，在 getLastResult 时才生成包装对象
+     */
+    void setLastResultInt(int value) {
+        this.lastResultBits = value;
+        this.lastResultTag = Frame.INT;
+    }
+
+    void setLastResultDouble(double value) {
+        this.lastResultBits = Double.doubleToRawLongBits(value);
+        this.lastResultTag = Frame.DOUBLE;
+    }
+
+    /**
+     * 记录字符串槽位缓冲区的当前内容（见 Frame.append），在 getLastResult 时才生成 String
+     */
+    void setLastResultString(StringBuilder builder) {
+        this.lastResult = builder;
+        this.lastResultBits = builder.length();
+        this.lastResultTag = Frame.STRING;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.vast.interpreter;
+
+import java.util.function.Supplier;
+
+/**
+ * 传给宿主方法 @Lazy 参数的延迟求值参数
+ * 第一次 get() 时求值参数表达式并缓存结果，之后不再求值
+ */
+final class LazyArgument implements Supplier<Object> {
+    private EvalNode expression;// 求值后置为 null
+    private Object value;
+
+    LazyArgument(EvalNode expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * 已经求值的参数（参数表达式会改变变量，必须在调用前按顺序求值）
+     */
+    static LazyArgument evaluated(Object value) {
+        LazyArgument argument = new LazyArgument(null);
+        argument.value = value;
+        return argument;
+    }
+
+    @Override
+    public Object get() {
+        EvalNode pending = expression;
+        if (pending != null) {
+            value = pending.eval();
+            expression = null;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
@@ -0,0 +1,355 @@
+package com.vast.interpreter;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Debugger;
+import com.vast.internal.VastExceptions;
+import com.vast.vm.VastLibraryLoader;
+import com.vast.vm.VastVM;
+
+import java.util.*;
+
+import static com.vast.internal.Debugger.Category.INTERPRETER;
+
+/**
+ * 链接器
+ * 在执行前遍历整个程序一次，把每个标识符绑定为内置类、导入类、唯一静态方法或变量，
+ * 并提前报告有歧义的方法名和不存在的名称。绑定结果按名称记录在符号表中，
+ * 只有导入语句或库加载改变可见的类时（链接版本变化）才重新计算
+ */
+final class Linker implements ASTVisitor<Void> {
+
+    /**
+     * 标识符的绑定类型
+     */
+    enum Kind {
+        BUILTIN_CLASS,
+        IMPORTED_CLASS,
+        STATIC_METHOD,
+        AMBIGUOUS,
+        VARIABLE
+    }
+
+    /**
+     * 一个名称的绑定结果
+     */
+    static final class Binding {
+        final String name;
+        final Kind kind;
+        final String className;// STATIC_METHOD 时为方法所属的类
+        final Set<String> candidates;// AMBIGUOUS 时为提供同名方法的所有类
+
+        private Binding(String name, Kind kind, String className, Set<String> candidates) {
+            this.name = name;
+            this.kind = kind;
+            this.className = className;
+            this.candidates = candidates;
+        }
+
+        /**
+         * 类名和静态方法名在求值时得到名称本身
+         */
+        boolean isConstantName() {
+            return kind == Kind.BUILTIN_CLASS || kind == Kind.IMPORTED_CLASS || kind == Kind.STATIC_METHOD;
+        }
+
+        VastExceptions.AmbiguousReferenceException ambiguity(int lineNumber, int columnNumber) {
+            return VastExceptions.AmbiguousReferenceException.forMethod(name, candidates, lineNumber, columnNumber);
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case STATIC_METHOD:
+                    return name + " -> " + className + "." + name;
+                case AMBIGUOUS:
+                    return name + " -> ambiguous " + candidates;
+                default:
+                    return name + " -> " + kind.name().toLowerCase();
+            }
+        }
+    }
+
+    private final Interpreter interpreter;
+    private final Frame frame;
+    private final Map<String, Class<?>> importedClasses;
+    private final Debugger debugger;
+    private final Map<String, Binding> bindings = new HashMap<>();//符号表
+    private final Map<String, Set<String>> staticMethods = new HashMap<>();//内置类和导入类的静态方法名到类名
+    private final Set<String> assigned = new HashSet<>();//已链接程序中被赋值的名称，优先按变量处理
+    private int epoch = -1;
+
+    // 单次链接的遍历状态
+    private final List<VariableExpression> references = new ArrayList<>();
+    private boolean importsNames;
+
+    Linker(Interpreter interpreter, Frame frame, Map<String, Class<?>> importedClasses) {
+        this.interpreter = interpreter;
+        this.frame = frame;
+        this.importedClasses = importedClasses;
+        this.debugger = interpreter.debugger();
+    }
+
+    /**
+     * 链接程序：记录赋值的名称并绑定所有被读取的标识符，返回绑定的引用数。
+     * 程序中没有导入语句时，不存在的名称在执行前报错
+     */
+    int link(Program program) {
+        references.clear();
+        importsNames = false;
+        statements(program.getStatements());
+
+        for (VariableExpression reference : references) {
+            Binding binding = bind(reference.getName());
+            if (binding.kind == Kind.AMBIGUOUS) {
+                throw binding.ambiguity(reference.getLineNumber(), reference.getColumnNumber());
+            }
+            // 导入语句可能在运行时引入新的类名或方法名，这时留到求值时再检查
+            if (binding.kind == Kind.VARIABLE && !importsNames &&
+                    !assigned.contains(binding.name) && !frame.isDefined(binding.name)) {
+                throw new VastExceptions.NonExistentObject(
+                        interpreter.errorSuggestor().suggestForUnknownVariable(binding.name));
+            }
+        }
+
+        int linked = references.size();
+        references.clear();
+        return linked;
+    }
+
+    /**
+     * 查找名称的绑定，链接版本变化时先清空符号表
+     */
+    Binding bind(String name) {
+        int current = interpreter.linkEpoch();
+        if (current != epoch) {
+            rebuild();
+            epoch = current;
+        }
+        Binding binding = bindings.get(name);
+        if (binding == null) {
+            binding = resolve(name);
+            bindings.put(name, binding);
+            if (debugger.isTraceEnabled(INTERPRETER)) {
+                debugger.trace(INTERPRETER, "Linked " + binding);
+            }
+        }
+        return binding;
+    }
+
+    private Binding resolve(String name) {
+        if (VastVM.getBuiltinClasses().containsKey(name)) {
+            return new Binding(name, Kind.BUILTIN_CLASS, null, null);
+        }
+        if (importedClasses.containsKey(name)) {
+            return new Binding(name, Kind.IMPORTED_CLASS, null, null);
+        }
+        // 脚本变量和宿主预先设置的变量遮蔽同名的静态方法
+        if (assigned.contains(name) || frame.isDefined(name)) {
+            return new Binding(name, Kind.VARIABLE, null, null);
+        }
+
+        Set<String> classes = new TreeSet<>(staticMethods.getOrDefault(name, Collections.emptySet()));
+        VastLibraryLoader loader = VastLibraryLoader.getInstance();
+        Set<String> conflicts = loader.getMethodConflicts().get(name);
+        if (conflicts != null) {
+            classes.addAll(conflicts);
+        } else if (loader.getMethodClass(name) != null) {
+            classes.add(loader.getMethodClass(name));
+        }
+
+        if (classes.size() == 1) {
+            return new Binding(name, Kind.STATIC_METHOD, classes.iterator().next(), null);
+        }
+        if (classes.size() > 1) {
+            return new Binding(name, Kind.AMBIGUOUS, null, Collections.unmodifiableSet(classes));
+        }
+        return new Binding(name, Kind.VARIABLE, null, null);
+    }
+
+    /**
+     * 重新收集内置类和导入类的静态方法，清空已有绑定
+     */
+    private void rebuild() {
+        bindings.clear();
+        staticMethods.clear();
+        for (Map.Entry<String, Class<?>> entry : VastVM.getBuiltinClasses().entrySet()) {
+            collectStaticMethods(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Class<?>> entry : importedClasses.entrySet()) {
+            collectStaticMethods(entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Set<String>> entry : staticMethods.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                debugger.warning("Method name conflict: '" + entry.getKey() +
+                        "' exists in multiple classes: " + entry.getValue());
+            }
+        }
+        debugger.debug(INTERPRETER, () -> "Static method table rebuilt with " + staticMethods.size() + " method names");
+    }
+
+    private void collectStaticMethods(String className, Class<?> clazz) {
+        try {
+            for (java.lang.reflect.Method method : clazz.getMethods()) {
+                if (java.lang.reflect.Modifier.isStatic(method.getModifiers())) {
+                    staticMethods.computeIfAbsent(method.getName(), k -> new TreeSet<>()).add(className);
+                }
+            }
+        } catch (Exception e) {
+            debugger.warning("Failed to collect static methods from class: " + className);
+        }
+    }
+
+    private void assign(String name) {
+        // 之前按静态方法绑定的名称变为变量
+        if (assigned.add(name)) {
+            bindings.remove(name);
+        }
+    }
+
+    private void statements(List<Statement> statements) {
+        for (Statement stmt : statements) {
+            stmt.accept(this);
+        }
+    }
+
+    private void expressions(List<Expression> expressions) {
+        for (Expression expr : expressions) {
+            expr.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitLiteralExpression(LiteralExpression expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpression(VariableExpression expr) {
+        references.add(expr);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpression(BinaryExpression expr) {
+        expr.getLeft().accept(this);
+        expr.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpression(UnaryExpression expr) {
+        expr.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentExpression(AssignmentExpression expr) {
+        assign(expr.getVariableName());
+        expr.getValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitMemberAccessExpression(MemberAccessExpression expr) {
+        expr.getObject().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionCallExpression(FunctionCallExpression expr) {
+        expr.getCallee().accept(this);
+        expressions(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Void visitMethodCallExpression(MethodCallExpression expr) {
+        expressions(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Void visitTypeCastExpression(TypeCastExpression expr) {
+        expr.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitFractionExpression(FractionExpression expr) {
+        expr.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration stmt) {
+        assign(stmt.getVariableName());
+        if (stmt.getInitialValue() != null) {
+            stmt.getInitialValue().accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentStatement(AssignmentStatement stmt) {
+        assign(stmt.getVariableName());
+        stmt.getValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(ExpressionStatement stmt) {
+        stmt.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitImportStatement(ImportStatement stmt) {
+        importsNames = true;
+        return null;
+    }
+
+    @Override
+    public Void visitLoopStatement(LoopStatement stmt) {
+        stmt.getCondition().accept(this);
+        statements(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStatement(WhileStatement stmt) {
+        stmt.getCondition().accept(this);
+        statements(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitForStatement(ForStatement stmt) {
+        assign(stmt.getVariableName());
+        stmt.getStart().accept(this);
+        stmt.getEnd().accept(this);
+        statements(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitUseStatement(UseStatement stmt) {
+        stmt.getMethodCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitSwapStatement(SwapStatement stmt) {
+        stmt.getVarA().accept(this);
+        stmt.getVarB().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        stmt.getTypeCastExpression().accept(this);
+        return null;
+    }
+}
@@ -0,0 +1,1059 @@
+package com.vast.interpreter;
+
+import com.vast.ast.Expression;
+import com.vast.ast.Statement;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Debugger;
+import com.vast.vm.VastVM;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.vast.interpreter.ClassFileWriter.*;
+import static com.vast.internal.Debugger.Category.JIT;
+
+/**
+ * 热循环编译器
+ * 把循环体编译为一个 JVM 隐藏类，让 JIT 可以内联运算和宿主方法调用。
+ * 能直接翻译的语句和表达式生成字节码，其余部分调用原有的闭包节点；
+ * 编译时依赖的假设（导入状态、变量类型表）在每次调用闭包语句节点后检查，失效时返回恢复点
+ */
+final class LoopCompiler {
+    private static final String PACKAGE = "com/vast/interpreter/";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String OBJECT_DESC = "Ljava/lang/Object;";
+    private static final String FRAME = PACKAGE + "Frame";
+    private static final String FRAME_DESC = "L" + FRAME + ";";
+    private static final String INTERPRETER = PACKAGE + "Interpreter";
+    private static final String INTERPRETER_DESC = "L" + INTERPRETER + ";";
+    private static final String EXEC_NODE = PACKAGE + "ExecNode";
+    private static final String EVAL_NODE = PACKAGE + "EvalNode";
+    private static final String MATH = "java/lang/Math";
+    private static final String OPERATIONS = PACKAGE + "Operations";
+    private static final String RUNTIME = PACKAGE + "LoopRuntime";
+    private static final String BINARY_DESC = "(" + OBJECT_DESC + OBJECT_DESC + ")" + OBJECT_DESC;
+
+    // run 方法的局部变量布局
+    private static final int LOCAL_START = 1;
+    private static final int LOCAL_COUNT = 2;
+    private static final int LOCAL_INDEX = 3;
+    private static final int LOCAL_FRAME = 4;
+    private static final int LOCAL_INTERPRETER = 5;
+    private static final int FIRST_TEMP = 6;
+
+    private static final Map<String, String> BINARY_OPERATIONS = new LinkedHashMap<>();
+
+    static {
+        BINARY_OPERATIONS.put("+", OPERATIONS + ".add");
+        BINARY_OPERATIONS.put("-", OPERATIONS + ".subtract");
+        BINARY_OPERATIONS.put("*", OPERATIONS + ".multiply");
+        BINARY_OPERATIONS.put("/", OPERATIONS + ".divide");
+        BINARY_OPERATIONS.put("**", OPERATIONS + ".power");
+        BINARY_OPERATIONS.put("//", OPERATIONS + ".integerDivide");
+        BINARY_OPERATIONS.put("%", OPERATIONS + ".modulo");
+        BINARY_OPERATIONS.put("++", OPERATIONS + ".numberConcatenation");
+        BINARY_OPERATIONS.put("==", RUNTIME + ".equal");
+        BINARY_OPERATIONS.put("!=", RUNTIME + ".notEqual");
+        BINARY_OPERATIONS.put(">", RUNTIME + ".greater");
+        BINARY_OPERATIONS.put("<", RUNTIME + ".less");
+        BINARY_OPERATIONS.put(">=", RUNTIME + ".greaterOrEqual");
+        BINARY_OPERATIONS.put("<=", RUNTIME + ".lessOrEqual");
+        BINARY_OPERATIONS.put("XOR", RUNTIME + ".xor");
+    }
+
+    private final Interpreter interpreter;
+    private final ClosureCompiler closureCompiler;
+    private final Debugger debugger;
+
+    private int compiledLoops = 0;
+    private int deoptimizations = 0;
+    private int failures = 0;
+
+    LoopCompiler(Interpreter interpreter, ClosureCompiler closureCompiler) {
+        this.interpreter = interpreter;
+        this.closureCompiler = closureCompiler;
+        this.debugger = interpreter.debugger();
+    }
+
+    boolean isEnabled() {
+        VastVM vm = interpreter.vm();
+        return vm == null || vm.isJitEnabled();
+    }
+
+    int threshold() {
+        VastVM vm = interpreter.vm();
+        return vm != null ? vm.getJitThreshold() : VastVM.DEFAULT_JIT_THRESHOLD;
+    }
+
+    int getCompiledLoops() {
+        return compiledLoops;
+    }
+
+    int getDeoptimizations() {
+        return deoptimizations;
+    }
+
+    void recordDeoptimization(Statement stmt) {
+        deoptimizations++;
+        if (debugger.isDebugEnabled(JIT)) {
+            debugger.debug(JIT, "JIT deoptimized loop at line " + stmt.getLineNumber());
+        }
+    }
+
+    /**
+     * 编译循环体，失败时返回 null（继续使用闭包节点）
+     */
+    CompiledLoop compile(LoopStatement stmt, ExecNode[] body) {
+        return compile(stmt, stmt.getBody(), body, null, -1);
+    }
+
+    /**
+     * 编译 while 循环：条件在编译后的代码中求值，恢复点的语句序号为循环体长度时表示下一步是检查条件
+     */
+    CompiledLoop compileWhile(WhileStatement stmt, ExecNode[] body) {
+        return compile(stmt, stmt.getBody(), body, stmt.getCondition(), -1);
+    }
+
+    /**
+     * 编译 for 循环：迭代序号即循环变量的值，每次迭代开始时以不装箱的 int 写入槽位 slot
+     */
+    CompiledLoop compileFor(ForStatement stmt, int slot, ExecNode[] body) {
+        return compile(stmt, stmt.getBody(), body, null, slot);
+    }
+
+    private CompiledLoop compile(Statement stmt, List<Statement> statements, ExecNode[] body,
+                                 Expression condition, int induction) {
+        int id = compiledLoops + failures;
+        try {
+            Assembly assembly = new Assembly(PACKAGE + "VastLoop" + id, statements, body, condition, induction);
+            byte[] bytes = assembly.generate();
+            dump(assembly.writer.getClassName(), bytes);
+
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class,
+                    Interpreter.class, Frame.class, Object[].class, ExecNode[].class, EvalNode[].class));
+            CompiledLoop loop = (CompiledLoop) constructor.invoke(interpreter, interpreter.getFrame(),
+                    assembly.constants.toArray(), assembly.execNodes.toArray(new ExecNode[0]),
+                    assembly.evalNodes.toArray(new EvalNode[0]));
+
+            compiledLoops++;
+            if (debugger.isDebugEnabled(JIT)) {
+                debugger.debug(JIT, "JIT compiled loop at line " + stmt.getLineNumber() + ": " +
+                        body.length + " statements, " + assembly.delegated + " delegated, " +
+                        bytes.length + " bytes");
+            }
+            return loop;
+        } catch (Throwable e) {
+            failures++;
+            if (debugger.isDebugEnabled(JIT)) {
+                debugger.debug(JIT, "JIT compilation failed for loop at line " + stmt.getLineNumber() + ": " + e);
+            }
+            return null;
+        }
+    }
+
+    private void dump(String className, byte[] bytes) {
+        VastVM vm = interpreter.vm();
+        String directory = vm != null ? vm.getJitDumpDirectory() : null;
+        if (directory == null || directory.isEmpty()) {
+            return;
+        }
+        try {
+            Path dir = Paths.get(directory);
+            Files.createDirectories(dir);
+            Path file = dir.resolve(className.substring(className.lastIndexOf('/') + 1) + ".class");
+            Files.write(file, bytes);
+            debugger.log("JIT class dumped: " + file);
+        } catch (IOException e) {
+            debugger.warning("Failed to dump JIT class " + className + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * 单个循环的生成过程
+     */
+    private final class Assembly {
+        private final ClassFileWriter writer;
+        private final List<Statement> statements;
+        private final ExecNode[] nodes;
+        private final Expression condition;// while 循环的条件，计数循环为 null
+        private final int induction;// for 循环变量的槽位，没有时为 -1
+        private final Frame frame;
+        private final boolean debug;
+        private final int importEpoch;
+        private final int typeEpoch;
+
+        private final List<Object> constants = new ArrayList<>();
+        private final List<ExecNode> execNodes = new ArrayList<>();
+        private final List<EvalNode> evalNodes = new ArrayList<>();
+        private final Map<Integer, Label> resumeLabels = new LinkedHashMap<>();
+        private final Map<String, Label> hostHandlers = new LinkedHashMap<>();
+        private final Map<Integer, Label> overflowHandlers = new LinkedHashMap<>();
+        private int delegated = 0;
+        private int nextTemp = FIRST_TEMP;
+
+        private ClassFileWriter.Code code;
+
+        Assembly(String className, List<Statement> statements, ExecNode[] nodes, Expression condition, int induction) {
+            this.writer = new ClassFileWriter(className, OBJECT, PACKAGE + "CompiledLoop");
+            this.statements = statements;
+            this.nodes = nodes;
+            this.condition = condition;
+            this.induction = induction;
+            this.frame = interpreter.getFrame();
+            this.debug = debugger.isDebugEnabled(Debugger.Category.INTERPRETER);
+            this.importEpoch = interpreter.importEpoch();
+            this.typeEpoch = frame.typeEpoch();
+        }
+
+        byte[] generate() {
+            code = writer.method(ACC_PUBLIC, "run", "(II)J", 3);
+            code.aload(0);
+            code.getfield(writer.getClassName(), "frame", FRAME_DESC);
+            code.astore(LOCAL_FRAME);
+            code.aload(0);
+            code.getfield(writer.getClassName(), "interpreter", INTERPRETER_DESC);
+            code.astore(LOCAL_INTERPRETER);
+            code.iload(LOCAL_START);
+            code.istore(LOCAL_INDEX);
+            // while 循环从条件开始执行，恢复时先检查条件
+            guard(condition != null ? statements.size() : 0);
+
+            Label loop = code.newLabel();
+            Label done = code.newLabel();
+            code.place(loop);
+            if (condition != null) {
+                condition(condition, done);
+            } else {
+                code.iload(LOCAL_INDEX);
+                code.iload(LOCAL_COUNT);
+                code.jump(IF_ICMPGE, done);
+            }
+            if (induction >= 0) {
+                code.aload(LOCAL_FRAME);
+                code.iconst(induction);
+                code.iload(LOCAL_INDEX);
+                code.invokevirtual(FRAME, "storeInt", "(II)V");
+            }
+            for (int k = 0; k < statements.size(); k++) {
+                statement(statements.get(k), k);
+            }
+            code.iinc(LOCAL_INDEX, 1);
+            code.jump(GOTO, loop);
+
+            code.place(done);
+            code.op(ICONST_M1, 1);
+            code.op(I2L, 1);
+            code.terminate(LRETURN);
+
+            // int 溢出：丢弃异常，从这条语句回到闭包节点（结果提升为 long）
+            for (Map.Entry<Integer, Label> entry : overflowHandlers.entrySet()) {
+                code.placeHandler(entry.getValue());
+                code.op(POP, -1);
+                code.jump(GOTO, resumeLabels.get(entry.getKey()));
+            }
+
+            // 恢复点：返回 (迭代序号, 下一条语句序号)
+            for (Map.Entry<Integer, Label> entry : resumeLabels.entrySet()) {
+                code.place(entry.getValue());
+                code.iload(LOCAL_INDEX);
+                code.iconst(entry.getKey());
+                code.invokestatic(RUNTIME, "resumePoint", "(II)J");
+                code.terminate(LRETURN);
+            }
+
+            // 宿主方法异常处理
+            for (Map.Entry<String, Label> entry : hostHandlers.entrySet()) {
+                String[] target = entry.getKey().split("#", 2);
+                code.placeHandler(entry.getValue());
+                code.ldc(target[0]);
+                code.ldc(target[1]);
+                code.invokestatic(RUNTIME, "hostFailure",
+                        "(Ljava/lang/Throwable;Ljava/lang/String;Ljava/lang/String;)Ljava/lang/RuntimeException;");
+                code.terminate(ATHROW);
+            }
+            code.end();
+
+            generateFieldsAndConstructor();
+            return writer.toByteArray();
+        }
+
+        private void generateFieldsAndConstructor() {
+            String owner = writer.getClassName();
+            writer.field(ACC_PRIVATE | ACC_FINAL, "interpreter", INTERPRETER_DESC);
+            writer.field(ACC_PRIVATE | ACC_FINAL, "frame", FRAME_DESC);
+            for (int i = 0; i < constants.size(); i++) {
+                writer.field(ACC_PRIVATE | ACC_FINAL, "c" + i, OBJECT_DESC);
+            }
+            for (int i = 0; i < execNodes.size(); i++) {
+                writer.field(ACC_PRIVATE | ACC_FINAL, "s" + i, "L" + EXEC_NODE + ";");
+            }
+            for (int i = 0; i < evalNodes.size(); i++) {
+                writer.field(ACC_PRIVATE | ACC_FINAL, "e" + i, "L" + EVAL_NODE + ";");
+            }
+
+            ClassFileWriter.Code init = writer.method(ACC_PUBLIC, "<init>", "(" + INTERPRETER_DESC + FRAME_DESC +
+                    "[" + OBJECT_DESC + "[L" + EXEC_NODE + ";[L" + EVAL_NODE + ";)V", 6);
+            init.aload(0);
+            init.invokespecial(OBJECT, "<init>", "()V");
+            init.aload(0);
+            init.aload(1);
+            init.putfield(owner, "interpreter", INTERPRETER_DESC);
+            init.aload(0);
+            init.aload(2);
+            init.putfield(owner, "frame", FRAME_DESC);
+            unpack(init, 3, "c", constants.size(), OBJECT_DESC);
+            unpack(init, 4, "s", execNodes.size(), "L" + EXEC_NODE + ";");
+            unpack(init, 5, "e", evalNodes.size(), "L" + EVAL_NODE + ";");
+            init.terminate(RETURN);
+            init.end();
+        }
+
+        private void unpack(ClassFileWriter.Code init, int arrayLocal, String prefix, int size, String descriptor) {
+            for (int i = 0; i < size; i++) {
+                init.aload(0);
+                init.aload(arrayLocal);
+                init.iconst(i);
+                init.op(AALOAD, -1);
+                init.putfield(writer.getClassName(), prefix + i, descriptor);
+            }
+        }
+
+        /**
+         * 检查编译时的假设，失效时跳转到恢复点 (当前迭代, next)
+         */
+        private void guard(int next) {
+            Label resume = resumeLabels.computeIfAbsent(next, k -> code.newLabel());
+            code.aload(LOCAL_INTERPRETER);
+            code.invokevirtual(INTERPRETER, "importEpoch", "()I");
+            code.iconst(importEpoch);
+            code.jump(IF_ICMPNE, resume);
+            code.aload(LOCAL_FRAME);
+            code.invokevirtual(FRAME, "typeEpoch", "()I");
+            code.iconst(typeEpoch);
+            code.jump(IF_ICMPNE, resume);
+        }
+
+        // ====== 语句 ======
+
+        private void statement(Statement stmt, int index) {
+            if (primitiveStatement(stmt, index)) {
+                return;
+            }
+            if (stmt instanceof ExpressionStatement && !(nodes[index] instanceof StringAppendNode)) {
+                code.aload(LOCAL_INTERPRETER);
+                expression(((ExpressionStatement) stmt).getExpression());
+                setLastResult();
+            } else if (stmt instanceof UseStatement) {
+                code.aload(LOCAL_INTERPRETER);
+                expression(((UseStatement) stmt).getMethodCall());
+                setLastResult();
+            } else if (stmt instanceof AssignmentStatement && isFreeAssignment((AssignmentStatement) stmt)) {
+                AssignmentStatement assignment = (AssignmentStatement) stmt;
+                code.aload(LOCAL_INTERPRETER);
+                storeSlot(frame.declare(assignment.getVariableName()), assignment.getValue());
+                setLastResult();
+            } else {
+                // 声明、强类型赋值、字符串追加、交换、导入、嵌套循环等：调用闭包节点，之后重新检查假设
+                code.aload(0);
+                code.getfield(writer.getClassName(), "s" + execNodes.size(), "L" + EXEC_NODE + ";");
+                execNodes.add(nodes[index]);
+                code.invokeinterface(EXEC_NODE, "execute", "()V");
+                delegated++;
+                guard(index + 1);
+            }
+        }
+
+        /**
+         * while 条件，为假时跳转到 exit。两侧按槽位中的 int（或 double）不装箱计算的比较直接比较原始值，
+         * 不生成 Boolean；读取的槽位类型变化或 int 溢出时回到闭包节点重新求值条件
+         */
+        private void condition(Expression expr, Label exit) {
+            if (!debug && expr instanceof BinaryExpression) {
+                BinaryExpression binary = (BinaryExpression) expr;
+                int exitJump = negatedComparison(binary.getOperator());
+                Map<Integer, Byte> reads = new LinkedHashMap<>();
+                byte left = exitJump != 0 ? primitiveType(binary.getLeft(), reads) : Frame.BOXED;
+                byte right = exitJump != 0 ? primitiveType(binary.getRight(), reads) : Frame.BOXED;
+                if (left != Frame.BOXED && left == right) {
+                    int index = statements.size();
+                    guardTags(reads, index);
+                    primitive(binary.getLeft(), index);
+                    primitive(binary.getRight(), index);
+                    if (left == Frame.INT) {
+                        code.jump(exitJump, exit);
+                    } else {
+                        // 与 BinaryNode 的 double 比较一致（Double.compare 语义）
+                        code.invokestatic("java/lang/Double", "compare", "(DD)I");
+                        code.jump(exitJump - (IF_ICMPEQ - IFEQ), exit);
+                    }
+                    return;
+                }
+            }
+            expression(expr);
+            code.invokestatic(OPERATIONS, "toBoolean", "(" + OBJECT_DESC + ")Z");
+            code.jump(IFEQ, exit);
+        }
+
+        /**
+         * 比较不成立时跳转的 int 比较指令，不是比较运算符时返回 0
+         */
+        private int negatedComparison(String operator) {
+            switch (operator) {
+                case "<": return IF_ICMPGE;
+                case "<=": return IF_ICMPGT;
+                case ">": return IF_ICMPLE;
+                case ">=": return IF_ICMPLT;
+                case "==": return IF_ICMPNE;
+                case "!=": return IF_ICMPEQ;
+                default: return 0;
+            }
+        }
+
+        /**
+         * 编译时变量没有类型约束的自由赋值（类型表变化会触发去优化，所以无需在运行时检查）
+         */
+        private boolean isFreeAssignment(AssignmentStatement stmt) {
+            if (stmt.getTypeHint() != null || debug) {
+                return false;
+            }
+            int slot = frame.slotOf(stmt.getVariableName());
+            return slot < 0 || frame.typeOf(slot) == null;
+        }
+
+        /**
+         * 按槽位中不装箱的 int / double 生成赋值或自增语句，值全程不装箱。
+         * 先检查读取的槽位仍是编译时的原始类型，不是时从这条语句回到闭包节点
+         */
+        private boolean primitiveStatement(Statement stmt, int index) {
+            if (debug) {
+                return false;
+            }
+            Expression expr = stmt instanceof ExpressionStatement ? ((ExpressionStatement) stmt).getExpression() : null;
+            String varName;
+            Expression value;
+            AssignmentExpression typed = null;// 目标变量有类型约束的赋值表达式
+            if (stmt instanceof AssignmentStatement && isFreeAssignment((AssignmentStatement) stmt)) {
+                varName = ((AssignmentStatement) stmt).getVariableName();
+                value = ((AssignmentStatement) stmt).getValue();
+            } else if (expr instanceof AssignmentExpression) {
+                varName = ((AssignmentExpression) expr).getVariableName();
+                value = ((AssignmentExpression) expr).getValue();
+                int slot = frame.slotOf(varName);
+                if (slot >= 0 && frame.typeOf(slot) != null) {
+                    typed = (AssignmentExpression) expr;
+                }
+            } else if (expr instanceof UnaryExpression) {
+                return primitiveIncrement((UnaryExpression) expr, index);
+            } else {
+                return false;
+            }
+
+            Map<Integer, Byte> reads = new LinkedHashMap<>();
+            byte type = primitiveType(value, reads);
+            if (type == Frame.BOXED) {
+                return false;
+            }
+            // 有类型约束的变量只有在类型推断证明接受任何该原始类型的值时才直接写入
+            if (typed != null && !interpreter.typeAccepts(typed, type == Frame.INT ? Integer.class : Double.class)) {
+                return false;
+            }
+            guardTags(reads, index);
+            int slot = frame.declare(varName);
+            int temp = nextTemp;
+            nextTemp += 2;
+            primitive(value, index);
+            storePrimitive(slot, type, temp);
+            code.aload(LOCAL_INTERPRETER);
+            if (type == Frame.INT) {
+                code.iload(temp);
+                code.invokevirtual(INTERPRETER, "setLastResultInt", "(I)V");
+            } else {
+                code.dload(temp);
+                code.invokevirtual(INTERPRETER, "setLastResultDouble", "(D)V");
+            }
+            return true;
+        }
+
+        private boolean primitiveIncrement(UnaryExpression expr, int index) {
+            String operator = expr.getOperator();
+            if (!operator.startsWith("++") && !operator.startsWith("--") ||
+                    !(expr.getRight() instanceof VariableExpression)) {
+                return false;
+            }
+            VariableExpression target = (VariableExpression) expr.getRight();
+            int slot = frame.slotOf(target.getName());
+            if (slot < 0 || closureCompiler.resolveConstantName(target) != null) {
+                return false;
+            }
+            byte type = frame.tagOf(slot);
+            if (type != Frame.INT && type != Frame.DOUBLE) {
+                return false;
+            }
+            Map<Integer, Byte> reads = new LinkedHashMap<>();
+            reads.put(slot, type);
+            guardTags(reads, index);
+
+            int increment = operator.startsWith("++") ? 1 : -1;
+            int old = nextTemp;
+            int updated = nextTemp + 2;
+            nextTemp += 4;
+            code.aload(LOCAL_FRAME);
+            code.iconst(slot);
+            if (type == Frame.INT) {
+                code.invokevirtual(FRAME, "loadInt", "(I)I");
+                code.op(DUP, 1);
+                code.istore(old);
+                code.iconst(increment);
+                exact("addExact", "(II)I", index);
+            } else {
+                code.invokevirtual(FRAME, "loadDouble", "(I)D");
+                code.dstore(old);
+                code.dload(old);
+                code.dconst(increment);
+                code.op(DADD, -2);
+            }
+            storePrimitive(slot, type, updated);
+
+            // 后缀返回原始值，前缀返回新值
+            int result = operator.endsWith("_POSTFIX") ? old : updated;
+            code.aload(LOCAL_INTERPRETER);
+            if (type == Frame.INT) {
+                code.iload(result);
+                code.invokevirtual(INTERPRETER, "setLastResultInt", "(I)V");
+            } else {
+                code.dload(result);
+                code.invokevirtual(INTERPRETER, "setLastResultDouble", "(D)V");
+            }
+            return true;
+        }
+
+        /**
+         * 检查槽位的存储方式与编译时相同，不同时跳转到恢复点 (当前迭代, index)
+         */
+        private void guardTags(Map<Integer, Byte> reads, int index) {
+            Label resume = resumeLabels.computeIfAbsent(index, k -> code.newLabel());
+            for (Map.Entry<Integer, Byte> read : reads.entrySet()) {
+                code.aload(LOCAL_FRAME);
+                code.iconst(read.getKey());
+                code.invokevirtual(FRAME, "tagOf", "(I)B");
+                code.iconst(read.getValue());
+                code.jump(IF_ICMPNE, resume);
+            }
+        }
+
+        /**
+         * 把栈顶的 int / double 保存到临时变量并写入槽位
+         */
+        private void storePrimitive(int slot, byte type, int temp) {
+            if (type == Frame.INT) {
+                code.istore(temp);
+                code.aload(LOCAL_FRAME);
+                code.iconst(slot);
+                code.iload(temp);
+                code.invokevirtual(FRAME, "storeInt", "(II)V");
+            } else {
+                code.dstore(temp);
+                code.aload(LOCAL_FRAME);
+                code.iconst(slot);
+                code.dload(temp);
+                code.invokevirtual(FRAME, "storeDouble", "(ID)V");
+            }
+        }
+
+        /**
+         * 按编译时槽位的存储方式推断表达式能否不装箱地计算，返回 Frame.INT、Frame.DOUBLE 或 Frame.BOXED；
+         * 读取的槽位及其类型记录在 reads 中，执行时需要检查
+         */
+        private byte primitiveType(Expression expr, Map<Integer, Byte> reads) {
+            if (expr instanceof LiteralExpression) {
+                Object value = ((LiteralExpression) expr).getValue();
+                return value instanceof Integer ? Frame.INT : value instanceof Double ? Frame.DOUBLE : Frame.BOXED;
+            }
+            if (expr instanceof VariableExpression) {
+                VariableExpression variable = (VariableExpression) expr;
+                int slot = frame.slotOf(variable.getName());
+                if (slot < 0 || closureCompiler.resolveConstantName(variable) != null) {
+                    return Frame.BOXED;
+                }
+                byte tag = frame.tagOf(slot);
+                if (tag != Frame.INT && tag != Frame.DOUBLE) {
+                    return Frame.BOXED;
+                }
+                reads.put(slot, tag);
+                return tag;
+            }
+            if (expr instanceof UnaryExpression && ((UnaryExpression) expr).getOperator().equals("-")) {
+                return primitiveType(((UnaryExpression) expr).getRight(), reads);
+            }
+            if (expr instanceof BinaryExpression) {
+                BinaryExpression binary = (BinaryExpression) expr;
+                if (!"+-*/%".contains(binary.getOperator()) || binary.getOperator().length() != 1) {
+                    return Frame.BOXED;
+                }
+                byte left = primitiveType(binary.getLeft(), reads);
+                byte right = primitiveType(binary.getRight(), reads);
+                if (left == Frame.BOXED || left != right) {
+                    return Frame.BOXED;
+                }
+                // int 除法的结果为 double
+                return binary.getOperator().equals("/") ? Frame.DOUBLE : left;
+            }
+            return Frame.BOXED;
+        }
+
+        /**
+         * 生成不装箱的表达式（已由 primitiveType 确认可以计算），返回栈顶值的类型。
+         * int 的加、减、乘、取负用 Math.*Exact 计算，溢出时从第 index 条语句回到闭包节点
+         */
+        private byte primitive(Expression expr, int index) {
+            if (expr instanceof LiteralExpression) {
+                Object value = ((LiteralExpression) expr).getValue();
+                if (value instanceof Integer) {
+                    code.iconst((Integer) value);
+                    return Frame.INT;
+                }
+                code.dconst((Double) value);
+                return Frame.DOUBLE;
+            }
+            if (expr instanceof VariableExpression) {
+                int slot = frame.slotOf(((VariableExpression) expr).getName());
+                code.aload(LOCAL_FRAME);
+                code.iconst(slot);
+                if (frame.tagOf(slot) == Frame.INT) {
+                    code.invokevirtual(FRAME, "loadInt", "(I)I");
+                    return Frame.INT;
+                }
+                code.invokevirtual(FRAME, "loadDouble", "(I)D");
+                return Frame.DOUBLE;
+            }
+            if (expr instanceof UnaryExpression) {
+                byte type = primitive(((UnaryExpression) expr).getRight(), index);
+                if (type == Frame.INT) {
+                    exact("negateExact", "(I)I", index);
+                } else {
+                    code.op(DNEG, 0);
+                }
+                return type;
+            }
+
+            BinaryExpression binary = (BinaryExpression) expr;
+            byte type = primitive(binary.getLeft(), index);
+            primitive(binary.getRight(), index);
+            if (type == Frame.INT) {
+                switch (binary.getOperator()) {
+                    case "+": exact("addExact", "(II)I", index); return Frame.INT;
+                    case "-": exact("subtractExact", "(II)I", index); return Frame.INT;
+                    case "*": exact("multiplyExact", "(II)I", index); return Frame.INT;
+                    case "%": code.invokestatic(RUNTIME, "intModulo", "(II)I"); return Frame.INT;
+                    default: code.invokestatic(RUNTIME, "intDivide", "(II)D"); return Frame.DOUBLE;
+                }
+            }
+            switch (binary.getOperator()) {
+                case "+": code.op(DADD, -2); break;
+                case "-": code.op(DSUB, -2); break;
+                case "*": code.op(DMUL, -2); break;
+                case "%": code.invokestatic(RUNTIME, "doubleModulo", "(DD)D"); break;
+                default: code.invokestatic(RUNTIME, "doubleDivide", "(DD)D"); break;
+            }
+            return Frame.DOUBLE;
+        }
+
+        /**
+         * 调用 Math 的溢出检查运算，ArithmeticException 由第 index 条语句的溢出处理器接收
+         */
+        private void exact(String methodName, String descriptor, int index) {
+            int start = code.pc();
+            code.invokestatic(MATH, methodName, descriptor);
+            code.tryRange(start, code.pc(), overflowHandlers.computeIfAbsent(index, k -> code.newLabel()),
+                    "java/lang/ArithmeticException");
+        }
+
+        private void setLastResult() {
+            code.invokevirtual(INTERPRETER, "setLastResult", "(" + OBJECT_DESC + ")V");
+        }
+
+        private void storeSlot(int slot, Expression value) {
+            code.aload(LOCAL_FRAME);
+            code.iconst(slot);
+            expression(value);
+            code.invokestatic(RUNTIME, "store", "(" + FRAME_DESC + "I" + OBJECT_DESC + ")" + OBJECT_DESC);
+        }
+
+        // ====== 表达式（结果留在操作数栈上） ======
+
+        private void expression(Expression expr) {
+            if (expr instanceof LiteralExpression) {
+                literal(((LiteralExpression) expr).getValue());
+            } else if (expr instanceof VariableExpression) {
+                variable((VariableExpression) expr);
+            } else if (expr instanceof BinaryExpression) {
+                binary((BinaryExpression) expr);
+            } else if (expr instanceof UnaryExpression) {
+                unary((UnaryExpression) expr);
+            } else if (expr instanceof AssignmentExpression) {
+                AssignmentExpression assignment = (AssignmentExpression) expr;
+                int slot = frame.declare(assignment.getVariableName());
+                if (frame.typeOf(slot) == null || interpreter.typeProven(assignment)) {
+                    storeSlot(slot, assignment.getValue());
+                } else {
+                    delegate(expr);
+                }
+            } else if (expr instanceof FunctionCallExpression) {
+                FunctionCallExpression call = (FunctionCallExpression) expr;
+                String[] target = closureCompiler.resolveCallTarget(call);
+                if (target != null && !hasLazyParameters(target[0], target[1], call.getArguments())) {
+                    hostCall(target[0], target[1], call.getArguments());
+                } else {
+                    delegate(expr);
+                }
+            } else if (expr instanceof MethodCallExpression) {
+                MethodCallExpression call = (MethodCallExpression) expr;
+                String className = call.getClassName().getName();
+                if (!hasLazyParameters(className, call.getMethodName(), call.getArguments())) {
+                    hostCall(className, call.getMethodName(), call.getArguments());
+                } else {
+                    delegate(expr);
+                }
+            } else {
+                delegate(expr);
+            }
+        }
+
+        /**
+         * 目标方法有 @Lazy 参数时由闭包节点调用，参数不在调用前求值
+         */
+        private boolean hasLazyParameters(String className, String methodName, List<Expression> arguments) {
+            return !arguments.isEmpty() && interpreter.lazyParameters(className, methodName, arguments.size()) != null;
+        }
+
+        private void delegate(Expression expr) {
+            code.aload(0);
+            code.getfield(writer.getClassName(), "e" + evalNodes.size(), "L" + EVAL_NODE + ";");
+            evalNodes.add(closureCompiler.expression(expr));
+            code.invokeinterface(EVAL_NODE, "eval", "()" + OBJECT_DESC);
+        }
+
+        private void literal(Object value) {
+            if (value == null) {
+                code.op(ACONST_NULL, 1);
+            } else if (value instanceof String) {
+                code.ldc((String) value);
+            } else {
+                code.aload(0);
+                code.getfield(writer.getClassName(), "c" + constants.size(), OBJECT_DESC);
+                constants.add(value);
+            }
+        }
+
+        private void variable(VariableExpression expr) {
+            String constantName = closureCompiler.resolveConstantName(expr);
+            if (constantName != null) {
+                code.ldc(constantName);
+                return;
+            }
+            code.aload(LOCAL_FRAME);
+            code.iconst(frame.declare(expr.getName()));
+            code.invokevirtual(FRAME, "load", "(I)" + OBJECT_DESC);
+            // 未赋值时由闭包节点处理（可能是运行中新导入的类，或给出错误建议）
+            code.aload(0);
+            code.getfield(writer.getClassName(), "e" + evalNodes.size(), "L" + EVAL_NODE + ";");
+            evalNodes.add(closureCompiler.expression(expr));
+            code.invokestatic(RUNTIME, "orElse", "(" + OBJECT_DESC + "L" + EVAL_NODE + ";)" + OBJECT_DESC);
+        }
+
+        private void binary(BinaryExpression expr) {
+            boolean and = expr.getOperator().equals("AND");
+            if (and || expr.getOperator().equals("OR")) {
+                logical(expr, and);
+                return;
+            }
+            String operation = BINARY_OPERATIONS.get(expr.getOperator());
+            if (operation == null) {
+                delegate(expr);
+                return;
+            }
+            expression(expr.getLeft());
+            expression(expr.getRight());
+            int dot = operation.lastIndexOf('.');
+            code.invokestatic(operation.substring(0, dot), operation.substring(dot + 1), BINARY_DESC);
+        }
+
+        /**
+         * 逻辑与、或短路求值：左侧为假（或为真）时直接得到 false（true），否则结果为右侧的真值
+         */
+        private void logical(BinaryExpression expr, boolean and) {
+            Label shortCircuit = code.newLabel();
+            Label done = code.newLabel();
+            expression(expr.getLeft());
+            code.invokestatic(OPERATIONS, "toBoolean", "(" + OBJECT_DESC + ")Z");
+            code.jump(and ? IFEQ : IFNE, shortCircuit);
+            expression(expr.getRight());
+            code.invokestatic(RUNTIME, "truth", "(" + OBJECT_DESC + ")" + OBJECT_DESC);
+            code.jump(GOTO, done);
+            code.place(shortCircuit);
+            code.getstatic("java/lang/Boolean", and ? "FALSE" : "TRUE", "Ljava/lang/Boolean;");
+            code.place(done);
+        }
+
+        private void unary(UnaryExpression expr) {
+            String operator = expr.getOperator();
+            switch (operator) {
+                case "-":
+                    expression(expr.getRight());
+                    code.invokestatic(OPERATIONS, "negate", "(" + OBJECT_DESC + ")" + OBJECT_DESC);
+                    return;
+                case "NOT":
+                    expression(expr.getRight());
+                    code.invokestatic(RUNTIME, "not", "(" + OBJECT_DESC + ")" + OBJECT_DESC);
+                    return;
+                case "++":
+                case "--":
+                case "++_POSTFIX":
+                case "--_POSTFIX":
+                    if (expr.getRight() instanceof VariableExpression) {
+                        VariableExpression target = (VariableExpression) expr.getRight();
+                        code.aload(LOCAL_FRAME);
+                        code.iconst(frame.declare(target.getName()));
+                        code.iconst(operator.startsWith("++") ? 1 : -1);
+                        code.iconst(operator.endsWith("_POSTFIX") ? 1 : 0);
+                        code.ldc(target.getName());
+                        code.aload(0);
+                        code.getfield(writer.getClassName(), "e" + evalNodes.size(), "L" + EVAL_NODE + ";");
+                        evalNodes.add(closureCompiler.expression(target));
+                        code.invokestatic(RUNTIME, "increment", "(" + FRAME_DESC + "IIZLjava/lang/String;L" +
+                                EVAL_NODE + ";)" + OBJECT_DESC);
+                        return;
+                    }
+                    delegate(expr);
+                    return;
+                default:
+                    delegate(expr);
+            }
+        }
+
+        // ====== 宿主方法调用 ======
+
+        private void hostCall(String className, String methodName, List<Expression> arguments) {
+            Method method = linkableMethod(className, methodName, arguments.size());
+            if (method == null) {
+                code.aload(LOCAL_INTERPRETER);
+                code.ldc(className);
+                code.ldc(methodName);
+                code.iconst(arguments.size());
+                code.type(ANEWARRAY, OBJECT);
+                for (int i = 0; i < arguments.size(); i++) {
+                    code.op(DUP, 1);
+                    code.iconst(i);
+                    expression(arguments.get(i));
+                    code.op(AASTORE, -3);
+                }
+                callInternalMethod();
+                return;
+            }
+
+            // 先把参数保存到局部变量，再按参数类型检查决定直接调用还是走反射调用
+            int base = nextTemp;
+            for (Expression argument : arguments) {
+                expression(argument);
+                code.astore(nextTemp++);
+            }
+
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            int fixed = method.isVarArgs() ? parameterTypes.length - 1 : parameterTypes.length;
+            Label slow = code.newLabel();
+            boolean guarded = false;
+            for (int i = 0; i < fixed; i++) {
+                if (parameterTypes[i] != Object.class) {
+                    code.aload(base + i);
+                    code.type(INSTANCEOF, internalName(boxed(parameterTypes[i])));
+                    code.jump(IFEQ, slow);
+                    guarded = true;
+                }
+            }
+
+            StringBuilder descriptor = new StringBuilder("(");
+            for (int i = 0; i < fixed; i++) {
+                Class<?> type = parameterTypes[i];
+                code.aload(base + i);
+                if (type != Object.class) {
+                    code.type(CHECKCAST, internalName(boxed(type)));
+                    if (type.isPrimitive()) {
+                        code.invokevirtual(internalName(boxed(type)), type.getName() + "Value",
+                                "()" + descriptorOf(type));
+                    }
+                }
+                descriptor.append(descriptorOf(type));
+            }
+            if (method.isVarArgs()) {
+                if (arguments.size() == fixed) {
+                    // 空的可变参数共用同一个数组
+                    code.getstatic(RUNTIME, "EMPTY_ARGS", "[" + OBJECT_DESC);
+                } else {
+                    code.iconst(arguments.size() - fixed);
+                    code.type(ANEWARRAY, OBJECT);
+                    for (int i = fixed; i < arguments.size(); i++) {
+                        code.op(DUP, 1);
+                        code.iconst(i - fixed);
+                        code.aload(base + i);
+                        code.op(AASTORE, -3);
+                    }
+                }
+                descriptor.append("[").append(OBJECT_DESC);
+            }
+            descriptor.append(")").append(descriptorOf(method.getReturnType()));
+
+            int start = code.pc();
+            code.invokestatic(internalName(method.getDeclaringClass()), methodName, descriptor.toString());
+            code.tryRange(start, code.pc(), hostHandlers.computeIfAbsent(className + "#" + methodName,
+                    k -> code.newLabel()));
+            boxResult(method.getReturnType());
+
+            if (guarded) {
+                Label done = code.newLabel();
+                code.jump(GOTO, done);
+                code.place(slow);
+                code.aload(LOCAL_INTERPRETER);
+                code.ldc(className);
+                code.ldc(methodName);
+                code.iconst(arguments.size());
+                code.type(ANEWARRAY, OBJECT);
+                for (int i = 0; i < arguments.size(); i++) {
+                    code.op(DUP, 1);
+                    code.iconst(i);
+                    code.aload(base + i);
+                    code.op(AASTORE, -3);
+                }
+                callInternalMethod();
+                code.place(done);
+            }
+            nextTemp = base;
+        }
+
+        private void callInternalMethod() {
+            code.invokevirtual(INTERPRETER, "callInternalMethod",
+                    "(Ljava/lang/String;Ljava/lang/String;[" + OBJECT_DESC + ")" + OBJECT_DESC);
+        }
+
+        private void boxResult(Class<?> type) {
+            if (type == void.class) {
+                code.op(ACONST_NULL, 1);
+            } else if (type.isPrimitive()) {
+                String box = internalName(boxed(type));
+                code.invokestatic(box, "valueOf", "(" + descriptorOf(type) + ")L" + box + ";");
+            }
+        }
+
+        /**
+         * 查找可以直接链接的宿主方法：按参数个数只有唯一的候选静态方法，
+         * 且参数类型可以在运行时用 instanceof 精确检查（与反射调用选择的方法相同）
+         */
+        private Method linkableMethod(String className, String methodName, int argumentCount) {
+            Class<?> clazz = VastVM.getBuiltinClasses().get(className);
+            if (clazz == null) {
+                clazz = interpreter.importedClasses().get(className);
+            }
+            if (clazz == null || !isVisible(clazz)) {
+                return null;
+            }
+
+            Method candidate = null;
+            for (Method method : clazz.getMethods()) {
+                if (!method.getName().equals(methodName)) {
+                    continue;
+                }
+                int parameters = method.getParameterCount();
+                boolean arityMatches = method.isVarArgs() ? argumentCount >= parameters - 1 : argumentCount == parameters;
+                if (!arityMatches) {
+                    continue;
+                }
+                if (candidate != null) {
+                    return null;// 存在重载，由反射调用在运行时选择
+                }
+                candidate = method;
+            }
+
+            if (candidate == null || !Modifier.isStatic(candidate.getModifiers()) ||
+                    candidate.getDeclaringClass().isInterface() || !isVisible(candidate.getDeclaringClass())) {
+                return null;
+            }
+
+            Class<?>[] parameterTypes = candidate.getParameterTypes();
+            int fixed = candidate.isVarArgs() ? parameterTypes.length - 1 : parameterTypes.length;
+            for (int i = 0; i < fixed; i++) {
+                Class<?> type = parameterTypes[i];
+                if (type.isPrimitive() ? !isSupportedPrimitive(type) : (type.isArray() || !isVisible(type))) {
+                    return null;
+                }
+            }
+            if (candidate.isVarArgs() && parameterTypes[fixed].getComponentType() != Object.class) {
+                return null;
+            }
+            Class<?> returnType = candidate.getReturnType();
+            if (!returnType.isPrimitive() && !returnType.isArray() && !isVisible(returnType)) {
+                return null;
+            }
+            return candidate;
+        }
+
+        private boolean isSupportedPrimitive(Class<?> type) {
+            return type == int.class || type == double.class || type == boolean.class || type == long.class;
+        }
+
+        /**
+         * 隐藏类只能直接引用公共的、由同一类加载器可见的类
+         */
+        private boolean isVisible(Class<?> type) {
+            if (!Modifier.isPublic(type.getModifiers())) {
+                return false;
+            }
+            try {
+                return Class.forName(type.getName(), false, LoopCompiler.class.getClassLoader()) == type;
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        if (type == int.class) return Integer.class;
+        if (type == double.class) return Double.class;
+        if (type == boolean.class) return Boolean.class;
+        if (type == long.class) return Long.class;
+        if (type == float.class) return Float.class;
+        if (type == char.class) return Character.class;
+        if (type == byte.class) return Byte.class;
+        if (type == short.class) return Short.class;
+        return type;
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String descriptorOf(Class<?> type) {
+        if (type == void.class) return "V";
+        if (type == int.class) return "I";
+        if (type == double.class) return "D";
+        if (type == boolean.class) return "Z";
+        if (type == long.class) return "J";
+        if (type == float.class) return "F";
+        if (type == char.class) return "C";
+        if (type == byte.class) return "B";
+        if (type == short.class) return "S";
+        if (type.isArray()) return internalName(type);
+        return "L" + internalName(type) + ";";
+    }
+}
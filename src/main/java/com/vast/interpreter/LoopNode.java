@@ -0,0 +1,86 @@
+package com.vast.interpreter;
+
+import com.vast.ast.statements.LoopStatement;
+
+/**
+ * 循环语句节点
+ * 循环体先以闭包节点执行；累计迭代次数超过阈值后交给 LoopCompiler 编译为 JVM 字节码，
+ * 编译后的代码在假设失效时返回恢复点，从该处回到闭包节点继续执行
+ */
+final class LoopNode implements ExecNode {
+    // 去优化次数超过此值后不再尝试编译该循环
+    private static final int MAX_DEOPTIMIZATIONS = 3;
+
+    private final LoopStatement statement;
+    private final EvalNode condition;
+    private final ExecNode[] body;
+    private final LoopCompiler compiler;
+
+    private CompiledLoop compiled;
+    private long iterations;
+    private int deoptimizations;
+    private boolean giveUp;
+
+    LoopNode(LoopStatement statement, EvalNode condition, ExecNode[] body, LoopCompiler compiler) {
+        this.statement = statement;
+        this.condition = condition;
+        this.body = body;
+        this.compiler = compiler;
+    }
+
+    @Override
+    public void execute() {
+        Object value = condition.eval();
+
+        if (value instanceof Number) {
+            // 处理数字类型的循环条件（如 loop(10):）
+            runCounted(((Number) value).intValue());
+        } else if (value instanceof Boolean ? (Boolean) value : value != null) {
+            // 布尔条件为真或非空条件时执行一次
+            runBody(0);
+        }
+    }
+
+    private void runCounted(int count) {
+        int i = 0;
+        while (i < count) {
+            if (compiled != null) {
+                long result = compiled.run(i, count);
+                if (result == CompiledLoop.COMPLETED) {
+                    return;
+                }
+                // 假设失效：丢弃编译结果，在闭包节点中完成当前迭代
+                i = CompiledLoop.resumeIteration(result);
+                deoptimize();
+                runBody(CompiledLoop.resumeStatement(result));
+                i++;
+                continue;
+            }
+
+            runBody(0);
+            i++;
+
+            if (++iterations >= compiler.threshold() && !giveUp && compiler.isEnabled()) {
+                compiled = compiler.compile(statement, body);
+                if (compiled == null) {
+                    giveUp = true;
+                }
+            }
+        }
+    }
+
+    private void runBody(int from) {
+        for (int k = from; k < body.length; k++) {
+            body[k].execute();
+        }
+    }
+
+    private void deoptimize() {
+        compiled = null;
+        iterations = 0;
+        compiler.recordDeoptimization(statement);
+        if (++deoptimizations >= MAX_DEOPTIMIZATIONS) {
+            giveUp = true;
+        }
+    }
+}
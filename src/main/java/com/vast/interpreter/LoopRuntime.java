@@ -0,0 +1,133 @@
+package com.vast.interpreter;
+
+import com.vast.internal.Debugger;
+import com.vast.internal.VastExceptions;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * 编译后循环体调用的运行时辅助方法
+ * 保持与闭包节点相同的语义；方法都很短小，便于 JVM 内联
+ */
+final class LoopRuntime {
+
+    // 不带可变参数的直接调用共用的空数组
+    static final Object[] EMPTY_ARGS = new Object[0];
+
+    private LoopRuntime() {}
+
+    /**
+     * 编码恢复点：高 32 位为迭代序号，低 32 位为下一条语句序号
+     */
+    static long resumePoint(int iteration, int statement) {
+        return ((long) iteration << 32) | (statement & 0xffffffffL);
+    }
+
+    static Object orElse(Object value, EvalNode fallback) {
+        return value != Frame.UNDEFINED ? value : fallback.eval();
+    }
+
+    static Object store(Frame frame, int slot, Object value) {
+        frame.store(slot, value);
+        return value;
+    }
+
+    static Object increment(Frame frame, int slot, int increment, boolean postfix, String name, EvalNode operand) {
+        Object currentValue = frame.load(slot);
+        if (currentValue == Frame.UNDEFINED) {
+            operand.eval();
+            throw VastExceptions.NonExistentObject.variableNotFound(name);
+        }
+        if (currentValue == null) {
+            throw VastExceptions.NonExistentObject.variableNotFound(name);
+        }
+        Object newValue = Operations.increment(currentValue, increment);
+        frame.store(slot, newValue);
+        return postfix ? currentValue : newValue;
+    }
+
+    static Object equal(Object left, Object right) {
+        return Operations.equal(left, right);
+    }
+
+    static Object notEqual(Object left, Object right) {
+        return !Operations.equal(left, right);
+    }
+
+    static Object greater(Object left, Object right) {
+        return Operations.compare(left, right) > 0;
+    }
+
+    static Object less(Object left, Object right) {
+        return Operations.compare(left, right) < 0;
+    }
+
+    static Object greaterOrEqual(Object left, Object right) {
+        return Operations.compare(left, right) >= 0;
+    }
+
+    static Object lessOrEqual(Object left, Object right) {
+        return Operations.compare(left, right) <= 0;
+    }
+
+    /**
+     * 短路的逻辑与、或在左侧不能决定结果时的值
+     */
+    static Object truth(Object value) {
+        return Operations.toBoolean(value);
+    }
+
+    static Object xor(Object left, Object right) {
+        return Operations.toBoolean(left) ^ Operations.toBoolean(right);
+    }
+
+    static Object not(Object operand) {
+        return !Operations.toBoolean(operand);
+    }
+
+    // ====== 不装箱的算术（与 BinaryNode 的 int/int、double/double 特化一致） ======
+
+    static int intModulo(int left, int right) {
+        if (right == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        return left % right;
+    }
+
+    static double intDivide(int left, int right) {
+        if (right == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        return (double) left / (double) right;
+    }
+
+    static double doubleDivide(double left, double right) {
+        if (right == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        return left / right;
+    }
+
+    static double doubleModulo(double left, double right) {
+        if (right == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        return left % right;
+    }
+
+    /**
+     * 直接链接的宿主方法抛出异常时，按反射调用的方式包装（与 callInternalMethod 一致）
+     */
+    static RuntimeException hostFailure(Throwable failure, String className, String methodName) {
+        if (failure instanceof VastExceptions.VastRuntimeException) {
+            return (VastExceptions.VastRuntimeException) failure;// 内置库主动报告的错误原样抛出
+        }
+        Debugger debugger = Debugger.getInstance();
+        InvocationTargetException e = new InvocationTargetException(failure);
+        debugger.error("Failed to call method " + className + "." + methodName + ": " + e.getMessage());
+        if (debugger.isShowStackTrace()) {
+            e.printStackTrace();
+        }
+        return new VastExceptions.UnknownVastException("Failed to call method " + className + "." + methodName, e);
+    }
+}
@@ -0,0 +1,135 @@
+package com.vast.interpreter;
+
+/**
+ * 寄存器字节码的操作码
+ * 每条指令在 int[] 中占 1 + 操作数个数 个元素。操作数格式用一个字符表示一个操作数：
+ * R 寄存器，S 变量槽位，K 常量池下标，N 位置信息（AST 节点）下标，Q 调用点内联缓存下标，
+ * I 立即数，C 循环计数器，L 跳转地址，O 运算操作码
+ */
+final class Opcode {
+    static final int HALT = 0;          // 程序结束
+    static final int CONST = 1;         // R[a] = K[b]
+    static final int LOAD = 2;          // R[a] = 槽位 b 的值；未定义时回退到访问者求值 N[c]
+    static final int ADD = 3;           // R[a] = R[b] + R[c]
+    static final int SUB = 4;
+    static final int MUL = 5;
+    static final int DIV = 6;
+    static final int MOD = 7;
+    static final int POW = 8;
+    static final int IDIV = 9;
+    static final int CONCAT = 10;
+    static final int EQ = 11;
+    static final int NE = 12;
+    static final int GT = 13;
+    static final int LT = 14;
+    static final int GE = 15;
+    static final int LE = 16;
+    static final int AND = 17;
+    static final int OR = 18;
+    static final int XOR = 19;
+    static final int BINARY = 20;       // 其他运算符：Operations.binary，N[d] 为原表达式
+    static final int NEG = 21;          // R[a] = -R[b]
+    static final int NOT = 22;          // R[a] = !R[b]
+    static final int INC = 23;          // 槽位 b 自增 c（可为负）；d 为 1 时 R[a] 为原值，否则为新值
+    static final int FAIL = 24;         // 抛出语法错误：消息 K[a]，行 b，列 c
+    static final int ASSIGN = 25;       // 赋值表达式：槽位 b = R[a]（检查已有的强类型），N[c] 为原表达式
+    static final int MEMBER = 26;       // R[a] = R[b] 上的成员 N[c]
+    static final int CALL = 27;         // R[a] = K[b].K[c](R[d] .. R[d+e-1])，经过内联缓存 Q[f]
+    static final int CALL_DYNAMIC = 28; // R[a] = R[b](R[c] .. R[c+d-1])，N[e] 为原表达式，经过内联缓存 Q[f]
+    static final int CAST = 29;         // R[a] = R[b] 转换为 N[c] 的目标类型
+    static final int FRACTION = 30;     // R[a] = R[b] 转换为分数，N[c] 为原表达式
+    static final int DECLARE = 31;      // 变量声明：槽位 a = R[b]（b 为 -1 时为 null），N[c] 为声明语句
+    static final int STORE = 32;        // 自由类型赋值：槽位 a = R[b]
+    static final int STORE_TYPED = 33;  // 强类型赋值：槽位 a = R[b]，N[c] 为赋值语句
+    static final int RESULT = 34;       // 最后结果 = R[a]
+    static final int SWAP = 35;         // 交换槽位 a 和 b
+    static final int EXEC = 36;         // 由访问者执行语句 N[a]（导入、内联类型转换）
+    static final int LOOP_ENTER = 37;   // 按 R[a] 初始化计数器 b，不执行时跳转到 c
+    static final int LOOP_NEXT = 38;    // 计数器 a 加一，未达到次数时跳转到 b
+    static final int COMPOUND = 39;     // 复合赋值超级指令：槽位 b = R[c] (op a) R[d]，N[e] 为赋值语句或赋值表达式
+    static final int COMPOUND_K = 40;   // 复合赋值超级指令：槽位 b = 槽位 b (op a) K[c]，N[d] 为赋值语句或赋值表达式
+    static final int ASSIGN_FAST = 41;  // 类型推断已证明兼容的赋值表达式：槽位 b = R[a]，不检查类型
+    static final int DECLARE_FAST = 42; // 类型推断已证明兼容且无需转换的变量声明：槽位 a = R[b]，N[c] 为声明语句
+    static final int LOAD_APPEND = 43;  // 同 LOAD，但槽位为追加中的字符串时 R[a] 只是标记，不生成 String
+    static final int APPEND = 44;       // 字符串追加超级指令：槽位 a = R[b] + R[c] + .. + R[c+d-1]，N[e] 为赋值表达式
+    static final int JUMP_FALSE = 45;   // AND 短路：R[a] 为假时 R[a] = false 并跳转到 b
+    static final int JUMP_TRUE = 46;    // OR 短路：R[a] 为真时 R[a] = true 并跳转到 b
+    static final int LAZY_CALL = 47;    // 宿主方法 K[b].K[c] 有 @Lazy 参数时按调用表达式 N[d] 延迟求值参数并调用，
+                                        // 结果存入 R[a] 后跳转到 f；Q[e] 为调用点的内联缓存
+    static final int LAZY_CALL_DYNAMIC = 48; // 同 LAZY_CALL，调用目标为 R[a] 中已求值的函数，N[b] 为调用表达式，Q[c]，跳转到 d
+    static final int JUMP = 49;         // 跳转到 a
+    static final int JUMP_UNLESS = 50;  // while 条件：R[a] 为假时跳转到 b
+    static final int JUMP_UNLESS_CMP = 51; // while 比较条件超级指令：R[b] (op a) R[c] 不成立时跳转到 d，不生成 Boolean
+    static final int FOR_ENTER = 52;    // for 循环：按 R[a]..R[b) 初始化计数器 c，槽位 d 写入起始值，N[e] 为 for 语句；不执行时跳转到 f
+    static final int FOR_NEXT = 53;     // 计数器 a 加一，未到终点时槽位 b 写入新值并跳转到 d，N[c] 为 for 语句
+
+    private static final String[] NAMES = {
+            "HALT", "CONST", "LOAD", "ADD", "SUB", "MUL", "DIV", "MOD", "POW", "IDIV", "CONCAT",
+            "EQ", "NE", "GT", "LT", "GE", "LE", "AND", "OR", "XOR", "BINARY", "NEG", "NOT", "INC", "FAIL",
+            "ASSIGN", "MEMBER", "CALL", "CALL_DYNAMIC", "CAST", "FRACTION", "DECLARE", "STORE", "STORE_TYPED",
+            "RESULT", "SWAP", "EXEC", "LOOP_ENTER", "LOOP_NEXT", "COMPOUND", "COMPOUND_K",
+            "ASSIGN_FAST", "DECLARE_FAST", "LOAD_APPEND", "APPEND", "JUMP_FALSE", "JUMP_TRUE",
+            "LAZY_CALL", "LAZY_CALL_DYNAMIC", "JUMP", "JUMP_UNLESS", "JUMP_UNLESS_CMP", "FOR_ENTER", "FOR_NEXT"
+    };
+
+    private static final String[] FORMATS = {
+            "", "RK", "RSN", "RRR", "RRR", "RRR", "RRR", "RRR", "RRR", "RRR", "RRR",
+            "RRR", "RRR", "RRR", "RRR", "RRR", "RRR", "RRR", "RRR", "RRR", "RRRN", "RR", "RR", "RSII", "KII",
+            "RSN", "RRN", "RKKRIQ", "RRRINQ", "RRN", "RRN", "SRN", "SR", "SRN",
+            "R", "SS", "N", "RCL", "CL", "OSRRN", "OSKN",
+            "RS", "SRN", "RSN", "SRRIN", "RL", "RL",
+            "RKKNQL", "RNQL", "L", "RL", "ORRL", "RRCSNL", "CSNL"
+    };
+
+    private Opcode() {
+    }
+
+    static String name(int opcode) {
+        return NAMES[opcode];
+    }
+
+    /**
+     * 操作数格式，长度即操作数个数
+     */
+    static String format(int opcode) {
+        return FORMATS[opcode];
+    }
+
+    static int length(int opcode) {
+        return 1 + FORMATS[opcode].length();
+    }
+
+    /**
+     * 二元运算符对应的操作码，没有专用操作码时返回 BINARY
+     */
+    static int ofOperator(String operator) {
+        switch (operator) {
+            case "+": return ADD;
+            case "-": return SUB;
+            case "*": return MUL;
+            case "/": return DIV;
+            case "%": return MOD;
+            case "**": return POW;
+            case "//": return IDIV;
+            case "++": return CONCAT;
+            case "==": return EQ;
+            case "!=": return NE;
+            case ">": return GT;
+            case "<": return LT;
+            case ">=": return GE;
+            case "<=": return LE;
+            case "AND": return AND;
+            case "OR": return OR;
+            case "XOR": return XOR;
+            default: return BINARY;
+        }
+    }
+
+    /**
+     * 可以融合为复合赋值超级指令的运算（对应 +=、-=、*=、/=、//=、%=）
+     */
+    static boolean isCompoundOperator(int opcode) {
+        return opcode == ADD || opcode == SUB || opcode == MUL ||
+                opcode == DIV || opcode == IDIV || opcode == MOD;
+    }
+}
@@ -0,0 +1,688 @@
+package com.vast.interpreter;
+
+import com.vast.ast.VastType;
+import com.vast.internal.Debugger;
+import com.vast.internal.Decimal;
+import com.vast.internal.Fraction;
+import com.vast.internal.FractionAccumulator;
+import com.vast.internal.Sys;
+import com.vast.internal.VastArray;
+import com.vast.internal.VastExceptions;
+
+import java.math.BigInteger;
+
+/**
+ * 运算辅助类
+ * 树遍历解释器与闭包执行层共用的运算实现，保证两种执行方式的语义完全一致
+ */
+public final class Operations {
+
+    private Operations() {}
+
+    /**
+     * 按运算符名称执行二元运算（供树遍历解释器使用）
+     */
+    public static Object binary(String operator, Object left, Object right, int lineNumber, int columnNumber) {
+        switch (operator) {
+            case "+": return add(left, right);
+            case "-": return subtract(left, right);
+            case "*": return multiply(left, right);
+            case "/": return divide(left, right);
+            case "**": return power(left, right);
+            case "//": return integerDivide(left, right);
+            case "%": return modulo(left, right);
+            case "++": return numberConcatenation(left, right);
+            case "==": return equal(left, right);
+            case "!=": return !equal(left, right);
+            case ">": return compare(left, right) > 0;
+            case "<": return compare(left, right) < 0;
+            case ">=": return compare(left, right) >= 0;
+            case "<=": return compare(left, right) <= 0;
+            case "AND": return toBoolean(left) && toBoolean(right);
+            case "OR": return toBoolean(left) || toBoolean(right);
+            case "XOR": return toBoolean(left) ^ toBoolean(right);
+            default:
+                throw new VastExceptions.NotGrammarException(
+                        "Unknown operator: " + operator, lineNumber, columnNumber);
+        }
+    }
+
+    /**
+     * 获取值的类型描述
+     */
+    public static String typeName(Object value) {
+        return value == null ? "null" : typeName(value.getClass());
+    }
+
+    /**
+     * 获取值的 Java 类对应的类型描述
+     */
+    public static String typeName(Class<?> valueClass) {
+        if (valueClass == Integer.class) return "int";
+        if (valueClass == Double.class) return "double";
+        if (valueClass == Float.class) return "float";
+        if (valueClass == Boolean.class) return "boolean";
+        if (valueClass == String.class) return "string";
+        if (valueClass == Character.class) return "char";
+        if (valueClass == Byte.class) return "byte";
+        if (valueClass == Short.class) return "short";
+        if (valueClass == Long.class) return "long";
+        if (valueClass == BigInteger.class) return "large";
+        if (valueClass == Decimal.class) return "decimal";
+        if (valueClass == VastArray.class) return "array";
+        return valueClass.getSimpleName();
+    }
+
+    /**
+     * 强类型变量的赋值检查（各执行层共用），值不能赋给该类型时记录并抛出类型不匹配错误
+     */
+    public static void checkAssignable(VastType type, Object value, String varName, int lineNumber, int columnNumber) {
+        if (!type.accepts(value)) {
+            String errorMsg = "Type mismatch: cannot assign " + typeName(value) +
+                    " to variable '" + varName + "' of type " + type;
+            Debugger.getInstance().log(errorMsg);
+            throw new VastExceptions.NotGrammarException(errorMsg, lineNumber, columnNumber);
+        }
+    }
+
+    /**
+     * 强类型赋值：检查后做隐式转换，返回转换后的值
+     */
+    public static Object convertTyped(VastType type, Object value, String varName, int lineNumber, int columnNumber) {
+        checkAssignable(type, value, varName, lineNumber, columnNumber);
+        return type.convert(value);
+    }
+
+    // 各运算先判断最常见的 int/int、double/double 情况（与分数互斥，不影响结果），再处理分数等其他类型。
+    // 整数按 int → long → large（BigInteger）的整数塔精确计算：结果总是用能容纳它的最窄类型表示，
+    // 溢出时提升，回到较小范围时降级，因此同一个整数值只有一种表示。
+    // 有一侧是 decimal 时（分数优先），整数和 double 操作数转换为 decimal，结果为 decimal
+
+    public static Object add(Object left, Object right) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return narrow((long) (Integer) left + (Integer) right);
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return (Double) left + (Double) right;
+        }
+
+        // 处理 Fraction 对象的加法
+        if (left instanceof Fraction || right instanceof Fraction) {
+            return Sys.fractionAdd(toFraction(left), toFraction(right));
+        }
+        if (left instanceof String || right instanceof String) {
+            return stringify(left) + stringify(right);
+        }
+        if (left instanceof Decimal || right instanceof Decimal) {
+            return toDecimal(left).add(toDecimal(right));
+        }
+        if (isInteger(left) && isInteger(right)) {
+            return integerArithmetic('+', left, right);
+        }
+        throw new VastExceptions.MathError(
+                "Operands must be two numbers or two strings",
+                "Addition operation with operands: " + left + " + " + right
+        );
+    }
+
+    public static Object subtract(Object left, Object right) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return narrow((long) (Integer) left - (Integer) right);
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return (Double) left - (Double) right;
+        }
+
+        // 处理 Fraction 对象的减法
+        if (left instanceof Fraction || right instanceof Fraction) {
+            return Sys.fractionSubtract(toFraction(left), toFraction(right));
+        }
+        if (left instanceof Decimal || right instanceof Decimal) {
+            return toDecimal(left).subtract(toDecimal(right));
+        }
+
+        checkNumberOperands(left, right);
+        if (isInteger(left) && isInteger(right)) {
+            return integerArithmetic('-', left, right);
+        }
+        if (left instanceof Double || right instanceof Double) {
+            return toDouble(left) - toDouble(right);
+        }
+        return toInt(left) - toInt(right);
+    }
+
+    public static Object multiply(Object left, Object right) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return narrow((long) (Integer) left * (Integer) right);
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return (Double) left * (Double) right;
+        }
+
+        // 处理字符串重复运算
+        if ((left instanceof String && right instanceof Number) ||
+                (left instanceof Number && right instanceof String)) {
+            return stringMultiplication(left, right);
+        }
+
+        // 处理 Fraction 对象的乘法
+        if (left instanceof Fraction || right instanceof Fraction) {
+            return Sys.fractionMultiply(toFraction(left), toFraction(right));
+        }
+        if (left instanceof Decimal || right instanceof Decimal) {
+            return toDecimal(left).multiply(toDecimal(right));
+        }
+
+        checkNumberOperands(left, right);
+        if (isInteger(left) && isInteger(right)) {
+            return integerArithmetic('*', left, right);
+        }
+        if (left instanceof Double || right instanceof Double) {
+            return toDouble(left) * toDouble(right);
+        }
+        return toInt(left) * toInt(right);
+    }
+
+    public static Object divide(Object left, Object right) {
+        // 处理 Fraction 对象的除法
+        if (left instanceof Fraction || right instanceof Fraction) {
+            Fraction leftFraction = toFraction(left);
+            Fraction rightFraction = toFraction(right);
+            if (rightFraction.isZero()) {
+                throw VastExceptions.MathError.divisionByZero();
+            }
+            return Sys.fractionDivide(leftFraction, rightFraction);
+        }
+        if (left instanceof Decimal || right instanceof Decimal) {
+            Decimal divisor = toDecimal(right);
+            if (divisor.isZero()) {
+                throw VastExceptions.MathError.divisionByZero();
+            }
+            return toDecimal(left).divide(divisor);
+        }
+
+        checkNumberOperands(left, right);
+        if (toDouble(right) == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        return toDouble(left) / toDouble(right);
+    }
+
+    /**
+     * 执行幂运算：整数的非负整数次幂按平方求幂精确计算，其他情况为 double
+     */
+    public static Object power(Object left, Object right) {
+        checkNumberOperands(left, right);
+        if (isInteger(left) && isInteger(right) && signum(right) >= 0) {
+            return integerPower(left, right);
+        }
+        if (left instanceof Decimal && isInteger(right) && signum(right) >= 0) {
+            if (!(right instanceof Integer)) {
+                throw new VastExceptions.MathError(
+                        "Decimal power result is too large",
+                        "Power operation with operands: " + left + " ** " + right
+                );
+            }
+            try {
+                return ((Decimal) left).pow((Integer) right);
+            } catch (ArithmeticException e) {
+                throw new VastExceptions.MathError(e.getMessage(),
+                        "Power operation with operands: " + left + " ** " + right);
+            }
+        }
+        return Math.pow(toDouble(left), toDouble(right));
+    }
+
+    public static Object integerDivide(Object left, Object right) {
+        checkNumberOperands(left, right);
+
+        // 处理分数的情况
+        if (left instanceof Fraction || right instanceof Fraction) {
+            Fraction leftFraction = toFraction(left);
+            Fraction rightFraction = toFraction(right);
+
+            if (rightFraction.isZero()) {
+                throw VastExceptions.MathError.divisionByZero();
+            }
+
+            // 分数地板除：转换为浮点数除法后取整
+            double result = leftFraction.toDouble() / rightFraction.toDouble();
+            return (int) Math.floor(result);
+        }
+        if (left instanceof Decimal || right instanceof Decimal) {
+            Decimal divisor = toDecimal(right);
+            if (divisor.isZero()) {
+                throw VastExceptions.MathError.divisionByZero();
+            }
+            Number quotient = toDecimal(left).floorDivide(divisor);
+            return quotient instanceof Long ? narrow((Long) quotient) : narrow((BigInteger) quotient);
+        }
+
+        // 常规地板除
+        if (toDouble(right) == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        if (isInteger(left) && isInteger(right)) {
+            return integerArithmetic('/', left, right);
+        }
+
+        double result = toDouble(left) / toDouble(right);
+        return (int) Math.floor(result);
+    }
+
+    public static Object modulo(Object left, Object right) {
+        checkNumberOperands(left, right);
+        if (left instanceof Decimal || right instanceof Decimal) {
+            Decimal divisor = toDecimal(right);
+            if (divisor.isZero()) {
+                throw VastExceptions.MathError.divisionByZero();
+            }
+            return toDecimal(left).remainder(divisor);
+        }
+        if (toDouble(right) == 0) {
+            throw VastExceptions.MathError.divisionByZero();
+        }
+        if (isInteger(left) && isInteger(right)) {
+            return integerArithmetic('%', left, right);
+        }
+        if (left instanceof Double || right instanceof Double) {
+            return toDouble(left) % toDouble(right);
+        }
+        return toInt(left) % toInt(right);
+    }
+
+    public static Object numberConcatenation(Object left, Object right) {
+        if (right == null || (right instanceof String && ((String) right).isEmpty())) {
+            if (isInteger(left) || left instanceof Double) {
+                // 与 ++ 自增相同，int 溢出时提升为 long / large
+                return increment(left, 1);
+            } else {
+                throw new VastExceptions.MathError(
+                        "Cannot increment non-numeric value: " + left,
+                        "Increment operation"
+                );
+            }
+        }
+
+        if (left == null || (left instanceof String && ((String) left).isEmpty())) {
+            if (isInteger(right) || right instanceof Double) {
+                return increment(right, 1);
+            } else {
+                throw new VastExceptions.MathError(
+                        "Cannot increment non-numeric value: " + right,
+                        "Increment operation"
+                );
+            }
+        }
+
+        String leftStr = String.valueOf(left).replaceAll("\\.0*$", "").replaceAll("\\.", "");
+        String rightStr = String.valueOf(right).replaceAll("\\.0*$", "").replaceAll("\\.", "");
+
+        try {
+            return Integer.parseInt(leftStr + rightStr);
+        } catch (NumberFormatException e) {
+            try {
+                return Long.parseLong(leftStr + rightStr);
+            } catch (NumberFormatException e2) {
+                throw new VastExceptions.MathError(
+                        "Number concatenation result is too large: " + leftStr + rightStr,
+                        "Concatenation operation"
+                );
+            }
+        }
+    }
+
+    public static Object stringMultiplication(Object left, Object right) {
+        if (left instanceof String && right instanceof Number) {
+            // 一次分配结果长度的空间（次数不大于 0 时为空串）
+            return ((String) left).repeat(Math.max(0, toInt(right)));
+        }
+
+        if (left instanceof Number && right instanceof String) {
+            return stringMultiplication(right, left);
+        }
+
+        throw new VastExceptions.NotGrammarException(
+                "String repetition operation",
+                "requires string and number operands, but got: " + left + " * " + right
+        );
+    }
+
+    public static int compare(Object left, Object right) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return Integer.compare((Integer) left, (Integer) right);
+        }
+        if (left instanceof Double && right instanceof Double) {
+            return Double.compare((Double) left, (Double) right);
+        }
+
+        // 处理 Fraction 对象的比较
+        if (left instanceof Fraction || right instanceof Fraction) {
+            return Sys.fractionCompare(toFraction(left), toFraction(right));
+        }
+        if (left instanceof String && right instanceof String) {
+            return ((String) left).compareTo((String) right);
+        }
+        if (isInteger(left) && isInteger(right)) {
+            return compareIntegers(left, right);
+        }
+        if ((left instanceof Decimal || right instanceof Decimal) && isDecimalOperand(left) && isDecimalOperand(right)) {
+            return toDecimal(left).compareTo(toDecimal(right));
+        }
+        throw new VastExceptions.NotGrammarException(
+                "Comparison operation",
+                "Cannot compare values of different types: " + left + " and " + right
+        );
+    }
+
+    /**
+     * 相等比较：整数塔中的值按数值比较（宿主方法可能返回较宽类型的小整数），decimal 与 decimal 或整数按数值比较，
+     * 其他值用 equals（因此 decimal 与 double 和 int 与 double 一样不相等）
+     */
+    public static boolean equal(Object left, Object right) {
+        if (left.equals(right)) {
+            return true;
+        }
+        if (left instanceof Decimal && isInteger(right) || isInteger(left) && right instanceof Decimal) {
+            return toDecimal(left).compareTo(toDecimal(right)) == 0;
+        }
+        return isInteger(left) && isInteger(right) && compareIntegers(left, right) == 0;
+    }
+
+    /**
+     * 一元负号
+     */
+    public static Object negate(Object right) {
+        if (right instanceof Integer) return narrow(-(long) (Integer) right);
+        if (right instanceof Double) return -(Double) right;
+        if (right instanceof Long) return integerArithmetic('-', 0, right);
+        if (right instanceof BigInteger) return narrow(((BigInteger) right).negate());
+        if (right instanceof Decimal) return ((Decimal) right).negate();
+        throw new VastExceptions.MathError(
+                "Unary - requires numeric operand",
+                "Operand type: " + (right != null ? right.getClass().getSimpleName() : "null")
+        );
+    }
+
+    /**
+     * 执行实际的增量操作
+     */
+    public static Object increment(Object value, int increment) {
+        if (value instanceof Integer) {
+            return narrow((long) (Integer) value + increment);
+        }
+        if (value instanceof Double) {
+            return (Double) value + increment;
+        }
+        if (value instanceof Long || value instanceof BigInteger) {
+            return integerArithmetic('+', value, increment);
+        }
+        if (value instanceof Fraction) {
+            return new FractionAccumulator((Fraction) value).add(increment).toFraction();
+        }
+        if (value instanceof Decimal) {
+            return ((Decimal) value).add(Decimal.valueOf(increment));
+        }
+
+        throw new VastExceptions.MathError(
+                "Cannot increment/decrement non-numeric value: " + value,
+                "Increment operation"
+        );
+    }
+
+    /**
+     * 分数表达式 $(...) / $$(...) 的求值，permanent 为永久性标记
+     */
+    public static Fraction createFraction(Object value, boolean permanent, int lineNumber, int columnNumber) {
+        try {
+            if (value instanceof Integer || value instanceof Double ||
+                    value instanceof Long || value instanceof BigInteger) {
+                Fraction fraction = Fraction.fromNumber(value);
+                fraction.setPermanent(permanent);
+                return fraction;
+            } else if (value instanceof Decimal) {
+                Fraction fraction = ((Decimal) value).toFraction();
+                fraction.setPermanent(permanent);
+                return fraction;
+            } else if (value instanceof Fraction) {
+                return ((Fraction) value).withPermanent(permanent);  // 已经是分数，标记不同时复制
+            } else {
+                throw new VastExceptions.MathError(
+                        "Cannot create fraction from " + typeName(value),
+                        lineNumber, columnNumber
+                );
+            }
+        } catch (Exception e) {
+            throw new VastExceptions.MathError(
+                    "Failed to create fraction: " + e.getMessage(),
+                    lineNumber, columnNumber
+            );
+        }
+    }
+
+    /**
+     * 将对象转换为 Fraction
+     */
+    public static Fraction toFraction(Object obj) {
+        if (obj instanceof Fraction) {
+            return (Fraction) obj;
+        }
+        if (obj instanceof Integer || obj instanceof Double ||
+                obj instanceof Long || obj instanceof BigInteger) {
+            return Fraction.fromNumber(obj);
+        }
+        if (obj instanceof Decimal) {
+            return ((Decimal) obj).toFraction();// 有限小数，精确转换
+        }
+        if (obj instanceof String) {
+            return Sys.parseFraction((String) obj);
+        }
+        throw new VastExceptions.MathError(
+                "Cannot convert to fraction: " + obj,
+                "Type conversion"
+        );
+    }
+
+    public static void checkNumberOperands(Object left, Object right) {
+        if (!(left instanceof Number && right instanceof Number)) {
+            throw new VastExceptions.MathError(
+                    "Operands must be numbers",
+                    "Operation with operands: " + left + " and " + right
+            );
+        }
+    }
+
+    public static double toDouble(Object obj) {
+        if (obj instanceof Integer) return ((Integer) obj).doubleValue();
+        if (obj instanceof Double) return (Double) obj;
+        if (obj instanceof Long || obj instanceof BigInteger || obj instanceof Decimal) return ((Number) obj).doubleValue();
+        throw new VastExceptions.MathError(
+                "Cannot convert to double: " + obj,
+                "Type conversion"
+        );
+    }
+
+    public static int toInt(Object obj) {
+        if (obj instanceof Integer) return (Integer) obj;
+        if (obj instanceof Double) return ((Double) obj).intValue();
+        if (obj instanceof Long || obj instanceof BigInteger || obj instanceof Decimal) return ((Number) obj).intValue();
+        throw new VastExceptions.MathError(
+                "Cannot convert to int: " + obj,
+                "Type conversion"
+        );
+    }
+
+    // ==================== decimal ====================
+
+    /**
+     * 能与 decimal 一起运算的值：decimal、整数和有限的 double（按最短十进制表示转换）
+     */
+    public static boolean isDecimalOperand(Object value) {
+        return value instanceof Decimal || isInteger(value) ||
+                value instanceof Double && Double.isFinite((Double) value);
+    }
+
+    /**
+     * decimal 运算的操作数转换为 Decimal，不能转换时报错
+     */
+    public static Decimal toDecimal(Object value) {
+        if (value instanceof Decimal) return (Decimal) value;
+        if (value instanceof Integer || value instanceof Long) return Decimal.valueOf(((Number) value).longValue());
+        if (value instanceof BigInteger) return Decimal.valueOf((BigInteger) value);
+        if (value instanceof Double && Double.isFinite((Double) value)) return Decimal.valueOf((Double) value);
+        throw new VastExceptions.MathError(
+                "Cannot use " + typeName(value) + " in decimal arithmetic: " + value,
+                "Type conversion"
+        );
+    }
+
+    // ==================== 整数塔 ====================
+
+    /**
+     * 整数幂的结果上限（位数），超过时报错而不是耗尽内存
+     */
+    private static final int MAX_POWER_BITS = 1 << 24;
+
+    /**
+     * 值是否属于整数塔（int、long、large）
+     */
+    public static boolean isInteger(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof BigInteger;
+    }
+
+    /**
+     * 用能容纳 long 值的最窄类型表示：int 或 long
+     */
+    public static Object narrow(long value) {
+        if (value == (int) value) {
+            return (int) value;
+        }
+        return value;
+    }
+
+    /**
+     * 用能容纳 BigInteger 值的最窄类型表示：int、long 或 large
+     */
+    public static Object narrow(BigInteger value) {
+        return value.bitLength() < 64 ? narrow(value.longValue()) : value;
+    }
+
+    public static BigInteger toBigInteger(Object value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        return BigInteger.valueOf(((Number) value).longValue());
+    }
+
+    /**
+     * 两个整数的精确运算：'+'、'-'、'*'、'%'（余数符号与被除数相同）和 '/'（地板除）。
+     * 先用 long 计算，Math.*Exact 检测到溢出时改用 BigInteger；除数为零由调用方检查
+     */
+    private static Object integerArithmetic(char operator, Object left, Object right) {
+        if (!(left instanceof BigInteger) && !(right instanceof BigInteger)) {
+            long a = ((Number) left).longValue();
+            long b = ((Number) right).longValue();
+            try {
+                switch (operator) {
+                    case '+': return narrow(Math.addExact(a, b));
+                    case '-': return narrow(Math.subtractExact(a, b));
+                    case '*': return narrow(Math.multiplyExact(a, b));
+                    case '%': return narrow(a % b);
+                    default:
+                        if (a == Long.MIN_VALUE && b == -1) {
+                            break;// 唯一溢出的地板除
+                        }
+                        return narrow(Math.floorDiv(a, b));
+                }
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+            }
+        }
+        BigInteger a = toBigInteger(left);
+        BigInteger b = toBigInteger(right);
+        switch (operator) {
+            case '+': return narrow(a.add(b));
+            case '-': return narrow(a.subtract(b));
+            case '*': return narrow(a.multiply(b));
+            case '%': return narrow(a.remainder(b));
+            default: {
+                BigInteger[] division = a.divideAndRemainder(b);
+                BigInteger quotient = division[0];
+                // 截断除法在余数与除数异号时比地板除大 1
+                if (division[1].signum() != 0 && division[1].signum() != b.signum()) {
+                    quotient = quotient.subtract(BigInteger.ONE);
+                }
+                return narrow(quotient);
+            }
+        }
+    }
+
+    private static int compareIntegers(Object left, Object right) {
+        if (!(left instanceof BigInteger) && !(right instanceof BigInteger)) {
+            return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+        }
+        return toBigInteger(left).compareTo(toBigInteger(right));
+    }
+
+    private static int signum(Object value) {
+        if (value instanceof BigInteger) {
+            return ((BigInteger) value).signum();
+        }
+        return Long.signum(((Number) value).longValue());
+    }
+
+    /**
+     * 整数的非负整数次幂：平方求幂，long 乘法溢出时改用 BigInteger.pow
+     */
+    private static Object integerPower(Object left, Object right) {
+        BigInteger base = toBigInteger(left);
+        if (base.signum() == 0 || base.abs().equals(BigInteger.ONE)) {
+            // 0、1、-1 的任意次幂，指数可以超出 int 范围
+            if (base.signum() == 0) {
+                return signum(right) == 0 ? 1 : 0;
+            }
+            return base.signum() > 0 || !toBigInteger(right).testBit(0) ? 1 : -1;
+        }
+        BigInteger wideExponent = toBigInteger(right);
+        if (wideExponent.bitLength() >= 32 ||
+                (long) wideExponent.intValue() * base.abs().bitLength() > MAX_POWER_BITS) {
+            throw new VastExceptions.MathError(
+                    "Integer power result is too large",
+                    "Power operation with operands: " + left + " ** " + right
+            );
+        }
+        int exponent = wideExponent.intValue();
+        if (!(left instanceof BigInteger)) {
+            long x = ((Number) left).longValue();
+            long result = 1;
+            try {
+                while (true) {
+                    if ((exponent & 1) != 0) {
+                        result = Math.multiplyExact(result, x);
+                    }
+                    exponent >>= 1;
+                    if (exponent == 0) {
+                        return narrow(result);
+                    }
+                    x = Math.multiplyExact(x, x);
+                }
+            } catch (ArithmeticException e) {
+                // 溢出，改用 BigInteger
+                exponent = wideExponent.intValue();
+            }
+        }
+        return narrow(base.pow(exponent));
+    }
+
+    public static String stringify(Object object) {
+        if (object == null) return "null";
+        return object.toString();
+    }
+
+    public static boolean toBoolean(Object obj) {
+        if (obj instanceof Boolean) return (Boolean) obj;
+        if (obj instanceof Number) return ((Number) obj).doubleValue() != 0;
+        if (obj instanceof String) return !((String) obj).isEmpty();
+        return obj != null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.vast.interpreter;
+
+import com.vast.ast.Expression;
+import com.vast.ast.expressions.*;
+
+/**
+ * 表达式的纯度判断
+ * 求值不会改变任何变量的表达式可以改变求值时机：字符串追加先求出所有项再追加，
+ * 宿主方法的 @Lazy 参数推迟到方法需要时再求值
+ */
+final class Purity {
+
+    private Purity() {}
+
+    /**
+     * 表达式求值不会改变任何变量
+     */
+    static boolean isPure(Expression expr) {
+        if (expr instanceof LiteralExpression || expr instanceof VariableExpression) {
+            return true;
+        }
+        if (expr instanceof BinaryExpression) {
+            return isPure(((BinaryExpression) expr).getLeft()) && isPure(((BinaryExpression) expr).getRight());
+        }
+        if (expr instanceof UnaryExpression) {
+            String operator = ((UnaryExpression) expr).getOperator();
+            return !operator.startsWith("++") && !operator.startsWith("--") &&
+                    isPure(((UnaryExpression) expr).getRight());
+        }
+        if (expr instanceof TypeCastExpression) {
+            return isPure(((TypeCastExpression) expr).getExpression());
+        }
+        if (expr instanceof FractionExpression) {
+            return isPure(((FractionExpression) expr).getExpression());
+        }
+        if (expr instanceof MemberAccessExpression) {
+            return isPure(((MemberAccessExpression) expr).getObject());
+        }
+        if (expr instanceof FunctionCallExpression) {
+            return isPure(((FunctionCallExpression) expr).getCallee()) &&
+                    ((FunctionCallExpression) expr).getArguments().stream().allMatch(Purity::isPure);
+        }
+        if (expr instanceof MethodCallExpression) {
+            return ((MethodCallExpression) expr).getArguments().stream().allMatch(Purity::isPure);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,56 @@
+package com.vast.interpreter;
+
+/**
+ * 记录最后结果的语句节点（表达式语句、use 语句和赋值语句）
+ * 按上一次结果的类型推测：为 int / double 时走不装箱的求值路径，推测失败后固定走对象路径
+ */
+final class ResultNode implements ExecNode {
+    private static final byte UNINITIALIZED = 0;
+    private static final byte INT = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte OBJECT = 3;
+
+    private final Interpreter interpreter;
+    private final EvalNode expr;
+    private byte state = UNINITIALIZED;
+
+    ResultNode(Interpreter interpreter, EvalNode expr) {
+        this.interpreter = interpreter;
+        this.expr = expr;
+    }
+
+    @Override
+    public void execute() {
+        switch (state) {
+            case INT:
+                try {
+                    interpreter.setLastResultInt(expr.evalInt());
+                } catch (UnexpectedResultException e) {
+                    state = OBJECT;
+                    interpreter.setLastResult(e.getResult());
+                }
+                return;
+            case DOUBLE:
+                try {
+                    interpreter.setLastResultDouble(expr.evalDouble());
+                } catch (UnexpectedResultException e) {
+                    state = OBJECT;
+                    interpreter.setLastResult(e.getResult());
+                }
+                return;
+            case OBJECT:
+                interpreter.setLastResult(expr.eval());
+                return;
+            default:
+                Object result = expr.eval();
+                if (result instanceof Integer) {
+                    state = INT;
+                } else if (result instanceof Double) {
+                    state = DOUBLE;
+                } else {
+                    state = OBJECT;
+                }
+                interpreter.setLastResult(result);
+        }
+    }
+}
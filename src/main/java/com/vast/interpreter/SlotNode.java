@@ -0,0 +1,47 @@
+package com.vast.interpreter;
+
+import com.vast.ast.expressions.VariableExpression;
+
+/**
+ * 变量读取节点
+ * 槽位中是不装箱的 int / double 时，evalInt / evalDouble 直接读取原始值，不生成包装对象
+ */
+final class SlotNode implements EvalNode {
+    private final Interpreter interpreter;
+    private final Frame frame;
+    private final int slot;
+    private final VariableExpression expr;
+
+    SlotNode(Interpreter interpreter, Frame frame, int slot, VariableExpression expr) {
+        this.interpreter = interpreter;
+        this.frame = frame;
+        this.slot = slot;
+        this.expr = expr;
+    }
+
+    @Override
+    public Object eval() {
+        Object value = frame.load(slot);
+        if (value != Frame.UNDEFINED) {
+            return value;
+        }
+        // 变量不存在时回退到访问者（可能是运行中新导入的类，或给出错误建议）
+        return interpreter.evaluate(expr);
+    }
+
+    @Override
+    public int evalInt() {
+        if (frame.tagOf(slot) == Frame.INT) {
+            return frame.loadInt(slot);
+        }
+        return EvalNode.expectInt(eval());
+    }
+
+    @Override
+    public double evalDouble() {
+        if (frame.tagOf(slot) == Frame.DOUBLE) {
+            return frame.loadDouble(slot);
+        }
+        return EvalNode.expectDouble(eval());
+    }
+}
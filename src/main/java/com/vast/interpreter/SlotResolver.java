@@ -0,0 +1,188 @@
+package com.vast.interpreter;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.vm.VastVM;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 槽位解析器
+ * 在执行前遍历整个程序，为每个脚本变量在帧中分配固定槽位，
+ * 使闭包节点在编译时就能拿到变量的数组下标
+ */
+final class SlotResolver implements ASTVisitor<Void> {
+    private final Frame frame;
+    private final Map<String, Class<?>> importedClasses;
+    private int allocated;
+
+    SlotResolver(Frame frame, Map<String, Class<?>> importedClasses) {
+        this.frame = frame;
+        this.importedClasses = importedClasses;
+    }
+
+    /**
+     * 解析程序，返回本次新分配的槽位数
+     */
+    int resolve(Program program) {
+        allocated = 0;
+        statements(program.getStatements());
+        return allocated;
+    }
+
+    private void declare(String name) {
+        if (frame.slotOf(name) < 0) {
+            frame.declare(name);
+            allocated++;
+        }
+    }
+
+    private void statements(List<Statement> statements) {
+        for (Statement stmt : statements) {
+            stmt.accept(this);
+        }
+    }
+
+    private void expressions(List<Expression> expressions) {
+        for (Expression expr : expressions) {
+            expr.accept(this);
+        }
+    }
+
+    @Override
+    public Void visitLiteralExpression(LiteralExpression expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpression(VariableExpression expr) {
+        String name = expr.getName();
+        // 类名不占用变量槽位
+        if (!VastVM.getBuiltinClasses().containsKey(name) && !importedClasses.containsKey(name)) {
+            declare(name);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpression(BinaryExpression expr) {
+        expr.getLeft().accept(this);
+        expr.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpression(UnaryExpression expr) {
+        expr.getRight().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentExpression(AssignmentExpression expr) {
+        declare(expr.getVariableName());
+        expr.getValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitMemberAccessExpression(MemberAccessExpression expr) {
+        expr.getObject().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionCallExpression(FunctionCallExpression expr) {
+        expr.getCallee().accept(this);
+        expressions(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Void visitMethodCallExpression(MethodCallExpression expr) {
+        expressions(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Void visitTypeCastExpression(TypeCastExpression expr) {
+        expr.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitFractionExpression(FractionExpression expr) {
+        expr.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration stmt) {
+        declare(stmt.getVariableName());
+        if (stmt.getInitialValue() != null) {
+            stmt.getInitialValue().accept(this);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentStatement(AssignmentStatement stmt) {
+        declare(stmt.getVariableName());
+        stmt.getValue().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(ExpressionStatement stmt) {
+        stmt.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitImportStatement(ImportStatement stmt) {
+        return null;
+    }
+
+    @Override
+    public Void visitLoopStatement(LoopStatement stmt) {
+        stmt.getCondition().accept(this);
+        statements(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStatement(WhileStatement stmt) {
+        stmt.getCondition().accept(this);
+        statements(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitForStatement(ForStatement stmt) {
+        declare(stmt.getVariableName());
+        stmt.getStart().accept(this);
+        stmt.getEnd().accept(this);
+        statements(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitUseStatement(UseStatement stmt) {
+        stmt.getMethodCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Void visitSwapStatement(SwapStatement stmt) {
+        declare(stmt.getVarA().getName());
+        declare(stmt.getVarB().getName());
+        return null;
+    }
+
+    @Override
+    public Void visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        stmt.getTypeCastExpression().accept(this);
+        return null;
+    }
+}
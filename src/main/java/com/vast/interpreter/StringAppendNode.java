@@ -0,0 +1,95 @@
+package com.vast.interpreter;
+
+import com.vast.ast.Expression;
+import com.vast.ast.VastType;
+import com.vast.ast.expressions.*;
+import com.vast.internal.Fraction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 字符串追加语句节点（s = s + a + b ... 形式的表达式语句）
+ * 变量的值为字符串时，把右侧各项依次追加到槽位的 StringBuilder 中，不再每次复制整个字符串，
+ * 只有读取变量时才生成 String；变量不是字符串时按普通赋值语句执行
+ */
+final class StringAppendNode implements ExecNode {
+    private final Interpreter interpreter;
+    private final Frame frame;
+    private final int slot;
+    private final AssignmentExpression site;
+    private final EvalNode[] operands;// 不含最左侧的变量本身
+    private final Object[] pieces;
+    private final ExecNode fallback;
+
+    StringAppendNode(Interpreter interpreter, Frame frame, int slot, AssignmentExpression site,
+                     EvalNode[] operands, ExecNode fallback) {
+        this.interpreter = interpreter;
+        this.frame = frame;
+        this.slot = slot;
+        this.site = site;
+        this.operands = operands;
+        this.pieces = new Object[operands.length];
+        this.fallback = fallback;
+    }
+
+    /**
+     * 赋值表达式为 s = s + e1 + ... + ek 且各项没有副作用时，返回 e1 ... ek，否则返回 null
+     */
+    static List<Expression> appendedOperands(AssignmentExpression assignment) {
+        List<Expression> operands = new ArrayList<>();
+        Expression current = assignment.getValue();
+        while (current instanceof BinaryExpression && ((BinaryExpression) current).getOperator().equals("+")) {
+            BinaryExpression binary = (BinaryExpression) current;
+            // 各项求值不会改变变量时，先求出所有项再追加不影响结果
+            if (!Purity.isPure(binary.getRight())) {
+                return null;
+            }
+            operands.add(0, binary.getRight());
+            current = binary.getLeft();
+        }
+        if (operands.isEmpty() || !(current instanceof VariableExpression) ||
+                !((VariableExpression) current).getName().equals(assignment.getVariableName())) {
+            return null;
+        }
+        return operands;
+    }
+
+    @Override
+    public void execute() {
+        VastType type = frame.typeOf(slot);
+        if (!frame.holdsString(slot) || type != null && !type.acceptsAll(String.class)) {
+            fallback.execute();
+            return;
+        }
+
+        boolean hasFraction = false;
+        for (int i = 0; i < operands.length; i++) {
+            Object piece = operands[i].eval();
+            pieces[i] = piece;
+            hasFraction |= piece instanceof Fraction;
+        }
+        if (hasFraction) {
+            // 字符串与分数相加按分数运算处理（通常报错），保持与普通求值相同的结果
+            Object result = frame.load(slot);
+            for (int i = 0; i < pieces.length; i++) {
+                result = Operations.add(result, pieces[i]);
+                pieces[i] = null;
+            }
+            if (type != null) {
+                interpreter.validateTypeCompatibility(type, result, site.getVariableName(),
+                        site.getLineNumber(), site.getColumnNumber());
+            }
+            frame.store(slot, result);
+            interpreter.setLastResult(result);
+            return;
+        }
+
+        StringBuilder builder = null;
+        for (int i = 0; i < pieces.length; i++) {
+            builder = frame.append(slot, Operations.stringify(pieces[i]));
+            pieces[i] = null;
+        }
+        interpreter.setLastResultString(builder);
+    }
+}
@@ -0,0 +1,618 @@
+package com.vast.interpreter;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Debugger;
+import com.vast.internal.Decimal;
+import com.vast.internal.Fraction;
+import com.vast.internal.VastExceptions;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 静态类型推断
+ * 在执行前按语句顺序遍历程序，跟踪每个变量的强类型约束和可能的值类型（循环体迭代到不动点）。
+ * 能证明总是兼容且不需要转换的声明和赋值被记录下来，各执行模式据此跳过运行时的类型检查；
+ * 能证明一定不兼容的声明和赋值在执行前报错。程序开始时变量的状态未知（宿主或之前的程序可能已经设置），
+ * 只有本程序中的语句才能确定变量的类型
+ */
+final class TypeInferencer implements ASTVisitor<Set<Class<?>>> {
+
+    // 推断出的值类型为可能的 Java 类的集合，null 表示未知（可能是任何值）
+    private static final Set<Class<?>> NULL = Set.of(Void.class);// 字面量 null
+    private static final Set<Class<?>> INT = Set.of(Integer.class);
+    private static final Set<Class<?>> INTEGERS = Set.of(Integer.class, Long.class, BigInteger.class);// 整数运算可能提升
+    private static final Set<Class<?>> NUMBERS = Set.of(Integer.class, Long.class, BigInteger.class, Double.class);
+    private static final Set<Class<?>> DOUBLE = Set.of(Double.class);
+    private static final Set<Class<?>> BOOLEAN = Set.of(Boolean.class);
+    private static final Set<Class<?>> STRING = Set.of(String.class);
+    private static final Set<Class<?>> CHAR = Set.of(Character.class);
+    private static final Set<Class<?>> DECIMAL = Set.of(Decimal.class);
+    private static final Set<Class<?>> DECIMAL_OPERANDS =
+            Set.of(Integer.class, Long.class, BigInteger.class, Double.class, Decimal.class);
+
+    private static final Object UNTYPED = new Object();// 变量确定没有强类型约束
+
+    /**
+     * 流敏感的变量状态，没有记录的变量状态未知
+     */
+    private static final class State {
+        final Map<String, Object> types = new HashMap<>();// VastType 或 UNTYPED
+        final Map<String, Set<Class<?>>> values = new HashMap<>();
+
+        State copy() {
+            State copy = new State();
+            copy.types.putAll(types);
+            copy.values.putAll(values);
+            return copy;
+        }
+
+        /**
+         * 合并两条路径的状态：类型约束相同才保留，值类型取并集
+         */
+        State join(State other) {
+            State joined = new State();
+            for (Map.Entry<String, Object> entry : types.entrySet()) {
+                if (entry.getValue() == other.types.get(entry.getKey())) {
+                    joined.types.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (Map.Entry<String, Set<Class<?>>> entry : values.entrySet()) {
+                Set<Class<?>> union = union(entry.getValue(), other.values.get(entry.getKey()));
+                if (union != null) {
+                    joined.values.put(entry.getKey(), union);
+                }
+            }
+            return joined;
+        }
+
+        void setValue(String name, Set<Class<?>> value) {
+            if (value != null) {
+                values.put(name, value);
+            } else {
+                values.remove(name);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof State && types.equals(((State) obj).types) && values.equals(((State) obj).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(types, values);
+        }
+    }
+
+    private final Interpreter interpreter;
+    private final Debugger debugger;
+
+    // 推断结果（按节点身份记录）
+    private final Set<ASTNode> proven = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<AssignmentExpression, Object> targets = new IdentityHashMap<>();// 赋值表达式处已知的类型约束
+    private final Map<ASTNode, String> mismatches = new IdentityHashMap<>();
+    private final Set<AssignmentExpression> nonStrings = Collections.newSetFromMap(new IdentityHashMap<>());// 赋值前变量一定不是字符串
+
+    // 单次推断的遍历状态
+    private State state = new State();
+    private boolean importsNames;
+
+    TypeInferencer(Interpreter interpreter) {
+        this.interpreter = interpreter;
+        this.debugger = interpreter.debugger();
+    }
+
+    /**
+     * 推断程序中的类型，返回可以省略运行时检查的赋值数。
+     * 存在一定不兼容的赋值时，按源码位置报告第一个
+     */
+    int infer(Program program) {
+        proven.clear();
+        targets.clear();
+        mismatches.clear();
+        nonStrings.clear();
+        state = new State();
+        importsNames = false;
+        statements(program.getStatements());
+
+        ASTNode first = null;
+        for (ASTNode site : mismatches.keySet()) {
+            if (first == null || site.getLineNumber() < first.getLineNumber() ||
+                    site.getLineNumber() == first.getLineNumber() && site.getColumnNumber() < first.getColumnNumber()) {
+                first = site;
+            }
+        }
+        if (first != null) {
+            String errorMsg = mismatches.get(first);
+            debugger.log(errorMsg);
+            throw new VastExceptions.NotGrammarException(errorMsg, first.getLineNumber(), first.getColumnNumber());
+        }
+        return proven.size();
+    }
+
+    /**
+     * 声明或赋值总是兼容且不需要转换，可以跳过运行时的类型检查
+     */
+    boolean isProven(ASTNode site) {
+        return proven.contains(site);
+    }
+
+    /**
+     * 赋值表达式处变量的类型约束在编译时已知，且接受该类的任何值而无需转换
+     */
+    boolean accepts(AssignmentExpression site, Class<?> valueClass) {
+        Object target = targets.get(site);
+        return target == UNTYPED || target instanceof VastType && ((VastType) target).acceptsAll(valueClass);
+    }
+
+    /**
+     * 赋值表达式执行前，变量的值可能是字符串（无法推断时也返回 true）
+     */
+    boolean mayHoldString(AssignmentExpression site) {
+        return !nonStrings.contains(site);
+    }
+
+    // ====== 类型规则 ======
+
+    private static Set<Class<?>> union(Set<Class<?>> a, Set<Class<?>> b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        if (a.containsAll(b)) {
+            return a;
+        }
+        Set<Class<?>> union = new HashSet<>(a);
+        union.addAll(b);
+        return union;
+    }
+
+    private static boolean within(Set<Class<?>> value, Set<Class<?>> classes) {
+        return value != null && !value.isEmpty() && classes.containsAll(value);
+    }
+
+    private static boolean mayBeNull(Set<Class<?>> value) {
+        return value == null || value.contains(Void.class);
+    }
+
+    private static Set<Class<?>> orNull(Set<Class<?>> result, Set<Class<?>> operand) {
+        return mayBeNull(operand) ? union(result, NULL) : result;
+    }
+
+    /**
+     * 值的每种可能都能直接赋给类型（null 可以赋给任何类型）
+     */
+    private static boolean acceptsAll(VastType type, Set<Class<?>> value) {
+        if (value == null) {
+            return false;
+        }
+        for (Class<?> valueClass : value) {
+            if (valueClass != Void.class && !type.acceptsAll(valueClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 值的每种可能都会被类型拒绝
+     */
+    private static boolean rejectsAll(VastType type, Set<Class<?>> value) {
+        if (value == null || value.isEmpty() || value.contains(Void.class)) {
+            return false;
+        }
+        for (Class<?> valueClass : value) {
+            if (type.mayAccept(valueClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 强类型赋值（检查并转换）之后变量可能的值类型
+     */
+    private static Set<Class<?>> converted(VastType type, Set<Class<?>> value) {
+        if (acceptsAll(type, value)) {
+            return value;
+        }
+        switch (type.getCast()) {
+            case INT: return orNull(INT, value);
+            case DOUBLE: return orNull(DOUBLE, value);
+            case BOOLEAN: return orNull(BOOLEAN, value);
+            case DECIMAL: return orNull(DECIMAL, value);
+            default: return null;
+        }
+    }
+
+    /**
+     * 显式类型转换（performTypeCast）结果可能的值类型
+     */
+    private static Set<Class<?>> cast(VastType type, Set<Class<?>> value) {
+        switch (type.getCast()) {
+            case INT: return orNull(INT, value);
+            case DOUBLE: return orNull(DOUBLE, value);
+            case BOOLEAN: return orNull(BOOLEAN, value);
+            case STRING: return orNull(STRING, value);
+            case CHAR: return orNull(CHAR, value);
+            case DECIMAL: return orNull(DECIMAL, value);
+            default: return value;// 不支持转换的类型保留原值
+        }
+    }
+
+    /**
+     * 二元运算结果可能的值类型，与 Operations.binary 的规则一致；运算可能出错时只描述成功的结果
+     */
+    private static Set<Class<?>> binary(String operator, Set<Class<?>> left, Set<Class<?>> right) {
+        switch (operator) {
+            case "==": case "!=": case ">": case "<": case ">=": case "<=":
+            case "AND": case "OR": case "XOR":
+                return BOOLEAN;
+            case "+":
+                if (within(left, STRING) && right != null && !right.contains(Fraction.class) ||
+                        within(right, STRING) && left != null && !left.contains(Fraction.class)) {
+                    return STRING;
+                }
+                return arithmetic(left, right);
+            case "-": case "*": case "%":
+                return arithmetic(left, right);
+            case "/":
+                if (isDecimal(left, right)) {
+                    return DECIMAL;
+                }
+                return within(left, NUMBERS) && within(right, NUMBERS) ? DOUBLE : null;
+            case "//":
+                return within(left, DECIMAL_OPERANDS) && within(right, DECIMAL_OPERANDS) ? INTEGERS : null;
+            case "**":
+                if (within(left, INTEGERS) && within(right, INTEGERS)) {
+                    return NUMBERS;// 负指数时为 double
+                }
+                return within(left, NUMBERS) && within(right, NUMBERS) ? DOUBLE : null;
+            default:
+                return null;
+        }
+    }
+
+    private static Set<Class<?>> arithmetic(Set<Class<?>> left, Set<Class<?>> right) {
+        if (within(left, INTEGERS) && within(right, INTEGERS)) {
+            return INTEGERS;
+        }
+        if (isDecimal(left, right)) {
+            return DECIMAL;
+        }
+        if (!within(left, NUMBERS) || !within(right, NUMBERS)) {
+            return null;
+        }
+        // 有一侧是 double 时结果为 double（int + double 会出错，没有其他结果）
+        return within(left, DOUBLE) || within(right, DOUBLE) ? DOUBLE : NUMBERS;
+    }
+
+    /**
+     * 一侧一定是 decimal，另一侧是数值或 decimal，运算结果为 decimal
+     */
+    private static boolean isDecimal(Set<Class<?>> left, Set<Class<?>> right) {
+        return (within(left, DECIMAL) || within(right, DECIMAL)) &&
+                within(left, DECIMAL_OPERANDS) && within(right, DECIMAL_OPERANDS);
+    }
+
+    /**
+     * 自增自减后可能的值类型
+     */
+    private static Set<Class<?>> increment(Set<Class<?>> value) {
+        if (within(value, INTEGERS)) {
+            return INTEGERS;
+        }
+        if (within(value, DECIMAL)) {
+            return DECIMAL;
+        }
+        return within(value, DOUBLE) ? DOUBLE : null;
+    }
+
+    private static String typeName(Expression valueExpr, Set<Class<?>> value) {
+        if (valueExpr instanceof LiteralExpression) {
+            return Operations.typeName(((LiteralExpression) valueExpr).getValue());
+        }
+        Set<String> names = new TreeSet<>();// 按名称排序，报错信息与集合的遍历顺序无关
+        for (Class<?> valueClass : value) {
+            names.add(Operations.typeName(valueClass));
+        }
+        return String.join(" or ", names);
+    }
+
+    // ====== 赋值点 ======
+
+    /**
+     * 记录赋值点的推断结果：是否总是兼容且无需转换，是否一定不兼容
+     */
+    private void check(ASTNode site, String varName, VastType type, Expression valueExpr, Set<Class<?>> value) {
+        if (acceptsAll(type, value)) {
+            proven.add(site);
+        } else {
+            proven.remove(site);
+        }
+
+        // 字面量按实际的值检查，其他表达式按可能的值类型检查
+        boolean mismatch = valueExpr instanceof LiteralExpression ?
+                !type.accepts(((LiteralExpression) valueExpr).getValue()) : rejectsAll(type, value);
+        if (mismatch) {
+            mismatches.put(site, "Type mismatch: cannot assign " + typeName(valueExpr, value) +
+                    " to variable '" + varName + "' of type " + type);
+        } else {
+            mismatches.remove(site);
+        }
+    }
+
+    /**
+     * 强类型声明或强类型赋值语句：设置类型约束，值经过检查和转换
+     */
+    private void declare(ASTNode site, String varName, VastType type, Expression valueExpr) {
+        Set<Class<?>> value = valueExpr != null ? valueExpr.accept(this) : NULL;
+        if (type == null) {
+            state.setValue(varName, value);
+            return;
+        }
+        if (valueExpr != null) {
+            check(site, varName, type, valueExpr, value);
+        }
+        state.types.put(varName, type);
+        state.setValue(varName, converted(type, value));
+    }
+
+    private void statements(List<Statement> statements) {
+        for (Statement stmt : statements) {
+            stmt.accept(this);
+        }
+    }
+
+    private void expressions(List<Expression> expressions) {
+        for (Expression expr : expressions) {
+            expr.accept(this);
+        }
+    }
+
+    // ====== 表达式 ======
+
+    @Override
+    public Set<Class<?>> visitLiteralExpression(LiteralExpression expr) {
+        Object value = expr.getValue();
+        return value == null ? NULL : Set.of(value.getClass());
+    }
+
+    @Override
+    public Set<Class<?>> visitVariableExpression(VariableExpression expr) {
+        // 导入语句可能在运行时把名称变为类名，这时不推断
+        if (importsNames || interpreter.binding(expr.getName()).kind != Linker.Kind.VARIABLE) {
+            return null;
+        }
+        return state.values.get(expr.getName());
+    }
+
+    @Override
+    public Set<Class<?>> visitBinaryExpression(BinaryExpression expr) {
+        Set<Class<?>> left = expr.getLeft().accept(this);
+        if (expr.getOperator().equals("AND") || expr.getOperator().equals("OR")) {
+            // 短路求值：右侧可能不执行，之后的状态为两条路径的合并
+            State skipped = state.copy();
+            expr.getRight().accept(this);
+            state = skipped.join(state);
+            return BOOLEAN;
+        }
+        Set<Class<?>> right = expr.getRight().accept(this);
+        return binary(expr.getOperator(), left, right);
+    }
+
+    @Override
+    public Set<Class<?>> visitUnaryExpression(UnaryExpression expr) {
+        String operator = expr.getOperator();
+        if (operator.startsWith("++") || operator.startsWith("--")) {
+            if (!(expr.getRight() instanceof VariableExpression)) {
+                expr.getRight().accept(this);
+                return null;
+            }
+            String varName = ((VariableExpression) expr.getRight()).getName();
+            Set<Class<?>> old = expr.getRight().accept(this);
+            Set<Class<?>> updated = increment(old);
+            state.setValue(varName, updated);// 自增不检查也不改变类型约束
+            return operator.endsWith("_POSTFIX") ? old : updated;
+        }
+
+        Set<Class<?>> right = expr.getRight().accept(this);
+        switch (operator) {
+            case "-":
+                if (within(right, INTEGERS)) {
+                    return INTEGERS;
+                }
+                return within(right, DOUBLE) ? DOUBLE : null;
+            case "NOT":
+                return BOOLEAN;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Set<Class<?>> visitAssignmentExpression(AssignmentExpression expr) {
+        String varName = expr.getVariableName();
+        Set<Class<?>> previous = importsNames ? null : state.values.get(varName);
+        if (previous != null && !previous.contains(String.class)) {
+            nonStrings.add(expr);
+        } else {
+            nonStrings.remove(expr);
+        }
+        Set<Class<?>> value = expr.getValue().accept(this);
+
+        // 赋值表达式按变量当前的类型约束检查，不做转换
+        Object target = state.types.get(varName);
+        if (target != null) {
+            targets.put(expr, target);
+        } else {
+            targets.remove(expr);
+        }
+        if (target instanceof VastType) {
+            check(expr, varName, (VastType) target, expr.getValue(), value);
+        } else if (target == UNTYPED) {
+            proven.add(expr);
+        } else {
+            proven.remove(expr);
+        }
+        state.setValue(varName, value);
+        return value;
+    }
+
+    @Override
+    public Set<Class<?>> visitMemberAccessExpression(MemberAccessExpression expr) {
+        expr.getObject().accept(this);
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitFunctionCallExpression(FunctionCallExpression expr) {
+        expr.getCallee().accept(this);
+        expressions(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitMethodCallExpression(MethodCallExpression expr) {
+        expressions(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitTypeCastExpression(TypeCastExpression expr) {
+        return cast(expr.getTargetType(), expr.getExpression().accept(this));
+    }
+
+    @Override
+    public Set<Class<?>> visitFractionExpression(FractionExpression expr) {
+        expr.getExpression().accept(this);
+        return Set.of(Fraction.class);
+    }
+
+    // ====== 语句 ======
+
+    @Override
+    public Set<Class<?>> visitVariableDeclaration(VariableDeclaration stmt) {
+        declare(stmt, stmt.getVariableName(), stmt.getTypeHint(), stmt.getInitialValue());
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitAssignmentStatement(AssignmentStatement stmt) {
+        if (stmt.getTypeHint() != null) {
+            declare(stmt, stmt.getVariableName(), stmt.getTypeHint(), stmt.getValue());
+            proven.remove(stmt);// 强类型赋值语句只由重写器保留下来，各执行模式总是检查
+            return null;
+        }
+        // 自由类型赋值覆盖原有的强类型
+        Set<Class<?>> value = stmt.getValue().accept(this);
+        state.types.put(stmt.getVariableName(), UNTYPED);
+        state.setValue(stmt.getVariableName(), value);
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitExpressionStatement(ExpressionStatement stmt) {
+        stmt.getExpression().accept(this);
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitImportStatement(ImportStatement stmt) {
+        importsNames = true;
+        state.values.clear();
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitLoopStatement(LoopStatement stmt) {
+        stmt.getCondition().accept(this);
+
+        // 循环体执行零次或多次：从循环前的状态开始，与每次迭代后的状态合并，直到不再变化。
+        // 最后一次遍历使用不动点状态，记录下的推断结果对所有迭代都成立
+        State head = state;
+        while (true) {
+            state = head.copy();
+            statements(stmt.getBody());
+            State next = head.join(state);
+            if (next.equals(head)) {
+                break;
+            }
+            head = next;
+        }
+        state = head;
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitWhileStatement(WhileStatement stmt) {
+        // 同 loop，但条件在每次迭代前都会求值，最后一次求值为假时退出
+        State head = state;
+        while (true) {
+            state = head.copy();
+            stmt.getCondition().accept(this);
+            statements(stmt.getBody());
+            State next = head.join(state);
+            if (next.equals(head)) {
+                break;
+            }
+            head = next;
+        }
+        state = head;
+        stmt.getCondition().accept(this);
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitForStatement(ForStatement stmt) {
+        stmt.getStart().accept(this);
+        stmt.getEnd().accept(this);
+
+        // 每次迭代开始时循环变量为 int，类型约束不变（不接受 int 的约束在运行时报错）
+        State head = state;
+        while (true) {
+            state = head.copy();
+            state.setValue(stmt.getVariableName(), INT);
+            statements(stmt.getBody());
+            State next = head.join(state);
+            if (next.equals(head)) {
+                break;
+            }
+            head = next;
+        }
+        state = head;
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitUseStatement(UseStatement stmt) {
+        stmt.getMethodCall().accept(this);
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitSwapStatement(SwapStatement stmt) {
+        // 交换只交换值，不交换类型约束
+        String a = stmt.getVarA().getName();
+        String b = stmt.getVarB().getName();
+        Set<Class<?>> valueA = stmt.getVarA().accept(this);
+        Set<Class<?>> valueB = stmt.getVarB().accept(this);
+        state.setValue(a, valueB);
+        state.setValue(b, valueA);
+        return null;
+    }
+
+    @Override
+    public Set<Class<?>> visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        TypeCastExpression castExpr = stmt.getTypeCastExpression();
+        Set<Class<?>> value = castExpr.accept(this);
+        if (castExpr.getExpression() instanceof VariableExpression) {
+            String varName = ((VariableExpression) castExpr.getExpression()).getName();
+            state.types.put(varName, stmt.getTargetType());
+            state.setValue(varName, value);
+        }
+        return null;
+    }
+}
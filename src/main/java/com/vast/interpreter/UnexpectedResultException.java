@@ -0,0 +1,22 @@
+package com.vast.interpreter;
+
+/**
+ * 推测求值失败
+ * evalInt / evalDouble 的结果不是推测的类型时抛出，携带已经求出的值，
+ * 调用方用这个值继续走对象路径（不会重新求值，保证副作用只发生一次）
+ */
+final class UnexpectedResultException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Object result;
+
+    UnexpectedResultException(Object result) {
+        // 只用于控制流，不需要栈信息
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    Object getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,73 @@
+package com.vast.interpreter;
+
+import com.vast.ast.statements.WhileStatement;
+
+/**
+ * while 循环节点
+ * 条件通过 evalBoolean 求值，特化的比较节点不生成 Boolean。
+ * 与 LoopNode 相同，累计迭代次数超过阈值后整个循环（包括条件）交给 LoopCompiler 编译
+ */
+final class WhileNode implements ExecNode {
+    // 去优化次数超过此值后不再尝试编译该循环
+    private static final int MAX_DEOPTIMIZATIONS = 3;
+
+    private final WhileStatement statement;
+    private final EvalNode condition;
+    private final ExecNode[] body;
+    private final LoopCompiler compiler;
+
+    private CompiledLoop compiled;
+    private long iterations;
+    private int deoptimizations;
+    private boolean giveUp;
+
+    WhileNode(WhileStatement statement, EvalNode condition, ExecNode[] body, LoopCompiler compiler) {
+        this.statement = statement;
+        this.condition = condition;
+        this.body = body;
+        this.compiler = compiler;
+    }
+
+    @Override
+    public void execute() {
+        while (true) {
+            if (compiled != null) {
+                long result = compiled.run(0, 0);
+                if (result == CompiledLoop.COMPLETED) {
+                    return;
+                }
+                // 假设失效：在闭包节点中完成当前迭代（语句序号为循环体长度时直接回到条件）
+                deoptimize();
+                runBody(CompiledLoop.resumeStatement(result));
+                continue;
+            }
+
+            if (!condition.evalBoolean()) {
+                return;
+            }
+            runBody(0);
+
+            if (++iterations >= compiler.threshold() && !giveUp && compiler.isEnabled()) {
+                compiled = compiler.compileWhile(statement, body);
+                if (compiled == null) {
+                    giveUp = true;
+                }
+            }
+        }
+    }
+
+    private void runBody(int from) {
+        for (int k = from; k < body.length; k++) {
+            body[k].execute();
+        }
+    }
+
+    private void deoptimize() {
+        compiled = null;
+        iterations = 0;
+        compiler.recordDeoptimization(statement);
+        if (++deoptimizations >= MAX_DEOPTIMIZATIONS) {
+            giveUp = true;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.vast.optimizer;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AST 重写器基类
+ * 默认原样返回节点；子节点有变化时才重建父节点，没有改写的子树保持同一个对象
+ */
+public abstract class ASTRewriter implements ASTVisitor<ASTNode> {
+    private int rewrites;
+
+    /**
+     * 重写整个程序，没有任何改写时返回原程序
+     */
+    public Program rewrite(Program program) {
+        List<Statement> statements = statements(program.getStatements());
+        return statements == program.getStatements() ? program : new Program(statements);
+    }
+
+    /**
+     * 本重写器累计改写的节点数
+     */
+    public int getRewriteCount() {
+        return rewrites;
+    }
+
+    protected void rewritten() {
+        rewrites++;
+    }
+
+    protected Expression expression(Expression expr) {
+        return expr == null ? null : (Expression) expr.accept(this);
+    }
+
+    protected List<Expression> expressions(List<Expression> expressions) {
+        List<Expression> result = null;
+        for (int i = 0; i < expressions.size(); i++) {
+            Expression original = expressions.get(i);
+            Expression rewritten = expression(original);
+            if (rewritten != original && result == null) {
+                result = new ArrayList<>(expressions.subList(0, i));
+            }
+            if (result != null) {
+                result.add(rewritten);
+            }
+        }
+        return result != null ? result : expressions;
+    }
+
+    protected List<Statement> statements(List<Statement> statements) {
+        List<Statement> result = new ArrayList<>(statements.size());
+        boolean changed = false;
+        for (Statement stmt : statements) {
+            int before = result.size();
+            emit(stmt, result);
+            changed |= result.size() != before + 1 || result.get(before) != stmt;
+        }
+        return changed ? result : statements;
+    }
+
+    /**
+     * 把重写后的语句加入列表；子类可以把一条语句展开为多条
+     */
+    protected void emit(Statement stmt, List<Statement> out) {
+        out.add((Statement) stmt.accept(this));
+    }
+
+    @Override
+    public ASTNode visitLiteralExpression(LiteralExpression expr) {
+        return expr;
+    }
+
+    @Override
+    public ASTNode visitVariableExpression(VariableExpression expr) {
+        return expr;
+    }
+
+    @Override
+    public ASTNode visitBinaryExpression(BinaryExpression expr) {
+        Expression left = expression(expr.getLeft());
+        Expression right = expression(expr.getRight());
+        if (left == expr.getLeft() && right == expr.getRight()) {
+            return expr;
+        }
+        return new BinaryExpression(left, expr.getOperator(), right, expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitUnaryExpression(UnaryExpression expr) {
+        Expression right = expression(expr.getRight());
+        if (right == expr.getRight()) {
+            return expr;
+        }
+        return new UnaryExpression(expr.getOperator(), right, expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitAssignmentExpression(AssignmentExpression expr) {
+        Expression value = expression(expr.getValue());
+        if (value == expr.getValue()) {
+            return expr;
+        }
+        return new AssignmentExpression(expr.getVariableName(), value, expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitMemberAccessExpression(MemberAccessExpression expr) {
+        Expression object = expression(expr.getObject());
+        if (object == expr.getObject()) {
+            return expr;
+        }
+        return new MemberAccessExpression(object, expr.getMemberName(), expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitFunctionCallExpression(FunctionCallExpression expr) {
+        Expression callee = expression(expr.getCallee());
+        List<Expression> arguments = expressions(expr.getArguments());
+        if (callee == expr.getCallee() && arguments == expr.getArguments()) {
+            return expr;
+        }
+        return new FunctionCallExpression(callee, arguments, expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitMethodCallExpression(MethodCallExpression expr) {
+        List<Expression> arguments = expressions(expr.getArguments());
+        if (arguments == expr.getArguments()) {
+            return expr;
+        }
+        return new MethodCallExpression(expr.getClassName(), expr.getMethodName(), arguments,
+                expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitTypeCastExpression(TypeCastExpression expr) {
+        Expression inner = expression(expr.getExpression());
+        if (inner == expr.getExpression()) {
+            return expr;
+        }
+        return new TypeCastExpression(inner, expr.getTargetType(), expr.isExplicit(),
+                expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitFractionExpression(FractionExpression expr) {
+        Expression inner = expression(expr.getExpression());
+        if (inner == expr.getExpression()) {
+            return expr;
+        }
+        return new FractionExpression(inner, expr.isPermanent(), expr.getLineNumber(), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitVariableDeclaration(VariableDeclaration stmt) {
+        Expression value = expression(stmt.getInitialValue());
+        if (value == stmt.getInitialValue()) {
+            return stmt;
+        }
+        return new VariableDeclaration(stmt.getVariableName(), stmt.getTypeHint(), value, stmt.isTypeCast(),
+                stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitAssignmentStatement(AssignmentStatement stmt) {
+        Expression value = expression(stmt.getValue());
+        if (value == stmt.getValue()) {
+            return stmt;
+        }
+        return new AssignmentStatement(stmt.getVariableName(), value, stmt.getTypeHint(),
+                stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitExpressionStatement(ExpressionStatement stmt) {
+        Expression expr = expression(stmt.getExpression());
+        if (expr == stmt.getExpression()) {
+            return stmt;
+        }
+        return new ExpressionStatement(expr, stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitImportStatement(ImportStatement stmt) {
+        return stmt;
+    }
+
+    @Override
+    public ASTNode visitLoopStatement(LoopStatement stmt) {
+        Expression condition = expression(stmt.getCondition());
+        List<Statement> body = statements(stmt.getBody());
+        if (condition == stmt.getCondition() && body == stmt.getBody()) {
+            return stmt;
+        }
+        return new LoopStatement(condition, body, stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitWhileStatement(WhileStatement stmt) {
+        Expression condition = expression(stmt.getCondition());
+        List<Statement> body = statements(stmt.getBody());
+        if (condition == stmt.getCondition() && body == stmt.getBody()) {
+            return stmt;
+        }
+        return new WhileStatement(condition, body, stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitForStatement(ForStatement stmt) {
+        Expression start = expression(stmt.getStart());
+        Expression end = expression(stmt.getEnd());
+        List<Statement> body = statements(stmt.getBody());
+        if (start == stmt.getStart() && end == stmt.getEnd() && body == stmt.getBody()) {
+            return stmt;
+        }
+        return new ForStatement(stmt.getVariableName(), start, end, body,
+                stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitUseStatement(UseStatement stmt) {
+        if (stmt.getMethodCall() == null) {
+            return stmt;
+        }
+        Expression methodCall = expression(stmt.getMethodCall());
+        if (methodCall == stmt.getMethodCall()) {
+            return stmt;
+        }
+        return new UseStatement(methodCall, stmt.getLineNumber(), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitSwapStatement(SwapStatement stmt) {
+        return stmt;
+    }
+
+    @Override
+    public ASTNode visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        // 内联类型转换的操作数必须是变量，不做改写
+        return stmt;
+    }
+}
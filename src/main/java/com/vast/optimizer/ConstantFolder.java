@@ -0,0 +1,142 @@
+package com.vast.optimizer;
+
+import com.vast.ast.ASTNode;
+import com.vast.ast.Expression;
+import com.vast.ast.VastType;
+import com.vast.ast.expressions.*;
+import com.vast.internal.Fraction;
+import com.vast.interpreter.Interpreter;
+import com.vast.interpreter.Operations;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Set;
+
+/**
+ * 常量折叠
+ * 操作数都是字面量的二元、一元运算、类型转换和分数表达式在执行前算出结果，替换为字面量。
+ * 求值使用与解释器相同的 Operations / performTypeCast；求值出错时保留原表达式，让错误在运行时按原位置抛出
+ */
+public class ConstantFolder extends ASTRewriter {
+    // 结果为不可变值时才能被所有执行共享（执行层只通过 withPermanent 复制分数，不修改已有的分数）
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            Integer.class, Long.class, Double.class, Float.class, Short.class, Byte.class,
+            Boolean.class, Character.class, String.class, BigInteger.class, BigDecimal.class, Fraction.class);
+    // 整数幂折叠结果的位数上限，超过时结果可能不再是定长的 long
+    private static final int MAX_FOLDED_POWER_BITS = Long.SIZE;
+
+    private final Interpreter interpreter;
+
+    public ConstantFolder(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    @Override
+    public ASTNode visitBinaryExpression(BinaryExpression expr) {
+        BinaryExpression folded = (BinaryExpression) super.visitBinaryExpression(expr);
+        if (!(folded.getLeft() instanceof LiteralExpression) || !(folded.getRight() instanceof LiteralExpression)) {
+            return folded;
+        }
+        Object left = ((LiteralExpression) folded.getLeft()).getValue();
+        Object right = ((LiteralExpression) folded.getRight()).getValue();
+        if (sizeDependsOnOperands(folded.getOperator(), left, right)) {
+            return folded;
+        }
+        try {
+            return literal(folded, Operations.binary(folded.getOperator(), left, right,
+                    folded.getLineNumber(), folded.getColumnNumber()));
+        } catch (RuntimeException e) {
+            return folded;
+        }
+    }
+
+    @Override
+    public ASTNode visitUnaryExpression(UnaryExpression expr) {
+        UnaryExpression folded = (UnaryExpression) super.visitUnaryExpression(expr);
+        if (!(folded.getRight() instanceof LiteralExpression)) {
+            return folded;
+        }
+        Object value = ((LiteralExpression) folded.getRight()).getValue();
+        try {
+            switch (folded.getOperator()) {
+                case "-":
+                    return literal(folded, Operations.negate(value));
+                case "NOT":
+                    return literal(folded, !Operations.toBoolean(value));
+                default:
+                    // 自增自减作用于变量，不能折叠
+                    return folded;
+            }
+        } catch (RuntimeException e) {
+            return folded;
+        }
+    }
+
+    @Override
+    public ASTNode visitTypeCastExpression(TypeCastExpression expr) {
+        TypeCastExpression folded = (TypeCastExpression) super.visitTypeCastExpression(expr);
+        if (!(folded.getExpression() instanceof LiteralExpression) ||
+                folded.getTargetType().getCast() == VastType.Cast.NONE) {
+            return folded;
+        }
+        Object value = ((LiteralExpression) folded.getExpression()).getValue();
+        // 隐式转换字符串时可能在运行时输出精度警告，保留到运行时
+        if (!folded.isExplicit() && value instanceof String) {
+            return folded;
+        }
+        try {
+            return literal(folded, interpreter.performTypeCast(value, folded.getTargetType(),
+                    folded.getLineNumber(), folded.getColumnNumber(), folded.isExplicit()));
+        } catch (RuntimeException e) {
+            return folded;
+        }
+    }
+
+    @Override
+    public ASTNode visitFractionExpression(FractionExpression expr) {
+        FractionExpression folded = (FractionExpression) super.visitFractionExpression(expr);
+        if (!(folded.getExpression() instanceof LiteralExpression)) {
+            return folded;
+        }
+        Object value = ((LiteralExpression) folded.getExpression()).getValue();
+        try {
+            return literal(folded, Operations.createFraction(value, folded.isPermanent(),
+                    folded.getLineNumber(), folded.getColumnNumber()));
+        } catch (RuntimeException e) {
+            return folded;
+        }
+    }
+
+    /**
+     * 结果大小取决于操作数的值的运算不折叠（字符串重复、结果可能超出 long 的幂运算），留到运行时按需计算。
+     * 否则不可达代码中的 "x" * 2000000000 也会在准备阶段分配结果，耗尽内存
+     */
+    private static boolean sizeDependsOnOperands(String operator, Object left, Object right) {
+        switch (operator) {
+            case "*":
+                return left instanceof String || right instanceof String;
+            case "**":
+                if (left instanceof Double || right instanceof Double) {
+                    return false;
+                }
+                if (!(left instanceof Integer || left instanceof Long) ||
+                        !(right instanceof Integer || right instanceof Long)) {
+                    return true;
+                }
+                long exponent = ((Number) right).longValue();
+                int bits = Long.SIZE - Long.numberOfLeadingZeros(Math.abs(((Number) left).longValue()));
+                return bits > 1 && exponent > 0 &&
+                        (exponent > MAX_FOLDED_POWER_BITS || exponent * bits > MAX_FOLDED_POWER_BITS);
+            default:
+                return false;
+        }
+    }
+
+    private Expression literal(Expression original, Object value) {
+        if (value == null || !IMMUTABLE_TYPES.contains(value.getClass())) {
+            return original;
+        }
+        rewritten();
+        return new LiteralExpression(value, original.getLineNumber(), original.getColumnNumber());
+    }
+}
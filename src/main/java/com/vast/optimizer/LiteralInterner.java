@@ -0,0 +1,42 @@
+package com.vast.optimizer;
+
+import com.vast.ast.ASTNode;
+import com.vast.ast.Program;
+import com.vast.ast.expressions.LiteralExpression;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 字面量驻留
+ * 程序中相等的字面量共用同一个值对象，减少装箱对象和字符串的重复，
+ * 也让运行时的 equals 比较可以走引用相同的快速路径
+ */
+public class LiteralInterner extends ASTRewriter {
+    private final Map<Object, Object> canonical = new HashMap<>();
+
+    @Override
+    public Program rewrite(Program program) {
+        // 只在单个程序内驻留，避免 shell 长时间运行时表无限增长
+        canonical.clear();
+        try {
+            return super.rewrite(program);
+        } finally {
+            canonical.clear();
+        }
+    }
+
+    @Override
+    public ASTNode visitLiteralExpression(LiteralExpression expr) {
+        Object value = expr.getValue();
+        if (value == null || value instanceof Boolean) {
+            return expr;
+        }
+        Object shared = canonical.putIfAbsent(value, value);
+        if (shared == null || shared == value) {
+            return expr;
+        }
+        rewritten();
+        return new LiteralExpression(shared, expr.getLineNumber(), expr.getColumnNumber());
+    }
+}
@@ -0,0 +1,299 @@
+package com.vast.optimizer;
+
+import com.vast.ast.ASTNode;
+import com.vast.ast.Expression;
+import com.vast.ast.Statement;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+
+import java.util.*;
+
+/**
+ * 循环不变量外提
+ * 固定次数（整数字面量且不少于 2 次）的循环中，只读取循环内不会被赋值的变量的纯表达式每次迭代结果相同。
+ * 做法是把第一次迭代剥离出来：第一次迭代在表达式原来的位置计算并保存到临时变量，
+ * 其余迭代直接读取临时变量。表达式的求值顺序和出错位置与原程序完全一致。
+ * 调用的参数不外提：宿主方法的 @Lazy 参数可能不求值，改写为临时变量赋值后会被提前求值
+ */
+public class LoopInvariantHoister extends ASTRewriter {
+    // 临时变量前缀，"$" 开头的名字无法在脚本中写出，不会与用户变量冲突
+    static final String TEMP_PREFIX = "$inv";
+
+    private int tempCounter;
+
+    @Override
+    protected void emit(Statement stmt, List<Statement> out) {
+        if (!(stmt instanceof LoopStatement)) {
+            super.emit(stmt, out);
+            return;
+        }
+        // 先处理内层循环
+        LoopStatement loop = (LoopStatement) super.visitLoopStatement((LoopStatement) stmt);
+        if (!hoist(loop, out)) {
+            out.add(loop);
+        }
+    }
+
+    private boolean hoist(LoopStatement loop, List<Statement> out) {
+        if (!(loop.getCondition() instanceof LiteralExpression)) {
+            return false;
+        }
+        Object count = ((LiteralExpression) loop.getCondition()).getValue();
+        if (!(count instanceof Integer) || (Integer) count < 2) {
+            return false;
+        }
+
+        Set<String> assigned = new HashSet<>();
+        if (!collectAssigned(loop.getBody(), assigned)) {
+            return false;
+        }
+
+        // 收集每次迭代都会执行的位置上的不变量表达式
+        Map<Expression, String> invariants = new IdentityHashMap<>();
+        for (Statement stmt : loop.getBody()) {
+            for (Expression expr : evaluatedExpressions(stmt)) {
+                findInvariants(expr, assigned, invariants);
+            }
+        }
+        if (invariants.isEmpty()) {
+            return false;
+        }
+
+        // 剥离出的第一次迭代：在原位置计算并保存
+        List<Statement> first = new Substitution(invariants, true).statements(loop.getBody());
+        // 其余迭代：读取临时变量
+        List<Statement> rest = new Substitution(invariants, false).statements(loop.getBody());
+
+        out.addAll(first);
+        LiteralExpression condition = (LiteralExpression) loop.getCondition();
+        out.add(new LoopStatement(
+                new LiteralExpression((Integer) count - 1, condition.getLineNumber(), condition.getColumnNumber()),
+                rest, loop.getLineNumber(), loop.getColumnNumber()));
+        for (int i = 0; i < invariants.size(); i++) {
+            rewritten();
+        }
+        return true;
+    }
+
+    /**
+     * 收集循环体中被赋值的变量；循环体包含导入语句（会改变名称解析）时返回 false
+     */
+    private boolean collectAssigned(List<Statement> body, Set<String> assigned) {
+        for (Statement stmt : body) {
+            if (stmt instanceof ImportStatement) {
+                return false;
+            }
+            if (stmt instanceof VariableDeclaration) {
+                assigned.add(((VariableDeclaration) stmt).getVariableName());
+            } else if (stmt instanceof AssignmentStatement) {
+                assigned.add(((AssignmentStatement) stmt).getVariableName());
+            } else if (stmt instanceof SwapStatement) {
+                assigned.add(((SwapStatement) stmt).getVarA().getName());
+                assigned.add(((SwapStatement) stmt).getVarB().getName());
+            } else if (stmt instanceof InlineTypeCastStatement) {
+                Expression target = ((InlineTypeCastStatement) stmt).getTypeCastExpression().getExpression();
+                if (target instanceof VariableExpression) {
+                    assigned.add(((VariableExpression) target).getName());
+                }
+            } else if (stmt instanceof LoopStatement) {
+                if (!collectAssigned(((LoopStatement) stmt).getBody(), assigned)) {
+                    return false;
+                }
+            } else if (stmt instanceof WhileStatement) {
+                if (!collectAssigned(((WhileStatement) stmt).getBody(), assigned)) {
+                    return false;
+                }
+            } else if (stmt instanceof ForStatement) {
+                assigned.add(((ForStatement) stmt).getVariableName());
+                if (!collectAssigned(((ForStatement) stmt).getBody(), assigned)) {
+                    return false;
+                }
+            }
+            for (Expression expr : allExpressions(stmt)) {
+                expr.accept(new AssignedVariables(assigned));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 语句中每次执行都会求值的表达式（内层循环只有条件或范围每次都会求值）
+     */
+    private static List<Expression> evaluatedExpressions(Statement stmt) {
+        if (stmt instanceof LoopStatement || stmt instanceof WhileStatement || stmt instanceof ForStatement) {
+            return allExpressions(stmt);
+        }
+        if (stmt instanceof InlineTypeCastStatement || stmt instanceof SwapStatement) {
+            return List.of();
+        }
+        return allExpressions(stmt);
+    }
+
+    private static List<Expression> allExpressions(Statement stmt) {
+        if (stmt instanceof VariableDeclaration) {
+            Expression value = ((VariableDeclaration) stmt).getInitialValue();
+            return value != null ? List.of(value) : List.of();
+        }
+        if (stmt instanceof AssignmentStatement) {
+            return List.of(((AssignmentStatement) stmt).getValue());
+        }
+        if (stmt instanceof ExpressionStatement) {
+            return List.of(((ExpressionStatement) stmt).getExpression());
+        }
+        if (stmt instanceof UseStatement && ((UseStatement) stmt).getMethodCall() != null) {
+            return List.of(((UseStatement) stmt).getMethodCall());
+        }
+        if (stmt instanceof LoopStatement) {
+            return List.of(((LoopStatement) stmt).getCondition());
+        }
+        if (stmt instanceof WhileStatement) {
+            return List.of(((WhileStatement) stmt).getCondition());
+        }
+        if (stmt instanceof ForStatement) {
+            return List.of(((ForStatement) stmt).getStart(), ((ForStatement) stmt).getEnd());
+        }
+        return List.of();
+    }
+
+    /**
+     * 从表达式中找出最大的不变量子表达式
+     */
+    private void findInvariants(Expression expr, Set<String> assigned, Map<Expression, String> invariants) {
+        if (isInvariant(expr, assigned)) {
+            // 单独的字面量或变量没有计算可省
+            if (!(expr instanceof LiteralExpression) && !(expr instanceof VariableExpression)) {
+                invariants.put(expr, TEMP_PREFIX + (tempCounter++));
+            }
+            return;
+        }
+        if (expr instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expr;
+            findInvariants(binary.getLeft(), assigned, invariants);
+            // 逻辑运算的右操作数不一定会求值，不从中外提
+            if (!isLogical(binary.getOperator())) {
+                findInvariants(binary.getRight(), assigned, invariants);
+            }
+        } else if (expr instanceof UnaryExpression) {
+            findInvariants(((UnaryExpression) expr).getRight(), assigned, invariants);
+        } else if (expr instanceof AssignmentExpression) {
+            findInvariants(((AssignmentExpression) expr).getValue(), assigned, invariants);
+        } else if (expr instanceof TypeCastExpression) {
+            findInvariants(((TypeCastExpression) expr).getExpression(), assigned, invariants);
+        } else if (expr instanceof FractionExpression) {
+            findInvariants(((FractionExpression) expr).getExpression(), assigned, invariants);
+        }
+        // 函数调用和方法调用的参数不一定会求值（@Lazy 参数），不从中外提
+    }
+
+    /**
+     * 纯表达式且读取的变量在循环中都不会被赋值
+     */
+    private static boolean isInvariant(Expression expr, Set<String> assigned) {
+        if (expr instanceof LiteralExpression) {
+            return true;
+        }
+        if (expr instanceof VariableExpression) {
+            return !assigned.contains(((VariableExpression) expr).getName());
+        }
+        if (expr instanceof BinaryExpression) {
+            BinaryExpression binary = (BinaryExpression) expr;
+            return isInvariant(binary.getLeft(), assigned) && isInvariant(binary.getRight(), assigned);
+        }
+        if (expr instanceof UnaryExpression) {
+            String operator = ((UnaryExpression) expr).getOperator();
+            return (operator.equals("-") || operator.equals("NOT")) &&
+                    isInvariant(((UnaryExpression) expr).getRight(), assigned);
+        }
+        if (expr instanceof TypeCastExpression) {
+            // 隐式转换可能在运行时输出警告，只外提显式转换
+            TypeCastExpression cast = (TypeCastExpression) expr;
+            return cast.isExplicit() && isInvariant(cast.getExpression(), assigned);
+        }
+        // 函数调用可能有副作用；分数对象可变，不能在迭代间共享
+        return false;
+    }
+
+    private static boolean isLogical(String operator) {
+        return operator.equals("AND") || operator.equals("OR");
+    }
+
+    /**
+     * 收集表达式中赋值、自增自减的变量
+     */
+    private static final class AssignedVariables extends ASTRewriter {
+        private final Set<String> assigned;
+
+        AssignedVariables(Set<String> assigned) {
+            this.assigned = assigned;
+        }
+
+        @Override
+        public ASTNode visitAssignmentExpression(AssignmentExpression expr) {
+            assigned.add(expr.getVariableName());
+            return super.visitAssignmentExpression(expr);
+        }
+
+        @Override
+        public ASTNode visitUnaryExpression(UnaryExpression expr) {
+            if (!expr.getOperator().equals("-") && !expr.getOperator().equals("NOT") &&
+                    expr.getRight() instanceof VariableExpression) {
+                assigned.add(((VariableExpression) expr.getRight()).getName());
+            }
+            return super.visitUnaryExpression(expr);
+        }
+    }
+
+    /**
+     * 把不变量表达式替换为临时变量的赋值（第一次迭代）或读取（其余迭代）
+     */
+    private static final class Substitution extends ASTRewriter {
+        private final Map<Expression, String> invariants;
+        private final boolean store;
+
+        Substitution(Map<Expression, String> invariants, boolean store) {
+            this.invariants = invariants;
+            this.store = store;
+        }
+
+        @Override
+        protected Expression expression(Expression expr) {
+            String temp = expr != null ? invariants.get(expr) : null;
+            if (temp == null) {
+                return super.expression(expr);
+            }
+            if (store) {
+                return new AssignmentExpression(temp, expr, expr.getLineNumber(), expr.getColumnNumber());
+            }
+            return new VariableExpression(temp, expr.getLineNumber(), expr.getColumnNumber());
+        }
+
+        @Override
+        protected void emit(Statement stmt, List<Statement> out) {
+            // 内层循环体不是每次都执行，其中没有外提的表达式
+            if (stmt instanceof LoopStatement) {
+                LoopStatement loop = (LoopStatement) stmt;
+                Expression condition = expression(loop.getCondition());
+                out.add(condition == loop.getCondition() ? loop :
+                        new LoopStatement(condition, loop.getBody(), loop.getLineNumber(), loop.getColumnNumber()));
+                return;
+            }
+            if (stmt instanceof WhileStatement) {
+                WhileStatement loop = (WhileStatement) stmt;
+                Expression condition = expression(loop.getCondition());
+                out.add(condition == loop.getCondition() ? loop :
+                        new WhileStatement(condition, loop.getBody(), loop.getLineNumber(), loop.getColumnNumber()));
+                return;
+            }
+            if (stmt instanceof ForStatement) {
+                ForStatement loop = (ForStatement) stmt;
+                Expression start = expression(loop.getStart());
+                Expression end = expression(loop.getEnd());
+                out.add(start == loop.getStart() && end == loop.getEnd() ? loop :
+                        new ForStatement(loop.getVariableName(), start, end, loop.getBody(),
+                                loop.getLineNumber(), loop.getColumnNumber()));
+                return;
+            }
+            super.emit(stmt, out);
+        }
+    }
+}
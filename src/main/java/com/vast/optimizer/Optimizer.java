@@ -0,0 +1,118 @@
+package com.vast.optimizer;
+
+import com.vast.ast.Program;
+import com.vast.internal.Debugger;
+import com.vast.vm.VastVM;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.vast.internal.Debugger.Category.OPTIMIZER;
+
+/**
+ * AST 优化管线
+ * 在语法分析之后、解释执行之前按顺序运行各优化遍：常量折叠、循环不变量外提、字面量驻留。
+ * 每个遍可以单独开关（vast.opt.fold / vast.opt.hoist / vast.opt.intern），vast.opt=false 关闭整个管线
+ */
+public class Optimizer {
+    public static final String FOLD = "fold";
+    public static final String HOIST = "hoist";
+    public static final String INTERN = "intern";
+
+    private final VastVM vm;
+    private final Debugger debugger;
+    private final LoopInvariantHoister hoister = new LoopInvariantHoister();// 跨程序保持临时变量编号唯一
+    private boolean enabled = !"false".equalsIgnoreCase(System.getProperty("vast.opt"));
+    private final Map<String, Boolean> passes = new LinkedHashMap<>();// 各优化遍的开关（按执行顺序）
+    private final Map<String, Integer> rewrites = new LinkedHashMap<>();// 各优化遍累计改写的节点数
+
+    public Optimizer(VastVM vm) {
+        this.vm = vm;
+        this.debugger = vm.getDebugger();
+        for (String pass : new String[]{FOLD, HOIST, INTERN}) {
+            passes.put(pass, !"false".equalsIgnoreCase(System.getProperty("vast.opt." + pass)));
+            rewrites.put(pass, 0);
+        }
+    }
+
+    /**
+     * 依次运行启用的优化遍，返回优化后的程序
+     */
+    public Program optimize(Program program) {
+        if (!enabled) {
+            return program;
+        }
+        for (Map.Entry<String, Boolean> pass : passes.entrySet()) {
+            if (pass.getValue()) {
+                program = run(pass.getKey(), program);
+            }
+        }
+        return program;
+    }
+
+    private Program run(String name, Program program) {
+        ASTRewriter rewriter = createPass(name);
+        int before = rewriter.getRewriteCount();
+        Program result = rewriter.rewrite(program);
+        int count = rewriter.getRewriteCount() - before;
+        rewrites.merge(name, count, Integer::sum);
+        debugger.debug(OPTIMIZER, () -> "Optimizer pass '" + name + "' rewrote " + count + " nodes");
+        return result;
+    }
+
+    private ASTRewriter createPass(String name) {
+        switch (name) {
+            case FOLD:
+                return new ConstantFolder(vm.getInterpreter());
+            case HOIST:
+                return hoister;
+            default:
+                return new LiteralInterner();
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开启或关闭单个优化遍（fold、hoist、intern）
+     */
+    public void setPassEnabled(String pass, boolean enabled) {
+        if (!passes.containsKey(pass)) {
+            throw new IllegalArgumentException("Unknown optimizer pass: " + pass);
+        }
+        passes.put(pass, enabled);
+    }
+
+    public boolean isPassEnabled(String pass) {
+        return enabled && Boolean.TRUE.equals(passes.get(pass));
+    }
+
+    /**
+     * 管线和各优化遍开关状态的位掩码，开关改变后同一程序的优化结果可能不同
+     */
+    public int getConfiguration() {
+        int configuration = enabled ? 1 : 0;
+        int bit = 2;
+        for (boolean pass : passes.values()) {
+            if (pass) {
+                configuration |= bit;
+            }
+            bit <<= 1;
+        }
+        return configuration;
+    }
+
+    /**
+     * 各优化遍累计改写的节点数
+     */
+    public Map<String, Integer> getRewriteCounts() {
+        return Collections.unmodifiableMap(rewrites);
+    }
+}
@@ -0,0 +1,181 @@
+package com.vast.parser;
+
+import com.vast.ast.Program;
+import com.vast.ast.Statement;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量语法分析器
+ * 保存上一次分析的源码和每条顶层语句的位置。源码修改后，从第一条受修改影响的语句开始重新词法分析和语法分析，
+ * 分析位置一旦回到修改区域之后某条旧语句的起点，就复用从那里开始的全部旧语句：行号不变的直接复用原来的
+ * Statement 对象，行号移动的只复制节点并平移行号，不再扫描源码。
+ * 顶层语句的分界由语法分析器本身按换行符和缩进块规则决定；词法分析器在词法单元之间只有行列号一项状态，
+ * 所以从某个词法单元起点以相同的行列号重新扫描，结果与完整分析一致
+ */
+public final class IncrementalParser {
+    // 词法分析器确定一个词法单元的结尾时最多向后查看的字符数（数字的小数部分）
+    private static final int LOOKAHEAD = 2;
+
+    /**
+     * 一条顶层语句和它的位置
+     */
+    private static final class Entry {
+        final Statement statement;
+        final int start;// 第一个词法单元的偏移
+        final int line;// 第一个词法单元的行列号
+        final int column;
+        final int end;// 分析这条语句读到的最后一个字符之后的偏移（包括对下一条语句第一个词法单元的前瞻）
+
+        Entry(Statement statement, int start, int line, int column, int end) {
+            this.statement = statement;
+            this.start = start;
+            this.line = line;
+            this.column = column;
+            this.end = end;
+        }
+    }
+
+    private String source = "";
+    private List<Entry> entries = new ArrayList<>();
+    private int reused;
+    private int shifted;
+    private int parsed;
+
+    /**
+     * 分析修改后的完整源码。分析出错时保持上一次的结果，下一次仍与上一次成功分析的源码比较
+     */
+    public Program parse(String newSource) {
+        int oldLength = source.length();
+        int newLength = newSource.length();
+
+        // 相同的前缀和后缀
+        int limit = Math.min(oldLength, newLength);
+        int prefix = 0;
+        while (prefix < limit && source.charAt(prefix) == newSource.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix &&
+                source.charAt(oldLength - 1 - suffix) == newSource.charAt(newLength - 1 - suffix)) {
+            suffix++;
+        }
+        int delta = newLength - oldLength;
+
+        // 读到的字符都在修改之前的语句原样保留。最后一条语句读到了文件结束标记之后，不会整体保留
+        List<Entry> result = new ArrayList<>(entries.size());
+        int kept = 0;
+        while (kept < entries.size() && entries.get(kept).end <= prefix) {
+            result.add(entries.get(kept));
+            kept++;
+        }
+        int reusedCount = kept;
+        int shiftedCount = 0;
+        int parsedCount = 0;
+
+        // 从第一条受影响的语句开始重新分析
+        int offset = 0;
+        int line = 1;
+        int column = 1;
+        if (kept > 0) {
+            Entry first = entries.get(kept);
+            offset = first.start;
+            line = first.line;
+            column = first.column;
+        }
+        StringReader reader = new StringReader(newSource);
+        try {
+            reader.skip(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Lexer lexer = new Lexer(reader, offset, line, column);
+        TokenBuffer tokens = lexer.tokenStream();
+        Parser parser = new Parser(tokens);
+
+        int next = parser.skipNewlines();
+        while (tokens.kind(next) != TokenType.EOF) {
+            int start = tokens.start(next);
+            // 回到修改区域之后的旧语句起点：之后的源码没有变化，从同一位置、同一列开始的分析结果也不变
+            if (start >= newLength - suffix) {
+                int index = find(start - delta);
+                if (index >= 0 && entries.get(index).column == tokens.column(next)) {
+                    int lineDelta = tokens.line(next) - entries.get(index).line;
+                    for (int i = index; i < entries.size(); i++) {
+                        Entry entry = entries.get(i);
+                        Statement statement = entry.statement;
+                        if (lineDelta != 0) {
+                            statement = LineShifter.shift(statement, lineDelta);
+                            shiftedCount++;
+                        } else {
+                            reusedCount++;
+                        }
+                        result.add(new Entry(statement, entry.start + delta, entry.line + lineDelta,
+                                entry.column, entry.end + delta));
+                    }
+                    break;
+                }
+            }
+
+            int line0 = tokens.line(next);
+            int column0 = tokens.column(next);
+            Statement statement = parser.parseNextStatement();
+            next = parser.skipNewlines();
+            int end = tokens.start(next) + tokens.length(next) + LOOKAHEAD;
+            if (statement != null) {
+                result.add(new Entry(statement, start, line0, column0, end));
+                parsedCount++;
+            }
+        }
+
+        source = newSource;
+        entries = result;
+        reused = reusedCount;
+        shifted = shiftedCount;
+        parsed = parsedCount;
+
+        List<Statement> statements = new ArrayList<>(result.size());
+        for (Entry entry : result) {
+            statements.add(entry.statement);
+        }
+        return new Program(statements);
+    }
+
+    /**
+     * 起点偏移为 start 的旧语句的下标，没有时返回 -1
+     */
+    private int find(int start) {
+        int low = 0;
+        int high = entries.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = entries.get(middle).start;
+            if (value < start) {
+                low = middle + 1;
+            } else if (value > start) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 清空保存的源码和语句，下一次完整分析
+     */
+    public void clear() {
+        source = "";
+        entries = new ArrayList<>();
+    }
+
+    @Override
+    public String toString() {
+        return entries.size() + " statements, last update: " + reused + " reused, " + shifted + " shifted, " +
+                parsed + " parsed";
+    }
+}
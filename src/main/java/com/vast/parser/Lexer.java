@@ -2,165 +2,203 @@ package com.vast.parser;
 
 import com.vast.internal.Debugger;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import static com.vast.parser.TokenType.*;
 
 //词法分析器
 public class Lexer {
-    private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+    // 从 Reader 读取时字符窗口的初始大小
+    private static final int WINDOW_SIZE = 1 << 16;
+
+    // 源码字符窗口：chars[0, length) 是源码中从 offset 开始的字符。
+    // 整段源码扫描时窗口就是全部源码；从 Reader 读取时按需补充，并丢弃已不再需要的字符
+    private char[] chars;
+    private int length;
+    private int offset = 0;
+    private Reader reader;
+    private final TokenBuffer tokens;
     private int start = 0;
     private int current = 0;
     private int line = 1;
     private int column = 1;
-
-    // 关键字映射
-    private static final Map<String, String> KEYWORDS = new HashMap<>();
+    private int startLine = 1;
+    private int startColumn = 1;
+
+    // ASCII 字符分类表，非 ASCII 字符都不属于任何类别
+    private static final byte ALPHA = 1;   // 字母和下划线
+    private static final byte DIGIT = 2;
+    private static final byte SPACE = 4;   // 空格、\r、\t（换行单独处理）
+    private static final byte[] CHAR_CLASS = new byte[128];
+
+    // 关键字，按文本长度和内容比较，不为每个标识符截取字符串
+    private static final String[] KEYWORD_TEXTS = {
+            "imp", "loop", "use", "swap", "true", "false", "if", "else", "while", "for",
+            "and", "or", "xor", "not"
+    };
+    private static final int[] KEYWORD_KINDS = {
+            IMPORT, LOOP, USE, SWAP, TRUE, FALSE, IF, ELSE, WHILE, FOR,
+            AND, OR, XOR, NOT
+    };
 
     private final Debugger debugger = Debugger.getInstance();
 
     static {
-        KEYWORDS.put("imp", "IMPORT");
-        KEYWORDS.put("loop", "LOOP");
-        KEYWORDS.put("use", "USE");
-        KEYWORDS.put("swap", "SWAP");
-        KEYWORDS.put("true", "TRUE");
-        KEYWORDS.put("false", "FALSE");
-        KEYWORDS.put("if", "IF");
-        KEYWORDS.put("else", "ELSE");
-        KEYWORDS.put("while", "WHILE");
-        KEYWORDS.put("for", "FOR");
-
-        KEYWORDS.put("and", "AND");
-        KEYWORDS.put("or", "OR");
-        KEYWORDS.put("xor", "XOR");
-        KEYWORDS.put("not", "NOT");
+        for (char c = 'a'; c <= 'z'; c++) CHAR_CLASS[c] = ALPHA;
+        for (char c = 'A'; c <= 'Z'; c++) CHAR_CLASS[c] = ALPHA;
+        CHAR_CLASS['_'] = ALPHA;
+        for (char c = '0'; c <= '9'; c++) CHAR_CLASS[c] = DIGIT;
+        CHAR_CLASS[' '] = SPACE;
+        CHAR_CLASS['\r'] = SPACE;
+        CHAR_CLASS['\t'] = SPACE;
     }
 
     public Lexer(String source) {
-        this.source = source;
+        this.chars = source.toCharArray();
+        this.length = chars.length;
+        this.tokens = new TokenBuffer(this, source.length() / 4);
+    }
+
+    /**
+     * 从 Reader 读取源码，只能通过 tokenStream 逐步扫描
+     */
+    public Lexer(Reader reader) {
+        this.chars = new char[WINDOW_SIZE];
+        this.reader = reader;
+        this.tokens = new TokenBuffer(this, WINDOW_SIZE / 4);
+    }
+
+    /**
+     * 从源码中间的某个词法单元起点继续扫描（增量语法分析用）：reader 从绝对偏移 offset 开始，
+     * line 和 column 为该位置的行列号
+     */
+    Lexer(Reader reader, int offset, int line, int column) {
+        this(reader);
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
     }
 
     /**
      * 扫描所有词法单元
      */
-    public List<Token> scanTokens() {
-        while (!isAtEnd()) {
+    public TokenBuffer scanTokens() {
+        while (scanNext()) {
+            // 继续扫描
+        }
+        return tokens;
+    }
+
+    /**
+     * 按需扫描的词法单元流：语法分析读到缓冲区末尾时才继续扫描，
+     * 已分析完的语句的词法单元和源码字符会被释放（见 TokenBuffer.release）
+     */
+    public TokenBuffer tokenStream() {
+        tokens.stream();
+        return tokens;
+    }
+
+    /**
+     * 扫描直到新增一个词法单元；到达源码末尾时添加文件结束标记并返回 false
+     */
+    boolean scanNext() {
+        int before = tokens.size();
+        while (tokens.size() == before) {
+            if (isAtEnd()) {
+                // 添加文件结束标记
+                tokens.add(EOF, offset + current, 0, line, column);
+                close();
+                return false;
+            }
             start = current;
+            startLine = line;
+            startColumn = column;
             scanToken();
         }
+        return true;
+    }
 
-        // 添加文件结束标记
-        tokens.add(new Token("EOF", "", line, column));
-        return tokens;
+    /**
+     * 源码中从绝对偏移 start 开始的 length 个字符
+     */
+    String text(int start, int length) {
+        return new String(chars, start - offset, length);
     }
 
 
     private void scanToken() {
         char c = advance();
+        int charClass = classOf(c);
+        if (charClass != 0) {
+            if (charClass == ALPHA) {
+                identifier();
+            } else if (charClass == DIGIT) {
+                number();
+            }
+            // 忽略空白字符
+            return;
+        }
 
         switch (c) {
-            case '(': addToken("LEFT_PAREN"); break;
-            case ')': addToken("RIGHT_PAREN"); break;
-            case '{': addToken("LEFT_BRACE"); break;
-            case '}': addToken("RIGHT_BRACE"); break;
-            case ',': addToken("COMMA"); break;
-            case '.': addToken("DOT"); break;
-            case ':': addToken("COLON");break;
+            case '(': addToken(LEFT_PAREN); break;
+            case ')': addToken(RIGHT_PAREN); break;
+            case '{': addToken(LEFT_BRACE); break;
+            case '}': addToken(RIGHT_BRACE); break;
+            case ',': addToken(COMMA); break;
+            case '.': addToken(match('.') ? DOT_DOT : DOT); break; // 范围 a..b
+            case ':': addToken(COLON); break;
             case '-':
                 if (match('=')) {
-                    addToken("MINUS_EQUAL"); // -=
+                    addToken(MINUS_EQUAL); // -=
                 } else if (match('-')) {
-                    addToken("MINUS_MINUS"); // --
+                    addToken(MINUS_MINUS); // --
                 } else {
-                    addToken("MINUS");
+                    addToken(MINUS);
                 }
                 break;
             case '+':
                 if (match('=')) {
-                    addToken("PLUS_EQUAL");  // +=
+                    addToken(PLUS_EQUAL);  // +=
                 } else if (match('+')) {
-                    addToken("PLUS_PLUS");   // ++
+                    addToken(PLUS_PLUS);   // ++
                 } else {
-                    addToken("PLUS");
+                    addToken(PLUS);
                 }
                 break;
             case '*':
                 if (match('=')) {
-                    addToken("STAR_EQUAL");  // *=
+                    addToken(STAR_EQUAL);  // *=
                 } else if (match('*')) {
-                    addToken("STAR_STAR");   // **
+                    addToken(STAR_STAR);   // **
                 } else {
-                    addToken("STAR");
+                    addToken(STAR);
                 }
                 break;
             case '/':
                 if (match('=')) {
-                    addToken("SLASH_EQUAL"); // /=
+                    addToken(SLASH_EQUAL); // /=
                 } else if (match('/')) {
-                    if (match('=')) {
-                        addToken("SLASH_SLASH_EQUAL"); // //=
-                    } else {
-                        addToken("SLASH_SLASH"); // //
-                    }
-                } else {
-                    addToken("SLASH");
-                }
-                break;
-            case '%':
-                if (match('=')) {
-                    addToken("PERCENT_EQUAL"); // %=
-                } else {
-                    addToken("PERCENT");
-                }
-                break;
-            case '=':
-                if (match('=')) {
-                    addToken("EQUAL_EQUAL");
-                } else {
-                    addToken("EQUAL");
-                }
-                break;
-            case '!':
-                if (match('=')) {
-                    addToken("BANG_EQUAL");
+                    addToken(match('=') ? SLASH_SLASH_EQUAL : SLASH_SLASH); // //= 或 //
                 } else {
-                    addToken("BANG");
-                }
-                break;
-            case '<':
-                if (match('=')) {
-                    addToken("LESS_EQUAL");
-                } else {
-                    addToken("LESS");
-                }
-                break;
-            case '>':
-                if (match('=')) {
-                    addToken("GREATER_EQUAL");
-                } else {
-                    addToken("GREATER");
+                    addToken(SLASH);
                 }
                 break;
+            case '%': addToken(match('=') ? PERCENT_EQUAL : PERCENT); break; // %=
+            case '=': addToken(match('=') ? EQUAL_EQUAL : EQUAL); break;
+            case '!': addToken(match('=') ? BANG_EQUAL : BANG); break;
+            case '<': addToken(match('=') ? LESS_EQUAL : LESS); break;
+            case '>': addToken(match('=') ? GREATER_EQUAL : GREATER); break;
 
             case '$':
-                if (match('$')) {
-                    addToken("DOUBLE_DOLLAR");  // 永久分数修饰符
-                } else {
-                    addToken("DOLLAR");  // 单步分数修饰符
-                }
-                break;
-
-            case ' ':
-            case '\r':
-            case '\t':
-                // 忽略空白字符
+                // $$ 为永久分数修饰符，$ 为单步分数修饰符
+                addToken(match('$') ? DOUBLE_DOLLAR : DOLLAR);
                 break;
 
             case '\n':
-                addToken("NEWLINE");
+                addToken(NEWLINE);
                 line++;
                 column = 1;
                 break;
@@ -182,13 +220,7 @@ public class Lexer {
             case '"': string(); break;
 
             default:
-                if (isDigit(c)) {
-                    number();
-                } else if (isAlpha(c)) {
-                    identifier();
-                } else {
-                    error("Unexpected character: '" + c + "'");
-                }
+                error("Unexpected character: '" + c + "'");
                 break;
         }
     }
@@ -215,9 +247,7 @@ public class Lexer {
     }
 
     private void string() {
-        StringBuilder value = new StringBuilder();
-        value.append('"');
-
+        // 词法单元的文本就是源码中带引号、未处理转义的原文，转义在求值时处理
         while (peek() != '"' && !isAtEnd()) {
             if (peek() == '\n') {
                 line++;
@@ -225,22 +255,13 @@ public class Lexer {
             }
 
             if (peek() == '\\') {
-                // 处理转义字符
-                advance(); // 跳过 \
-                char escapeChar = advance();
-                switch (escapeChar) {
-                    case 'n': value.append("\\n"); break;
-                    case 't': value.append("\\t"); break;
-                    case 'r': value.append("\\r"); break;
-                    case 'b': value.append("\\b"); break;
-                    case 'f': value.append("\\f"); break;
-                    case '"': value.append("\\\""); break;
-                    case '\\': value.append("\\\\"); break;
-                    default: value.append("\\").append(escapeChar); break;
+                // 跳过 \ 和被转义的字符
+                advance();
+                if (isAtEnd()) {
+                    break;
                 }
-            } else {
-                value.append(advance());
             }
+            advance();
         }
 
         if (isAtEnd()) {
@@ -250,9 +271,7 @@ public class Lexer {
 
         // 闭合引号
         advance();
-        value.append('"');
-
-        addToken("STRING", value.toString());
+        addToken(STRING);
     }
 
     private void number() {
@@ -266,31 +285,49 @@ public class Lexer {
             while (isDigit(peek())) advance();
         }
 
-        String numberText = source.substring(start, current);
-        addToken("NUMBER", numberText);
+        addToken(NUMBER);
     }
 
     private void identifier() {
-        while (isAlphaNumeric(peek())) advance();
+        while (available(0) && (classOf(chars[current]) & (ALPHA | DIGIT)) != 0) {
+            current++;
+            column++;
+        }
+
+        addToken(keyword(start, current - start));
+    }
 
-        String text = source.substring(start, current);
-        String type = KEYWORDS.get(text);
-        if (type == null) {
-            type = "IDENTIFIER";
+    /**
+     * 窗口中 [start, start + length) 是关键字时返回关键字的种类，否则为 IDENTIFIER
+     */
+    private int keyword(int start, int length) {
+        for (int i = 0; i < KEYWORD_TEXTS.length; i++) {
+            String text = KEYWORD_TEXTS[i];
+            if (text.length() == length && regionMatches(start, text)) {
+                return KEYWORD_KINDS[i];
+            }
+        }
+        return IDENTIFIER;
+    }
+
+    private boolean regionMatches(int start, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (chars[start + i] != text.charAt(i)) {
+                return false;
+            }
         }
-        addToken(type, text);
+        return true;
     }
 
     // 辅助方法
     private char advance() {
-        current++;
         column++;
-        return source.charAt(current - 1);
+        return chars[current++];
     }
 
     private boolean match(char expected) {
-        if (isAtEnd()) return false;
-        if (source.charAt(current) != expected) return false;
+        if (!available(0)) return false;
+        if (chars[current] != expected) return false;
 
         current++;
         column++;
@@ -298,48 +335,86 @@ public class Lexer {
     }
 
     private char peek() {
-        if (isAtEnd()) return '\0';
-        return source.charAt(current);
+        if (!available(0)) return '\0';
+        return chars[current];
     }
 
     private char peekNext() {
-        if (current + 1 >= source.length()) return '\0';
-        return source.charAt(current + 1);
+        if (!available(1)) return '\0';
+        return chars[current + 1];
     }
 
     private char peekNextNext() {
-        if (current + 2 >= source.length()) return '\0';
-        return source.charAt(current + 2);
+        if (!available(2)) return '\0';
+        return chars[current + 2];
     }
 
-    private boolean isAlpha(char c) {
-        return (c >= 'a' && c <= 'z') ||
-                (c >= 'A' && c <= 'Z') ||
-                c == '_';
+    private static int classOf(char c) {
+        return c < 128 ? CHAR_CLASS[c] : 0;
     }
 
-    private boolean isAlphaNumeric(char c) {
-        return isAlpha(c) || isDigit(c);
+    private static boolean isDigit(char c) {
+        return classOf(c) == DIGIT;
     }
 
-    private boolean isDigit(char c) {
-        return c >= '0' && c <= '9';
+    private boolean isAtEnd() {
+        return !available(0);
     }
 
-    private boolean isAtEnd() {
-        return current >= source.length();
+    /**
+     * 窗口中是否有 chars[current + ahead]，没有时从 Reader 补充
+     */
+    private boolean available(int ahead) {
+        return current + ahead < length || refill(ahead);
     }
 
-    private void addToken(String type) {
-        addToken(type, null);
+    private boolean refill(int ahead) {
+        while (current + ahead >= length) {
+            if (reader == null) {
+                return false;
+            }
+            // 丢弃当前词法单元和缓冲区中仍保留的词法单元都不再引用的字符
+            int keep = Math.min(start, tokens.retainedStart() - offset);
+            if (keep > 0) {
+                System.arraycopy(chars, keep, chars, 0, length - keep);
+                length -= keep;
+                current -= keep;
+                start -= keep;
+                offset += keep;
+            }
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            try {
+                int read = reader.read(chars, length, chars.length - length);
+                if (read < 0) {
+                    close();
+                    return false;
+                }
+                length += read;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
+    }
+
+    private void close() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                debugger.error("Failed to close source: " + e.getMessage());
+            }
+            reader = null;
+        }
     }
 
-    private void addToken(String type, String lexeme) {
-        String text = lexeme != null ? lexeme : source.substring(start, current);
-        tokens.add(new Token(type, text, line, column - text.length()));
+    private void addToken(int kind) {
+        tokens.add(kind, offset + start, current - start, startLine, startColumn);
     }
 
     private void error(String message) {
         debugger.error("Line " + line + ", Column " + column + ": " + message);
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.vast.parser;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 复制语句并把所有节点的行号平移 delta 行（增量语法分析复用移动过位置的语句时使用）
+ */
+final class LineShifter implements ASTVisitor<ASTNode> {
+    private final int delta;
+
+    private LineShifter(int delta) {
+        this.delta = delta;
+    }
+
+    static Statement shift(Statement statement, int delta) {
+        return (Statement) statement.accept(new LineShifter(delta));
+    }
+
+    private int line(ASTNode node) {
+        return node.getLineNumber() + delta;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends ASTNode> T copy(T node) {
+        return node == null ? null : (T) node.accept(this);
+    }
+
+    private <T extends ASTNode> List<T> copy(List<T> nodes) {
+        if (nodes == null) {
+            return null;
+        }
+        List<T> result = new ArrayList<>(nodes.size());
+        for (T node : nodes) {
+            result.add(copy(node));
+        }
+        return result;
+    }
+
+    @Override
+    public ASTNode visitLiteralExpression(LiteralExpression expr) {
+        return new LiteralExpression(expr.getValue(), line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitVariableExpression(VariableExpression expr) {
+        return new VariableExpression(expr.getName(), line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitBinaryExpression(BinaryExpression expr) {
+        return new BinaryExpression(copy(expr.getLeft()), expr.getOperator(), copy(expr.getRight()),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitUnaryExpression(UnaryExpression expr) {
+        return new UnaryExpression(expr.getOperator(), copy(expr.getRight()), line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitAssignmentExpression(AssignmentExpression expr) {
+        return new AssignmentExpression(expr.getVariableName(), copy(expr.getValue()),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitMemberAccessExpression(MemberAccessExpression expr) {
+        return new MemberAccessExpression(copy(expr.getObject()), expr.getMemberName(),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitFunctionCallExpression(FunctionCallExpression expr) {
+        return new FunctionCallExpression(copy(expr.getCallee()), copy(expr.getArguments()),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitMethodCallExpression(MethodCallExpression expr) {
+        return new MethodCallExpression(copy(expr.getClassName()), expr.getMethodName(), copy(expr.getArguments()),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitTypeCastExpression(TypeCastExpression expr) {
+        return new TypeCastExpression(copy(expr.getExpression()), expr.getTargetType(), expr.isExplicit(),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitFractionExpression(FractionExpression expr) {
+        return new FractionExpression(copy(expr.getExpression()), expr.isPermanent(),
+                line(expr), expr.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitVariableDeclaration(VariableDeclaration stmt) {
+        return new VariableDeclaration(stmt.getVariableName(), stmt.getTypeHint(), copy(stmt.getInitialValue()),
+                stmt.isTypeCast(), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitAssignmentStatement(AssignmentStatement stmt) {
+        return new AssignmentStatement(stmt.getVariableName(), copy(stmt.getValue()), stmt.getTypeHint(),
+                line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitExpressionStatement(ExpressionStatement stmt) {
+        return new ExpressionStatement(copy(stmt.getExpression()), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitImportStatement(ImportStatement stmt) {
+        return new ImportStatement(stmt.getClassName(), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitLoopStatement(LoopStatement stmt) {
+        return new LoopStatement(copy(stmt.getCondition()), copy(stmt.getBody()), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitWhileStatement(WhileStatement stmt) {
+        return new WhileStatement(copy(stmt.getCondition()), copy(stmt.getBody()), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitForStatement(ForStatement stmt) {
+        return new ForStatement(stmt.getVariableName(), copy(stmt.getStart()), copy(stmt.getEnd()),
+                copy(stmt.getBody()), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitUseStatement(UseStatement stmt) {
+        if (stmt.getMethodCall() != null) {
+            return new UseStatement(copy(stmt.getMethodCall()), line(stmt), stmt.getColumnNumber());
+        }
+        return new UseStatement(copy(stmt.getClassName()), copy(stmt.getMethodName()), copy(stmt.getArguments()),
+                line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitSwapStatement(SwapStatement stmt) {
+        return new SwapStatement(copy(stmt.getVarA()), copy(stmt.getVarB()), line(stmt), stmt.getColumnNumber());
+    }
+
+    @Override
+    public ASTNode visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        return new InlineTypeCastStatement(copy(stmt.getTypeCastExpression()), line(stmt), stmt.getColumnNumber());
+    }
+}
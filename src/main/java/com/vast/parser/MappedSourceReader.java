@@ -0,0 +1,72 @@
+package com.vast.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 通过内存映射读取 UTF-8 源文件
+ * 文件按区域映射，读取时直接解码到调用方的字符数组中，不把整个文件读入堆内存
+ */
+public class MappedSourceReader extends Reader {
+    private static final long REGION_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private MappedByteBuffer region;
+    private long regionStart;
+    private boolean flushed = false;
+
+    public MappedSourceReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        map(0);
+    }
+
+    private void map(long position) throws IOException {
+        regionStart = position;
+        region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(REGION_SIZE, size - position));
+    }
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        CharBuffer out = CharBuffer.wrap(buffer, offset, length);
+        while (out.position() == offset) {
+            boolean last = regionStart + region.limit() == size;
+            if (last && flushed) {
+                return -1;
+            }
+            CoderResult result = decoder.decode(region, out, last);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (last && result.isUnderflow()) {
+                decoder.flush(out);
+                flushed = true;
+            } else if (!last && result.isUnderflow()) {
+                // 当前区域已解码完（末尾可能剩下不完整的多字节序列），从未解码的位置重新映射
+                map(regionStart + region.position());
+            }
+        }
+        return out.position() - offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -5,17 +5,30 @@ import com.vast.ast.expressions.*;
 import com.vast.ast.statements.*;
 import com.vast.internal.Debugger;
 
-import java.util.HashSet;
+import java.math.BigInteger;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
 
-//语法分析器
+import static com.vast.internal.Debugger.Category.PARSER;
+import static com.vast.parser.TokenType.*;
+
+//语法分析器（词法单元用 TokenBuffer 中的下标表示，按整数种类匹配）
 public class Parser {
-    private final List<Token> tokens;
+    // 一次匹配多个种类时使用的位集合
+    private static final long COMPOUND_ASSIGNMENT_OPERATORS = mask(PLUS_EQUAL, MINUS_EQUAL, STAR_EQUAL,
+            SLASH_EQUAL, SLASH_SLASH_EQUAL, PERCENT_EQUAL);
+    private static final long EQUALITY_OPERATORS = mask(EQUAL_EQUAL, BANG_EQUAL);
+    private static final long COMPARISON_OPERATORS = mask(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL);
+    private static final long TERM_OPERATORS = mask(PLUS, MINUS);
+    private static final long FACTOR_OPERATORS = mask(STAR, SLASH, SLASH_SLASH, PERCENT);
+    private static final long FRACTION_MODIFIERS = mask(DOLLAR, DOUBLE_DOLLAR);
+    private static final long INCREMENT_OPERATORS = mask(PLUS_PLUS, MINUS_MINUS);
+    private static final long UNARY_OPERATORS = mask(BANG, MINUS);
+
+    private final TokenBuffer tokens;
     private int current = 0;
 
-    public Parser(List<Token> tokens) {
+    public Parser(TokenBuffer tokens) {
         this.tokens = tokens;
     }
 
@@ -26,52 +39,82 @@ public class Parser {
      */
     public Program parseProgram() {
         List<Statement> statements = new ArrayList<>();
-        debugger.debug("Parsing program");
+        debugger.debug(PARSER, "Parsing program");
+
+        Statement stmt;
+        while ((stmt = parseNextStatement()) != null) {
+            statements.add(stmt);
+        }
+
+        debugger.debug(PARSER, () -> "Program parsed with " + statements.size() + " statements");
+        return new Program(statements);
+    }
 
+    /**
+     * 解析下一条顶层语句，没有更多语句时返回 null。
+     * 词法单元流上逐条解析时，已解析语句的词法单元随即释放
+     */
+    public Statement parseNextStatement() {
         while (!isAtEnd()) {
             // 跳过换行符
-            while (match("NEWLINE")) {
+            while (match(NEWLINE)) {
                 // 继续跳过
             }
 
             if (isAtEnd()) break;
 
             Statement stmt = parseStatement();
-            if (stmt != null) {
-                statements.add(stmt);
-            }
 
             // 在语句后跳过换行符
-            match("NEWLINE");
+            match(NEWLINE);
+            tokens.release(current - 1);
+
+            if (stmt != null) {
+                return stmt;
+            }
         }
+        return null;
+    }
 
-        debugger.debug("Program parsed with " + statements.size() + " statements");
-        return new Program(statements);
+    /**
+     * 跳过换行符，返回下一条顶层语句第一个词法单元的下标（没有更多语句时为文件结束标记）
+     */
+    int skipNewlines() {
+        while (match(NEWLINE)) {
+            // 继续跳过
+        }
+        return current;
     }
 
 
     private Statement parseStatement() {
         // 跳过语句前的换行符
-        while (match("NEWLINE")) {}// 继续跳过
+        while (match(NEWLINE)) {}// 继续跳过
 
         if (isAtEnd()) return null;
 
-        if (match("IMPORT")) {
+        if (match(IMPORT)) {
             return parseImportStatement();
         }
 
         // 检查是否是强类型声明（如 int x, string name 等）
-        if (check("IDENTIFIER") && isTypeName(peek().getLexeme())) {
+        if (check(IDENTIFIER) && isTypeName(text(peek()))) {
             return parseTypedVariableDeclaration();
         }
 
-        if (match("LOOP")) {
+        if (match(LOOP)) {
             return parseLoopStatement();
         }
-        if (match("USE")) {
+        if (match(WHILE)) {
+            return parseWhileStatement();
+        }
+        if (match(FOR)) {
+            return parseForStatement();
+        }
+        if (match(USE)) {
             return parseUseStatement();
         }
-        if (match("SWAP")) {
+        if (match(SWAP)) {
             return parseSwapStatement();
         }
 
@@ -80,30 +123,66 @@ public class Parser {
     }
 
     private Statement parseImportStatement() {
-        Token importToken = previous();
-        consume("IDENTIFIER", "Expect library or class name after 'imp'");
-        String className = previous().getLexeme();
+        int importToken = previous();
+        consume(IDENTIFIER, "Expect library or class name after 'imp'");
+        String className = text(previous());
 
         return new ImportStatement(className,
-                importToken.getLine(), importToken.getColumn());
+                line(importToken), column(importToken));
     }
 
 
     private Statement parseLoopStatement() {
-        Token loopToken = previous();
-        consume("LEFT_PAREN", "Expect '(' after 'loop'");
+        int loopToken = previous();
+        consume(LEFT_PAREN, "Expect '(' after 'loop'");
         Expression condition = parseExpression();
-        consume("RIGHT_PAREN", "Expect ')' after loop condition");
-        consume("COLON", "Expect ':' after loop condition");
+        consume(RIGHT_PAREN, "Expect ')' after loop condition");
+        consume(COLON, "Expect ':' after loop condition");
 
         // 跳过换行符（如果有）
-        match("NEWLINE");
+        match(NEWLINE);
 
         // 解析所有缩进的语句作为循环体
         List<Statement> body = parseIndentedBlock();
 
         return new LoopStatement(condition, body,
-                loopToken.getLine(), loopToken.getColumn());
+                line(loopToken), column(loopToken));
+    }
+
+    private Statement parseWhileStatement() {
+        int whileToken = previous();
+        consume(LEFT_PAREN, "Expect '(' after 'while'");
+        Expression condition = parseExpression();
+        consume(RIGHT_PAREN, "Expect ')' after while condition");
+        consume(COLON, "Expect ':' after while condition");
+
+        match(NEWLINE);
+        List<Statement> body = parseIndentedBlock();
+
+        return new WhileStatement(condition, body,
+                line(whileToken), column(whileToken));
+    }
+
+    /**
+     * for i in a..b: 计数循环（in 不是关键字，只在这里识别）
+     */
+    private Statement parseForStatement() {
+        int forToken = previous();
+        int variable = consume(IDENTIFIER, "Expect loop variable after 'for'");
+        if (!check(IDENTIFIER) || !text(peek()).equals("in")) {
+            throw error(peek(), "Expect 'in' after loop variable");
+        }
+        advance();
+        Expression start = parseExpression();
+        consume(DOT_DOT, "Expect '..' in for range");
+        Expression end = parseExpression();
+        consume(COLON, "Expect ':' after for range");
+
+        match(NEWLINE);
+        List<Statement> body = parseIndentedBlock();
+
+        return new ForStatement(text(variable), start, end, body,
+                line(forToken), column(forToken));
     }
 
     /**
@@ -121,15 +200,15 @@ public class Parser {
         int blockIndent = -1;
 
         // 跳过开头的空行
-        while (match("NEWLINE")) {
+        while (match(NEWLINE)) {
             // 继续跳过
         }
 
         // 解析缩进块中的语句
         while (!isAtEnd()) {
             // 检查当前token的缩进
-            Token currentToken = peek();
-            int currentIndent = currentToken.getColumn();
+            int currentToken = peek();
+            int currentIndent = column(currentToken);
 
             // 如果是文件开始或者没有缩进，结束块
             if (currentIndent <= baseIndent) {
@@ -149,7 +228,7 @@ public class Parser {
                 }
 
                 // 跳过语句后的换行符
-                while (match("NEWLINE")) {
+                while (match(NEWLINE)) {
                     // 继续跳过
                 }
             } else {
@@ -167,44 +246,44 @@ public class Parser {
     private boolean isIndentedLine() {
         if (isAtEnd()) return false;
 
-        Token token = peek();
+        int token = peek();
         // 简化判断：如果列号大于1，则认为有缩进
-        return token.getColumn() > 1;
+        return column(token) > 1;
     }
 
     private Statement parseUseStatement() {
-        Token useToken = previous();
-        consume("LEFT_PAREN", "Expect '(' after 'use'");
+        int useToken = previous();
+        consume(LEFT_PAREN, "Expect '(' after 'use'");
 
         // 解析方法调用表达式（如：ClassName.methodName(args)）
         Expression methodCall = parseExpression();
 
-        consume("RIGHT_PAREN", "Expect ')' after method call");
+        consume(RIGHT_PAREN, "Expect ')' after method call");
 
         // 使用新的构造函数
-        return new UseStatement(methodCall, useToken.getLine(), useToken.getColumn());
+        return new UseStatement(methodCall, line(useToken), column(useToken));
     }
 
     private Statement parseSwapStatement() {
-        Token swapToken = previous();
-        consume("LEFT_PAREN", "Expect '(' after 'swap'");
+        int swapToken = previous();
+        consume(LEFT_PAREN, "Expect '(' after 'swap'");
 
         Expression varA = parseExpression();
         if (!(varA instanceof VariableExpression)) {
             throw error(peek(), "Swap operand must be a variable");
         }
 
-        consume("COMMA", "Expect ',' between swap variables");
+        consume(COMMA, "Expect ',' between swap variables");
 
         Expression varB = parseExpression();
         if (!(varB instanceof VariableExpression)) {
             throw error(peek(), "Swap operand must be a variable");
         }
 
-        consume("RIGHT_PAREN", "Expect ')' after swap variables");
+        consume(RIGHT_PAREN, "Expect ')' after swap variables");
 
         return new SwapStatement((VariableExpression) varA, (VariableExpression) varB,
-                swapToken.getLine(), swapToken.getColumn());
+                line(swapToken), column(swapToken));
     }
 
     private Statement parseExpressionOrAssignment() {
@@ -212,34 +291,30 @@ public class Parser {
         Expression expr = parseExpression();
 
         // 检查是否是赋值语句
-        if (check("EQUAL") ||
-                check("PLUS_EQUAL") || check("MINUS_EQUAL") ||
-                check("STAR_EQUAL") || check("SLASH_EQUAL") ||
-                check("SLASH_SLASH_EQUAL") || check("PERCENT_EQUAL")) {
+        if (check(EQUAL) || checkAny(COMPOUND_ASSIGNMENT_OPERATORS)) {
 
             // 确保左边是有效的赋值目标
             if (expr instanceof VariableExpression) {
                 String varName = ((VariableExpression) expr).getName();
 
                 // 处理复合赋值
-                if (match("PLUS_EQUAL", "MINUS_EQUAL", "STAR_EQUAL", "SLASH_EQUAL",
-                        "SLASH_SLASH_EQUAL", "PERCENT_EQUAL")) {
-                    Token operator = previous();
+                if (matchAny(COMPOUND_ASSIGNMENT_OPERATORS)) {
+                    int operator = previous();
                     Expression value = parseExpression();
 
                     // 转换为二元运算形式：a = a + b
                     Expression leftOperand = new VariableExpression(varName,
                             expr.getLineNumber(), expr.getColumnNumber());
-                    String binaryOperator = getBinaryOperatorFromCompound(operator.getType());
+                    String binaryOperator = getBinaryOperatorFromCompound(tokens.kind(operator));
                     Expression binaryExpr = new BinaryExpression(leftOperand, binaryOperator, value,
-                            operator.getLine(), operator.getColumn());
+                            line(operator), column(operator));
 
                     return new AssignmentStatement(varName, binaryExpr, null,
                             expr.getLineNumber(), expr.getColumnNumber());
                 }
 
                 // 处理普通赋值
-                if (match("EQUAL")) {
+                if (match(EQUAL)) {
                     Expression value = parseExpression();
                     return new AssignmentStatement(varName, value, null,
                             expr.getLineNumber(), expr.getColumnNumber());
@@ -282,7 +357,7 @@ public class Parser {
             }
 
             // 跳过换行符
-            if (match("NEWLINE")) {
+            if (match(NEWLINE)) {
                 // 继续
             }
         }
@@ -296,9 +371,9 @@ public class Parser {
     private int getCurrentIndent() {
         if (isAtEnd()) return 0;
 
-        Token token = peek();
+        int token = peek();
         // 列号从1开始，所以缩进级别是列号-1
-        return token.getColumn() - 1;
+        return column(token) - 1;
     }
 
     /**
@@ -310,8 +385,8 @@ public class Parser {
 
         // 跳过空白和换行符，找到下一个非空白字符
         while (!isAtEnd()) {
-            Token token = tokens.get(current);
-            if (token.getType().equals("NEWLINE")) {
+            int token = current;
+            if (tokens.kind(token) == NEWLINE) {
                 current++;
                 continue;
             }
@@ -329,10 +404,10 @@ public class Parser {
     /**
      * 计算token的缩进级别
      */
-    private int calculateIndent(Token token) {
+    private int calculateIndent(int token) {
         // 简化处理：假设每4个空格为一个缩进级别
         // 实际应该根据token的列号来计算
-        return token.getColumn() / 4;
+        return column(token) / 4;
     }
 
 
@@ -340,10 +415,10 @@ public class Parser {
     private List<Expression> parseExpressionList() {
         List<Expression> expressions = new ArrayList<>();
 
-        if (!check("RIGHT_PAREN")) {
+        if (!check(RIGHT_PAREN)) {
             do {
                 expressions.add(parseExpression());
-            } while (match("COMMA"));
+            } while (match(COMMA));
         }
 
         return expressions;
@@ -354,63 +429,47 @@ public class Parser {
      * 检查标识符是否是类型名
      */
     private boolean isTypeName(String identifier) {
-        Set<String> typeNames = new HashSet<>();
-        typeNames.add("int");
-        typeNames.add("int8");
-        typeNames.add("byte");
-        typeNames.add("int16");
-        typeNames.add("short");
-        typeNames.add("int32");
-        typeNames.add("int64");
-        typeNames.add("long");
-        typeNames.add("double");
-        typeNames.add("float");
-        typeNames.add("bool");
-        typeNames.add("boolean");
-        typeNames.add("string");
-        typeNames.add("char");
-        typeNames.add("large");
-        return typeNames.contains(identifier);
+        return VastType.isBuiltin(identifier);
     }
 
     /**
      * 解析类型变量声明（如 int x, string name = "hello"）
      */
     private VariableDeclaration parseTypedVariableDeclaration() {
-        Token typeToken = advance(); // 消耗类型名
-        String typeName = typeToken.getLexeme();
+        int typeToken = advance(); // 消耗类型名
+        VastType type = VastType.of(text(typeToken));
 
         // 检查是否是类型转换语法：newType newName = newType(oldName)
-        if (check("LEFT_PAREN")) {
+        if (check(LEFT_PAREN)) {
             return parseTypeCastAssignment(typeToken);
         }
 
-        String name = consume("IDENTIFIER", "Expect variable name after type").getLexeme();
+        String name = text(consume(IDENTIFIER, "Expect variable name after type"));
 
         Expression initializer = null;
-        if (match("EQUAL")) {
+        if (match(EQUAL)) {
             initializer = parseExpression();
         }
 
-        return new VariableDeclaration(name, typeName, initializer, false,
-                typeToken.getLine(), typeToken.getColumn());
+        return new VariableDeclaration(name, type, initializer, false,
+                line(typeToken), column(typeToken));
     }
 
     /**
      * 解析类型转换赋值：newType newName = newType(oldName)
      */
-    private VariableDeclaration parseTypeCastAssignment(Token typeToken) {
-        String targetType = typeToken.getLexeme();
+    private VariableDeclaration parseTypeCastAssignment(int typeToken) {
+        VastType targetType = VastType.of(text(typeToken));
 
-        consume("LEFT_PAREN", "Expect '(' after type for type cast assignment");
+        consume(LEFT_PAREN, "Expect '(' after type for type cast assignment");
 
         Expression sourceExpr = parseExpression();
 
-        consume("RIGHT_PAREN", "Expect ')' after expression in type cast");
+        consume(RIGHT_PAREN, "Expect ')' after expression in type cast");
 
-        String name = consume("IDENTIFIER", "Expect variable name after type cast").getLexeme();
+        String name = text(consume(IDENTIFIER, "Expect variable name after type cast"));
 
-        consume("EQUAL", "Expect '=' in type cast assignment");
+        consume(EQUAL, "Expect '=' in type cast assignment");
 
         // 解析右侧的类型转换表达式
         Expression typeCastExpr = parseExpression();
@@ -427,28 +486,31 @@ public class Parser {
                 castExpr.getExpression(),
                 targetType,
                 true,
-                typeToken.getLine(),
-                typeToken.getColumn()
+                line(typeToken),
+                column(typeToken)
         );
 
         return new VariableDeclaration(name, targetType, finalCastExpr, true,
-                typeToken.getLine(), typeToken.getColumn());
+                line(typeToken), column(typeToken));
     }
 
     // 表达式解析（运算符优先级处理）
     private Expression parseExpression() {
-        debugger.debug("parseExpression: current token = " + peek());
+        if (debugger.isTraceEnabled(PARSER)) {
+            debugger.trace(PARSER, "parseExpression: current token = " + tokens.token(peek()));
+        }
         return parseAssignment();
     }
 
     private Expression parseAssignment() {
-        debugger.debug("parseAssignment: current token = " + peek());
+        if (debugger.isTraceEnabled(PARSER)) {
+            debugger.trace(PARSER, "parseAssignment: current token = " + tokens.token(peek()));
+        }
         Expression expr = parseLogicalOr();
 
         // 处理复合赋值运算符
-        if (match("PLUS_EQUAL", "MINUS_EQUAL", "STAR_EQUAL", "SLASH_EQUAL",
-                "SLASH_SLASH_EQUAL", "PERCENT_EQUAL")) {
-            Token operator = previous();
+        if (matchAny(COMPOUND_ASSIGNMENT_OPERATORS)) {
+            int operator = previous();
             Expression value = parseAssignment();
 
             if (expr instanceof VariableExpression) {
@@ -458,9 +520,9 @@ public class Parser {
                 Expression leftOperand = new VariableExpression(name,
                         expr.getLineNumber(), expr.getColumnNumber());
 
-                String binaryOperator = getBinaryOperatorFromCompound(operator.getType());
+                String binaryOperator = getBinaryOperatorFromCompound(tokens.kind(operator));
                 Expression binaryExpr = new BinaryExpression(leftOperand, binaryOperator, value,
-                        operator.getLine(), operator.getColumn());
+                        line(operator), column(operator));
 
                 return new AssignmentExpression(name, binaryExpr,
                         expr.getLineNumber(), expr.getColumnNumber());
@@ -470,8 +532,8 @@ public class Parser {
         }
 
         // 处理普通赋值
-        if (match("EQUAL")) {
-            Token equals = previous();
+        if (match(EQUAL)) {
+            int equals = previous();
             Expression value = parseAssignment();
 
             if (expr instanceof VariableExpression) {
@@ -489,27 +551,27 @@ public class Parser {
     /**
      * 将复合赋值运算符转换为对应的二元运算符
      */
-    private String getBinaryOperatorFromCompound(String compoundOperator) {
+    private String getBinaryOperatorFromCompound(int compoundOperator) {
         switch (compoundOperator) {
-            case "PLUS_EQUAL": return "+";
-            case "MINUS_EQUAL": return "-";
-            case "STAR_EQUAL": return "*";
-            case "SLASH_EQUAL": return "/";
-            case "SLASH_SLASH_EQUAL": return "//";  // 新增
-            case "PERCENT_EQUAL": return "%";
+            case PLUS_EQUAL: return "+";
+            case MINUS_EQUAL: return "-";
+            case STAR_EQUAL: return "*";
+            case SLASH_EQUAL: return "/";
+            case SLASH_SLASH_EQUAL: return "//";  // 新增
+            case PERCENT_EQUAL: return "%";
             default:
-                throw new IllegalArgumentException("Unknown compound operator: " + compoundOperator);
+                throw new IllegalArgumentException("Unknown compound operator: " + TokenType.name(compoundOperator));
         }
     }
 
     private Expression parseLogicalOr() {
         Expression expr = parseLogicalXor();
 
-        while (match("OR")) {
-            Token operator = previous();
+        while (match(OR)) {
+            int operator = previous();
             Expression right = parseLogicalXor();
             expr = new BinaryExpression(expr, "OR", right,
-                    operator.getLine(), operator.getColumn());
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -518,11 +580,11 @@ public class Parser {
     private Expression parseLogicalXor() {
         Expression expr = parseLogicalAnd();
 
-        while (match("XOR")) {
-            Token operator = previous();
+        while (match(XOR)) {
+            int operator = previous();
             Expression right = parseLogicalAnd();
             expr = new BinaryExpression(expr, "XOR", right,
-                    operator.getLine(), operator.getColumn());
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -531,11 +593,11 @@ public class Parser {
     private Expression parseLogicalAnd() {
         Expression expr = parseEquality();
 
-        while (match("AND")) {
-            Token operator = previous();
+        while (match(AND)) {
+            int operator = previous();
             Expression right = parseEquality();
             expr = new BinaryExpression(expr, "AND", right,
-                    operator.getLine(), operator.getColumn());
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -544,11 +606,11 @@ public class Parser {
     private Expression parseEquality() {
         Expression expr = parseComparison();
 
-        while (match("EQUAL_EQUAL", "BANG_EQUAL")) {
-            Token operator = previous();
+        while (matchAny(EQUALITY_OPERATORS)) {
+            int operator = previous();
             Expression right = parseComparison();
-            expr = new BinaryExpression(expr, operator.getLexeme(), right,
-                    operator.getLine(), operator.getColumn());
+            expr = new BinaryExpression(expr, text(operator), right,
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -557,11 +619,11 @@ public class Parser {
     private Expression parseComparison() {
         Expression expr = parseTerm();
 
-        while (match("GREATER", "GREATER_EQUAL", "LESS", "LESS_EQUAL")) {
-            Token operator = previous();
+        while (matchAny(COMPARISON_OPERATORS)) {
+            int operator = previous();
             Expression right = parseTerm();
-            expr = new BinaryExpression(expr, operator.getLexeme(), right,
-                    operator.getLine(), operator.getColumn());
+            expr = new BinaryExpression(expr, text(operator), right,
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -570,11 +632,11 @@ public class Parser {
     private Expression parseTerm() {
         Expression expr = parseFactor();
 
-        while (match("PLUS", "MINUS")) {
-            Token operator = previous();
+        while (matchAny(TERM_OPERATORS)) {
+            int operator = previous();
             Expression right = parseFactor();
-            expr = new BinaryExpression(expr, operator.getLexeme(), right,
-                    operator.getLine(), operator.getColumn());
+            expr = new BinaryExpression(expr, text(operator), right,
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -583,11 +645,11 @@ public class Parser {
     private Expression parseFactor() {
         Expression expr = parsePower();
 
-        while (match("STAR", "SLASH", "SLASH_SLASH", "PERCENT")) {
-            Token operator = previous();
+        while (matchAny(FACTOR_OPERATORS)) {
+            int operator = previous();
             Expression right = parsePower();
-            expr = new BinaryExpression(expr, operator.getLexeme(), right,
-                    operator.getLine(), operator.getColumn());
+            expr = new BinaryExpression(expr, text(operator), right,
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -596,11 +658,11 @@ public class Parser {
     private Expression parsePower() {
         Expression expr = parseUnary();
 
-        while (match("STAR_STAR")) {
-            Token operator = previous();
+        while (match(STAR_STAR)) {
+            int operator = previous();
             Expression right = parseUnary();
             expr = new BinaryExpression(expr, "**", right,
-                    operator.getLine(), operator.getColumn());
+                    line(operator), column(operator));
         }
 
         return expr;
@@ -608,53 +670,53 @@ public class Parser {
 
     private Expression parseUnary() {
         // 首先处理括号相关的表达式（类型转换和普通括号）
-        if (match("LEFT_PAREN")) {
+        if (match(LEFT_PAREN)) {
             // 检查是否是类型转换
-            if (check("IDENTIFIER") && isTypeName(peek().getLexeme())) {
-                Token typeToken = advance(); // 消耗类型名
-                String targetType = typeToken.getLexeme();
+            if (check(IDENTIFIER) && isTypeName(text(peek()))) {
+                int typeToken = advance(); // 消耗类型名
+                VastType targetType = VastType.of(text(typeToken));
 
-                consume("RIGHT_PAREN", "Expect ')' after type in type cast");
+                consume(RIGHT_PAREN, "Expect ')' after type in type cast");
 
                 Expression expression = parseUnary();
 
                 return new TypeCastExpression(expression, targetType, true,
-                        typeToken.getLine(), typeToken.getColumn());
+                        line(typeToken), column(typeToken));
             } else {
                 // 普通括号表达式
                 Expression expr = parseExpression();
-                consume("RIGHT_PAREN", "Expect ')' after expression");
+                consume(RIGHT_PAREN, "Expect ')' after expression");
                 return expr;
             }
         }
 
         // 处理分数修饰符
-        if (match("DOLLAR", "DOUBLE_DOLLAR")) {
-            Token operator = previous();
-            boolean isPermanent = operator.getType().equals("DOUBLE_DOLLAR");
+        if (matchAny(FRACTION_MODIFIERS)) {
+            int operator = previous();
+            boolean isPermanent = tokens.kind(operator) == DOUBLE_DOLLAR;
 
             // 必须紧跟左括号
-            if (!match("LEFT_PAREN")) {
+            if (!match(LEFT_PAREN)) {
                 throw error(peek(), "Fraction modifier must be followed by parenthesized expression");
             }
 
             Expression expr = parseExpression();
-            consume("RIGHT_PAREN", "Expect ')' after fraction expression");
+            consume(RIGHT_PAREN, "Expect ')' after fraction expression");
 
             return new FractionExpression(expr, isPermanent,
-                    operator.getLine(), operator.getColumn());
+                    line(operator), column(operator));
         }
 
-        if (match("NOT")) {
-            Token operator = previous();
+        if (match(NOT)) {
+            int operator = previous();
             Expression right = parseUnary();
             return new UnaryExpression("NOT", right,
-                    operator.getLine(), operator.getColumn());
+                    line(operator), column(operator));
         }
 
         // 处理前缀自增/自减
-        if (match("PLUS_PLUS", "MINUS_MINUS")) {
-            Token operator = previous();
+        if (matchAny(INCREMENT_OPERATORS)) {
+            int operator = previous();
             Expression right = parseUnary();
 
             // 检查右操作数是否是变量
@@ -662,23 +724,23 @@ public class Parser {
                 throw error(operator, "Increment/decrement operand must be a variable");
             }
 
-            return new UnaryExpression(operator.getLexeme(), right,
-                    operator.getLine(), operator.getColumn());
+            return new UnaryExpression(text(operator), right,
+                    line(operator), column(operator));
         }
 
         // 处理其他一元运算符
-        if (match("BANG", "MINUS", "BITWISE_NOT")) {
-            Token operator = previous();
+        if (matchAny(UNARY_OPERATORS)) {
+            int operator = previous();
             Expression right = parseUnary();
-            return new UnaryExpression(operator.getLexeme(), right,
-                    operator.getLine(), operator.getColumn());
+            return new UnaryExpression(text(operator), right,
+                    line(operator), column(operator));
         }
 
         Expression expr = parsePrimary();
 
         // 处理后缀自增/自减
-        while (match("PLUS_PLUS", "MINUS_MINUS")) {
-            Token operator = previous();
+        while (matchAny(INCREMENT_OPERATORS)) {
+            int operator = previous();
 
             // 检查左操作数是否是变量
             if (!(expr instanceof VariableExpression)) {
@@ -686,65 +748,81 @@ public class Parser {
             }
 
             // 创建后缀一元表达式
-            expr = new UnaryExpression(operator.getLexeme() + "_POSTFIX", expr,
-                    operator.getLine(), operator.getColumn());
+            expr = new UnaryExpression(text(operator) + "_POSTFIX", expr,
+                    line(operator), column(operator));
         }
 
         return expr;
     }
 
+    /**
+     * 整数字面量按能容纳它的最窄类型解析：int、long，更大时为 large（BigInteger）
+     */
+    private static Object parseIntegerLiteral(String text) {
+        BigInteger value = new BigInteger(text);
+        if (value.bitLength() < 32) {
+            return value.intValue();
+        }
+        if (value.bitLength() < 64) {
+            return value.longValue();
+        }
+        return value;
+    }
+
     private Expression parsePrimary() {
-        debugger.debug("parsePrimary: current token = " + peek());
-        if (match("FALSE")) {
-            return new LiteralExpression(false, previous().getLine(), previous().getColumn());
+        if (debugger.isTraceEnabled(PARSER)) {
+            debugger.trace(PARSER, "parsePrimary: current token = " + tokens.token(peek()));
+        }
+        if (match(FALSE)) {
+            return new LiteralExpression(false, line(previous()), column(previous()));
         }
-        if (match("TRUE")) {
-            return new LiteralExpression(true, previous().getLine(), previous().getColumn());
+        if (match(TRUE)) {
+            return new LiteralExpression(true, line(previous()), column(previous()));
         }
-        if (match("NUMBER")) {
-            String numberText = previous().getLexeme();
+        if (match(NUMBER)) {
+            String numberText = text(previous());
             Object value;
             if (numberText.contains(".")) {
                 value = Double.parseDouble(numberText);
             } else {
-                value = Integer.parseInt(numberText);
+                value = parseIntegerLiteral(numberText);
             }
-            return new LiteralExpression(value, previous().getLine(), previous().getColumn());
+            return new LiteralExpression(value, line(previous()), column(previous()));
         }
-        if (match("STRING")) {
-            String stringText = previous().getLexeme();
+        if (match(STRING)) {
+            String stringText = text(previous());
             // 去掉引号并处理转义字符
             String value = parseStringLiteral(stringText);
-            return new LiteralExpression(value, previous().getLine(), previous().getColumn());
+            return new LiteralExpression(value, line(previous()), column(previous()));
         }
-        if (match("IDENTIFIER")) {
-            Token identifier = previous();
-            Expression expr = new VariableExpression(identifier.getLexeme(),
-                    identifier.getLine(), identifier.getColumn());
+        if (match(IDENTIFIER)) {
+            int identifier = previous();
+            Expression expr = new VariableExpression(text(identifier),
+                    line(identifier), column(identifier));
 
             // 处理成员访问链
-            while (match("DOT")) {
-                if (!match("IDENTIFIER")) {
+            while (match(DOT)) {
+                if (!match(IDENTIFIER)) {
                     throw error(peek(), "Expect property name after '.'");
                 }
-                Token property = previous();
-                expr = new MemberAccessExpression(expr, property.getLexeme(),
-                        identifier.getLine(), identifier.getColumn());
+                int property = previous();
+                expr = new MemberAccessExpression(expr, text(property),
+                        line(identifier), column(identifier));
             }
 
             // 处理函数调用
-            if (match("LEFT_PAREN")) {
+            if (match(LEFT_PAREN)) {
                 List<Expression> arguments = parseExpressionList();
-                consume("RIGHT_PAREN", "Expect ')' after arguments");
+                consume(RIGHT_PAREN, "Expect ')' after arguments");
                 expr = new FunctionCallExpression(expr, arguments,
-                        identifier.getLine(), identifier.getColumn());
+                        line(identifier), column(identifier));
             }
 
             return expr;
         }
-        if (match("LEFT_PAREN")) {
+        if (match(LEFT_PAREN)) {
             Expression expr = parseExpression();
-            consume("RIGHT_PAREN", "Expect ')' after expression");
+            consume(RIGHT_PAREN, "Expect ')' after expression");
             return expr;
         }
 
@@ -776,6 +854,8 @@ public class Parser {
                 inEscape = false;
             } else if (c == '\\') {
                 inEscape = true;
+            } else if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+                // 跨行字符串中的 \r\n 按 \n 处理，与按行读取源码时一致
             } else {
                 result.append(c);
             }
@@ -785,45 +865,68 @@ public class Parser {
     }
 
     // 辅助方法
-    private boolean match(String... types) {
-        for (String type : types) {
-            if (check(type)) {
-                advance();
-                return true;
-            }
+    private boolean match(int kind) {
+        if (check(kind)) {
+            advance();
+            return true;
         }
         return false;
     }
 
-    private boolean check(String type) {
+    private boolean matchAny(long kinds) {
+        if (checkAny(kinds)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean check(int kind) {
+        if (isAtEnd()) return false;
+        return tokens.kind(current) == kind;
+    }
+
+    private boolean checkAny(long kinds) {
         if (isAtEnd()) return false;
-        return peek().getType().equals(type);
+        return (kinds & (1L << tokens.kind(current))) != 0;
     }
 
-    private Token advance() {
+    private int advance() {
         if (!isAtEnd()) current++;
         return previous();
     }
 
     private boolean isAtEnd() {
-        return peek().getType().equals("EOF");
+        return tokens.kind(current) == EOF;
     }
 
-    private Token peek() {
-        return tokens.get(current);
+    private int peek() {
+        return current;
     }
 
-    private Token previous() {
-        return tokens.get(current - 1);
+    private int previous() {
+        return current - 1;
     }
 
-    private Token consume(String type, String message) {
-        if (check(type)) return advance();
+    private int consume(int kind, String message) {
+        if (check(kind)) return advance();
         throw error(peek(), message);
     }
 
-    private ParseException error(Token token, String message) {
-        return new ParseException(message, token.getLine(), token.getColumn());
+    private String text(int token) {
+        return tokens.text(token);
+    }
+
+    private int line(int token) {
+        return tokens.line(token);
+    }
+
+    private int column(int token) {
+        return tokens.column(token);
+    }
+
+    private ParseException error(int token, String message) {
+        return new ParseException(message, line(token), column(token));
     }
 
     public static class ParseException extends RuntimeException {
@@ -1,26 +1,27 @@
 package com.vast.parser;
 
-//语法单元类
+//语法单元类（词法分析结果按列存储在 TokenBuffer 中，这个类只用于调试输出）
 public class Token {
-    private final String type;
+    private final int kind;
     private final String lexeme;
     private final int line;
     private final int column;
 
-    public Token(String type, String lexeme, int line, int column) {
-        this.type = type;
+    public Token(int kind, String lexeme, int line, int column) {
+        this.kind = kind;
         this.lexeme = lexeme;
         this.line = line;
         this.column = column;
     }
 
-    public String getType() { return type; }
+    public int getKind() { return kind; }
+    public String getType() { return TokenType.name(kind); }
     public String getLexeme() { return lexeme; }
     public int getLine() { return line; }
     public int getColumn() { return column; }
 
     @Override
     public String toString() {
-        return type + " '" + lexeme + "' at " + line + ":" + column;
+        return getType() + " '" + lexeme + "' at " + line + ":" + column;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
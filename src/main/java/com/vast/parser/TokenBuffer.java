@@ -0,0 +1,145 @@
+package com.vast.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 词法单元缓冲区
+ * 按列存储每个词法单元的种类、起始偏移、长度、行和列，扫描时不为每个词法单元创建对象；
+ * 文本只在语法分析需要时从源码中截取，文本固定的种类直接使用 TokenType 中的文本。
+ * 作为词法单元流使用时（见 Lexer.tokenStream），读到末尾才继续扫描，
+ * 下标是从源码开头计数的绝对下标，release 之前的词法单元会被丢弃
+ */
+public final class TokenBuffer {
+    private final Lexer lexer;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private int size;
+    private int base = 0;// 第一个保留的词法单元的绝对下标
+    private boolean streaming = false;
+    private boolean complete = false;// 已添加文件结束标记
+
+    TokenBuffer(Lexer lexer, int capacity) {
+        this.lexer = lexer;
+        capacity = Math.max(16, capacity);
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+    }
+
+    void stream() {
+        streaming = true;
+    }
+
+    void add(int kind, int start, int length, int line, int column) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        kinds[size] = (byte) kind;
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        size++;
+        if (kind == TokenType.EOF) {
+            complete = true;
+        }
+    }
+
+    /**
+     * 丢弃绝对下标 index 之前的词法单元（只对词法单元流有效），之后不能再访问它们
+     */
+    public void release(int index) {
+        int count = index - base;
+        if (!streaming || count <= 0) {
+            return;
+        }
+        int remaining = size - count;
+        System.arraycopy(kinds, count, kinds, 0, remaining);
+        System.arraycopy(starts, count, starts, 0, remaining);
+        System.arraycopy(lengths, count, lengths, 0, remaining);
+        System.arraycopy(lines, count, lines, 0, remaining);
+        System.arraycopy(columns, count, columns, 0, remaining);
+        size = remaining;
+        base = index;
+    }
+
+    /**
+     * 保留的词法单元中最早的源码偏移，词法分析器不能丢弃这之后的字符
+     */
+    int retainedStart() {
+        return size > 0 ? starts[0] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * 已扫描的词法单元数（包括已丢弃的）
+     */
+    public int size() {
+        return base + size;
+    }
+
+    public int kind(int index) {
+        if (index - base >= size && !complete) {
+            scanTo(index);
+        }
+        return kinds[index - base];
+    }
+
+    private void scanTo(int index) {
+        while (index - base >= size && lexer.scanNext()) {
+            // 继续扫描
+        }
+    }
+
+    public int start(int index) {
+        return starts[index - base];
+    }
+
+    public int length(int index) {
+        return lengths[index - base];
+    }
+
+    public int line(int index) {
+        return lines[index - base];
+    }
+
+    public int column(int index) {
+        return columns[index - base];
+    }
+
+    /**
+     * 词法单元的文本
+     */
+    public String text(int index) {
+        int i = index - base;
+        String text = TokenType.text(kinds[i]);
+        return text != null ? text : lexer.text(starts[i], lengths[i]);
+    }
+
+    /**
+     * 第 index 个词法单元的对象形式（调试输出用）
+     */
+    public Token token(int index) {
+        int i = index - base;
+        return new Token(kinds[i], text(index), lines[i], columns[i]);
+    }
+
+    public List<Token> toList() {
+        List<Token> tokens = new ArrayList<>(size);
+        for (int i = base; i < base + size; i++) {
+            tokens.add(token(i));
+        }
+        return tokens;
+    }
+}
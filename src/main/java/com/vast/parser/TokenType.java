@@ -0,0 +1,115 @@
+package com.vast.parser;
+
+/**
+ * 词法单元的种类
+ * 用整数表示，语法分析时按整数比较，不再比较类型字符串。
+ * 种类总数小于 64，可以用 long 位集合一次判断多个种类（见 mask）
+ */
+public final class TokenType {
+    // 符号
+    public static final int LEFT_PAREN = 0;
+    public static final int RIGHT_PAREN = 1;
+    public static final int LEFT_BRACE = 2;
+    public static final int RIGHT_BRACE = 3;
+    public static final int COMMA = 4;
+    public static final int DOT = 5;
+    public static final int DOT_DOT = 6;
+    public static final int COLON = 7;
+    public static final int MINUS = 8;
+    public static final int MINUS_EQUAL = 9;
+    public static final int MINUS_MINUS = 10;
+    public static final int PLUS = 11;
+    public static final int PLUS_EQUAL = 12;
+    public static final int PLUS_PLUS = 13;
+    public static final int STAR = 14;
+    public static final int STAR_EQUAL = 15;
+    public static final int STAR_STAR = 16;
+    public static final int SLASH = 17;
+    public static final int SLASH_EQUAL = 18;
+    public static final int SLASH_SLASH = 19;
+    public static final int SLASH_SLASH_EQUAL = 20;
+    public static final int PERCENT = 21;
+    public static final int PERCENT_EQUAL = 22;
+    public static final int EQUAL = 23;
+    public static final int EQUAL_EQUAL = 24;
+    public static final int BANG = 25;
+    public static final int BANG_EQUAL = 26;
+    public static final int LESS = 27;
+    public static final int LESS_EQUAL = 28;
+    public static final int GREATER = 29;
+    public static final int GREATER_EQUAL = 30;
+    public static final int DOLLAR = 31;
+    public static final int DOUBLE_DOLLAR = 32;
+    public static final int NEWLINE = 33;
+
+    // 字面量与标识符
+    public static final int STRING = 34;
+    public static final int NUMBER = 35;
+    public static final int IDENTIFIER = 36;
+
+    // 关键字
+    public static final int IMPORT = 37;
+    public static final int LOOP = 38;
+    public static final int USE = 39;
+    public static final int SWAP = 40;
+    public static final int TRUE = 41;
+    public static final int FALSE = 42;
+    public static final int IF = 43;
+    public static final int ELSE = 44;
+    public static final int WHILE = 45;
+    public static final int FOR = 46;
+    public static final int AND = 47;
+    public static final int OR = 48;
+    public static final int XOR = 49;
+    public static final int NOT = 50;
+
+    public static final int EOF = 51;
+
+    private static final String[] NAMES = {
+            "LEFT_PAREN", "RIGHT_PAREN", "LEFT_BRACE", "RIGHT_BRACE", "COMMA", "DOT", "DOT_DOT", "COLON",
+            "MINUS", "MINUS_EQUAL", "MINUS_MINUS", "PLUS", "PLUS_EQUAL", "PLUS_PLUS",
+            "STAR", "STAR_EQUAL", "STAR_STAR", "SLASH", "SLASH_EQUAL", "SLASH_SLASH", "SLASH_SLASH_EQUAL",
+            "PERCENT", "PERCENT_EQUAL", "EQUAL", "EQUAL_EQUAL", "BANG", "BANG_EQUAL",
+            "LESS", "LESS_EQUAL", "GREATER", "GREATER_EQUAL", "DOLLAR", "DOUBLE_DOLLAR", "NEWLINE",
+            "STRING", "NUMBER", "IDENTIFIER",
+            "IMPORT", "LOOP", "USE", "SWAP", "TRUE", "FALSE", "IF", "ELSE", "WHILE", "FOR",
+            "AND", "OR", "XOR", "NOT", "EOF"
+    };
+
+    // 文本固定的种类对应的文本（null 表示文本取自源码）
+    private static final String[] TEXTS = {
+            "(", ")", "{", "}", ",", ".", "..", ":",
+            "-", "-=", "--", "+", "+=", "++",
+            "*", "*=", "**", "/", "/=", "//", "//=",
+            "%", "%=", "=", "==", "!", "!=",
+            "<", "<=", ">", ">=", "$", "$$", "\n",
+            null, null, null,
+            "imp", "loop", "use", "swap", "true", "false", "if", "else", "while", "for",
+            "and", "or", "xor", "not", ""
+    };
+
+    private TokenType() {
+    }
+
+    public static String name(int kind) {
+        return NAMES[kind];
+    }
+
+    /**
+     * 种类的固定文本；字符串、数字和标识符返回 null
+     */
+    public static String text(int kind) {
+        return TEXTS[kind];
+    }
+
+    /**
+     * 多个种类组成的位集合
+     */
+    public static long mask(int... kinds) {
+        long mask = 0;
+        for (int kind : kinds) {
+            mask |= 1L << kind;
+        }
+        return mask;
+    }
+}
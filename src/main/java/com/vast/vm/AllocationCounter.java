@@ -0,0 +1,41 @@
+package com.vast.vm;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 当前线程的堆分配计数
+ * 基于 com.sun.management.ThreadMXBean，JVM 不支持时返回 -1
+ */
+final class AllocationCounter {
+    private static final com.sun.management.ThreadMXBean THREADS = lookup();
+
+    private AllocationCounter() {}
+
+    private static com.sun.management.ThreadMXBean lookup() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // 没有 jdk.management 模块或不允许开启时视为不支持
+        }
+        return null;
+    }
+
+    static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * 当前线程累计分配的字节数，不支持时返回 -1
+     */
+    static long currentThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
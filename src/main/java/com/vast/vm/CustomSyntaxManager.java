@@ -4,6 +4,8 @@ import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static com.vast.internal.Debugger.Category.LIBRARY;
+
 /**
  * 自定义语法管理器
  */
@@ -11,6 +13,7 @@ public class CustomSyntaxManager {
     private final Map<String, CustomRule> rules = new HashMap<>();
     private final Map<String, String> keywordToRule = new HashMap<>();
     private final VastVM vm;
+    private int version;// 规则每次改变时递增
 
     public CustomSyntaxManager(VastVM vm) {
         this.vm = vm;
@@ -21,6 +24,7 @@ public class CustomSyntaxManager {
      */
     public void addRule(CustomRule rule) {
         rules.put(rule.getId(), rule);
+        version++;
 
         // 注册关键字到规则的映射
         for (String keyword : rule.getKeywords()) {
@@ -30,7 +34,7 @@ public class CustomSyntaxManager {
                         "' already mapped to rule: " + keywordToRule.get(cleanKeyword));
             } else {
                 keywordToRule.put(cleanKeyword, rule.getId());
-                vm.getDebugger().debug("Registered keyword: " + cleanKeyword + " -> " + rule.getId());
+                vm.getDebugger().debug(LIBRARY, () -> "Registered keyword: " + cleanKeyword + " -> " + rule.getId());
             }
         }
     }
@@ -68,6 +72,11 @@ public class CustomSyntaxManager {
     public void clear() {
         rules.clear();
         keywordToRule.clear();
+        version++;
+    }
+
+    public int getVersion() {
+        return version;
     }
 
     /**
@@ -0,0 +1,35 @@
+package com.vast.vm;
+
+/**
+ * 解释器执行模式
+ * 可通过系统属性 vast.exec.mode 或 VastVM.setExecutionMode 配置
+ */
+public enum ExecutionMode {
+    TREE_WALKER("ast"),  // 直接遍历 AST 执行（原有访问者实现，作为回退方案）
+    CLOSURE("closure"),  // 先将 AST 编译为闭包节点树再执行
+    BYTECODE("bytecode"); // 先将 AST 编译为寄存器字节码，由单个分派循环执行
+
+    private final String optionName;
+
+    ExecutionMode(String optionName) {
+        this.optionName = optionName;
+    }
+
+    public String getOptionName() {
+        return optionName;
+    }
+
+    /**
+     * 根据选项名解析执行模式，无法识别时返回默认的闭包模式
+     */
+    public static ExecutionMode fromOption(String option) {
+        if (option != null) {
+            for (ExecutionMode mode : values()) {
+                if (mode.optionName.equalsIgnoreCase(option.trim()) || mode.name().equalsIgnoreCase(option.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return CLOSURE;
+    }
+}
@@ -0,0 +1,150 @@
+package com.vast.vm;
+
+import com.vast.ast.Program;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 语法分析结果缓存
+ * 按源码内容的摘要（长度和 SHA-256，与 ScriptImage 校验源文件的方式相同）缓存语法分析并优化后的 Program，
+ * 不持有源码本身，最多保留 capacity 个，超过时淘汰最久未使用的。导入的类、已加载的库、自定义语法规则或优化开关改变时整个缓存失效。
+ * 缓存的 Program 会被多次解释执行，执行期间不能修改它
+ */
+final class ProgramCache {
+    // 超过此长度的源码不缓存，避免长期持有大脚本的语法树
+    static final int MAX_SOURCE_LENGTH = 1 << 20;
+    // 计算摘要时每次编码的字符数
+    private static final int DIGEST_CHUNK = 4096;
+
+    /**
+     * 源码的缓存键：字符数和 UTF-16 编码的 SHA-256
+     */
+    static final class Key {
+        private final int length;
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(int length, byte[] digest) {
+            this.length = length;
+            this.digest = digest;
+            this.hash = 31 * length + Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return length == other.length && Arrays.equals(digest, other.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Program> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    // 缓存内容对应的外部状态
+    private Map<String, Class<?>> imports = new HashMap<>();
+    private int libraryGeneration;
+    private int syntaxVersion;
+    private int optimizerConfiguration;
+
+    ProgramCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.entries = new LinkedHashMap<Key, Program>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Program> eldest) {
+                if (size() > ProgramCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    boolean accepts(String source) {
+        return capacity > 0 && source.length() <= MAX_SOURCE_LENGTH;
+    }
+
+    /**
+     * 外部状态与缓存内容不一致时清空缓存
+     */
+    void validate(Map<String, Class<?>> imports, int libraryGeneration, int syntaxVersion,
+                  int optimizerConfiguration) {
+        if (libraryGeneration == this.libraryGeneration && syntaxVersion == this.syntaxVersion &&
+                optimizerConfiguration == this.optimizerConfiguration && imports.equals(this.imports)) {
+            return;
+        }
+        if (!entries.isEmpty()) {
+            invalidations++;
+            entries.clear();
+        }
+        this.imports = new HashMap<>(imports);
+        this.libraryGeneration = libraryGeneration;
+        this.syntaxVersion = syntaxVersion;
+        this.optimizerConfiguration = optimizerConfiguration;
+    }
+
+    /**
+     * 计算源码的缓存键。按 char 直接编码，不经过字符集转换，不成对的代理字符也能区分
+     */
+    static Key key(String source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer chunk = ByteBuffer.allocate(DIGEST_CHUNK * Character.BYTES);
+        for (int start = 0; start < source.length(); start += DIGEST_CHUNK) {
+            int end = Math.min(source.length(), start + DIGEST_CHUNK);
+            chunk.clear();
+            chunk.asCharBuffer().put(source, start, end);
+            chunk.limit((end - start) * Character.BYTES);
+            digest.update(chunk);
+        }
+        return new Key(source.length(), digest.digest());
+    }
+
+    Program get(Key key) {
+        Program program = entries.get(key);
+        if (program != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return program;
+    }
+
+    void put(Key key, Program program) {
+        entries.put(key, program);
+    }
+
+    void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public String toString() {
+        if (capacity == 0) {
+            return "disabled";
+        }
+        return entries.size() + "/" + capacity + " programs, " + hits + " hits, " + misses + " misses, " +
+                evictions + " evictions, " + invalidations + " invalidations";
+    }
+}
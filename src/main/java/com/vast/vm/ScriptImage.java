@@ -0,0 +1,245 @@
+package com.vast.vm;
+
+import com.vast.ast.Program;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * 预编译脚本（.vastc）
+ * 保存语法分析并优化后的 AST，加载时跳过词法分析、语法分析和优化。文件依次包含：
+ * 文件头（格式版本、VM 版本、优化开关、源文件名、大小和 SHA-256）、常量池（名称和字面量）、
+ * 行号表（按先序排列的各节点行列号）和节点流。
+ * 标识符绑定依赖运行时导入的类和库，加载后照常由链接器完成
+ */
+public final class ScriptImage {
+    public static final String EXTENSION = ".vastc";
+    static final int MAGIC = 0x56415343;// "VASC"
+    static final int FORMAT_VERSION = 1;
+    private static final long REGION_SIZE = 64L << 20;
+
+    private final ByteBuffer buffer;// 映射的整个文件，position 位于常量池开头
+    private final String vmVersion;
+    private final int optimizerConfiguration;
+    private final String sourceName;
+    private final long sourceSize;
+    private final byte[] sourceHash;
+
+    private ScriptImage(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.remaining() < 6 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a compiled Vast script");
+        }
+        int format = buffer.getShort();
+        if (format != FORMAT_VERSION) {
+            throw new IOException("Unsupported compiled script format " + format);
+        }
+        try {
+            this.vmVersion = readString(buffer);
+            this.optimizerConfiguration = buffer.getInt();
+            this.sourceName = readString(buffer);
+            this.sourceSize = buffer.getLong();
+            this.sourceHash = new byte[32];
+            buffer.get(sourceHash);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated compiled script", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted compiled script", e);
+        }
+    }
+
+    public static boolean isImage(Path path) {
+        return path.toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * 源文件对应的默认预编译文件：同目录下扩展名换为 .vastc
+     */
+    public static Path imagePath(Path source) {
+        String name = source.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return source.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + EXTENSION);
+    }
+
+    /**
+     * 映射预编译文件并读取文件头
+     */
+    public static ScriptImage open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Compiled script too large: " + path);
+            }
+            return new ScriptImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public String getVmVersion() {
+        return vmVersion;
+    }
+
+    public int getOptimizerConfiguration() {
+        return optimizerConfiguration;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    /**
+     * 预编译文件不能用于当前 VM 或已经过期时返回原因，否则返回 null。
+     * 源文件不存在时只检查版本和优化开关
+     */
+    public String mismatch(String vmVersion, int optimizerConfiguration, Path source) throws IOException {
+        if (!this.vmVersion.equals(vmVersion)) {
+            return "compiled by Vast " + this.vmVersion + " (this is " + vmVersion + ")";
+        }
+        if (this.optimizerConfiguration != optimizerConfiguration) {
+            return "compiled with different optimizer settings";
+        }
+        if (Files.isRegularFile(source) &&
+                (Files.size(source) != sourceSize || !Arrays.equals(hash(source), sourceHash))) {
+            return source.getFileName() + " has changed since it was compiled";
+        }
+        return null;
+    }
+
+    /**
+     * 解码程序
+     */
+    public Program readProgram() throws IOException {
+        try {
+            return new ScriptImageReader(buffer.duplicate()).read();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | ClassCastException e) {
+            throw new IOException("Corrupted compiled script", e);
+        }
+    }
+
+    /**
+     * 把程序写入预编译文件。先写临时文件再替换，正在加载旧文件的进程不会读到写了一半的内容
+     */
+    public static void write(Path target, Program program, Path source, String vmVersion,
+                             int optimizerConfiguration) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        writeInt(header, MAGIC);
+        header.write(FORMAT_VERSION >>> 8);
+        header.write(FORMAT_VERSION);
+        writeString(header, vmVersion);
+        writeInt(header, optimizerConfiguration);
+        writeString(header, source.getFileName().toString());
+        long size = Files.size(source);
+        writeInt(header, (int) (size >>> 32));
+        writeInt(header, (int) size);
+        byte[] hash = hash(source);
+        header.write(hash, 0, hash.length);
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                header.writeTo(out);
+                new ScriptImageWriter().write(program, out);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * 源文件的 SHA-256，按区域映射文件计算，不把文件读入堆内存
+     */
+    static byte[] hash(Path source) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += REGION_SIZE) {
+                digest.update(channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(REGION_SIZE, size - position)));
+            }
+        }
+        return digest.digest();
+    }
+
+    // ====== 编码 ======
+
+    static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * 无符号变长整数：每字节 7 位，最高位表示后面还有字节
+     */
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+            if (shift >= 28) {
+                throw new IllegalArgumentException("Malformed varint");
+            }
+        }
+    }
+
+    static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 读取元素个数。每个元素至少占一个字节，超过剩余字节数（或为负数）说明文件已损坏，在分配数组之前拒绝
+     */
+    static int readLength(ByteBuffer in) {
+        return checkLength(readVarint(in), in);
+    }
+
+    static int checkLength(int length, ByteBuffer in) {
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Invalid length " + length);
+        }
+        return length;
+    }
+
+    static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[readLength(in)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    static void writeString(ByteArrayOutputStream out, String text) {
+        writeBytes(out, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readString(ByteBuffer in) {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+}
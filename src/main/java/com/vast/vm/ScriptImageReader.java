@@ -0,0 +1,226 @@
+package com.vast.vm;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Fraction;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.vast.vm.ScriptImage.*;
+import static com.vast.vm.ScriptImageWriter.*;
+
+/**
+ * 预编译脚本的解码器
+ * 直接从映射的文件缓冲区读取：常量池先整体解码，行号表和节点流用两个游标同步读取
+ */
+final class ScriptImageReader {
+    private final ByteBuffer nodes;
+    private ByteBuffer lines;
+    private Object[] constants;
+    private int line = 0;
+    private int column = 0;
+
+    ScriptImageReader(ByteBuffer buffer) {
+        this.nodes = buffer;
+    }
+
+    Program read() {
+        constants = new Object[readLength(nodes)];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = constant();
+        }
+        int lineTableLength = readLength(nodes);
+        lines = nodes.slice(nodes.position(), lineTableLength);
+        nodes.position(nodes.position() + lineTableLength);
+
+        int count = readLength(nodes);
+        List<Statement> statements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            statements.add(statement());
+        }
+        return new Program(statements);
+    }
+
+    private Object constant() {
+        int kind = nodes.get();
+        switch (kind) {
+            case CONSTANT_STRING:
+                return readString(nodes);
+            case CONSTANT_INT:
+                return nodes.getInt();
+            case CONSTANT_LONG:
+                return nodes.getLong();
+            case CONSTANT_DOUBLE:
+                return nodes.getDouble();
+            case CONSTANT_FLOAT:
+                return nodes.getFloat();
+            case CONSTANT_SHORT:
+                return (short) nodes.getInt();
+            case CONSTANT_BYTE:
+                return nodes.get();
+            case CONSTANT_CHAR:
+                return (char) nodes.getInt();
+            case CONSTANT_BOOLEAN:
+                return nodes.get() != 0;
+            case CONSTANT_BIG_INTEGER:
+                return new BigInteger(readBytes(nodes));
+            case CONSTANT_BIG_DECIMAL:
+                return new BigDecimal(new BigInteger(readBytes(nodes)), nodes.getInt());
+            case CONSTANT_FRACTION:
+                Fraction fraction = Fraction.of(new BigInteger(readBytes(nodes)), new BigInteger(readBytes(nodes)));
+                fraction.setPermanent(nodes.get() != 0);
+                return fraction;
+            default:
+                throw new IllegalArgumentException("Unknown constant kind " + kind);
+        }
+    }
+
+    private Object reference() {
+        int index = readVarint(nodes);
+        return index == 0 ? null : constants[index - 1];
+    }
+
+    private String name() {
+        return (String) reference();
+    }
+
+    private VastType type() {
+        return VastType.of(name());
+    }
+
+    private boolean flag() {
+        return nodes.get() != 0;
+    }
+
+    private Expression expression() {
+        return (Expression) node();
+    }
+
+    private Statement statement() {
+        return (Statement) node();
+    }
+
+    private VariableExpression variable() {
+        return (VariableExpression) node();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends ASTNode> List<T> list() {
+        int size = readVarint(nodes);
+        if (size == 0) {
+            return null;
+        }
+        List<T> list = new ArrayList<>(checkLength(size - 1, nodes));
+        for (int i = 1; i < size; i++) {
+            list.add((T) node());
+        }
+        return list;
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private ASTNode node() {
+        int tag = nodes.get();
+        if (tag == 0) {
+            return null;
+        }
+        // 行号表与节点流的先序顺序一致
+        line += unzigzag(readVarint(lines));
+        column = unzigzag(readVarint(lines));
+        int line = this.line;
+        int column = this.column;
+        switch (tag) {
+            case LITERAL:
+                return new LiteralExpression(reference(), line, column);
+            case VARIABLE:
+                return new VariableExpression(name(), line, column);
+            case BINARY: {
+                Expression left = expression();
+                String operator = name();
+                return new BinaryExpression(left, operator, expression(), line, column);
+            }
+            case UNARY: {
+                String operator = name();
+                return new UnaryExpression(operator, expression(), line, column);
+            }
+            case ASSIGNMENT_EXPRESSION: {
+                String name = name();
+                return new AssignmentExpression(name, expression(), line, column);
+            }
+            case MEMBER_ACCESS: {
+                Expression object = expression();
+                return new MemberAccessExpression(object, name(), line, column);
+            }
+            case FUNCTION_CALL: {
+                Expression callee = expression();
+                return new FunctionCallExpression(callee, list(), line, column);
+            }
+            case METHOD_CALL: {
+                VariableExpression className = variable();
+                String methodName = name();
+                return new MethodCallExpression(className, methodName, list(), line, column);
+            }
+            case TYPE_CAST: {
+                Expression expression = expression();
+                VastType type = type();
+                return new TypeCastExpression(expression, type, flag(), line, column);
+            }
+            case FRACTION: {
+                Expression expression = expression();
+                return new FractionExpression(expression, flag(), line, column);
+            }
+            case VARIABLE_DECLARATION: {
+                String name = name();
+                VastType type = type();
+                Expression initialValue = expression();
+                return new VariableDeclaration(name, type, initialValue, flag(), line, column);
+            }
+            case ASSIGNMENT: {
+                String name = name();
+                Expression value = expression();
+                return new AssignmentStatement(name, value, type(), line, column);
+            }
+            case EXPRESSION_STATEMENT:
+                return new ExpressionStatement(expression(), line, column);
+            case IMPORT:
+                return new ImportStatement(name(), line, column);
+            case LOOP: {
+                Expression condition = expression();
+                return new LoopStatement(condition, list(), line, column);
+            }
+            case WHILE: {
+                Expression condition = expression();
+                return new WhileStatement(condition, list(), line, column);
+            }
+            case FOR: {
+                String name = name();
+                Expression start = expression();
+                Expression end = expression();
+                return new ForStatement(name, start, end, list(), line, column);
+            }
+            case USE: {
+                if (flag()) {
+                    return new UseStatement(expression(), line, column);
+                }
+                VariableExpression className = variable();
+                VariableExpression methodName = variable();
+                return new UseStatement(className, methodName, list(), line, column);
+            }
+            case SWAP: {
+                VariableExpression a = variable();
+                return new SwapStatement(a, variable(), line, column);
+            }
+            case INLINE_TYPE_CAST:
+                return new InlineTypeCastStatement((TypeCastExpression) node(), line, column);
+            default:
+                throw new IllegalArgumentException("Unknown node tag " + tag);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.vast.vm;
+
+import com.vast.ast.*;
+import com.vast.ast.expressions.*;
+import com.vast.ast.statements.*;
+import com.vast.internal.Fraction;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import static com.vast.vm.ScriptImage.*;
+
+/**
+ * 预编译脚本的编码器
+ * 先序遍历程序，节点写入节点流，行列号写入行号表，名称和字面量值收集到常量池，
+ * 节点流中只保存常量池下标（加 1，0 表示 null）
+ */
+final class ScriptImageWriter implements ASTVisitor<Void> {
+    // 节点标签（0 表示空节点）
+    static final int LITERAL = 1;
+    static final int VARIABLE = 2;
+    static final int BINARY = 3;
+    static final int UNARY = 4;
+    static final int ASSIGNMENT_EXPRESSION = 5;
+    static final int MEMBER_ACCESS = 6;
+    static final int FUNCTION_CALL = 7;
+    static final int METHOD_CALL = 8;
+    static final int TYPE_CAST = 9;
+    static final int FRACTION = 10;
+    static final int VARIABLE_DECLARATION = 11;
+    static final int ASSIGNMENT = 12;
+    static final int EXPRESSION_STATEMENT = 13;
+    static final int IMPORT = 14;
+    static final int LOOP = 15;
+    static final int WHILE = 16;
+    static final int FOR = 17;
+    static final int USE = 18;
+    static final int SWAP = 19;
+    static final int INLINE_TYPE_CAST = 20;
+
+    // 常量池条目的类型
+    static final int CONSTANT_STRING = 0;
+    static final int CONSTANT_INT = 1;
+    static final int CONSTANT_LONG = 2;
+    static final int CONSTANT_DOUBLE = 3;
+    static final int CONSTANT_FLOAT = 4;
+    static final int CONSTANT_SHORT = 5;
+    static final int CONSTANT_BYTE = 6;
+    static final int CONSTANT_CHAR = 7;
+    static final int CONSTANT_BOOLEAN = 8;
+    static final int CONSTANT_BIG_INTEGER = 9;
+    static final int CONSTANT_BIG_DECIMAL = 10;
+    static final int CONSTANT_FRACTION = 11;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<String, Integer> names = new HashMap<>();
+    // 字面量按引用去重，加载后的程序与原程序共用值对象的方式相同（见 LiteralInterner）
+    private final Map<Object, Integer> literals = new IdentityHashMap<>();
+    private final ByteArrayOutputStream lines = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream nodes = new ByteArrayOutputStream();
+    private int previousLine = 0;
+
+    void write(Program program, OutputStream out) throws IOException {
+        List<Statement> statements = program.getStatements();
+        writeVarint(nodes, statements.size());
+        for (Statement statement : statements) {
+            node(statement);
+        }
+
+        ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        writeVarint(pool, constants.size());
+        for (Object constant : constants) {
+            constant(pool, constant);
+        }
+        pool.writeTo(out);
+        ByteArrayOutputStream length = new ByteArrayOutputStream();
+        writeVarint(length, lines.size());
+        length.writeTo(out);
+        lines.writeTo(out);
+        nodes.writeTo(out);
+    }
+
+    private static void constant(ByteArrayOutputStream out, Object value) {
+        if (value instanceof String) {
+            out.write(CONSTANT_STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.write(CONSTANT_INT);
+            writeInt(out, (Integer) value);
+        } else if (value instanceof Long) {
+            out.write(CONSTANT_LONG);
+            writeLong(out, (Long) value);
+        } else if (value instanceof Double) {
+            out.write(CONSTANT_DOUBLE);
+            writeLong(out, Double.doubleToRawLongBits((Double) value));
+        } else if (value instanceof Float) {
+            out.write(CONSTANT_FLOAT);
+            writeInt(out, Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Short) {
+            out.write(CONSTANT_SHORT);
+            writeInt(out, (Short) value);
+        } else if (value instanceof Byte) {
+            out.write(CONSTANT_BYTE);
+            out.write((Byte) value);
+        } else if (value instanceof Character) {
+            out.write(CONSTANT_CHAR);
+            writeInt(out, (Character) value);
+        } else if (value instanceof Boolean) {
+            out.write(CONSTANT_BOOLEAN);
+            out.write((Boolean) value ? 1 : 0);
+        } else if (value instanceof BigInteger) {
+            out.write(CONSTANT_BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof BigDecimal) {
+            out.write(CONSTANT_BIG_DECIMAL);
+            writeBytes(out, ((BigDecimal) value).unscaledValue().toByteArray());
+            writeInt(out, ((BigDecimal) value).scale());
+        } else if (value instanceof Fraction) {
+            Fraction fraction = (Fraction) value;
+            out.write(CONSTANT_FRACTION);
+            writeBytes(out, fraction.getBigNumerator().toByteArray());
+            writeBytes(out, fraction.getBigDenominator().toByteArray());
+            out.write(fraction.isPermanent() ? 1 : 0);
+        } else {
+            throw new IllegalArgumentException("Cannot compile literal of type " + value.getClass().getName());
+        }
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    // ====== 节点流 ======
+
+    private void node(ASTNode node) {
+        if (node == null) {
+            nodes.write(0);
+            return;
+        }
+        node.accept(this);
+    }
+
+    /**
+     * 写入节点标签，并在行号表中记录行列号（行号记录与上一个节点的差）
+     */
+    private void begin(int tag, ASTNode node) {
+        nodes.write(tag);
+        writeVarint(lines, zigzag(node.getLineNumber() - previousLine));
+        writeVarint(lines, zigzag(node.getColumnNumber()));
+        previousLine = node.getLineNumber();
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private void name(String name) {
+        if (name == null) {
+            nodes.write(0);
+            return;
+        }
+        Integer index = names.get(name);
+        if (index == null) {
+            index = constants.size();
+            constants.add(name);
+            names.put(name, index);
+        }
+        writeVarint(nodes, index + 1);
+    }
+
+    private void type(VastType type) {
+        name(type == null ? null : type.getName());
+    }
+
+    private void literal(Object value) {
+        if (value == null) {
+            nodes.write(0);
+            return;
+        }
+        Integer index = literals.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            literals.put(value, index);
+        }
+        writeVarint(nodes, index + 1);
+    }
+
+    private void flag(boolean value) {
+        nodes.write(value ? 1 : 0);
+    }
+
+    private void list(List<? extends ASTNode> list) {
+        if (list == null) {
+            nodes.write(0);
+            return;
+        }
+        writeVarint(nodes, list.size() + 1);
+        for (ASTNode node : list) {
+            node(node);
+        }
+    }
+
+    @Override
+    public Void visitLiteralExpression(LiteralExpression expr) {
+        begin(LITERAL, expr);
+        literal(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpression(VariableExpression expr) {
+        begin(VARIABLE, expr);
+        name(expr.getName());
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpression(BinaryExpression expr) {
+        begin(BINARY, expr);
+        node(expr.getLeft());
+        name(expr.getOperator());
+        node(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpression(UnaryExpression expr) {
+        begin(UNARY, expr);
+        name(expr.getOperator());
+        node(expr.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentExpression(AssignmentExpression expr) {
+        begin(ASSIGNMENT_EXPRESSION, expr);
+        name(expr.getVariableName());
+        node(expr.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visitMemberAccessExpression(MemberAccessExpression expr) {
+        begin(MEMBER_ACCESS, expr);
+        node(expr.getObject());
+        name(expr.getMemberName());
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionCallExpression(FunctionCallExpression expr) {
+        begin(FUNCTION_CALL, expr);
+        node(expr.getCallee());
+        list(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Void visitMethodCallExpression(MethodCallExpression expr) {
+        begin(METHOD_CALL, expr);
+        node(expr.getClassName());
+        name(expr.getMethodName());
+        list(expr.getArguments());
+        return null;
+    }
+
+    @Override
+    public Void visitTypeCastExpression(TypeCastExpression expr) {
+        begin(TYPE_CAST, expr);
+        node(expr.getExpression());
+        type(expr.getTargetType());
+        flag(expr.isExplicit());
+        return null;
+    }
+
+    @Override
+    public Void visitFractionExpression(FractionExpression expr) {
+        begin(FRACTION, expr);
+        node(expr.getExpression());
+        flag(expr.isPermanent());
+        return null;
+    }
+
+    @Override
+    public Void visitVariableDeclaration(VariableDeclaration stmt) {
+        begin(VARIABLE_DECLARATION, stmt);
+        name(stmt.getVariableName());
+        type(stmt.getTypeHint());
+        node(stmt.getInitialValue());
+        flag(stmt.isTypeCast());
+        return null;
+    }
+
+    @Override
+    public Void visitAssignmentStatement(AssignmentStatement stmt) {
+        begin(ASSIGNMENT, stmt);
+        name(stmt.getVariableName());
+        node(stmt.getValue());
+        type(stmt.getTypeHint());
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStatement(ExpressionStatement stmt) {
+        begin(EXPRESSION_STATEMENT, stmt);
+        node(stmt.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visitImportStatement(ImportStatement stmt) {
+        begin(IMPORT, stmt);
+        name(stmt.getClassName());
+        return null;
+    }
+
+    @Override
+    public Void visitLoopStatement(LoopStatement stmt) {
+        begin(LOOP, stmt);
+        node(stmt.getCondition());
+        list(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStatement(WhileStatement stmt) {
+        begin(WHILE, stmt);
+        node(stmt.getCondition());
+        list(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitForStatement(ForStatement stmt) {
+        begin(FOR, stmt);
+        name(stmt.getVariableName());
+        node(stmt.getStart());
+        node(stmt.getEnd());
+        list(stmt.getBody());
+        return null;
+    }
+
+    @Override
+    public Void visitUseStatement(UseStatement stmt) {
+        begin(USE, stmt);
+        // 两种形式：方法调用表达式，或类名、方法名和参数
+        flag(stmt.getMethodCall() != null);
+        if (stmt.getMethodCall() != null) {
+            node(stmt.getMethodCall());
+        } else {
+            node(stmt.getClassName());
+            node(stmt.getMethodName());
+            list(stmt.getArguments());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitSwapStatement(SwapStatement stmt) {
+        begin(SWAP, stmt);
+        node(stmt.getVarA());
+        node(stmt.getVarB());
+        return null;
+    }
+
+    @Override
+    public Void visitInlineTypeCastStatement(InlineTypeCastStatement stmt) {
+        begin(INLINE_TYPE_CAST, stmt);
+        node(stmt.getTypeCastExpression());
+        return null;
+    }
+}
@@ -10,6 +10,8 @@ import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import static com.vast.internal.Debugger.Category.LIBRARY;
+
 /**
  * 简化的外置库加载器
  * 支持直接加载包含静态方法的 Java 类
@@ -23,6 +25,7 @@ public class VastLibraryLoader {
     private final Map<String, String> methodToClass = new HashMap<>();
     private final Map<String, Set<String>> methodConflicts = new HashMap<>();
     private final CustomSyntaxManager customSyntaxManager = new CustomSyntaxManager(null);
+    private int generation;// 每次注册或清理库类时递增，用于使调用点的内联缓存失效
 
     private VastLibraryLoader() {}
 
@@ -45,7 +48,7 @@ public class VastLibraryLoader {
 
             // 如果已经加载过，直接返回成功
             if (loadedLibraries.containsKey(cleanPath)) {
-                vm.getDebugger().debug("Library already loaded: " + cleanPath);
+                vm.getDebugger().debug(LIBRARY, () -> "Library already loaded: " + cleanPath);
                 return true;
             }
 
@@ -60,7 +63,7 @@ public class VastLibraryLoader {
             return loadLibraryFromFile(libraryFile, cleanPath, vm);
 
         } catch (Exception e) {
-            vm.getDebugger().debug("Failed to load library: " + importPath + " - " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Failed to load library: " + importPath + " - " + e.getMessage());
             return false;
         }
     }
@@ -72,10 +75,10 @@ public class VastLibraryLoader {
         try {
             Class<?> clazz = Class.forName(className);
             registerLibraryClass(className, clazz, vm);
-            vm.getDebugger().debug("Loaded as Java class: " + className);
+            vm.getDebugger().debug(LIBRARY, () -> "Loaded as Java class: " + className);
             return true;
         } catch (ClassNotFoundException e) {
-            vm.getDebugger().debug("Class not found: " + className);
+            vm.getDebugger().debug(LIBRARY, () -> "Class not found: " + className);
             return false;
         }
     }
@@ -126,6 +129,13 @@ public class VastLibraryLoader {
         return staticMethods.getOrDefault(className, Collections.emptySet());
     }
 
+    /**
+     * 获取提供该静态方法的库类（不检查冲突，不输出日志），没有时返回 null
+     */
+    public String getMethodClass(String methodName) {
+        return methodToClass.get(methodName);
+    }
+
     /**
      * 获取方法冲突信息
      */
@@ -149,7 +159,7 @@ public class VastLibraryLoader {
                 List<Class<?>> classes = findAndLoadClasses(tempDir, libraryName, vm);
 
                 if (classes.isEmpty()) {
-                    vm.getDebugger().debug("No classes found in library: " + libraryName);
+                    vm.getDebugger().debug(LIBRARY, () -> "No classes found in library: " + libraryName);
                     return false;
                 }
 
@@ -161,7 +171,7 @@ public class VastLibraryLoader {
                 // 加载自定义语法规则（针对高级库）
                 loadCustomRules(tempDir, libraryName, vm);
 
-                vm.getDebugger().debug("Loaded library from file: " + libraryName + " with " + classes.size() + " classes");
+                vm.getDebugger().debug(LIBRARY, () -> "Loaded library from file: " + libraryName + " with " + classes.size() + " classes");
                 return true;
 
             } finally {
@@ -170,7 +180,7 @@ public class VastLibraryLoader {
             }
 
         } catch (Exception e) {
-            vm.getDebugger().debug("Failed to load library from file: " + libraryName + " - " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Failed to load library from file: " + libraryName + " - " + e.getMessage());
             return false;
         }
     }
@@ -188,7 +198,7 @@ public class VastLibraryLoader {
             scanDirectoryForLibraries(libsDir, vm);
         }
 
-        vm.getDebugger().debug("Auto-loaded libraries: " + loadedLibraries.size());
+        vm.getDebugger().debug(LIBRARY, () -> "Auto-loaded libraries: " + loadedLibraries.size());
     }
 
     /**
@@ -209,7 +219,7 @@ public class VastLibraryLoader {
                     String libraryName = file.getName().replaceFirst("[.][^.]+$", "");
                     loadLibraryFromFile(file, libraryName, vm);
                 } catch (Exception e) {
-                    vm.getDebugger().debug("Failed to auto-load library: " + file.getName() + " - " + e.getMessage());
+                    vm.getDebugger().debug(LIBRARY, () -> "Failed to auto-load library: " + file.getName() + " - " + e.getMessage());
                 }
             }
         }
@@ -234,13 +244,13 @@ public class VastLibraryLoader {
                             Class<?> clazz = classLoader.loadClass(className);
                             classes.add(clazz);
                         } catch (Exception e) {
-                            vm.getDebugger().debug("Failed to load class from: " + classFile + " - " + e.getMessage());
+                            vm.getDebugger().debug(LIBRARY, () -> "Failed to load class from: " + classFile + " - " + e.getMessage());
                         }
                     });
 
             classLoader.close();
         } catch (Exception e) {
-            vm.getDebugger().debug("Error finding classes: " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Error finding classes: " + e.getMessage());
         }
         return classes;
     }
@@ -264,6 +274,7 @@ public class VastLibraryLoader {
     private void registerLibraryClass(String className, Class<?> clazz, VastVM vm) {
         // 添加到已加载库
         loadedLibraries.put(className, clazz);
+        generation++;
 
         // 添加到 VM 的导入类
         vm.getImportedClasses().put(className, clazz);
@@ -271,7 +282,7 @@ public class VastLibraryLoader {
         // 收集静态方法
         collectStaticMethods(className, clazz, vm);
 
-        vm.getDebugger().debug("Registered library class: " + className);
+        vm.getDebugger().debug(LIBRARY, () -> "Registered library class: " + className);
     }
 
     /**
@@ -297,7 +308,7 @@ public class VastLibraryLoader {
                     } else {
                         // 唯一方法名，添加到映射
                         methodToClass.put(methodName, className);
-                        vm.getDebugger().debug("Mapped static method: " + methodName + " -> " + className);
+                        vm.getDebugger().debug(LIBRARY, () -> "Mapped static method: " + methodName + " -> " + className);
                     }
                 }
             }
@@ -305,7 +316,7 @@ public class VastLibraryLoader {
             staticMethods.put(className, methods);
 
         } catch (Exception e) {
-            vm.getDebugger().debug("Failed to collect methods from: " + className + " - " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Failed to collect methods from: " + className + " - " + e.getMessage());
         }
     }
 
@@ -315,7 +326,9 @@ public class VastLibraryLoader {
     public String resolveClassNameForMethod(String methodName, VastVM vm) {
         if (methodToClass.containsKey(methodName)) {
             String className = methodToClass.get(methodName);
-            vm.getDebugger().debug("Resolved method '" + methodName + "' to class: " + className);
+            if (vm.getDebugger().isTraceEnabled(LIBRARY)) {
+                vm.getDebugger().trace(LIBRARY, "Resolved method '" + methodName + "' to class: " + className);
+            }
             return className;
         }
 
@@ -423,7 +436,7 @@ public class VastLibraryLoader {
                 }
             }
         } catch (Exception e) {
-            vm.getDebugger().debug("Failed to check advanced features: " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Failed to check advanced features: " + e.getMessage());
         }
         return false;
     }
@@ -436,11 +449,11 @@ public class VastLibraryLoader {
             return;
         }
 
-        vm.getDebugger().debug("Loading advanced features for library: " + libraryName);
+        vm.getDebugger().debug(LIBRARY, () -> "Loading advanced features for library: " + libraryName);
 
         Path customDir = libDir.resolve("custom");
         if (!Files.exists(customDir) || !Files.isDirectory(customDir)) {
-            vm.getDebugger().debug("No custom directory found for advanced library: " + libraryName);
+            vm.getDebugger().debug(LIBRARY, () -> "No custom directory found for advanced library: " + libraryName);
             return;
         }
 
@@ -453,15 +466,15 @@ public class VastLibraryLoader {
                             CustomRule rule = parseCustomRule(coFile, vm);
                             if (rule != null) {
                                 customSyntaxManager.addRule(rule);
-                                vm.getDebugger().debug("Loaded custom rule: " + rule.getName());
+                                vm.getDebugger().debug(LIBRARY, () -> "Loaded custom rule: " + rule.getName());
                             }
                         } catch (Exception e) {
-                            vm.getDebugger().debug("Failed to parse custom rule file: " + coFile + " - " + e.getMessage());
+                            vm.getDebugger().debug(LIBRARY, () -> "Failed to parse custom rule file: " + coFile + " - " + e.getMessage());
                         }
                     });
 
         } catch (Exception e) {
-            vm.getDebugger().debug("Error loading custom rules: " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Error loading custom rules: " + e.getMessage());
         }
     }
 
@@ -543,14 +556,14 @@ public class VastLibraryLoader {
 
             // 验证必需字段
             if (name == null || id == null || keywords.isEmpty() || pattern == null) {
-                vm.getDebugger().debug("Invalid custom rule: missing required fields in " + coFile);
+                vm.getDebugger().debug(LIBRARY, () -> "Invalid custom rule: missing required fields in " + coFile);
                 return null;
             }
 
             return new CustomRule(name, id, keywords, pattern, overlookSpaces, overlookChars);
 
         } catch (Exception e) {
-            vm.getDebugger().debug("Failed to parse custom rule file: " + coFile + " - " + e.getMessage());
+            vm.getDebugger().debug(LIBRARY, () -> "Failed to parse custom rule file: " + coFile + " - " + e.getMessage());
             return null;
         }
     }
@@ -562,10 +575,18 @@ public class VastLibraryLoader {
         return customSyntaxManager;
     }
 
+    /**
+     * 库类版本号：库被加载、重新加载或清理后改变
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
     /**
      * 清理所有加载的库
      */
     public void cleanup() {
+        generation++;
         loadedLibraries.clear();
         staticMethods.clear();
         methodToClass.clear();
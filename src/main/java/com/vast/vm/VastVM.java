@@ -1,19 +1,33 @@
 package com.vast.vm;
 
+import com.vast.Vast;
 import com.vast.ast.Program;
+import com.vast.ast.Statement;
 import com.vast.internal.Debugger;
 import com.vast.internal.Input;
 import com.vast.internal.SmartErrorSuggestor;
 import com.vast.internal.VastExceptions;
+import com.vast.parser.IncrementalParser;
 import com.vast.parser.Lexer;
+import com.vast.parser.MappedSourceReader;
 import com.vast.parser.Parser;
-import com.vast.parser.Token;
+import com.vast.parser.TokenBuffer;
 import com.vast.interpreter.Interpreter;
+import com.vast.optimizer.Optimizer;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
+import static com.vast.internal.Debugger.Category.LEXER;
+import static com.vast.internal.Debugger.Category.OPTIMIZER;
+import static com.vast.internal.Debugger.Category.PARSER;
+import static com.vast.internal.Debugger.Category.VM;
+
 public class VastVM {//Vast 虚拟机核心类
     // 内置类映射
     private static final Map<String, Class<?>> BUILTIN_CLASSES = new HashMap<>();
@@ -26,8 +40,30 @@ public class VastVM {//Vast 虚拟机核心类
     private final Map<String, Object> localVariables = new HashMap<>();
     private Object lastResult = null;
     private boolean debugMode = false;
+    private ExecutionMode executionMode =
+            ExecutionMode.fromOption(System.getProperty("vast.exec.mode"));// 执行模式，默认使用闭包执行层
+    // 热循环字节码编译层
+    public static final int DEFAULT_JIT_THRESHOLD = 1000;
+    private boolean jitEnabled = !"false".equalsIgnoreCase(System.getProperty("vast.jit"));
+    private int jitThreshold = Integer.getInteger("vast.jit.threshold", DEFAULT_JIT_THRESHOLD);
+    private String jitDumpDirectory = System.getProperty("vast.jit.dump");// 生成的类文件输出目录（调试用）
+    private boolean allocationFree = Boolean.getBoolean("vast.alloc.free");// 免分配求值模式：复用宿主调用的参数数组
+    // 流式执行：脚本文件边解析边执行
+    public static final long DEFAULT_STREAM_THRESHOLD = 64L << 20;
+    public static final int DEFAULT_STREAM_BATCH = 256;
+    private boolean streaming = Boolean.getBoolean("vast.stream");
+    private long streamThreshold = Long.getLong("vast.stream.threshold", DEFAULT_STREAM_THRESHOLD);// 超过此大小的文件总是流式执行
+    private int streamBatch = Integer.getInteger("vast.stream.batch", DEFAULT_STREAM_BATCH);// 每次优化并执行的顶层语句数
+    // 按源码缓存语法分析结果，反复执行同一段源码时跳过词法、语法分析和优化
+    public static final int DEFAULT_PROGRAM_CACHE_SIZE = 64;
+    private final ProgramCache programCache =
+            new ProgramCache(Integer.getInteger("vast.cache.size", DEFAULT_PROGRAM_CACHE_SIZE));
+    // 反复执行编辑中的同一个脚本时（shell 的 load/reload、watch 模式）只重新分析修改过的顶层语句
+    private final IncrementalParser incrementalParser = new IncrementalParser();
+    private long allocatedBytes = 0;// 脚本执行期间本线程累计分配的字节数
     private final Debugger debugger;
     private Interpreter interpreter;
+    private final Optimizer optimizer;// 语法分析与解释执行之间的 AST 优化管线
 
     private final SmartErrorSuggestor errorSuggestor;// 智能错误建议器
 
@@ -41,6 +77,7 @@ public class VastVM {//Vast 虚拟机核心类
         BUILTIN_CLASSES.put("Time", com.vast.internal.TimeUtil.class);
         BUILTIN_CLASSES.put("Ops", com.vast.internal.Ops.class);
         BUILTIN_CLASSES.put("DataType", com.vast.internal.DataType.class);
+        BUILTIN_CLASSES.put("Array", com.vast.internal.ArrayUtil.class);
         BUILTIN_CLASSES.put("EnhancedInput", Input.class);
     }
 
@@ -51,13 +88,15 @@ public class VastVM {//Vast 虚拟机核心类
         }
 
         this.debugger = Debugger.getInstance();
-        this.interpreter = new Interpreter(this);
         this.errorSuggestor = new SmartErrorSuggestor(this);
         this.libraryLoader = VastLibraryLoader.getInstance();
+        this.optimizer = new Optimizer(this);
 
-        // 初始化全局变量
+        // 初始化全局变量（需要在解释器之前，解释器会把它们绑定到固定槽位）
         initializeGlobalVariables();
 
+        this.interpreter = new Interpreter(this);
+
         // 扫描并加载可用库
         libraryLoader.scanAndLoadAvailableLibraries(this);
     }
@@ -108,7 +147,7 @@ public class VastVM {//Vast 虚拟机核心类
                     String libraryName = file.getName().replaceFirst("[.][^.]+$", "");
                     libraryLoader.loadLibraryFromFile(file, libraryName, this);
                 } catch (Exception e) {
-                    debugger.debug("Failed to auto-load library: " + file.getName() + " - " + e.getMessage());
+                    debugger.debug(VM, () -> "Failed to auto-load library: " + file.getName() + " - " + e.getMessage());
                 }
             }
         }
@@ -142,6 +181,96 @@ public class VastVM {//Vast 虚拟机核心类
         return debugger;
     }
 
+    /**
+     * 设置执行模式（闭包执行层或树遍历解释器）
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode != null ? executionMode : ExecutionMode.CLOSURE;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * 启用或关闭热循环字节码编译层（仅在闭包执行模式下生效）
+     */
+    public void setJitEnabled(boolean jitEnabled) {
+        this.jitEnabled = jitEnabled;
+    }
+
+    public boolean isJitEnabled() {
+        return jitEnabled;
+    }
+
+    /**
+     * 设置循环体被编译前需要执行的迭代次数
+     */
+    public void setJitThreshold(int jitThreshold) {
+        this.jitThreshold = Math.max(1, jitThreshold);
+    }
+
+    public int getJitThreshold() {
+        return jitThreshold;
+    }
+
+    /**
+     * 设置生成的类文件输出目录，为 null 时不输出
+     */
+    public void setJitDumpDirectory(String jitDumpDirectory) {
+        this.jitDumpDirectory = jitDumpDirectory;
+    }
+
+    public String getJitDumpDirectory() {
+        return jitDumpDirectory;
+    }
+
+    /**
+     * 启用或关闭免分配求值模式
+     * 开启后宿主方法调用的参数数组（包括 Object 类型的可变参数数组）在调用之间复用，
+     * 宿主方法不能在返回后继续持有可变参数数组
+     */
+    public void setAllocationFree(boolean allocationFree) {
+        this.allocationFree = allocationFree;
+    }
+
+    public boolean isAllocationFree() {
+        return allocationFree;
+    }
+
+    /**
+     * 启用或关闭流式执行（见 executeStream），关闭时只有超过阈值的文件流式执行
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * 设置自动流式执行的文件大小阈值（字节）
+     */
+    public void setStreamThreshold(long streamThreshold) {
+        this.streamThreshold = Math.max(0, streamThreshold);
+    }
+
+    public long getStreamThreshold() {
+        return streamThreshold;
+    }
+
+    /**
+     * 获取脚本执行期间累计分配的字节数，JVM 不支持分配计数时返回 -1
+     */
+    public long getAllocatedBytes() {
+        return AllocationCounter.isSupported() ? allocatedBytes : -1;
+    }
+
+    public Optimizer getOptimizer() {
+        return optimizer;
+    }
+
     public SmartErrorSuggestor getErrorSuggestor() {
         return errorSuggestor;
     }
@@ -161,6 +290,10 @@ public class VastVM {//Vast 虚拟机核心类
         return localVariables;
     }
 
+    public Interpreter getInterpreter() {
+        return interpreter;
+    }
+
     /**
      * 执行源代码
      */
@@ -172,48 +305,233 @@ public class VastVM {//Vast 虚拟机核心类
      * 执行源代码并返回结果
      */
     public Object executeWithResult(List<String> sourceLines) throws Exception {
-        String source = String.join("\n", sourceLines);
+        return executeSource(String.join("\n", sourceLines));
+    }
 
-        if (debugger.isShowStackTrace()) {
-            debugger.debug("Source code:\n" + source);
+    /**
+     * 执行完整的源代码并返回结果
+     */
+    public Object executeSource(String source) throws Exception {
+        if (debugger.isDebugEnabled(VM)) {
+            debugger.debug(VM, "Source code:\n" + source);
         }
 
         try {
-            // 词法分析
-            Lexer lexer = new Lexer(source);
-            List<Token> tokens = lexer.scanTokens();
+            interpret(parseCached(source));
 
-            if (debugger.isShowStackTrace()) {
-                debugger.debug("Tokens:");
-                tokens.forEach(token -> debugger.debug("  " + token));
-            }
+            // 获取最后结果
+            this.lastResult = interpreter.getLastResult();
+            return getLastResult();
+
+        } catch (Exception e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * 执行编辑后的脚本并返回结果：与 executeSource 相同，但只重新词法分析和语法分析与上一次传入的源码相比
+     * 修改过的顶层语句，没有修改的语句复用上一次的 Statement 对象
+     */
+    public Object executeIncremental(String source) throws Exception {
+        try {
+            Program program = incrementalParser.parse(source);
+            debugger.debug(VM, () -> "Incremental parse: " + incrementalParser);
+            interpret(prepare(program));
+
+            this.lastResult = interpreter.getLastResult();
+            return getLastResult();
+
+        } catch (Exception e) {
+            throw failure(e);
+        }
+    }
 
-            // 语法分析
-            Parser parser = new Parser(tokens);
-            Program program = parser.parseProgram();
+    /**
+     * 执行脚本文件并返回结果：开启了流式执行或文件超过阈值时边解析边执行，否则读入整个文件后执行。
+     * 预编译脚本（.vastc）直接加载其中的程序
+     */
+    public Object executeFile(Path path) throws Exception {
+        if (ScriptImage.isImage(path)) {
+            return executeImage(path);
+        }
+        if (streaming || Files.size(path) >= streamThreshold) {
+            return executeStream(new MappedSourceReader(path));
+        }
+        return executeSource(Files.readString(path));
+    }
 
-            if (debugger.isShowStackTrace()) {
-                debugger.debug("AST:\n" + program);
+    /**
+     * 执行预编译脚本。文件由其他版本的 VM 或在不同的优化开关下生成、源文件在编译后被修改，
+     * 或者文件已损坏时，改为执行同目录下的源文件
+     */
+    private Object executeImage(Path path) throws Exception {
+        Program program = null;
+        String name = path.getFileName().toString();
+        Path source = path.resolveSibling(name.substring(0, name.length() - ScriptImage.EXTENSION.length()) + ".vast");
+        String reason;
+        try {
+            ScriptImage image = ScriptImage.open(path);
+            source = path.resolveSibling(image.getSourceName());
+            reason = image.mismatch(Vast.getVersion(), optimizer.getConfiguration(), source);
+            if (reason == null) {
+                program = image.readProgram();
             }
+        } catch (IOException e) {
+            reason = e.getMessage();
+        }
+        if (program == null) {
+            if (!Files.isRegularFile(source)) {
+                throw new IOException("Cannot load " + path + " (" + reason + ") and source " + source + " is missing");
+            }
+            debugger.warning("Ignoring " + path.getFileName() + ": " + reason + ", running " + source.getFileName());
+            return executeFile(source);
+        }
+        debugger.debug(VM, "Loaded compiled program " + path);
 
-            // 使用持久化的解释器执行
-            interpreter.interpret(program);
+        try {
+            interpret(program);
+
+            this.lastResult = interpreter.getLastResult();
+            return getLastResult();
+
+        } catch (Exception e) {
+            throw failure(e);
+        }
+    }
+
+    /**
+     * 把脚本文件编译为预编译脚本：语法分析并优化后写入 target
+     */
+    public void compileFile(Path source, Path target) throws Exception {
+        Program program;
+        try (Reader reader = new MappedSourceReader(source)) {
+            program = prepare(new Parser(new Lexer(reader).tokenStream()).parseProgram());
+        } catch (Exception e) {
+            throw failure(e);
+        }
+        ScriptImage.write(target, program, source, Vast.getVersion(), optimizer.getConfiguration());
+        debugger.debug(VM, "Compiled " + source + " to " + target);
+    }
+
+    /**
+     * 边解析边执行：每解析出一批顶层语句就优化并执行，已解析的词法单元和源码字符随即释放，
+     * 内存占用与脚本大小无关。
+     * 标识符绑定和类型检查按批进行，后面语句中的错误在前面的语句执行之后才报告
+     */
+    public Object executeStream(Reader source) throws Exception {
+        try (Reader reader = source) {
+            debugger.debug(VM, "Streaming source");
+            Parser parser = new Parser(new Lexer(reader).tokenStream());
+            List<Statement> batch = new ArrayList<>();
+            Statement statement;
+            while ((statement = parser.parseNextStatement()) != null) {
+                batch.add(statement);
+                if (batch.size() >= streamBatch) {
+                    interpret(prepare(new Program(batch)));
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                interpret(prepare(new Program(batch)));
+            }
 
-            // 获取最后结果
             this.lastResult = interpreter.getLastResult();
             return getLastResult();
 
-        } catch (VastExceptions.VastRuntimeException e) {
-            debugger.error(e.getUserFriendlyMessage(), e);
-            throw e;
         } catch (Exception e) {
-            VastExceptions.UnknownVastException vastException =
-                    new VastExceptions.UnknownVastException("Unexpected error during execution", e);
-            debugger.error(vastException.getUserFriendlyMessage(), e);
-            throw vastException;
+            throw failure(e);
         }
     }
 
+    /**
+     * 使用持久化的解释器执行
+     */
+    private void interpret(Program program) {
+        long allocatedBefore = AllocationCounter.currentThreadAllocatedBytes();
+        try {
+            interpreter.interpret(program);
+        } finally {
+            if (allocatedBefore >= 0) {
+                allocatedBytes += AllocationCounter.currentThreadAllocatedBytes() - allocatedBefore;
+            }
+        }
+    }
+
+    private RuntimeException failure(Exception e) {
+        if (e instanceof VastExceptions.VastRuntimeException) {
+            VastExceptions.VastRuntimeException error = (VastExceptions.VastRuntimeException) e;
+            debugger.error(error.getUserFriendlyMessage(), e);
+            return error;
+        }
+        VastExceptions.UnknownVastException vastException =
+                new VastExceptions.UnknownVastException("Unexpected error during execution", e);
+        debugger.error(vastException.getUserFriendlyMessage(), e);
+        return vastException;
+    }
+
+    /**
+     * 与 parse 相同，但先查找语法分析结果缓存
+     */
+    private Program parseCached(String source) {
+        if (!programCache.accepts(source)) {
+            return parse(source);
+        }
+        programCache.validate(interpreter.getImportedClasses(), libraryLoader.getGeneration(),
+                getCustomSyntaxManager().getVersion(), optimizer.getConfiguration());
+        ProgramCache.Key key = ProgramCache.key(source);
+        Program program = programCache.get(key);
+        if (program == null) {
+            program = parse(source);
+            programCache.put(key, program);
+        } else {
+            debugger.debug(VM, "Program cache hit");
+        }
+        return program;
+    }
+
+    /**
+     * 词法分析、语法分析并运行 AST 优化管线
+     */
+    private Program parse(String source) {
+        // 词法分析
+        Lexer lexer = new Lexer(source);
+        TokenBuffer tokens = lexer.scanTokens();
+
+        if (debugger.isDebugEnabled(LEXER)) {
+            debugger.debug(LEXER, "Tokens:");
+            for (int i = 0; i < tokens.size(); i++) {
+                debugger.debug(LEXER, "  " + tokens.token(i));
+            }
+        }
+
+        // 语法分析
+        Parser parser = new Parser(tokens);
+        return prepare(parser.parseProgram());
+    }
+
+    /**
+     * 运行 AST 优化管线
+     */
+    private Program prepare(Program program) {
+        if (debugger.isDebugEnabled(PARSER)) {
+            debugger.debug(PARSER, "AST:\n" + program);
+        }
+
+        // AST 优化
+        Program optimized = optimizer.optimize(program);
+        if (optimized != program && debugger.isDebugEnabled(OPTIMIZER)) {
+            debugger.debug(OPTIMIZER, "Optimized AST:\n" + optimized);
+        }
+        return optimized;
+    }
+
+    /**
+     * 把源代码编译为寄存器字节码，返回反汇编文本（不执行）
+     */
+    public String disassemble(List<String> sourceLines) {
+        return interpreter.disassemble(parse(String.join("\n", sourceLines)));
+    }
+
     /**
      * 初始化全局变量
      */
@@ -237,12 +555,11 @@ public class VastVM {//Vast 虚拟机核心类
      * 重置 VM 状态（用于 shell 中的 reset 命令）
      */
     public void reset() {
-        // 创建新的解释器（重置所有状态）
-        this.interpreter = new Interpreter(this);
-
         // 重置其他状态
         importedClasses.clear();
         lastResult = null;
+        allocatedBytes = 0;
+        programCache.clear();// 增量语法分析器只保存未优化的语句，与 VM 状态无关，保留
 
         // 重新导入内置类
         for (Map.Entry<String, Class<?>> entry : BUILTIN_CLASSES.entrySet()) {
@@ -252,6 +569,9 @@ public class VastVM {//Vast 虚拟机核心类
         // 重新初始化全局变量
         initializeGlobalVariables();
 
+        // 创建新的解释器（重置所有状态，包括变量帧）
+        this.interpreter = new Interpreter(this);
+
         // 重新扫描和加载库
         if (libraryLoader != null) {
             libraryLoader.cleanup(); // 先清理已加载的库
@@ -262,7 +582,7 @@ public class VastVM {//Vast 虚拟机核心类
 
         // 如果有高级特性，显示相关信息
         if (hasAdvancedFeatures()) {
-            debugger.debug("Advanced features loaded: " +
+            debugger.debug(VM, () -> "Advanced features loaded: " +
                     libraryLoader.getCustomSyntaxManager().getAllRules().size() + " custom rules");
         }
     }
@@ -271,6 +591,10 @@ public class VastVM {//Vast 虚拟机核心类
         return Collections.unmodifiableMap(BUILTIN_CLASSES);
     }
 
+    public static Map<String, Object> getGlobalVariables() {
+        return Collections.unmodifiableMap(GLOBAL_VARS);
+    }
+
     /**
      * 获取 VM 状态信息（用于调试）
      */
@@ -278,8 +602,24 @@ public class VastVM {//Vast 虚拟机核心类
         StringBuilder info = new StringBuilder();
         info.append("VastVM Status:\n");
         info.append("  Debug Mode: ").append(debugMode).append("\n");
+        info.append("  Execution Mode: ").append(executionMode.getOptionName()).append("\n");
         info.append("  Imported Classes: ").append(importedClasses.size()).append("\n");
         info.append("  Local Variables: ").append(localVariables.size()).append("\n");
+        info.append("  Variable Slots: ").append(interpreter.getFrame().size()).append("\n");
+        info.append("  JIT: ").append(jitEnabled ? "enabled (threshold " + jitThreshold + ")" : "disabled")
+                .append(", compiled loops: ").append(interpreter.getCompiledLoopCount())
+                .append(", deoptimizations: ").append(interpreter.getDeoptimizationCount()).append("\n");
+        info.append("  Inline Caches: ").append(interpreter.getInlineCacheHits()).append(" hits, ")
+                .append(interpreter.getInlineCacheMisses()).append(" misses\n");
+        info.append("  Optimizer: ").append(optimizer.isEnabled() ? "enabled" : "disabled")
+                .append(", rewritten nodes: ").append(optimizer.getRewriteCounts()).append("\n");
+        info.append("  Allocation-Free: ").append(allocationFree).append("\n");
+        info.append("  Program Cache: ").append(programCache).append("\n");
+        info.append("  Incremental Parser: ").append(incrementalParser).append("\n");
+        info.append("  Streaming: ").append(streaming ? "enabled" : "files over " + streamThreshold + " bytes")
+                .append(" (batch ").append(streamBatch).append(")\n");
+        info.append("  Allocated Bytes: ")
+                .append(AllocationCounter.isSupported() ? String.valueOf(allocatedBytes) : "unavailable").append("\n");
         info.append("  Last Result: ").append(lastResult).append("\n");
 
         if (debugMode) {
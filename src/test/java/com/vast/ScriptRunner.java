@@ -0,0 +1,86 @@
+package com.vast;
+
+import com.vast.vm.ExecutionMode;
+import com.vast.vm.VastVM;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 测试用的脚本执行工具：执行脚本并返回标准输出的各行
+ * Sys 在类初始化时包装当时的 System.out，所以在执行任何脚本之前把 System.out 换成可以临时改写目标的输出流
+ */
+public final class ScriptRunner {
+    private static final PrintStream ORIGINAL = System.out;
+    private static ByteArrayOutputStream capture;
+
+    static {
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            private OutputStream target() {
+                return capture != null ? capture : ORIGINAL;
+            }
+        }, true, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 脚本的执行过程
+     */
+    public interface Script {
+        void run() throws Exception;
+    }
+
+    private ScriptRunner() {
+    }
+
+    /**
+     * 执行并返回期间输出的各行
+     */
+    public static synchronized List<String> capture(Script script) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.out.flush();
+        capture = buffer;
+        try {
+            script.run();
+        } finally {
+            System.out.flush();
+            capture = null;
+        }
+        return buffer.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    /**
+     * 以指定的执行模式执行源码
+     */
+    public static List<String> run(String source, ExecutionMode mode) throws Exception {
+        return run(source, Vast.builder().executionMode(mode));
+    }
+
+    public static List<String> run(String source, Vast.Builder builder) throws Exception {
+        return run(builder.build(), source);
+    }
+
+    public static List<String> run(VastVM vm, String source) throws Exception {
+        return capture(() -> vm.executeSource(source));
+    }
+
+    /**
+     * 源码由多行组成时的简写
+     */
+    public static String lines(String... lines) {
+        return String.join("\n", lines) + "\n";
+    }
+}
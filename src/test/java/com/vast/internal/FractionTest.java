@@ -0,0 +1,57 @@
+package com.vast.internal;
+
+import com.vast.ScriptRunner;
+import com.vast.vm.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import static com.vast.ScriptRunner.lines;
+import static org.junit.jupiter.api.Assertions.*;
+
+class FractionTest {
+
+    @Test
+    void negatingIntMinValueDoesNotOverflow() {
+        Fraction fraction = Fraction.of(Integer.MIN_VALUE, -1);
+        assertEquals(2147483648L, fraction.getNumerator());
+        assertEquals(1, fraction.getDenominator());
+        assertEquals("2147483648", fraction.toString());
+    }
+
+    @Test
+    void intMinValueOverNegativeDenominator() {
+        Fraction fraction = Fraction.of(Integer.MIN_VALUE, -3);
+        assertEquals(2147483648L, fraction.getNumerator());
+        assertEquals(3, fraction.getDenominator());
+        assertEquals(Fraction.of(BigInteger.valueOf(Integer.MIN_VALUE), BigInteger.valueOf(-3)), fraction);
+    }
+
+    @Test
+    void longMinValueIsPromotedToBigInteger() {
+        Fraction fraction = Fraction.of(Long.MIN_VALUE, -1);
+        assertEquals(BigInteger.valueOf(Long.MIN_VALUE).negate(), fraction.getBigNumerator());
+        assertEquals(BigInteger.ONE, fraction.getBigDenominator());
+    }
+
+    @Test
+    void quotientWithMinusOneUsesLongDivision() {
+        assertEquals(2147483648L, Fraction.quotient(Integer.MIN_VALUE, -1));
+        assertEquals(-7, Fraction.quotient(7, -1));
+        assertThrows(ArithmeticException.class, () -> Fraction.quotient(Long.MIN_VALUE, -1));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void scriptFractionOfIntMinValue(ExecutionMode mode) throws Exception {
+        String source = lines(
+                "imp Sys",
+                "a = -2147483647 - 1",
+                "Sys.printl(Sys.createFraction(a, -1))",
+                "Sys.printl(Sys.createFraction(a, -3))");
+        assertEquals(List.of("2147483648", "2147483648/3"), ScriptRunner.run(source, mode));
+    }
+}
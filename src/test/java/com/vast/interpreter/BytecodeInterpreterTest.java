@@ -0,0 +1,25 @@
+package com.vast.interpreter;
+
+import com.vast.ScriptRunner;
+import com.vast.vm.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+
+import static com.vast.interpreter.TierScripts.treeWalker;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 寄存器字节码执行层与树遍历解释器的输出一致
+ */
+class BytecodeInterpreterTest {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("com.vast.interpreter.TierScripts#scripts")
+    void bytecodeMatchesTheTreeWalker(String name, String source) throws Exception {
+        List<String> expected = treeWalker(source);
+        assertFalse(expected.isEmpty(), name + " produced no output");
+        assertEquals(expected, ScriptRunner.run(source, ExecutionMode.BYTECODE), name);
+    }
+}
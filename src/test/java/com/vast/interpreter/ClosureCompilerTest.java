@@ -0,0 +1,69 @@
+package com.vast.interpreter;
+
+import com.vast.ScriptRunner;
+import com.vast.Vast;
+import com.vast.vm.ExecutionMode;
+import com.vast.vm.VastVM;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.vast.ScriptRunner.lines;
+import static com.vast.interpreter.TierScripts.treeWalker;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 闭包执行层与树遍历解释器的输出一致
+ */
+class ClosureCompilerTest {
+    private static final Map<String, Supplier<VastVM>> MODES = new LinkedHashMap<>();
+
+    static {
+        MODES.put("closure", () -> Vast.builder().executionMode(ExecutionMode.CLOSURE).jit(false).build());
+        MODES.put("closure+allocation-free", () -> Vast.builder().executionMode(ExecutionMode.CLOSURE)
+                .allocationFree(true).build());
+        MODES.put("closure, no optimizer", () -> Vast.builder().executionMode(ExecutionMode.CLOSURE)
+                .optimize(false).build());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("com.vast.interpreter.TierScripts#scripts")
+    void closureModesMatchTheTreeWalker(String name, String source) throws Exception {
+        List<String> expected = treeWalker(source);
+        assertFalse(expected.isEmpty(), name + " produced no output");
+        for (Map.Entry<String, Supplier<VastVM>> mode : MODES.entrySet()) {
+            assertEquals(expected, ScriptRunner.run(mode.getValue().get(), source), name + " in " + mode.getKey());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void typedAssignmentMismatchIsReportedAtRuntime(ExecutionMode mode) {
+        // v 的类型在循环中改变，静态类型推断无法证明兼容，由运行时检查报告
+        String assignment = lines(
+                "imp Sys",
+                "int x = 1",
+                "v = 2",
+                "loop(2):",
+                "    x = v",
+                "    v = \"a\"");
+        String declaration = lines(
+                "imp Sys",
+                "v = 2",
+                "loop(2):",
+                "    int y = v",
+                "    v = \"a\"");
+        assertMismatch(mode, assignment, "line 5, column 5: Type mismatch: cannot assign string to variable 'x' of type int");
+        assertMismatch(mode, declaration, "line 4, column 5: Type mismatch: cannot assign string to variable 'y' of type int");
+    }
+
+    private static void assertMismatch(ExecutionMode mode, String source, String expected) {
+        Exception e = assertThrows(Exception.class, () -> ScriptRunner.run(source, mode));
+        assertTrue(e.getMessage().contains(expected), e.getMessage());
+    }
+}
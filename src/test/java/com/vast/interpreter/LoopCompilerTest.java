@@ -0,0 +1,103 @@
+package com.vast.interpreter;
+
+import com.vast.ScriptRunner;
+import com.vast.Vast;
+import com.vast.vm.ExecutionMode;
+import com.vast.vm.VastVM;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+
+import static com.vast.ScriptRunner.lines;
+import static com.vast.interpreter.TierScripts.treeWalker;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 热循环编译为 JVM 字节码后与树遍历解释器的输出一致，溢出时回退到闭包节点
+ */
+class LoopCompilerTest {
+    // 热循环编译阈值调低，测试脚本中的短循环也会被编译
+    private static final int JIT_THRESHOLD = 3;
+
+    private static VastVM jitVM(ExecutionMode mode) {
+        VastVM vm = Vast.builder().executionMode(mode).jit(true).build();
+        vm.setJitThreshold(JIT_THRESHOLD);
+        return vm;
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("com.vast.interpreter.TierScripts#scripts")
+    void compiledLoopsMatchTheTreeWalker(String name, String source) throws Exception {
+        List<String> expected = treeWalker(source);
+        assertFalse(expected.isEmpty(), name + " produced no output");
+        assertEquals(expected, ScriptRunner.run(jitVM(ExecutionMode.CLOSURE), source), name);
+    }
+
+    @Test
+    void hotLoopsAreCompiled() throws Exception {
+        String source = lines(
+                "imp Sys",
+                "i = 0",
+                "acc = 0.0",
+                "loop(200):",
+                "    i = i + 1",
+                "    acc = acc + 0.5",
+                "Sys.printl(i)",
+                "Sys.printl(acc)");
+        VastVM vm = jitVM(ExecutionMode.CLOSURE);
+        assertEquals(treeWalker(source), ScriptRunner.run(vm, source));
+        assertTrue(vm.getInterpreter().getCompiledLoopCount() > 0);
+        assertEquals(0, vm.getInterpreter().getDeoptimizationCount());
+    }
+
+    @Test
+    void lazyArgumentsAreNotEvaluatedInCompiledLoops() throws Exception {
+        String source = lines(
+                "imp Sys",
+                "i = 0",
+                "loop(200):",
+                "    Sys.printlIf(i == 199, \"hot \" + i + Sys.printl(\"evaluated\"))",
+                "    ok = i > 1000 and Sys.printl(\"never\")",
+                "    i = i + 1");
+        VastVM vm = jitVM(ExecutionMode.CLOSURE);
+        List<String> output = ScriptRunner.run(vm, source);
+        assertEquals(treeWalker(source), output);
+        assertEquals(List.of("evaluated", "hot 199null"), output);
+        assertTrue(vm.getInterpreter().getCompiledLoopCount() > 0);
+    }
+
+    @Test
+    void compiledLoopDeoptimizesOnIntegerOverflow() throws Exception {
+        // 第 20 次迭代时 int 乘法溢出，编译后的代码回到闭包节点，结果提升为 long 再到 large
+        String source = lines(
+                "imp Sys",
+                "x = 1",
+                "loop(100):",
+                "    x = x * 3",
+                "Sys.printl(x)");
+        VastVM vm = jitVM(ExecutionMode.CLOSURE);
+        List<String> output = ScriptRunner.run(vm, source);
+        assertEquals(treeWalker(source), output);
+        assertEquals(List.of("515377520732011331036461129765621272702107522001"), output);
+        assertTrue(vm.getInterpreter().getCompiledLoopCount() > 0);
+        assertTrue(vm.getInterpreter().getDeoptimizationCount() > 0);
+    }
+
+    @Test
+    void compiledForLoopDeoptimizesOnIntegerOverflow() throws Exception {
+        String source = lines(
+                "imp Sys",
+                "y = 1",
+                "n = 2147483000",
+                "for i in 0..40:",
+                "    y = y * 7 + i",
+                "    n = n + 100",
+                "Sys.printl(y)",
+                "Sys.printl(n)");
+        VastVM vm = jitVM(ExecutionMode.CLOSURE);
+        assertEquals(treeWalker(source), ScriptRunner.run(vm, source));
+        assertTrue(vm.getInterpreter().getDeoptimizationCount() > 0);
+    }
+}
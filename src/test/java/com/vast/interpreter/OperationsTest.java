@@ -0,0 +1,28 @@
+package com.vast.interpreter;
+
+import com.vast.internal.VastExceptions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OperationsTest {
+
+    @Test
+    void incrementByConcatenationPromotesOnOverflow() {
+        assertEquals(2147483648L, Operations.numberConcatenation(Integer.MAX_VALUE, null));
+        assertEquals(2147483648L, Operations.numberConcatenation("", Integer.MAX_VALUE));
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE),
+                Operations.numberConcatenation(Long.MAX_VALUE, ""));
+        assertEquals(42, Operations.numberConcatenation(41, null));
+        assertEquals(2.5, Operations.numberConcatenation(null, 1.5));
+        assertThrows(VastExceptions.MathError.class, () -> Operations.numberConcatenation("x", null));
+    }
+
+    @Test
+    void concatenationJoinsDigits() {
+        assertEquals(1234, Operations.numberConcatenation(12, 34));
+        assertEquals(12345678901L, Operations.numberConcatenation(123456, 78901));
+    }
+}
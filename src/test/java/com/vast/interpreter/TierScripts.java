@@ -0,0 +1,173 @@
+package com.vast.interpreter;
+
+import com.vast.ScriptRunner;
+import com.vast.Vast;
+import com.vast.vm.ExecutionMode;
+import org.junit.jupiter.params.provider.Arguments;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.vast.ScriptRunner.lines;
+
+/**
+ * 各执行层共用的对照脚本，以树遍历解释器（ast 模式）的输出为准
+ */
+final class TierScripts {
+
+    private TierScripts() {
+    }
+
+    static List<String> treeWalker(String source) throws Exception {
+        return ScriptRunner.run(source, Vast.builder().executionMode(ExecutionMode.TREE_WALKER).jit(false));
+    }
+
+    static Stream<Arguments> scripts() {
+        return Stream.of(
+                Arguments.of("arithmetic", lines(
+                        "imp Sys",
+                        "a = 10",
+                        "int b = 20",
+                        "c = a + b * 2 - 7 // 2",
+                        "Sys.printl(c)",
+                        "Sys.printl(7 % 3)",
+                        "Sys.printl(2 ** 10)",
+                        "double d = 3",
+                        "Sys.printl(d / 2)",
+                        "Sys.printl(a > b)",
+                        "Sys.printl(not true)",
+                        "x = 1",
+                        "x++",
+                        "x += 5",
+                        "Sys.printl(x)",
+                        "swap(a, b)",
+                        "Sys.printl(a)",
+                        "Sys.printl(b)",
+                        "string t = \"42\"",
+                        "n = (int) t",
+                        "Sys.printl(n + 1)")),
+                Arguments.of("integer tower", lines(
+                        "imp Sys",
+                        "x = 2147483000",
+                        "y = 2147483000",
+                        "w = -2147483000",
+                        "loop(1000):",
+                        "    x = x + 1",
+                        "    y++",
+                        "    w = w - 1",
+                        "Sys.printl(x)",
+                        "Sys.printl(y)",
+                        "Sys.printl(w)",
+                        "m = 1",
+                        "loop(70):",
+                        "    m = m * 3",
+                        "Sys.printl(m)",
+                        "Sys.printl(m // 7 % 1000)",
+                        "Sys.printl(2 ** 100 - 2 ** 99)")),
+                Arguments.of("fractions", lines(
+                        "imp Sys",
+                        "a = $(1/3)",
+                        "b = $(1/4)",
+                        "Sys.printl((a + b))",
+                        "Sys.printl((a - b))",
+                        "Sys.printl((a * b))",
+                        "Sys.printl((a / b))",
+                        "Sys.printl((a > b))",
+                        "p = $$(22/7)",
+                        "Sys.printl(p)",
+                        "h = $$(0)",
+                        "i = 0",
+                        "loop(40):",
+                        "    i += 1",
+                        "    h = h + $(1) / i",
+                        "Sys.printl(h)",
+                        "s = $(3/8)",
+                        "s++",
+                        "Sys.printl(s)",
+                        "m = $(46340)",
+                        "Sys.printl((m * m * m))")),
+                Arguments.of("strings", lines(
+                        "imp Sys",
+                        "s = \"x\"",
+                        "loop(50):",
+                        "    s = s + \"y\"",
+                        "Sys.printl(s)",
+                        "Sys.printl(\"ab\" * 3)",
+                        "Sys.printl(\"sum {0} and {1}\", 1, 2)")),
+                Arguments.of("loops", lines(
+                        "imp Sys",
+                        "total = 0",
+                        "for i in 0..100:",
+                        "    total = total + i",
+                        "Sys.printl(total)",
+                        "Sys.printl(i)",
+                        "x = 0",
+                        "while(x < 50):",
+                        "    x = x + 1",
+                        "Sys.printl(x)",
+                        "acc = 0",
+                        "for a in 0..30:",
+                        "    for b in 0..a:",
+                        "        acc = acc + b",
+                        "Sys.printl(acc)",
+                        "d = 0.0",
+                        "while(d < 10.5):",
+                        "    d = d + 0.25",
+                        "Sys.printl(d)",
+                        "k = 0",
+                        "loop(20):",
+                        "    loop(3):",
+                        "        k++",
+                        "Sys.printl(k)")),
+                Arguments.of("decimals", lines(
+                        "imp Sys",
+                        "decimal p = 19.99",
+                        "Sys.printl(p)",
+                        "decimal q = 0.1",
+                        "q = q + 0.2",
+                        "Sys.printl(q == 0.3)",
+                        "Sys.printl(p * 3)",
+                        "decimal third = 1",
+                        "third = third / 3",
+                        "Sys.printl(third)",
+                        "decimal sum = 0",
+                        "loop(100):",
+                        "    sum = sum + 0.01",
+                        "Sys.printl(sum)")),
+                Arguments.of("short-circuit", lines(
+                        "imp Sys",
+                        "n = 0",
+                        "loop(5):",
+                        "    ok = n > 2 and Sys.printl(\"right of and\")",
+                        "    ok2 = n > 2 or Sys.printl(\"right of or\")",
+                        "    Sys.printl(ok)",
+                        "    Sys.printl(ok2)",
+                        "    n = n + 1",
+                        "x = false and (1 / 0)",
+                        "Sys.printl(x)",
+                        "y = true or (1 / 0)",
+                        "Sys.printl(y)",
+                        "Sys.printl(1 and \"a\")",
+                        "Sys.printl(0 or \"\")",
+                        "t = 0",
+                        "i = 0",
+                        "while(i < 100 and t >= 0):",
+                        "    b = i > 50 and i % 2 == 0",
+                        "    loop(b):",
+                        "        t = t + 1",
+                        "    i = i + 1",
+                        "Sys.printl(t)")),
+                Arguments.of("lazy arguments", lines(
+                        "imp Sys",
+                        "n = 0",
+                        "loop(3):",
+                        "    Sys.printlIf(n == 1, \"n is \" + n + Sys.printl(\"evaluated\"))",
+                        "    printlIf(n == 2, n * 10)",
+                        "    n = n + 1",
+                        "Sys.check(n == 3, Sys.printl(\"never\"))",
+                        "k = 0",
+                        "loop(5):",
+                        "    Sys.printlIf(false, k = k + 1)",
+                        "Sys.printl(k)")));
+    }
+}
@@ -0,0 +1,51 @@
+package com.vast.optimizer;
+
+import com.vast.ScriptRunner;
+import com.vast.vm.ExecutionMode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+
+import static com.vast.ScriptRunner.lines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConstantFolderTest {
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void unreachableStringRepetitionIsNotEvaluatedWhenPreparing(ExecutionMode mode) throws Exception {
+        String source = lines(
+                "imp Sys",
+                "Sys.printl(\"start\")",
+                "loop(0):",
+                "    s = \"ab\" * 2000000000",
+                "Sys.printl(\"end\")");
+        assertEquals(List.of("start", "end"), ScriptRunner.run(source, mode));
+    }
+
+    @Test
+    void unreachableLargePowerIsNotEvaluatedWhenPreparing() throws Exception {
+        String source = lines(
+                "imp Sys",
+                "Sys.printl(\"start\")",
+                "loop(0):",
+                "    n = 3 ** 10000000",
+                "Sys.printl(\"end\")");
+        assertEquals(List.of("start", "end"), ScriptRunner.run(source, ExecutionMode.CLOSURE));
+    }
+
+    @Test
+    void unfoldedOperationsGiveTheSameResultAtRuntime() throws Exception {
+        String source = lines(
+                "imp Sys",
+                "Sys.printl(\"ab\" * 3)",
+                "Sys.printl(2 ** 10)",
+                "Sys.printl(2 ** 100)",
+                "Sys.printl(1 + 2 * 3)");
+        List<String> expected = List.of("ababab", "1024", "1267650600228229401496703205376", "7");
+        assertEquals(expected, ScriptRunner.run(source, ExecutionMode.TREE_WALKER));
+        assertEquals(expected, ScriptRunner.run(source, ExecutionMode.CLOSURE));
+    }
+}
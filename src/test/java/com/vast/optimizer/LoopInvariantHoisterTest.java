@@ -0,0 +1,30 @@
+package com.vast.optimizer;
+
+import com.vast.ScriptRunner;
+import com.vast.Vast;
+import com.vast.vm.ExecutionMode;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.List;
+
+import static com.vast.ScriptRunner.lines;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LoopInvariantHoisterTest {
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void lazyArgumentsInCountedLoopsAreNotHoisted(ExecutionMode mode) throws Exception {
+        // 优化器剥离 loop(N) 的第一次迭代时，不能把 @Lazy 位置上的不变量改写为提前求值的临时变量
+        String source = lines(
+                "imp Sys",
+                "c = 0",
+                "loop(4):",
+                "    Sys.check(true, 5 // 0)",
+                "    Sys.printlIf(false, 5 // c)",
+                "Sys.printl(\"done\")");
+        assertEquals(List.of("done"), ScriptRunner.run(source, Vast.builder().executionMode(mode)));
+        assertEquals(List.of("done"), ScriptRunner.run(source, Vast.builder().executionMode(mode).optimize(false)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.vast.vm;
+
+import com.vast.ast.Program;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProgramCacheTest {
+
+    @Test
+    void equalSourcesHaveEqualKeys() {
+        String source = "a = 1\n".repeat(5000);
+        ProgramCache.Key key = ProgramCache.key(source);
+        assertEquals(key, ProgramCache.key(new String(source.toCharArray())));
+        assertEquals(key.hashCode(), ProgramCache.key(new String(source.toCharArray())).hashCode());
+        assertNotEquals(key, ProgramCache.key(source + " "));
+        assertNotEquals(key, ProgramCache.key(source.replaceFirst("1", "2")));
+    }
+
+    @Test
+    void unpairedSurrogatesAreDistinguished() {
+        assertNotEquals(ProgramCache.key("s = \"\uD800\""), ProgramCache.key("s = \"\uDC00\""));
+    }
+
+    @Test
+    void cachedProgramIsFoundByContent() {
+        ProgramCache cache = new ProgramCache(2);
+        Program program = new Program(List.of());
+        cache.put(ProgramCache.key("a = 1"), program);
+        assertSame(program, cache.get(ProgramCache.key(new String("a = 1".toCharArray()))));
+        assertNull(cache.get(ProgramCache.key("a = 2")));
+    }
+
+    @Test
+    void leastRecentlyUsedProgramIsEvicted() {
+        ProgramCache cache = new ProgramCache(2);
+        cache.put(ProgramCache.key("a"), new Program(List.of()));
+        cache.put(ProgramCache.key("b"), new Program(List.of()));
+        assertNotNull(cache.get(ProgramCache.key("a")));
+        cache.put(ProgramCache.key("c"), new Program(List.of()));
+        assertNotNull(cache.get(ProgramCache.key("a")));
+        assertNull(cache.get(ProgramCache.key("b")));
+        assertNotNull(cache.get(ProgramCache.key("c")));
+    }
+}
@@ -0,0 +1,164 @@
+package com.vast.vm;
+
+import com.vast.ScriptRunner;
+import com.vast.Vast;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static com.vast.ScriptRunner.lines;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScriptImageTest {
+    private static final String SCRIPT = lines(
+            "imp Sys",
+            "a = 10",
+            "int b = 20",
+            "Sys.printl(a + b * 2)",
+            "f = $(1/3) + $(1/6)",
+            "Sys.printl(f)",
+            "decimal d = 19.99",
+            "Sys.printl(d * 3)",
+            "s = \"x\"",
+            "loop(20):",
+            "    s = s + \"y\"",
+            "Sys.printl(s)",
+            "m = 1",
+            "for i in 0..80:",
+            "    m = m * 3",
+            "Sys.printl(m)",
+            "n = 0",
+            "while(n < 10 and true):",
+            "    n++",
+            "Sys.printl(n)",
+            "swap(a, b)",
+            "Sys.printl((double) a)",
+            "Sys.printl(not (a > b) or false)",
+            "Sys.printlIf(a > 0, \"lazy \" + a)");
+
+    @TempDir
+    Path directory;
+    private Path source;
+    private Path image;
+
+    @BeforeEach
+    void writeScript() throws IOException {
+        source = directory.resolve("script.vast");
+        image = directory.resolve("script" + ScriptImage.EXTENSION);
+        Files.writeString(source, SCRIPT);
+    }
+
+    private static List<String> runFile(Vast.Builder builder, Path path) throws Exception {
+        VastVM vm = builder.build();
+        return ScriptRunner.capture(() -> vm.executeFile(path));
+    }
+
+    private void compile() {
+        assertEquals(image.toString(), Vast.builder().compile(source.toString()));
+        assertTrue(Files.isRegularFile(image));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    void compiledScriptRunsLikeTheSource(ExecutionMode mode) throws Exception {
+        compile();
+        List<String> expected = runFile(Vast.builder().executionMode(mode), source);
+        assertEquals(expected, runFile(Vast.builder().executionMode(mode), image));
+        // 源文件不存在时同样可以执行
+        Files.delete(source);
+        assertEquals(expected, runFile(Vast.builder().executionMode(mode), image));
+    }
+
+    @Test
+    void decodedProgramEncodesToTheSameImage() throws Exception {
+        compile();
+        ScriptImage loaded = ScriptImage.open(image);
+        assertNull(loaded.mismatch(Vast.getVersion(), new VastVM().getOptimizer().getConfiguration(), source));
+        Path copy = directory.resolve("copy" + ScriptImage.EXTENSION);
+        ScriptImage.write(copy, loaded.readProgram(), source, Vast.getVersion(),
+                loaded.getOptimizerConfiguration());
+        assertArrayEquals(Files.readAllBytes(image), Files.readAllBytes(copy));
+    }
+
+    @Test
+    void changedSourceIsRunInsteadOfStaleImage() throws Exception {
+        compile();
+        Files.writeString(source, lines("imp Sys", "Sys.printl(\"edited\")"));
+        List<String> output = runFile(Vast.builder(), image);
+        assertEquals(2, output.size(), output.toString());
+        assertTrue(output.get(0).contains("has changed since it was compiled"), output.get(0));
+        assertEquals("edited", output.get(1));
+    }
+
+    @Test
+    void differentOptimizerSettingsFallBackToSource() throws Exception {
+        compile();
+        List<String> expected = runFile(Vast.builder().optimize(false), source);
+        List<String> output = runFile(Vast.builder().optimize(false), image);
+        assertTrue(output.get(0).contains("different optimizer settings"), output.get(0));
+        assertEquals(expected, output.subList(1, output.size()));
+    }
+
+    @Test
+    void truncatedImageFallsBackToSource() throws Exception {
+        compile();
+        List<String> expected = runFile(Vast.builder(), source);
+        byte[] bytes = Files.readAllBytes(image);
+        for (int length : new int[]{0, 3, 20, bytes.length / 2, bytes.length - 1}) {
+            Files.write(image, Arrays.copyOf(bytes, length));
+            List<String> output = runFile(Vast.builder(), image);
+            assertTrue(output.get(0).startsWith("@ [WARNING] Ignoring"), length + ": " + output.get(0));
+            assertEquals(expected, output.subList(1, output.size()), "truncated to " + length);
+        }
+    }
+
+    @Test
+    void corruptedImageWithoutSourceIsReported() throws Exception {
+        compile();
+        Files.write(image, Arrays.copyOf(Files.readAllBytes(image), 20));
+        Files.delete(source);
+        Exception e = assertThrows(Exception.class, () -> runFile(Vast.builder(), image));
+        assertTrue(e.getMessage().contains("is missing"), e.getMessage());
+    }
+
+    @Test
+    void invalidLengthsAreRejected() {
+        // 5 字节的变长整数 0xFFFFFFFF 解码为 -1
+        ByteBuffer negative = ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        assertThrows(IllegalArgumentException.class, () -> ScriptImage.readBytes(negative));
+        ByteBuffer oversized = ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> ScriptImage.readBytes(oversized));
+        assertArrayEquals(new byte[]{1, 2}, ScriptImage.readBytes(ByteBuffer.wrap(new byte[]{2, 1, 2, 3})));
+    }
+
+    @Test
+    void corruptedBytesAreReportedAsIOException() throws Exception {
+        compile();
+        byte[] bytes = Files.readAllBytes(image);
+        Path corrupted = directory.resolve("corrupted" + ScriptImage.EXTENSION);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            byte[] copy = bytes.clone();
+            int position = random.nextInt(copy.length);
+            copy[position] = (byte) (i % 2 == 0 ? random.nextInt(256) : copy[position] ^ 0x80);
+            Files.write(corrupted, copy);
+            try {
+                ScriptImage.open(corrupted).readProgram();
+            } catch (IOException e) {
+                // 预期：损坏的文件报告为 IOException，由 VM 回退到源文件
+            } catch (RuntimeException | Error e) {
+                fail("byte " + position + " of " + copy.length + ": " + e, e);
+            }
+        }
+    }
+}